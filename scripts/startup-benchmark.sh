@@ -0,0 +1,103 @@
+#!/usr/bin/env bash
+#
+# Measures cold start as time-to-first-successful-response for
+# /api/greetings and /api/customers/{id} in three modes:
+#   jvm          plain JVM
+#   jvm-aot      JVM + Spring AOT (-Dspring.aot.enabled=true)
+#   jvm-aot-cds  JVM + Spring AOT + AppCDS archive
+#
+# Build first:  ./mvnw -Paot-cds -Dmaven.test.skip=true package
+# Usage:        scripts/startup-benchmark.sh [runs] [port]
+# A start that does not answer within START_TIMEOUT seconds (default 120) aborts the run.
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${2:-18080}"
+START_TIMEOUT="${START_TIMEOUT:-120}"
+CDS_DIR="$(cd "$(dirname "$0")/.." && pwd)/target/aot-cds/cds"
+JAR="$(ls "$CDS_DIR"/*-cds.jar 2>/dev/null | head -n 1)"
+AUTH="user:user123"
+
+if [[ -z "$JAR" || ! -f "$CDS_DIR/application.jsa" ]]; then
+    echo "Missing $CDS_DIR artifacts; build with: ./mvnw -Paot-cds -Dmaven.test.skip=true package" >&2
+    exit 1
+fi
+
+# Milliseconds since the epoch. date +%s%3N is GNU-only, and macOS ships bash 3.2
+# without EPOCHREALTIME, so fall back to perl there.
+now_ms() {
+    if [[ -n "${EPOCHREALTIME:-}" ]]; then
+        local micros="${EPOCHREALTIME/[.,]/}"
+        echo $(( 10#$micros / 1000 ))
+    else
+        perl -MTime::HiRes=time -e 'printf "%d\n", time * 1000'
+    fi
+}
+
+# Polls the URL until it answers; fails if the JVM exits or START_TIMEOUT passes first.
+wait_for() {
+    local url="$1" pid="$2"
+    local deadline=$(( $(now_ms) + START_TIMEOUT * 1000 ))
+    until curl -fs -o /dev/null -u "$AUTH" "$url"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited before $url answered" >&2
+            return 1
+        fi
+        if (( $(now_ms) > deadline )); then
+            echo "No answer from $url within ${START_TIMEOUT}s" >&2
+            return 1
+        fi
+        sleep 0.01
+    done
+}
+
+run_once() {
+    local mode="$1"
+    local -a jvm_args=()
+    case "$mode" in
+        jvm)         ;;
+        jvm-aot)     jvm_args=(-Dspring.aot.enabled=true) ;;
+        jvm-aot-cds) jvm_args=(-Dspring.aot.enabled=true -XX:SharedArchiveFile=application.jsa) ;;
+    esac
+
+    local start pid greeting customer
+    start=$(now_ms)
+    (cd "$CDS_DIR" && exec java "${jvm_args[@]}" -jar "$(basename "$JAR")" \
+        --server.port="$PORT" --logging.level.root=WARN > /dev/null 2>&1) &
+    pid=$!
+
+    if ! wait_for "http://localhost:$PORT/api/greetings" "$pid"; then
+        kill "$pid" 2>/dev/null
+        return 1
+    fi
+    greeting=$(( $(now_ms) - start ))
+    if ! wait_for "http://localhost:$PORT/api/customers/1" "$pid"; then
+        kill "$pid" 2>/dev/null
+        return 1
+    fi
+    customer=$(( $(now_ms) - start ))
+
+    kill "$pid" 2>/dev/null
+    wait "$pid" 2>/dev/null || true
+    echo "$greeting $customer"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+printf "%-12s %22s %22s\n" "mode" "greetings median (ms)" "customers median (ms)"
+for mode in jvm jvm-aot jvm-aot-cds; do
+    results=()
+    for ((i = 0; i < RUNS; i++)); do
+        if ! result="$(run_once "$mode")"; then
+            echo "Run $((i + 1)) of $mode failed" >&2
+            exit 1
+        fi
+        results+=("$result")
+    done
+    greeting_median=$(printf "%s\n" "${results[@]}" | cut -d' ' -f1 | median)
+    customer_median=$(printf "%s\n" "${results[@]}" | cut -d' ' -f2 | median)
+    printf "%-12s %22s %22s\n" "$mode" "$greeting_median" "$customer_median"
+done
@@ -1,9 +1,12 @@
 package com.sanjeev.learnspring;
 
+import com.sanjeev.learnspring.config.aot.ApplicationRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(ApplicationRuntimeHints.class)
 public class LearnSpringApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,27 @@
+package com.sanjeev.learnspring.client.controller;
+
+import com.sanjeev.learnspring.client.service.ApiClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Downstream API client state: circuit breaker, latency and outcome metrics.
+ */
+@RestController
+@RequestMapping("/api/client")
+public class ApiClientController {
+
+    private final ApiClient apiClient;
+
+    public ApiClientController(ApiClient apiClient) {
+        this.apiClient = apiClient;
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> getStatus() {
+        return apiClient.getStatus();
+    }
+}
@@ -0,0 +1,46 @@
+package com.sanjeev.learnspring.client.dto;
+
+/**
+ * Response of a downstream API call. 4xx responses are returned as-is; only
+ * network errors, timeouts, 429 and 5xx are retried.
+ */
+public class ApiResponse {
+
+    private final int status;
+    private final String body;
+    private final int attempts;
+    private final boolean hedged;
+
+    public ApiResponse(int status, String body, int attempts, boolean hedged) {
+        this.status = status;
+        this.body = body;
+        this.attempts = attempts;
+        this.hedged = hedged;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Number of attempts made, 1 if the first attempt succeeded.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * True if the response came from a hedged request rather than the original one.
+     */
+    public boolean isHedged() {
+        return hedged;
+    }
+
+    public boolean isSuccessful() {
+        return status >= 200 && status < 300;
+    }
+}
@@ -0,0 +1,25 @@
+package com.sanjeev.learnspring.client.exception;
+
+/**
+ * Thrown when a downstream API call fails after all attempts.
+ * The status is the last HTTP status received, or 0 if no response arrived.
+ */
+public class ApiClientException extends RuntimeException {
+
+    private final int status;
+    private final int attempts;
+
+    public ApiClientException(String message, int status, int attempts, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+        this.attempts = attempts;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
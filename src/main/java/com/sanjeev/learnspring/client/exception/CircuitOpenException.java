@@ -0,0 +1,10 @@
+package com.sanjeev.learnspring.client.exception;
+
+/**
+ * Thrown without calling the downstream API while the circuit breaker is open.
+ */
+public class CircuitOpenException extends RuntimeException {
+    public CircuitOpenException(long retryAfterMillis) {
+        super("Circuit breaker is open; downstream API calls are rejected for another " + retryAfterMillis + "ms");
+    }
+}
@@ -0,0 +1,232 @@
+package com.sanjeev.learnspring.client.service;
+
+import com.sanjeev.learnspring.client.dto.ApiResponse;
+import com.sanjeev.learnspring.client.exception.ApiClientException;
+import com.sanjeev.learnspring.client.exception.CircuitOpenException;
+import com.sanjeev.learnspring.config.reload.ApiSettings;
+import com.sanjeev.learnspring.config.reload.LiveConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Client for the downstream API configured by app.api.* (ApiProperties).
+ *
+ * Built on the JDK HttpClient: requests are sent asynchronously on its non-blocking
+ * selector, and connections are kept alive and reused from its internal pool.
+ * Each GET goes through:
+ * <ul>
+ *   <li>the circuit breaker, which rejects calls while the downstream is failing;</li>
+ *   <li>up to retryCount retries on I/O errors, timeouts, 429 and 5xx, waiting
+ *       a random delay up to min(backoffMax, backoffInitial * 2^retry) in between (full jitter);</li>
+ *   <li>a per-attempt timeout of app.api.timeout ms;</li>
+ *   <li>optionally a hedged second request when an attempt has not answered after
+ *       app.api.hedge-delay ms; whichever answers first wins and the other is cancelled.</li>
+ * </ul>
+ * Settings are read from the live configuration snapshot on every call, so they
+ * follow hot reloads. Only GET is offered since retries and hedging need idempotent requests.
+ */
+@Service
+public class ApiClient {
+
+    static final String API_KEY_HEADER = "X-API-Key";
+
+    private final Supplier<ApiSettings> settings;
+    private final ApiClientMetrics metrics;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final HttpClient httpClient;
+
+    @Autowired
+    public ApiClient(LiveConfiguration liveConfiguration, ApiClientMetrics metrics) {
+        this(() -> liveConfiguration.current().getApi(), metrics);
+    }
+
+    ApiClient(Supplier<ApiSettings> settings, ApiClientMetrics metrics) {
+        this.settings = settings;
+        this.metrics = metrics;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(settings.get().timeout()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Blocking GET of a path relative to app.api.base-url.
+     *
+     * @throws ApiClientException if all attempts fail
+     * @throws CircuitOpenException if the circuit breaker is open
+     */
+    public ApiResponse get(String path) {
+        try {
+            return getAsync(path).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Non-blocking GET of a path relative to app.api.base-url.
+     */
+    public CompletableFuture<ApiResponse> getAsync(String path) {
+        ApiSettings api = settings.get();
+        // Built before acquiring: a half-open breaker's trial must always end in record()
+        HttpRequest request = newRequest(api, path);
+        if (!circuitBreaker.tryAcquire(api.breaker())) {
+            metrics.recordRejected();
+            return CompletableFuture.failedFuture(
+                    new CircuitOpenException(circuitBreaker.remainingOpenMillis(api.breaker())));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<ApiResponse> result = new CompletableFuture<>();
+        attempt(request, api, 1, result);
+        return result.whenComplete((response, error) -> {
+            boolean failed = error != null;
+            metrics.recordCall(System.nanoTime() - start, failed ? 0 : response.getStatus(), failed);
+            circuitBreaker.record(!failed, api.breaker());
+        });
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("baseUrl", settings.get().baseUrl());
+        status.put("circuitBreaker", circuitBreaker.getStatus());
+        status.put("metrics", metrics.getMetrics());
+        return status;
+    }
+
+    private void attempt(HttpRequest request, ApiSettings api, int attempt, CompletableFuture<ApiResponse> result) {
+        sendHedged(request, api.hedgeDelay()).whenComplete((exchange, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof HttpTimeoutException) {
+                metrics.recordTimeout();
+            }
+            int status = cause == null ? exchange.response.statusCode() : 0;
+            if (cause == null && exchange.hedged) {
+                metrics.recordHedgeWin();
+            }
+            if (cause == null && !isRetryable(status)) {
+                result.complete(new ApiResponse(status, exchange.response.body(), attempt, exchange.hedged));
+                return;
+            }
+            if (attempt > api.retryCount()) {
+                String reason = cause != null ? cause.toString() : "HTTP " + status;
+                result.completeExceptionally(new ApiClientException(
+                        "GET " + request.uri() + " failed after " + attempt + " attempt(s): " + reason,
+                        status, attempt, cause));
+                return;
+            }
+            metrics.recordRetry();
+            long delay = backoffMillis(api, attempt);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(request, api, attempt + 1, result));
+        });
+    }
+
+    /**
+     * Sends the request and, if it has not completed after hedgeDelay ms, a second copy.
+     */
+    private CompletableFuture<Exchange> sendHedged(HttpRequest request, long hedgeDelay) {
+        CompletableFuture<Exchange> winner = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        CompletableFuture<HttpResponse<String>> primary = send(request, false, winner, outstanding);
+        if (hedgeDelay <= 0) {
+            return winner;
+        }
+        CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (winner.isDone()) {
+                return;
+            }
+            outstanding.incrementAndGet();
+            metrics.recordHedge();
+            CompletableFuture<HttpResponse<String>> hedge = send(request, true, winner, outstanding);
+            // Cancelling the loser's future aborts its exchange
+            winner.whenComplete((exchange, error) -> {
+                primary.cancel(true);
+                hedge.cancel(true);
+            });
+        });
+        return winner;
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request, boolean hedged,
+                                                         CompletableFuture<Exchange> winner, AtomicInteger outstanding) {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> future = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        future.whenComplete((response, error) -> {
+            if (winner.isDone()) {
+                return;
+            }
+            metrics.recordAttempt(System.nanoTime() - start);
+            boolean last = outstanding.decrementAndGet() == 0;
+            if (error == null && (!isRetryable(response.statusCode()) || last)) {
+                winner.complete(new Exchange(response, hedged));
+            } else if (error != null && last) {
+                winner.completeExceptionally(error);
+            }
+        });
+        return future;
+    }
+
+    private static HttpRequest newRequest(ApiSettings api, String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(resolve(api.baseUrl(), path))
+                .timeout(Duration.ofMillis(api.timeout()))
+                .header("Accept", "application/json")
+                .GET();
+        if (api.key() != null && !api.key().isEmpty()) {
+            builder.header(API_KEY_HEADER, api.key());
+        }
+        return builder.build();
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private static long backoffMillis(ApiSettings api, int attempt) {
+        long cap = api.backoffMax();
+        long exponential = api.backoffInitial() << Math.min(attempt - 1, 30);
+        long bound = Math.max(1, Math.min(cap, exponential < 0 ? cap : exponential));
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static URI resolve(String baseUrl, String path) {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        return URI.create(path.startsWith("/") ? base + path : base + "/" + path);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static final class Exchange {
+        private final HttpResponse<String> response;
+        private final boolean hedged;
+
+        private Exchange(HttpResponse<String> response, boolean hedged) {
+            this.response = response;
+            this.hedged = hedged;
+        }
+    }
+}
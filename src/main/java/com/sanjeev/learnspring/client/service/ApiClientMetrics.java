@@ -0,0 +1,101 @@
+package com.sanjeev.learnspring.client.service;
+
+import com.sanjeev.learnspring.metrics.LatencyHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcome counters of the downstream API client.
+ *
+ * Call latency covers a whole logical call including retries and backoff; attempt
+ * latency covers each individual HTTP exchange.
+ */
+@Component
+public class ApiClientMetrics {
+
+    private final LatencyHistogram callLatency = new LatencyHistogram();
+    private final LatencyHistogram attemptLatency = new LatencyHistogram();
+    private final LongAdder success = new LongAdder();
+    private final LongAdder clientError = new LongAdder();
+    private final LongAdder failure = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    void recordAttempt(long nanos) {
+        attempts.increment();
+        attemptLatency.record(nanos);
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    void recordHedge() {
+        hedges.increment();
+    }
+
+    void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordCall(long nanos, int status, boolean failed) {
+        callLatency.record(nanos);
+        if (failed) {
+            failure.increment();
+        } else if (status >= 400) {
+            clientError.increment();
+        } else {
+            success.increment();
+        }
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> outcomes = new LinkedHashMap<>();
+        outcomes.put("success", success.sum());
+        outcomes.put("clientError", clientError.sum());
+        outcomes.put("failure", failure.sum());
+        outcomes.put("rejectedByBreaker", rejected.sum());
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("outcomes", outcomes);
+        metrics.put("attempts", attempts.sum());
+        metrics.put("retries", retries.sum());
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("hedges", hedges.sum());
+        metrics.put("hedgeWins", hedgeWins.sum());
+        metrics.put("callLatency", callLatency.toMap());
+        metrics.put("attemptLatency", attemptLatency.toMap());
+        return metrics;
+    }
+}
@@ -0,0 +1,131 @@
+package com.sanjeev.learnspring.client.service;
+
+import com.sanjeev.learnspring.config.reload.ApiSettings;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Count-based circuit breaker for the downstream API.
+ *
+ * CLOSED: calls pass and outcomes fill a sliding window of the last windowSize calls;
+ * once at least minimumCalls are recorded and the failure rate reaches the threshold
+ * the breaker OPENs. OPEN: calls are rejected until openDuration has passed.
+ * HALF_OPEN: one trial call is let through; success closes the breaker with an empty
+ * window, failure opens it again.
+ *
+ * Settings are passed on every call so hot-reloaded values apply immediately; the
+ * window is restarted if its size changes.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private State state = State.CLOSED;
+    private boolean[] window = new boolean[0];
+    private int windowCursor;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long rejected;
+
+    /**
+     * Whether a call may proceed; every permitted call must be followed by {@link #record}.
+     */
+    public synchronized boolean tryAcquire(ApiSettings.Breaker settings) {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < settings.openDuration()) {
+                rejected++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejected++;
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void record(boolean success, ApiSettings.Breaker settings) {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (success) {
+                state = State.CLOSED;
+                resetWindow(settings.windowSize());
+            } else {
+                open();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call admitted before the breaker opened
+            return;
+        }
+        if (window.length != settings.windowSize()) {
+            resetWindow(settings.windowSize());
+        }
+        if (recorded == window.length) {
+            if (!window[windowCursor]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[windowCursor] = success;
+        if (!success) {
+            failures++;
+        }
+        windowCursor = (windowCursor + 1) % window.length;
+
+        if (recorded >= settings.minimumCalls()
+                && failures * 100L >= (long) settings.failureRateThreshold() * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * Milliseconds until an open breaker lets a trial call through, 0 otherwise.
+     */
+    public synchronized long remainingOpenMillis(ApiSettings.Breaker settings) {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, settings.openDuration() - (System.currentTimeMillis() - openedAt));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("windowCalls", recorded);
+        status.put("windowFailures", failures);
+        status.put("rejected", rejected);
+        return status;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        resetWindow(window.length);
+    }
+
+    private void resetWindow(int size) {
+        window = new boolean[size];
+        windowCursor = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
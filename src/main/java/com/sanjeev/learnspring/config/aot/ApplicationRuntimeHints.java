@@ -0,0 +1,67 @@
+package com.sanjeev.learnspring.config.aot;
+
+import com.sanjeev.learnspring.aop.annotation.Auditable;
+import com.sanjeev.learnspring.aop.annotation.TrackExecutionTime;
+import com.sanjeev.learnspring.aop.aspect.AuditAspect;
+import com.sanjeev.learnspring.aop.aspect.LoggingAspect;
+import com.sanjeev.learnspring.aop.aspect.PerformanceAspect;
+import com.sanjeev.learnspring.config.properties.ApiProperties;
+import com.sanjeev.learnspring.config.properties.DatabaseProperties;
+import com.sanjeev.learnspring.jpa.cache.RecordStoreProperties;
+import com.sanjeev.learnspring.jpa.datasource.ReplicaRoutingProperties;
+import com.sanjeev.learnspring.jpa.feed.StatusFeedProperties;
+import com.sanjeev.learnspring.jpa.invalidation.InvalidationProperties;
+import com.sanjeev.learnspring.jpa.maintenance.ArchiveProperties;
+import com.sanjeev.learnspring.jpa.maintenance.BackfillProperties;
+import com.sanjeev.learnspring.jpa.maintenance.PurgeProperties;
+import com.sanjeev.learnspring.jpa.outbox.OutboxProperties;
+import com.sanjeev.learnspring.jpa.shard.ShardingProperties;
+import com.sanjeev.learnspring.jpa.sql.SqlMetricsProperties;
+import com.sanjeev.learnspring.lifecycle.startup.CommandLineRunnerTimingAspect;
+import com.sanjeev.learnspring.notification.properties.NotificationProperties;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Reflection and proxy hints the AOT-processed application needs at runtime.
+ *
+ * AspectJ resolves advice methods and binds annotation parameters reflectively, and
+ * annotation instances are JDK proxies. @ConfigurationProperties classes are bound
+ * through their getters/setters, including the nested pool settings.
+ */
+public class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> ASPECTS = List.of(
+            LoggingAspect.class,
+            PerformanceAspect.class,
+            AuditAspect.class,
+            CommandLineRunnerTimingAspect.class);
+
+    private static final List<Class<?>> ADVICE_ANNOTATIONS = List.of(
+            TrackExecutionTime.class,
+            Auditable.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> aspect : ASPECTS) {
+            hints.reflection().registerType(aspect,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        for (Class<?> annotation : ADVICE_ANNOTATIONS) {
+            hints.reflection().registerType(annotation, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.proxies().registerJdkProxy(annotation);
+        }
+        BindableRuntimeHintsRegistrar.forTypes(DatabaseProperties.class, ApiProperties.class,
+                        NotificationProperties.class, OutboxProperties.class, StatusFeedProperties.class,
+                        ReplicaRoutingProperties.class, BackfillProperties.class, SqlMetricsProperties.class,
+                        PurgeProperties.class, ArchiveProperties.class, RecordStoreProperties.class,
+                        InvalidationProperties.class,
+                ShardingProperties.class)
+                .registerHints(hints, classLoader);
+    }
+}
@@ -1,38 +1,46 @@
 package com.sanjeev.learnspring.config.controller;
 
-import com.sanjeev.learnspring.config.service.AppInfoService;
-import com.sanjeev.learnspring.config.service.ConfigurationService;
-import com.sanjeev.learnspring.config.service.EnvironmentService;
+import com.sanjeev.learnspring.config.event.ConfigurationChangedEvent.ValueChange;
+import com.sanjeev.learnspring.config.exception.InvalidConfigurationException;
+import com.sanjeev.learnspring.config.reload.LiveConfiguration;
+import com.sanjeev.learnspring.config.service.ConfigurationSnapshotService;
+import com.sanjeev.learnspring.config.service.ConfigurationSnapshotService.Section;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * REST controller demonstrating configuration and property management.
+ * The configuration views are served from pre-rendered snapshots (see ConfigurationSnapshotService).
  */
 @RestController
 @RequestMapping("/api/config")
 public class ConfigurationController {
 
-    private final AppInfoService appInfoService;
-    private final ConfigurationService configurationService;
-    private final EnvironmentService environmentService;
+    private final ConfigurationSnapshotService snapshotService;
+    private final LiveConfiguration liveConfiguration;
     private final Environment environment;
 
     @Autowired
-    public ConfigurationController(AppInfoService appInfoService,
-                                    ConfigurationService configurationService,
-                                    EnvironmentService environmentService,
+    public ConfigurationController(ConfigurationSnapshotService snapshotService,
+                                    LiveConfiguration liveConfiguration,
                                     Environment environment) {
-        this.appInfoService = appInfoService;
-        this.configurationService = configurationService;
-        this.environmentService = environmentService;
+        this.snapshotService = snapshotService;
+        this.liveConfiguration = liveConfiguration;
         this.environment = environment;
     }
 
@@ -40,79 +48,40 @@ public class ConfigurationController {
      * Get application info from @Value properties.
      */
     @GetMapping("/app-info")
-    public Map<String, Object> getAppInfo() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("name", appInfoService.getAppName());
-        response.put("version", appInfoService.getAppVersion());
-        response.put("description", appInfoService.getAppDescription());
-        response.put("environment", appInfoService.getEnvironment());
-        response.put("systemUser", appInfoService.getSystemUser());
-        response.put("fullInfo", appInfoService.getFullInfo());
-        response.put("features", Map.of(
-                "emailEnabled", appInfoService.isEmailEnabled(),
-                "smsEnabled", appInfoService.isSmsEnabled(),
-                "maxUploadSize", appInfoService.getMaxUploadSize()
-        ));
-        return response;
+    public void getAppInfo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(Section.APP_INFO, request, response);
     }
 
     /**
      * Get database configuration from @ConfigurationProperties.
      */
     @GetMapping("/database")
-    public Map<String, Object> getDatabaseConfig() {
-        var dbProps = configurationService.getDatabaseProperties();
-        Map<String, Object> response = new HashMap<>();
-        response.put("url", dbProps.getUrl());
-        response.put("username", dbProps.getUsername());
-        response.put("poolMinSize", dbProps.getPool().getMinSize());
-        response.put("poolMaxSize", dbProps.getPool().getMaxSize());
-        response.put("poolTimeout", dbProps.getPool().getTimeout());
-        response.put("info", configurationService.getDatabaseInfo());
-        return response;
+    public void getDatabaseConfig(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(Section.DATABASE, request, response);
     }
 
     /**
      * Get API configuration from @ConfigurationProperties.
      */
     @GetMapping("/api")
-    public Map<String, Object> getApiConfig() {
-        var apiProps = configurationService.getApiProperties();
-        Map<String, Object> response = new HashMap<>();
-        response.put("baseUrl", apiProps.getBaseUrl());
-        response.put("timeout", apiProps.getTimeout());
-        response.put("retryCount", apiProps.getRetryCount());
-        response.put("keyConfigured", apiProps.getKey() != null && !apiProps.getKey().isEmpty());
-        response.put("info", configurationService.getApiInfo());
-        return response;
+    public void getApiConfig(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(Section.API, request, response);
     }
 
     /**
      * Get environment-specific service info (demonstrates @Profile).
      */
     @GetMapping("/environment")
-    public Map<String, Object> getEnvironmentInfo() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("name", environmentService.getEnvironmentName());
-        response.put("info", environmentService.getEnvironmentInfo());
-        response.put("debugEnabled", environmentService.isDebugEnabled());
-        response.put("logLevel", environmentService.getLogLevel());
-        response.put("activeProfiles", Arrays.asList(environment.getActiveProfiles()));
-        response.put("defaultProfiles", Arrays.asList(environment.getDefaultProfiles()));
-        return response;
+    public void getEnvironmentInfo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(Section.ENVIRONMENT, request, response);
     }
 
     /**
      * Get all configuration in one endpoint.
      */
     @GetMapping("/all")
-    public Map<String, Object> getAllConfig() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("appInfo", getAppInfo());
-        response.put("database", getDatabaseConfig());
-        response.put("api", getApiConfig());
-        response.put("environment", getEnvironmentInfo());
-        return response;
+    public void getAllConfig(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(Section.ALL, request, response);
     }
 
     /**
@@ -128,5 +97,82 @@ public class ConfigurationController {
         response.put("propertyWithDefault", environment.getProperty("non.existent.property", "DEFAULT_VALUE"));
         return response;
     }
-}
 
+    /**
+     * Reloads the configuration files now instead of waiting for the file watcher.
+     * Only the changed keys are returned since values may be secrets.
+     */
+    @PostMapping("/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> reload() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Map<String, ValueChange> changes = liveConfiguration.reload();
+            response.put("changedKeys", changes.keySet());
+            response.put("version", liveConfiguration.current().getVersion());
+            return ResponseEntity.ok(response);
+        } catch (InvalidConfigurationException ex) {
+            response.put("error", ex.getMessage());
+            response.put("version", liveConfiguration.current().getVersion());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Writes a pre-rendered snapshot section straight to the response,
+     * gzip-encoded when the client accepts it. Nothing is built per request.
+     */
+    private void write(Section section, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ConfigurationSnapshotService.RenderedSection rendered = snapshotService.get(section);
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = gzip ? rendered.getGzip() : rendered.getJson();
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed (or covered by "*") with a
+     * non-zero q-value. An explicit gzip entry wins over the wildcard.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sanjeev.learnspring.config.event;
+
+import com.sanjeev.learnspring.config.reload.ConfigSnapshot;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Published by LiveConfiguration after a new snapshot has been swapped in.
+ * Only published when at least one app.* property actually changed.
+ */
+public class ConfigurationChangedEvent {
+
+    private final ConfigSnapshot previous;
+    private final ConfigSnapshot current;
+    private final Map<String, ValueChange> changes;
+
+    public ConfigurationChangedEvent(ConfigSnapshot previous, ConfigSnapshot current, Map<String, ValueChange> changes) {
+        this.previous = previous;
+        this.current = current;
+        this.changes = Map.copyOf(changes);
+    }
+
+    public ConfigSnapshot getPrevious() {
+        return previous;
+    }
+
+    public ConfigSnapshot getCurrent() {
+        return current;
+    }
+
+    /**
+     * Changed property keys (e.g. "app.api.timeout") with their old and new values.
+     */
+    public Map<String, ValueChange> getChanges() {
+        return changes;
+    }
+
+    public boolean hasChanged(String key) {
+        return changes.containsKey(key);
+    }
+
+    /**
+     * True if any changed key starts with the given prefix, e.g. "app.database.".
+     */
+    public boolean hasChangedUnder(String prefix) {
+        return changes.keySet().stream().anyMatch(key -> key.startsWith(prefix));
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigurationChangedEvent{" +
+                "version=" + current.getVersion() +
+                ", changedKeys=" + changes.keySet() +
+                '}';
+    }
+
+    /**
+     * Old and new value of one property; either side is null when the key was added or removed.
+     */
+    public static final class ValueChange {
+        private final String oldValue;
+        private final String newValue;
+
+        public ValueChange(String oldValue, String newValue) {
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        public String getOldValue() {
+            return oldValue;
+        }
+
+        public String getNewValue() {
+            return newValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ValueChange that)) return false;
+            return Objects.equals(oldValue, that.oldValue) && Objects.equals(newValue, that.newValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(oldValue, newValue);
+        }
+
+        @Override
+        public String toString() {
+            return oldValue + " -> " + newValue;
+        }
+    }
+}
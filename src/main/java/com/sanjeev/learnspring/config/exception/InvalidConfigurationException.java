@@ -0,0 +1,10 @@
+package com.sanjeev.learnspring.config.exception;
+
+/**
+ * Thrown when reloaded configuration fails binding or validation; the previous snapshot stays active.
+ */
+public class InvalidConfigurationException extends RuntimeException {
+    public InvalidConfigurationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,5 +1,7 @@
 package com.sanjeev.learnspring.config.properties;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -8,6 +10,9 @@ import org.springframework.validation.annotation.Validated;
 
 /**
  * Type-safe configuration properties for API settings.
+ *
+ * This bean is bound once at startup and is not refreshed by a configuration reload;
+ * current values come from LiveConfiguration.current().getApi().
  */
 @Component
 @ConfigurationProperties(prefix = "app.api")
@@ -25,6 +30,20 @@ public class ApiProperties {
 
     private String key;
 
+    // Exponential backoff between retries (ms); each delay is jittered between 0 and the cap
+    @Min(value = 1, message = "Initial backoff must be at least 1ms")
+    private long backoffInitial = 100;
+
+    @Min(value = 1, message = "Maximum backoff must be at least 1ms")
+    private long backoffMax = 2000;
+
+    // Send a second, hedged request if the first has not answered after this many ms (0 = off)
+    @Min(value = 0, message = "Hedge delay cannot be negative")
+    private long hedgeDelay = 0;
+
+    @Valid
+    private BreakerProperties breaker = new BreakerProperties();
+
     // Getters and Setters
     public String getBaseUrl() {
         return baseUrl;
@@ -57,5 +76,87 @@ public class ApiProperties {
     public void setKey(String key) {
         this.key = key;
     }
+
+    public long getBackoffInitial() {
+        return backoffInitial;
+    }
+
+    public void setBackoffInitial(long backoffInitial) {
+        this.backoffInitial = backoffInitial;
+    }
+
+    public long getBackoffMax() {
+        return backoffMax;
+    }
+
+    public void setBackoffMax(long backoffMax) {
+        this.backoffMax = backoffMax;
+    }
+
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public void setHedgeDelay(long hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    public BreakerProperties getBreaker() {
+        return breaker;
+    }
+
+    public void setBreaker(BreakerProperties breaker) {
+        this.breaker = breaker;
+    }
+
+    /**
+     * Nested configuration for the client circuit breaker.
+     */
+    public static class BreakerProperties {
+        // Number of most recent calls the failure rate is computed over
+        @Min(value = 1, message = "Breaker window must be at least 1 call")
+        private int windowSize = 20;
+
+        @Min(value = 1, message = "Breaker minimum calls must be at least 1")
+        private int minimumCalls = 10;
+
+        @Min(value = 1, message = "Breaker failure rate threshold must be at least 1%")
+        @Max(value = 100, message = "Breaker failure rate threshold must not exceed 100%")
+        private int failureRateThreshold = 50;
+
+        private long openDuration = 30000;
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public long getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(long openDuration) {
+            this.openDuration = openDuration;
+        }
+    }
 }
 
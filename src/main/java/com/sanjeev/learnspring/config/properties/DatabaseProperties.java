@@ -10,6 +10,9 @@ import org.springframework.validation.annotation.Validated;
 /**
  * Type-safe configuration properties for database settings.
  * Demonstrates @ConfigurationProperties with validation.
+ *
+ * This bean is bound once at startup and is not refreshed by a configuration reload;
+ * current values come from LiveConfiguration.current().getDatabase().
  */
 @Component
 @ConfigurationProperties(prefix = "app.database")
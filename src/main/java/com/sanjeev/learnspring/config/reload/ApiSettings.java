@@ -0,0 +1,27 @@
+package com.sanjeev.learnspring.config.reload;
+
+import com.sanjeev.learnspring.config.properties.ApiProperties;
+
+/**
+ * Immutable copy of the app.api.* values held by a {@link ConfigSnapshot}.
+ */
+public record ApiSettings(String baseUrl, int timeout, int retryCount, String key,
+                          long backoffInitial, long backoffMax, long hedgeDelay, Breaker breaker) {
+
+    public static ApiSettings of(ApiProperties properties) {
+        return new ApiSettings(properties.getBaseUrl(), properties.getTimeout(), properties.getRetryCount(),
+                properties.getKey(), properties.getBackoffInitial(), properties.getBackoffMax(),
+                properties.getHedgeDelay(), Breaker.of(properties.getBreaker()));
+    }
+
+    /**
+     * Circuit breaker settings, app.api.breaker.*.
+     */
+    public record Breaker(int windowSize, int minimumCalls, int failureRateThreshold, long openDuration) {
+
+        public static Breaker of(ApiProperties.BreakerProperties properties) {
+            return new Breaker(properties.getWindowSize(), properties.getMinimumCalls(),
+                    properties.getFailureRateThreshold(), properties.getOpenDuration());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.sanjeev.learnspring.config.reload;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One immutable, validated view of the application configuration.
+ *
+ * The bound DatabaseProperties and ApiProperties are copied into records, so nothing
+ * reachable from a snapshot can change; a reload replaces the whole snapshot.
+ */
+public final class ConfigSnapshot {
+
+    private final long version;
+    private final Instant loadedAt;
+    private final String appName;
+    private final String appVersion;
+    private final String appDescription;
+    private final String environment;
+    private final boolean emailEnabled;
+    private final boolean smsEnabled;
+    private final long maxUploadSize;
+    private final DatabaseSettings database;
+    private final ApiSettings api;
+    private final Map<String, String> values;
+
+    ConfigSnapshot(long version, String appName, String appVersion, String appDescription, String environment,
+                   boolean emailEnabled, boolean smsEnabled, long maxUploadSize,
+                   DatabaseSettings database, ApiSettings api, Map<String, String> values) {
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.appName = appName;
+        this.appVersion = appVersion;
+        this.appDescription = appDescription;
+        this.environment = environment;
+        this.emailEnabled = emailEnabled;
+        this.smsEnabled = smsEnabled;
+        this.maxUploadSize = maxUploadSize;
+        this.database = database;
+        this.api = api;
+        this.values = Map.copyOf(values);
+    }
+
+    /**
+     * 1 for the startup snapshot, incremented by every successful reload.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public String getAppDescription() {
+        return appDescription;
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public boolean isEmailEnabled() {
+        return emailEnabled;
+    }
+
+    public boolean isSmsEnabled() {
+        return smsEnabled;
+    }
+
+    public long getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    public DatabaseSettings getDatabase() {
+        return database;
+    }
+
+    public ApiSettings getApi() {
+        return api;
+    }
+
+    /**
+     * Resolved value of every app.* property key, used to compute change diffs.
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+}
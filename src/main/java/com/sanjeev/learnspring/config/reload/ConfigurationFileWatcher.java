@@ -0,0 +1,142 @@
+package com.sanjeev.learnspring.config.reload;
+
+import com.sanjeev.learnspring.config.exception.InvalidConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Watches the reload location with an NIO WatchService and calls {@link LiveConfiguration#reload()}
+ * when one of its properties files is created, modified or deleted.
+ *
+ * Editors and deploy tools usually produce several events per save, so events are
+ * collected until the directory has been quiet for app.config.reload.debounce ms.
+ * If the directory does not exist at startup nothing is watched.
+ */
+@Component
+@ConditionalOnProperty(name = "app.config.reload.enabled", havingValue = "true", matchIfMissing = true)
+public class ConfigurationFileWatcher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigurationFileWatcher.class);
+
+    private final LiveConfiguration liveConfiguration;
+    private final long debounceMillis;
+
+    private volatile WatchService watchService;
+    private volatile Thread watcherThread;
+
+    public ConfigurationFileWatcher(LiveConfiguration liveConfiguration,
+                                    @Value("${app.config.reload.debounce:250}") long debounceMillis) {
+        this.liveConfiguration = liveConfiguration;
+        this.debounceMillis = debounceMillis;
+    }
+
+    @Override
+    public synchronized void start() {
+        Path directory = liveConfiguration.getLocation();
+        if (!Files.isDirectory(directory)) {
+            log.info("Configuration reload location {} does not exist; not watching", directory);
+            return;
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchService = service;
+        } catch (IOException ex) {
+            log.warn("Could not watch configuration location {}: {}", directory, ex.getMessage());
+            return;
+        }
+        Thread thread = new Thread(this::watch, "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        watcherThread = thread;
+        log.info("Watching {} for configuration changes", directory);
+    }
+
+    @Override
+    public synchronized void stop() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ex) {
+                log.debug("Error closing configuration watch service", ex);
+            }
+        }
+        Thread thread = watcherThread;
+        watcherThread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return watcherThread != null;
+    }
+
+    private void watch() {
+        WatchService service = watchService;
+        Set<Path> watchedNames = liveConfiguration.getWatchedFiles().stream()
+                .map(Path::getFileName)
+                .collect(Collectors.toSet());
+        try {
+            while (service != null) {
+                boolean relevant = drain(service.take(), watchedNames);
+                // Keep collecting until the directory goes quiet
+                WatchKey next;
+                while ((next = service.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(next, watchedNames);
+                }
+                if (relevant) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // stopped
+        }
+    }
+
+    private static boolean drain(WatchKey key, Set<Path> watchedNames) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (event.context() instanceof Path name && watchedNames.contains(name))) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private void reload() {
+        try {
+            liveConfiguration.reload();
+        } catch (InvalidConfigurationException ex) {
+            log.warn("Rejected configuration change, keeping v{}: {}",
+                    liveConfiguration.current().getVersion(), ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Configuration reload failed", ex);
+        }
+    }
+}
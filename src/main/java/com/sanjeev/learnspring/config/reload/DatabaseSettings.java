@@ -0,0 +1,24 @@
+package com.sanjeev.learnspring.config.reload;
+
+import com.sanjeev.learnspring.config.properties.DatabaseProperties;
+
+/**
+ * Immutable copy of the app.database.* values held by a {@link ConfigSnapshot}.
+ */
+public record DatabaseSettings(String url, String username, String password, Pool pool) {
+
+    public static DatabaseSettings of(DatabaseProperties properties) {
+        return new DatabaseSettings(properties.getUrl(), properties.getUsername(), properties.getPassword(),
+                Pool.of(properties.getPool()));
+    }
+
+    /**
+     * Connection pool sizing, app.database.pool.*.
+     */
+    public record Pool(int minSize, int maxSize, long timeout) {
+
+        public static Pool of(DatabaseProperties.PoolProperties properties) {
+            return new Pool(properties.getMinSize(), properties.getMaxSize(), properties.getTimeout());
+        }
+    }
+}
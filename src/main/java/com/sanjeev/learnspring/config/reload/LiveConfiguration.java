@@ -0,0 +1,262 @@
+package com.sanjeev.learnspring.config.reload;
+
+import com.sanjeev.learnspring.config.event.ConfigurationChangedEvent;
+import com.sanjeev.learnspring.config.event.ConfigurationChangedEvent.ValueChange;
+import com.sanjeev.learnspring.config.exception.InvalidConfigurationException;
+import com.sanjeev.learnspring.config.properties.ApiProperties;
+import com.sanjeev.learnspring.config.properties.DatabaseProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.bind.validation.ValidationBindHandler;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Holder of the current {@link ConfigSnapshot}.
+ *
+ * Hot-path readers call {@link #current()}, which is a single volatile read. {@link #reload()}
+ * re-reads application.properties and application-{profile}.properties from the reload
+ * location (Spring Boot's ./config directory by default), layers them over the environment,
+ * binds and validates DatabaseProperties and ApiProperties with their @Validated constraints,
+ * and only then swaps in the new snapshot. Invalid files leave the current snapshot in place.
+ *
+ * After a swap the file values are also exposed through the Environment, and a
+ * {@link ConfigurationChangedEvent} carrying the diff is published to listeners. The
+ * reloaded values sit just above the config files loaded at startup, so command-line
+ * arguments, system properties and environment variables still override them.
+ *
+ * Only the snapshot is live. Beans bound once at startup, such as the DatabaseProperties
+ * and ApiProperties beans, other @ConfigurationProperties classes and @Value fields, keep
+ * their startup values; code that must follow a reload reads {@link #current()} or listens
+ * for the event, as ConnectionPoolManager does.
+ */
+@Component
+public class LiveConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveConfiguration.class);
+
+    /**
+     * Name of the property source holding the reloaded file values.
+     */
+    public static final String PROPERTY_SOURCE_NAME = "hotReloadedConfiguration";
+
+    private static final String APP_PREFIX = "app.";
+
+    // Spring Boot's name prefix for property sources loaded from config data files
+    private static final String CONFIG_FILE_SOURCE_PREFIX = "Config resource ";
+
+    private final ConfigurableEnvironment environment;
+    private final SpringValidatorAdapter validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path location;
+
+    private volatile ConfigSnapshot current;
+
+    public LiveConfiguration(ConfigurableEnvironment environment,
+                             jakarta.validation.Validator validator,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${app.config.reload.location:config}") String location) {
+        this.environment = environment;
+        this.validator = new SpringValidatorAdapter(validator);
+        this.eventPublisher = eventPublisher;
+        this.location = Paths.get(location).toAbsolutePath().normalize();
+        this.current = load(environment.getPropertySources(), 1);
+    }
+
+    /**
+     * The configuration readers should use right now.
+     */
+    public ConfigSnapshot current() {
+        return current;
+    }
+
+    public Path getLocation() {
+        return location;
+    }
+
+    /**
+     * Files in the reload location that feed the snapshot, lowest precedence first.
+     */
+    public List<Path> getWatchedFiles() {
+        List<Path> files = new ArrayList<>();
+        files.add(location.resolve("application.properties"));
+        for (String profile : environment.getActiveProfiles()) {
+            files.add(location.resolve("application-" + profile + ".properties"));
+        }
+        return files;
+    }
+
+    /**
+     * Re-reads the configuration files and publishes a new snapshot.
+     *
+     * @return the changed keys; empty if nothing changed, in which case no event is published
+     * @throws InvalidConfigurationException if the files cannot be read, bound or validated
+     */
+    public synchronized Map<String, ValueChange> reload() {
+        Map<String, Object> fileValues = readFiles();
+
+        MutablePropertySources sources = new MutablePropertySources();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (!PROPERTY_SOURCE_NAME.equals(source.getName())) {
+                sources.addLast(source);
+            }
+        }
+        addAboveConfigFiles(sources, new MapPropertySource(PROPERTY_SOURCE_NAME, fileValues));
+
+        ConfigSnapshot previous = current;
+        ConfigSnapshot next = load(sources, previous.getVersion() + 1);
+        Map<String, ValueChange> changes = diff(previous.getValues(), next.getValues());
+        if (changes.isEmpty()) {
+            log.debug("Configuration reloaded from {}: no changes", location);
+            return changes;
+        }
+
+        MutablePropertySources live = environment.getPropertySources();
+        MapPropertySource reloaded = new MapPropertySource(PROPERTY_SOURCE_NAME, fileValues);
+        if (live.contains(PROPERTY_SOURCE_NAME)) {
+            live.replace(PROPERTY_SOURCE_NAME, reloaded);
+        } else {
+            addAboveConfigFiles(live, reloaded);
+        }
+        current = next;
+
+        // Values may be secrets, so only the keys are logged
+        log.info("Configuration v{} loaded from {}; changed: {}", next.getVersion(), location, changes.keySet());
+        eventPublisher.publishEvent(new ConfigurationChangedEvent(previous, next, changes));
+        return changes;
+    }
+
+    private ConfigSnapshot load(Iterable<PropertySource<?>> sources, long version) {
+        Binder binder = new Binder(ConfigurationPropertySources.from(sources),
+                new PropertySourcesPlaceholdersResolver(sources));
+        ValidationBindHandler validation = new ValidationBindHandler(validator);
+        try {
+            DatabaseProperties database = binder.bindOrCreate("app.database", Bindable.of(DatabaseProperties.class), validation);
+            ApiProperties api = binder.bindOrCreate("app.api", Bindable.of(ApiProperties.class), validation);
+            return new ConfigSnapshot(version,
+                    binder.bind("app.name", String.class).orElse(null),
+                    binder.bind("app.version", String.class).orElse(null),
+                    binder.bind("app.description", String.class).orElse(null),
+                    binder.bind("app.environment", String.class).orElse("UNKNOWN"),
+                    binder.bind("app.features.email-enabled", Boolean.class).orElse(false),
+                    binder.bind("app.features.sms-enabled", Boolean.class).orElse(false),
+                    binder.bind("app.features.max-upload-size", Long.class).orElse(0L),
+                    DatabaseSettings.of(database), ApiSettings.of(api), appValues(sources));
+        } catch (BindException ex) {
+            throw new InvalidConfigurationException("Invalid configuration: " + rootMessage(ex), ex);
+        }
+    }
+
+    /**
+     * Inserts the reloaded values just above the highest-precedence config file source,
+     * or last if there is none.
+     */
+    private static void addAboveConfigFiles(MutablePropertySources sources, PropertySource<?> reloaded) {
+        for (PropertySource<?> source : sources) {
+            if (source.getName().startsWith(CONFIG_FILE_SOURCE_PREFIX)) {
+                sources.addBefore(source.getName(), reloaded);
+                return;
+            }
+        }
+        sources.addLast(reloaded);
+    }
+
+    private Map<String, Object> readFiles() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Path file : getWatchedFiles()) {
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException ex) {
+                throw new InvalidConfigurationException("Could not read " + file, ex);
+            }
+            properties.stringPropertyNames().forEach(key -> values.put(key, properties.getProperty(key)));
+        }
+        return values;
+    }
+
+    /**
+     * Resolved values of all app.* keys, skipping Spring Boot's attached relaxed-name view.
+     */
+    private static Map<String, String> appValues(Iterable<PropertySource<?>> sources) {
+        MutablePropertySources plain = new MutablePropertySources();
+        TreeSet<String> keys = new TreeSet<>();
+        for (PropertySource<?> source : sources) {
+            if (ConfigurationPropertySources.isAttachedConfigurationPropertySource(source)) {
+                continue;
+            }
+            plain.addLast(source);
+            if (source instanceof EnumerablePropertySource<?> enumerable) {
+                for (String name : enumerable.getPropertyNames()) {
+                    if (name.startsWith(APP_PREFIX)) {
+                        keys.add(name);
+                    }
+                }
+            }
+        }
+        PropertySourcesPropertyResolver resolver = new PropertySourcesPropertyResolver(plain);
+        resolver.setIgnoreUnresolvableNestedPlaceholders(true);
+        Map<String, String> values = new HashMap<>();
+        for (String key : keys) {
+            String value = resolver.getProperty(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    private static Map<String, ValueChange> diff(Map<String, String> before, Map<String, String> after) {
+        Map<String, ValueChange> changes = new TreeMap<>();
+        TreeSet<String> keys = new TreeSet<>(before.keySet());
+        keys.addAll(after.keySet());
+        for (String key : keys) {
+            String oldValue = before.get(key);
+            String newValue = after.get(key);
+            if (!Objects.equals(oldValue, newValue)) {
+                changes.put(key, new ValueChange(oldValue, newValue));
+            }
+        }
+        return changes;
+    }
+
+    private static String rootMessage(Throwable ex) {
+        Throwable root = ex;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
@@ -1,54 +1,43 @@
 package com.sanjeev.learnspring.config.service;
 
+import com.sanjeev.learnspring.config.reload.ConfigSnapshot;
+import com.sanjeev.learnspring.config.reload.LiveConfiguration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
- * Service demonstrating @Value annotation for simple property injection.
+ * Service exposing the simple app.* properties.
+ * Values come from the current hot-reloadable snapshot; the system user is still
+ * injected once with @Value and SpEL since it does not come from the properties files.
  */
 @Service
 public class AppInfoService {
 
-    @Value("${app.name}")
-    private String appName;
-
-    @Value("${app.version}")
-    private String appVersion;
-
-    @Value("${app.description}")
-    private String appDescription;
-
-    // @Value with default value
-    @Value("${app.environment:UNKNOWN}")
-    private String environment;
+    private final LiveConfiguration liveConfiguration;
 
     // @Value with SpEL (Spring Expression Language)
     @Value("#{systemProperties['user.name']}")
     private String systemUser;
 
-    @Value("${app.features.email-enabled}")
-    private boolean emailEnabled;
-
-    @Value("${app.features.sms-enabled}")
-    private boolean smsEnabled;
-
-    @Value("${app.features.max-upload-size}")
-    private long maxUploadSize;
+    public AppInfoService(LiveConfiguration liveConfiguration) {
+        this.liveConfiguration = liveConfiguration;
+    }
 
     public String getAppName() {
-        return appName;
+        return liveConfiguration.current().getAppName();
     }
 
     public String getAppVersion() {
-        return appVersion;
+        return liveConfiguration.current().getAppVersion();
     }
 
     public String getAppDescription() {
-        return appDescription;
+        return liveConfiguration.current().getAppDescription();
     }
 
+    // Defaults to "UNKNOWN" when app.environment is not set
     public String getEnvironment() {
-        return environment;
+        return liveConfiguration.current().getEnvironment();
     }
 
     public String getSystemUser() {
@@ -56,20 +45,22 @@ public class AppInfoService {
     }
 
     public boolean isEmailEnabled() {
-        return emailEnabled;
+        return liveConfiguration.current().isEmailEnabled();
     }
 
     public boolean isSmsEnabled() {
-        return smsEnabled;
+        return liveConfiguration.current().isSmsEnabled();
     }
 
     public long getMaxUploadSize() {
-        return maxUploadSize;
+        return liveConfiguration.current().getMaxUploadSize();
     }
 
     public String getFullInfo() {
+        // One snapshot read so the parts are consistent with each other
+        ConfigSnapshot config = liveConfiguration.current();
         return String.format("%s v%s - %s (Environment: %s, User: %s)",
-                appName, appVersion, appDescription, environment, systemUser);
+                config.getAppName(), config.getAppVersion(), config.getAppDescription(),
+                config.getEnvironment(), systemUser);
     }
 }
-
@@ -1,47 +1,47 @@
 package com.sanjeev.learnspring.config.service;
 
-import com.sanjeev.learnspring.config.properties.ApiProperties;
-import com.sanjeev.learnspring.config.properties.DatabaseProperties;
+import com.sanjeev.learnspring.config.reload.ApiSettings;
+import com.sanjeev.learnspring.config.reload.DatabaseSettings;
+import com.sanjeev.learnspring.config.reload.LiveConfiguration;
 import org.springframework.stereotype.Service;
 
 /**
  * Service demonstrating @ConfigurationProperties usage.
- * Shows type-safe configuration with nested properties.
+ * Shows type-safe configuration with nested properties, read from the current
+ * hot-reloadable snapshot rather than the startup-bound beans.
  */
 @Service
 public class ConfigurationService {
 
-    private final DatabaseProperties databaseProperties;
-    private final ApiProperties apiProperties;
+    private final LiveConfiguration liveConfiguration;
 
-    public ConfigurationService(DatabaseProperties databaseProperties,
-                                ApiProperties apiProperties) {
-        this.databaseProperties = databaseProperties;
-        this.apiProperties = apiProperties;
+    public ConfigurationService(LiveConfiguration liveConfiguration) {
+        this.liveConfiguration = liveConfiguration;
     }
 
     public String getDatabaseInfo() {
+        DatabaseSettings database = getDatabaseSettings();
         return String.format("Database: %s (User: %s, Pool: %d-%d, Timeout: %dms)",
-                databaseProperties.getUrl(),
-                databaseProperties.getUsername(),
-                databaseProperties.getPool().getMinSize(),
-                databaseProperties.getPool().getMaxSize(),
-                databaseProperties.getPool().getTimeout());
+                database.url(),
+                database.username(),
+                database.pool().minSize(),
+                database.pool().maxSize(),
+                database.pool().timeout());
     }
 
     public String getApiInfo() {
+        ApiSettings api = getApiSettings();
         return String.format("API: %s (Timeout: %dms, Retries: %d)",
-                apiProperties.getBaseUrl(),
-                apiProperties.getTimeout(),
-                apiProperties.getRetryCount());
+                api.baseUrl(),
+                api.timeout(),
+                api.retryCount());
     }
 
-    public DatabaseProperties getDatabaseProperties() {
-        return databaseProperties;
+    public DatabaseSettings getDatabaseSettings() {
+        return liveConfiguration.current().getDatabase();
     }
 
-    public ApiProperties getApiProperties() {
-        return apiProperties;
+    public ApiSettings getApiSettings() {
+        return liveConfiguration.current().getApi();
     }
 }
-
@@ -0,0 +1,177 @@
+package com.sanjeev.learnspring.config.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjeev.learnspring.config.event.ConfigurationChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Renders the configuration endpoints once into pre-encoded UTF-8 JSON and gzip bytes.
+ *
+ * The values only change when the configuration does, so requests are served from an
+ * immutable snapshot published through a volatile reference; {@link #rebuild()} renders
+ * and swaps in a new one whenever the configuration is hot-reloaded.
+ */
+@Service
+public class ConfigurationSnapshotService {
+
+    private final AppInfoService appInfoService;
+    private final ConfigurationService configurationService;
+    private final EnvironmentService environmentService;
+    private final Environment environment;
+    private final ObjectMapper objectMapper;
+
+    private volatile Map<Section, RenderedSection> snapshot;
+
+    public ConfigurationSnapshotService(AppInfoService appInfoService,
+                                        ConfigurationService configurationService,
+                                        EnvironmentService environmentService,
+                                        Environment environment,
+                                        ObjectMapper objectMapper) {
+        this.appInfoService = appInfoService;
+        this.configurationService = configurationService;
+        this.environmentService = environmentService;
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        rebuild();
+    }
+
+    public RenderedSection get(Section section) {
+        return snapshot.get(section);
+    }
+
+    /**
+     * Re-renders every section from the current configuration and publishes the result atomically.
+     */
+    public synchronized void rebuild() {
+        Map<Section, Map<String, Object>> views = new EnumMap<>(Section.class);
+        views.put(Section.APP_INFO, appInfoView());
+        views.put(Section.DATABASE, databaseView());
+        views.put(Section.API, apiView());
+        views.put(Section.ENVIRONMENT, environmentView());
+
+        Map<String, Object> all = new HashMap<>();
+        all.put("appInfo", views.get(Section.APP_INFO));
+        all.put("database", views.get(Section.DATABASE));
+        all.put("api", views.get(Section.API));
+        all.put("environment", views.get(Section.ENVIRONMENT));
+        views.put(Section.ALL, all);
+
+        Map<Section, RenderedSection> rendered = new EnumMap<>(Section.class);
+        views.forEach((section, view) -> rendered.put(section, render(view)));
+        this.snapshot = rendered;
+    }
+
+    @EventListener
+    public void onConfigurationChanged(ConfigurationChangedEvent event) {
+        rebuild();
+    }
+
+    private Map<String, Object> appInfoView() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("name", appInfoService.getAppName());
+        response.put("version", appInfoService.getAppVersion());
+        response.put("description", appInfoService.getAppDescription());
+        response.put("environment", appInfoService.getEnvironment());
+        response.put("systemUser", appInfoService.getSystemUser());
+        response.put("fullInfo", appInfoService.getFullInfo());
+        response.put("features", Map.of(
+                "emailEnabled", appInfoService.isEmailEnabled(),
+                "smsEnabled", appInfoService.isSmsEnabled(),
+                "maxUploadSize", appInfoService.getMaxUploadSize()
+        ));
+        return response;
+    }
+
+    private Map<String, Object> databaseView() {
+        var database = configurationService.getDatabaseSettings();
+        Map<String, Object> response = new HashMap<>();
+        response.put("url", database.url());
+        response.put("username", database.username());
+        response.put("poolMinSize", database.pool().minSize());
+        response.put("poolMaxSize", database.pool().maxSize());
+        response.put("poolTimeout", database.pool().timeout());
+        response.put("info", configurationService.getDatabaseInfo());
+        return response;
+    }
+
+    private Map<String, Object> apiView() {
+        var api = configurationService.getApiSettings();
+        Map<String, Object> response = new HashMap<>();
+        response.put("baseUrl", api.baseUrl());
+        response.put("timeout", api.timeout());
+        response.put("retryCount", api.retryCount());
+        response.put("keyConfigured", api.key() != null && !api.key().isEmpty());
+        response.put("info", configurationService.getApiInfo());
+        return response;
+    }
+
+    private Map<String, Object> environmentView() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("name", environmentService.getEnvironmentName());
+        response.put("info", environmentService.getEnvironmentInfo());
+        response.put("debugEnabled", environmentService.isDebugEnabled());
+        response.put("logLevel", environmentService.getLogLevel());
+        response.put("activeProfiles", Arrays.asList(environment.getActiveProfiles()));
+        response.put("defaultProfiles", Arrays.asList(environment.getDefaultProfiles()));
+        return response;
+    }
+
+    private RenderedSection render(Map<String, Object> view) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(view);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            return new RenderedSection(json, compressed.toByteArray());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not render configuration snapshot", ex);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Configuration endpoints served from the snapshot
+     */
+    public enum Section {
+        APP_INFO,
+        DATABASE,
+        API,
+        ENVIRONMENT,
+        ALL
+    }
+
+    /**
+     * One pre-encoded section; the arrays are never modified after rendering.
+     */
+    public static final class RenderedSection {
+        private final byte[] json;
+        private final byte[] gzip;
+
+        private RenderedSection(byte[] json, byte[] gzip) {
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+    }
+}
@@ -2,33 +2,42 @@ package com.sanjeev.learnspring.jpa;
 
 import com.sanjeev.learnspring.jpa.entity.Customer;
 import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * CommandLineRunner to seed the H2 database with initial data.
- * Runs automatically when the application starts.
+ * Runs automatically when the application starts, unless the synthetic
+ * seeder (app.seed.enabled=true) takes its place.
  */
 @Component
+@ConditionalOnProperty(name = "app.seed.enabled", havingValue = "false", matchIfMissing = true)
 public class DataInitializer implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
     private final CustomerRepository customerRepository;
+    private final CustomerShards customerShards;
 
-    public DataInitializer(CustomerRepository customerRepository) {
+    public DataInitializer(CustomerRepository customerRepository, CustomerShards customerShards) {
         this.customerRepository = customerRepository;
+        this.customerShards = customerShards;
     }
 
     @Override
     public void run(String... args) throws Exception {
         log.info("===== Starting Database Initialization =====");
 
-        // Clear existing data (optional, since we use create-drop)
-        customerRepository.deleteAll();
+        // Clear existing data (the schema outlives restarts of a shared database)
+        customerShards.truncate(customerRepository::truncate);
         log.info("Cleared existing customer data");
 
         // Seed customers
@@ -96,35 +105,30 @@ public class DataInitializer implements CommandLineRunner {
         customer8.setZipCode("60602");
         customer8.setStatus(Customer.CustomerStatus.ACTIVE);
 
-        // Save all customers
-        customerRepository.save(customer1);
-        customerRepository.save(customer2);
-        customerRepository.save(customer3);
-        customerRepository.save(customer4);
-        customerRepository.save(customer5);
-        customerRepository.save(customer6);
-        customerRepository.save(customer7);
-        customerRepository.save(customer8);
+        // Save all customers in one call (per shard) instead of one save per entity
+        List<Customer> saved = customerShards.insertAll(List.of(
+                customer1, customer2, customer3, customer4,
+                customer5, customer6, customer7, customer8), customerRepository::saveAll);
 
-        log.info("Saved {} customers to database", customerRepository.count());
+        // Summarize from the saved list instead of issuing count queries before the app is ready
+        Map<Customer.CustomerStatus, Long> byStatus = saved.stream()
+                .collect(Collectors.groupingBy(Customer::getStatus, Collectors.counting()));
 
-        // Display summary
         log.info("===== Database Initialization Complete =====");
-        log.info("Total customers: {}", customerRepository.count());
-        log.info("Active customers: {}", customerRepository.countByStatus(Customer.CustomerStatus.ACTIVE));
-        log.info("Inactive customers: {}", customerRepository.countByStatus(Customer.CustomerStatus.INACTIVE));
-        log.info("Suspended customers: {}", customerRepository.countByStatus(Customer.CustomerStatus.SUSPENDED));
-
-        // Log some sample queries
-        log.info("Customers in New York: {}",
-                customerRepository.findByCity("New York").stream()
-                        .map(Customer::getFullName)
-                        .toList());
-
-        log.info("Customers with last name 'Smith': {}",
-                customerRepository.findByLastName("Smith").stream()
-                        .map(Customer::getFullName)
-                        .toList());
+        log.info("Saved {} customers (by status: {})", saved.size(), byStatus);
+
+        // Sample queries are only worth the round-trips when debugging
+        if (log.isDebugEnabled()) {
+            log.debug("Customers in New York: {}",
+                    customerRepository.findByCity("New York").stream()
+                            .map(Customer::getFullName)
+                            .toList());
+
+            log.debug("Customers with last name 'Smith': {}",
+                    customerRepository.findByLastName("Smith").stream()
+                            .map(Customer::getFullName)
+                            .toList());
+        }
     }
 }
 
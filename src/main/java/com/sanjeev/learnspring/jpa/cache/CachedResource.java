@@ -0,0 +1,51 @@
+package com.sanjeev.learnspring.jpa.cache;
+
+import java.util.Arrays;
+
+/**
+ * Serialized JSON body together with its ETag and the cache version it was loaded at.
+ */
+public final class CachedResource {
+
+    private final String eTag;
+    private final byte[] body;
+    private final long version;
+
+    CachedResource(String eTag, byte[] body, long version) {
+        this.eTag = eTag;
+        this.body = body;
+        this.version = version;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * The JSON bytes; callers must not modify them.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Whether an If-None-Match header value matches this resource (weak comparison, "*" included).
+     */
+    public boolean matches(String ifNoneMatch) {
+        return eTagMatches(ifNoneMatch, eTag);
+    }
+
+    public static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(eTag));
+    }
+}
@@ -0,0 +1,206 @@
+package com.sanjeev.learnspring.jpa.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersArchivedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersInvalidatedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersPurgedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pre-serialized JSON cache and ETag source for the customer read API.
+ *
+ * Single customers are tagged from their id and version; lists are tagged with an
+ * aggregate version that every committed write bumps. A cached entry is only
+ * served while its version is current, so a matching If-None-Match can be answered
+ * without touching the database and a hit skips Jackson entirely.
+ *
+ * Entries loaded while a write commits are dropped rather than cached, so a
+ * concurrent reader can never pin a stale row. Each map holds at most maxEntries
+ * and evicts its least recently used entry when full.
+ */
+@Component
+public class CustomerReadCache {
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    // Distinguishes aggregate versions of this process from those of a previous run
+    private final long epoch = ThreadLocalRandom.current().nextLong() >>> 16;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, CachedResource> customers;
+    private final Map<String, CachedResource> lists;
+
+    public CustomerReadCache(ObjectMapper objectMapper,
+                             @Value("${app.customers.cache.max-entries:10000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.customers = lru(maxEntries);
+        this.lists = lru(maxEntries);
+    }
+
+    /**
+     * Cached single customer, loading and serializing it on a miss.
+     */
+    public CachedResource customer(Long id, Supplier<CustomerResponseDTO> loader) {
+        CachedResource cached = customers.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long versionBeforeLoad = version.get();
+        CustomerResponseDTO dto = loader.get();
+        CachedResource loaded = new CachedResource(customerETag(dto), serialize(dto), versionBeforeLoad);
+        store(customers, id, loaded);
+        return loaded;
+    }
+
+    /**
+     * Cached customer list under the given key, e.g. "city:Chicago".
+     */
+    public CachedResource list(String key, Supplier<List<CustomerResponseDTO>> loader) {
+        long current = version.get();
+        CachedResource cached = lists.get(key);
+        if (cached != null && cached.getVersion() == current) {
+            return cached;
+        }
+        List<CustomerResponseDTO> dtos = loader.get();
+        CachedResource loaded = new CachedResource(listETag(key, current), serialize(dtos), current);
+        store(lists, key, loaded);
+        return loaded;
+    }
+
+    /**
+     * ETag of a cached single customer, or null if it has to be loaded.
+     */
+    public String currentCustomerETag(Long id) {
+        CachedResource cached = customers.get(id);
+        return cached == null ? null : cached.getETag();
+    }
+
+    /**
+     * ETag a list would have right now; valid without loading it because the version only moves on writes.
+     */
+    public String currentListETag(String key) {
+        return listETag(key, version.get());
+    }
+
+    @TransactionalEventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        version.incrementAndGet();
+        customers.remove(event.getCustomerId());
+        lists.clear();
+    }
+
+    @TransactionalEventListener
+    public void onCustomersPurged(CustomersPurgedEvent event) {
+        version.incrementAndGet();
+        event.getCustomerIds().forEach(customers::remove);
+        lists.clear();
+    }
+
+    /**
+     * Archived customers keep their cached entries, which are still what a read by id returns.
+     */
+    @TransactionalEventListener
+    public void onCustomersArchived(CustomersArchivedEvent event) {
+        version.incrementAndGet();
+        lists.clear();
+    }
+
+    /**
+     * Changes committed by other instances, reported by InvalidationBus.
+     */
+    @EventListener
+    public void onCustomersInvalidated(CustomersInvalidatedEvent event) {
+        version.incrementAndGet();
+        if (event.isAll()) {
+            customers.clear();
+        } else {
+            event.getVersions().keySet().forEach(customers::remove);
+        }
+        lists.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "customers", customers.size(),
+                "lists", lists.size(),
+                "version", version.get(),
+                "maxEntries", maxEntries);
+    }
+
+    /**
+     * Access-ordered map that drops its least recently read or written entry past maxEntries.
+     */
+    private static <K> Map<K, CachedResource> lru(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedResource> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private <K> void store(Map<K, CachedResource> cache, K key, CachedResource resource) {
+        cache.put(key, resource);
+        // A write committed while we were loading: the entry may hold pre-commit data
+        if (version.get() != resource.getVersion()) {
+            cache.remove(key, resource);
+        }
+    }
+
+    private String customerETag(CustomerResponseDTO dto) {
+        return customerETag(dto.getId(), dto.getVersion());
+    }
+
+    /**
+     * Strong ETag of a customer at a given version, e.g. "c42-v3".
+     */
+    public static String customerETag(Long id, Long version) {
+        return "\"c" + id + "-v" + version + "\"";
+    }
+
+    /**
+     * Version an If-Match header expects for the given customer: null for absent or "*",
+     * -1 (matching no version) for tags of another customer or a different format.
+     */
+    public static Long versionFromIfMatch(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefix = "\"c" + id + "-v";
+        String tag = ifMatch.trim();
+        if (tag.startsWith(prefix) && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException ex) {
+                return -1L;
+            }
+        }
+        return -1L;
+    }
+
+    private String listETag(String key, long listVersion) {
+        return "\"l" + Integer.toHexString(key.hashCode()) + "-" + Long.toHexString(epoch) + "-" + listVersion + "\"";
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize customer response", ex);
+        }
+    }
+}
@@ -0,0 +1,691 @@
+package com.sanjeev.learnspring.jpa.cache;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersArchivedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersInvalidatedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersPurgedEvent;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process replica of the customers table that serves CustomerService reads by id and
+ * email without a database round-trip or an entity.
+ *
+ * Records have a fixed layout in direct ByteBuffer segments outside the Java heap, one
+ * RECORD_SIZE slot per customer: id, version, timestamps, date of birth, status, and each
+ * text column in a slot of its column length in UTF-8 bytes. Slots are found through two
+ * primitive open-addressing indexes, id -> slot and email hash -> slot, so however many
+ * customers are held, the collector only sees a few arrays instead of a graph of DTOs
+ * and strings. A customer whose text doesn't fit its slots (long non-ASCII values) is not
+ * held and is read from the database.
+ *
+ * The table is loaded by a streaming scan once the application is ready, after the
+ * startup runners that truncate and fill it (one scan per shard when customers are sharded), and kept current from the
+ * CustomerChangedEvents CustomerService publishes after commit, which carry the committed
+ * row; purged and archived customers are dropped. Rows inserted around the service, e.g.
+ * by the seeder, are added when first read from the database; rows changed around it
+ * stay stale until evicted, which CustomerService does when an update finds the row
+ * changed under it. Changes made by other instances are evicted when InvalidationBus
+ * reports them. Until the scan is done, lookups miss and reads go to the database as
+ * before.
+ *
+ * Readers take an optimistic StampedLock read and retry under the read lock if a writer
+ * interfered, so lookups don't contend with each other.
+ */
+@Component
+public class CustomerRecordStore implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerRecordStore.class);
+
+    // Record layout: fixed-width fields, then text columns as a length byte plus capacity bytes
+    private static final int ID = 0;
+    private static final int VERSION = 8;
+    private static final int CREATED_AT = 16;
+    private static final int UPDATED_AT = 24;
+    private static final int DATE_OF_BIRTH = 32;
+    private static final int EMAIL_HASH = 36;
+    private static final int STATUS = 40;
+    static final int RECORD_SIZE = 544;
+
+    private static final int NULL_LENGTH = 0xFF;
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+    private static final Customer.CustomerStatus[] STATUSES = Customer.CustomerStatus.values();
+
+    private static final String SCAN = "SELECT id, first_name, last_name, email, phone, date_of_birth, address, "
+            + "city, zip_code, status, created_at, updated_at, version FROM customers";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerShards customerShards;
+    private final RecordStoreProperties properties;
+    private final StampedLock lock = new StampedLock();
+
+    // Guarded by lock
+    private final LongIntHashIndex byId;
+    private final LongIntHashIndex byEmail;
+    private ByteBuffer[] segments = new ByteBuffer[0];
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int nextSlot;
+    private long heapCacheBytes;
+    private long heapCacheObjects;
+    // Ids removed while the startup scan runs, which it must not bring back; null otherwise
+    private LongIntHashIndex removedWhileLoading;
+    // Set when the store is cleared while the startup scan runs, which then starts over
+    private boolean clearedWhileLoading;
+    private volatile long removals;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadedOnMiss = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean ready;
+    private volatile long scannedRows;
+    private volatile long scanMillis;
+    private volatile Thread loader;
+
+    public CustomerRecordStore(JdbcTemplate jdbcTemplate, CustomerShards customerShards,
+                               RecordStoreProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerShards = customerShards;
+        this.properties = properties;
+        int expected = Math.min(properties.getMaxRecords(), properties.getSegmentRecords());
+        this.byId = new LongIntHashIndex(expected);
+        this.byEmail = new LongIntHashIndex(expected);
+    }
+
+    /**
+     * The customer, or null if it isn't held or the store isn't loaded yet.
+     */
+    public CustomerResponseDTO findById(Long id) {
+        if (!ready || id == null) {
+            return null;
+        }
+        return counted(read(() -> {
+            int slot = byId.get(id);
+            return slot < 0 ? null : decode(slot);
+        }));
+    }
+
+    /**
+     * The customer with this email, or null if it isn't held or the store isn't loaded yet.
+     */
+    public CustomerResponseDTO findByEmail(String email) {
+        if (!ready || email == null) {
+            return null;
+        }
+        byte[] wanted = email.getBytes(StandardCharsets.UTF_8);
+        return counted(read(() -> {
+            int slot = byEmail.find(email.hashCode(), candidate -> textEquals(candidate, Text.EMAIL, wanted));
+            return slot < 0 ? null : decode(slot);
+        }));
+    }
+
+    /**
+     * Moves on every removal; take it before reading a missed customer from the database
+     * and pass it to {@link #addLoaded}.
+     */
+    public long removalStamp() {
+        return removals;
+    }
+
+    /**
+     * Adds a customer just read from the database after a miss, unless a newer version
+     * arrived through an event in the meantime or any customer was removed since the stamp
+     * was taken: the read may predate that removal. A held record of another row under the
+     * same id (ids restart when the table is truncated) is replaced.
+     *
+     * @return the customer
+     */
+    public CustomerResponseDTO addLoaded(CustomerResponseDTO customer, long removalStamp) {
+        if (!ready) {
+            return customer;
+        }
+        byte[] image = new byte[RECORD_SIZE];
+        if (!encode(customer, image)) {
+            return customer;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = byId.get(customer.getId());
+            boolean newer = slot < 0
+                    || segment(slot).getLong(offset(slot) + VERSION) < customer.getVersion()
+                    || segment(slot).getLong(offset(slot) + CREATED_AT) != timestamp(customer.getCreatedAt());
+            if (removals == removalStamp && newer && store(customer.getId(), image)) {
+                loadedOnMiss.increment();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return customer;
+    }
+
+    /**
+     * Drops the customer, e.g. when a write found it changed by a writer around CustomerService.
+     */
+    public void evict(Long id) {
+        if (properties.isEnabled()) {
+            remove(List.of(id));
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        CustomerResponseDTO customer = event.getCustomer();
+        if (event.getChangeType() == CustomerChangedEvent.ChangeType.DELETED || customer == null) {
+            remove(List.of(event.getCustomerId()));
+            return;
+        }
+        byte[] image = new byte[RECORD_SIZE];
+        if (!encode(customer, image)) {
+            // The stored record would be stale; the database has the new row
+            remove(List.of(customer.getId()));
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = byId.get(customer.getId());
+            // A created customer replaces whatever an earlier table held under its id
+            if (slot < 0 || event.getChangeType() == CustomerChangedEvent.ChangeType.CREATED
+                    || segment(slot).getLong(offset(slot) + VERSION) <= customer.getVersion()) {
+                store(customer.getId(), image);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCustomersPurged(CustomersPurgedEvent event) {
+        if (properties.isEnabled()) {
+            remove(event.getCustomerIds());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCustomersArchived(CustomersArchivedEvent event) {
+        if (properties.isEnabled()) {
+            remove(event.getCustomerIds());
+        }
+    }
+
+    /**
+     * Drops customers another instance changed unless the held record is already at the
+     * version it committed, or every customer when the bus lost changes.
+     */
+    @EventListener
+    public void onCustomersInvalidated(CustomersInvalidatedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (event.isAll()) {
+            clear();
+            return;
+        }
+        List<Long> stale = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            event.getVersions().forEach((id, version) -> {
+                int slot = byId.get(id);
+                // Not held: a read that missed may be about to add the old row
+                if (slot < 0 || segment(slot).getLong(offset(slot) + VERSION) < version) {
+                    stale.add(id);
+                }
+            });
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        if (!stale.isEmpty()) {
+            remove(stale);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Starts the load in the background.
+     */
+    @Override
+    public synchronized void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!properties.isEnabled() || loader != null) {
+            return;
+        }
+        Thread thread = new Thread(this::load, "customer-record-store");
+        thread.setDaemon(true);
+        loader = thread;
+        thread.start();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        Thread thread = loader;
+        if (thread != null) {
+            loader = null;
+            thread.interrupt();
+        }
+        ready = false;
+    }
+
+    /**
+     * Memory footprint, hit counters, and the heap a DTO cache of the same customers would
+     * take next to the collectors' totals, for comparing GC work against a heap cache.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", properties.isEnabled());
+        status.put("ready", ready);
+        long stamp = lock.readLock();
+        try {
+            status.put("records", byId.size());
+            status.put("maxRecords", properties.getMaxRecords());
+            status.put("recordBytes", RECORD_SIZE);
+            status.put("segments", segments.length);
+            status.put("offHeapBytes", (long) segments.length * properties.getSegmentRecords() * RECORD_SIZE);
+            status.put("offHeapUsedBytes", (long) byId.size() * RECORD_SIZE);
+            status.put("indexHeapBytes", byId.heapBytes() + byEmail.heapBytes() + (long) freeSlots.length * Integer.BYTES);
+            Map<String, Object> heapCache = new LinkedHashMap<>();
+            heapCache.put("estimatedBytes", heapCacheBytes);
+            heapCache.put("estimatedObjects", heapCacheObjects);
+            // Segment buffers, the free list and the four index arrays
+            heapCache.put("storeHeapObjects", segments.length + 5);
+            status.put("heapCacheComparison", heapCache);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        status.put("hits", hits.sum());
+        status.put("misses", misses.sum());
+        status.put("loadedOnMiss", loadedOnMiss.sum());
+        status.put("rejected", rejected.sum());
+        status.put("scannedRows", scannedRows);
+        status.put("scanMillis", scanMillis);
+        List<Map<String, Object>> collectors = new ArrayList<>();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            Map<String, Object> gc = new LinkedHashMap<>();
+            gc.put("name", collector.getName());
+            gc.put("collections", collector.getCollectionCount());
+            gc.put("timeMillis", collector.getCollectionTime());
+            collectors.add(gc);
+        }
+        status.put("gc", collectors);
+        return status;
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        long stamp = lock.writeLock();
+        removedWhileLoading = new LongIntHashIndex(64);
+        lock.unlockWrite(stamp);
+        try {
+            do {
+                customerShards.forEachShard(this::scan);
+            } while (startOver());
+            scanMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            ready = true;
+            log.info("Customer record store loaded {} customers in {} ms", byId.size(), scanMillis);
+        } catch (RuntimeException ex) {
+            if (loader != null) {
+                log.warn("Customer record store load failed, reads stay on the database: {}", ex.toString());
+            }
+        } finally {
+            stamp = lock.writeLock();
+            removedWhileLoading = null;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void scan() {
+        CustomerResponseDTO row = new CustomerResponseDTO();
+        byte[] image = new byte[RECORD_SIZE];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SCAN,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(properties.getFetchSize());
+            return statement;
+        }, (ResultSet rs) -> {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Record store load interrupted");
+            }
+            scannedRows++;
+            readRow(rs, row);
+            if (!encode(row, image)) {
+                return;
+            }
+            long writeStamp = lock.writeLock();
+            try {
+                if (byId.get(row.getId()) < 0 && removedWhileLoading.get(row.getId()) < 0) {
+                    store(row.getId(), image);
+                }
+            } finally {
+                lock.unlockWrite(writeStamp);
+            }
+        });
+    }
+
+    /**
+     * Whether the store was cleared during the scan, whose remaining rows may predate the
+     * changes that caused it; resets the flag.
+     */
+    private boolean startOver() {
+        long stamp = lock.writeLock();
+        try {
+            boolean cleared = clearedWhileLoading;
+            clearedWhileLoading = false;
+            return cleared;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static void readRow(ResultSet rs, CustomerResponseDTO row) throws SQLException {
+        row.setId(rs.getLong("id"));
+        row.setFirstName(rs.getString("first_name"));
+        row.setLastName(rs.getString("last_name"));
+        row.setEmail(rs.getString("email"));
+        row.setPhone(rs.getString("phone"));
+        row.setDateOfBirth(rs.getObject("date_of_birth", LocalDate.class));
+        row.setAddress(rs.getString("address"));
+        row.setCity(rs.getString("city"));
+        row.setZipCode(rs.getString("zip_code"));
+        row.setStatus(rs.getString("status"));
+        row.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        row.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        row.setVersion(rs.getLong("version"));
+    }
+
+    private CustomerResponseDTO counted(CustomerResponseDTO customer) {
+        (customer != null ? hits : misses).increment();
+        return customer;
+    }
+
+    private CustomerResponseDTO read(Supplier<CustomerResponseDTO> lookup) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                CustomerResponseDTO customer = lookup.get();
+                if (lock.validate(stamp)) {
+                    return customer;
+                }
+            } catch (RuntimeException ex) {
+                // Torn read of something a writer was changing; retried below
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return lookup.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void clear() {
+        long stamp = lock.writeLock();
+        try {
+            removals++;
+            byId.clear();
+            byEmail.clear();
+            freeCount = 0;
+            nextSlot = 0;
+            heapCacheBytes = 0;
+            heapCacheObjects = 0;
+            if (removedWhileLoading != null) {
+                clearedWhileLoading = true;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void remove(List<Long> ids) {
+        long stamp = lock.writeLock();
+        try {
+            removals++;
+            for (Long id : ids) {
+                if (removedWhileLoading != null) {
+                    removedWhileLoading.put(id, 0);
+                }
+                int slot = byId.get(id);
+                if (slot < 0) {
+                    continue;
+                }
+                ByteBuffer segment = segment(slot);
+                int offset = offset(slot);
+                byId.remove(id, slot);
+                byEmail.remove(segment.getInt(offset + EMAIL_HASH), slot);
+                account(segment, offset, -1);
+                if (freeCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+                }
+                freeSlots[freeCount++] = slot;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Writes the record image into the customer's slot, or a new one. Under the write lock.
+     *
+     * @return false if the store is full
+     */
+    private boolean store(long id, byte[] image) {
+        int slot = byId.get(id);
+        if (slot >= 0) {
+            ByteBuffer segment = segment(slot);
+            byEmail.remove(segment.getInt(offset(slot) + EMAIL_HASH), slot);
+            account(segment, offset(slot), -1);
+        } else {
+            slot = allocateSlot();
+            if (slot < 0) {
+                rejected.increment();
+                return false;
+            }
+            byId.put(id, slot);
+        }
+        ByteBuffer segment = segment(slot);
+        segment.put(offset(slot), image);
+        byEmail.add(segment.getInt(offset(slot) + EMAIL_HASH), slot);
+        account(segment, offset(slot), 1);
+        return true;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (nextSlot >= properties.getMaxRecords()) {
+            return -1;
+        }
+        int segmentRecords = properties.getSegmentRecords();
+        if (nextSlot / segmentRecords == segments.length) {
+            ByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[segments.length] = ByteBuffer.allocateDirect(segmentRecords * RECORD_SIZE);
+            segments = grown;
+        }
+        return nextSlot++;
+    }
+
+    private ByteBuffer segment(int slot) {
+        return segments[slot / properties.getSegmentRecords()];
+    }
+
+    private int offset(int slot) {
+        return (slot % properties.getSegmentRecords()) * RECORD_SIZE;
+    }
+
+    /**
+     * Fills the record image; false if a text doesn't fit its slot.
+     */
+    private boolean encode(CustomerResponseDTO customer, byte[] image) {
+        ByteBuffer record = ByteBuffer.wrap(image);
+        record.putLong(ID, customer.getId());
+        record.putLong(VERSION, customer.getVersion() != null ? customer.getVersion() : 0);
+        record.putLong(CREATED_AT, timestamp(customer.getCreatedAt()));
+        record.putLong(UPDATED_AT, timestamp(customer.getUpdatedAt()));
+        record.putInt(DATE_OF_BIRTH, customer.getDateOfBirth() != null
+                ? (int) customer.getDateOfBirth().toEpochDay() : NULL_DATE);
+        record.putInt(EMAIL_HASH, customer.getEmail() != null ? customer.getEmail().hashCode() : 0);
+        record.put(STATUS, (byte) (customer.getStatus() != null
+                ? Customer.CustomerStatus.valueOf(customer.getStatus()).ordinal() + 1 : 0));
+        return encode(record, Text.FIRST_NAME, customer.getFirstName())
+                && encode(record, Text.LAST_NAME, customer.getLastName())
+                && encode(record, Text.EMAIL, customer.getEmail())
+                && encode(record, Text.PHONE, customer.getPhone())
+                && encode(record, Text.ADDRESS, customer.getAddress())
+                && encode(record, Text.CITY, customer.getCity())
+                && encode(record, Text.ZIP_CODE, customer.getZipCode());
+    }
+
+    private boolean encode(ByteBuffer record, Text text, String value) {
+        if (value == null) {
+            record.put(text.offset, (byte) NULL_LENGTH);
+            return true;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > text.capacity) {
+            rejected.increment();
+            return false;
+        }
+        record.put(text.offset, (byte) bytes.length);
+        record.put(text.offset + 1, bytes);
+        return true;
+    }
+
+    private CustomerResponseDTO decode(int slot) {
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        CustomerResponseDTO customer = new CustomerResponseDTO();
+        customer.setId(segment.getLong(offset + ID));
+        customer.setVersion(segment.getLong(offset + VERSION));
+        customer.setCreatedAt(dateTime(segment.getLong(offset + CREATED_AT)));
+        customer.setUpdatedAt(dateTime(segment.getLong(offset + UPDATED_AT)));
+        int dateOfBirth = segment.getInt(offset + DATE_OF_BIRTH);
+        customer.setDateOfBirth(dateOfBirth != NULL_DATE ? LocalDate.ofEpochDay(dateOfBirth) : null);
+        int status = segment.get(offset + STATUS);
+        customer.setStatus(status > 0 ? STATUSES[status - 1].name() : null);
+        customer.setFirstName(decode(segment, offset, Text.FIRST_NAME));
+        customer.setLastName(decode(segment, offset, Text.LAST_NAME));
+        customer.setEmail(decode(segment, offset, Text.EMAIL));
+        customer.setPhone(decode(segment, offset, Text.PHONE));
+        customer.setAddress(decode(segment, offset, Text.ADDRESS));
+        customer.setCity(decode(segment, offset, Text.CITY));
+        customer.setZipCode(decode(segment, offset, Text.ZIP_CODE));
+        return customer;
+    }
+
+    private static String decode(ByteBuffer segment, int offset, Text text) {
+        int length = segment.get(offset + text.offset) & 0xFF;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length > text.capacity) {
+            throw new IllegalStateException("Corrupt " + text + " length " + length);
+        }
+        byte[] bytes = new byte[length];
+        segment.get(offset + text.offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean textEquals(int slot, Text text, byte[] wanted) {
+        ByteBuffer segment = segment(slot);
+        int position = offset(slot) + text.offset;
+        if ((segment.get(position) & 0xFF) != wanted.length) {
+            return false;
+        }
+        for (int i = 0; i < wanted.length; i++) {
+            if (segment.get(position + 1 + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds (sign 1) or subtracts (-1) what the record would cost in a heap cache of
+     * CustomerResponseDTOs: map node and boxed key, the DTO with its boxed id and version,
+     * date and date-time objects, and each string with its byte array.
+     */
+    private void account(ByteBuffer segment, int offset, int sign) {
+        long bytes = 32 + 16 + 72 + 2 * 16 + 2 * 72 + 24;
+        long objects = 10;
+        for (Text text : Text.values()) {
+            int length = segment.get(offset + text.offset) & 0xFF;
+            if (length != NULL_LENGTH) {
+                bytes += 24 + ((16 + length + 7) & ~7);
+                objects += 2;
+            }
+        }
+        heapCacheBytes += sign * bytes;
+        heapCacheObjects += sign * objects;
+    }
+
+    private static long timestamp(LocalDateTime value) {
+        if (value == null) {
+            return NULL_TIMESTAMP;
+        }
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + value.getNano();
+    }
+
+    private static LocalDateTime dateTime(long value) {
+        if (value == NULL_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(value, 1_000_000_000L),
+                (int) Math.floorMod(value, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * Text columns: offset of the length byte and capacity in UTF-8 bytes, the column length.
+     */
+    private enum Text {
+        FIRST_NAME(41, 50),
+        LAST_NAME(92, 50),
+        EMAIL(143, 100),
+        PHONE(244, 20),
+        ADDRESS(265, 200),
+        CITY(466, 50),
+        ZIP_CODE(517, 20);
+
+        private final int offset;
+        private final int capacity;
+
+        Text(int offset, int capacity) {
+            this.offset = offset;
+            this.capacity = capacity;
+        }
+    }
+}
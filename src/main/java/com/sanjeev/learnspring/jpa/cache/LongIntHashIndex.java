@@ -0,0 +1,177 @@
+package com.sanjeev.learnspring.jpa.cache;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Open-addressing hash index from long keys to non-negative int values, kept in two
+ * primitive arrays so it holds no object per entry. Linear probing; a removal shifts the
+ * rest of its probe run back instead of leaving a tombstone, so lookups never slow down
+ * with churn. A key may map to several values (hashed keys), see {@link #add}.
+ *
+ * Not thread-safe. Lookups racing a writer may see a torn table and fail or return a
+ * wrong value, but always terminate, so they can be used under an optimistic read.
+ */
+final class LongIntHashIndex {
+
+    private static final int EMPTY = -1;
+    private static final float MAX_LOAD = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntHashIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Value of the key, or -1; for a key with several values, any one of them.
+     */
+    int get(long key) {
+        return find(key, value -> true);
+    }
+
+    /**
+     * First value of the key that matches, or -1.
+     */
+    int find(long key, IntPredicate match) {
+        long[] keys = this.keys;
+        int[] values = this.values;
+        int mask = values.length - 1;
+        for (int i = home(key, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            int value = values[i];
+            if (value == EMPTY) {
+                return EMPTY;
+            }
+            if (keys[i] == key && match.test(value)) {
+                return value;
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Maps the key to the value, replacing its previous value.
+     */
+    void put(long key, int value) {
+        int mask = values.length - 1;
+        for (int i = home(key, mask); values[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        add(key, value);
+    }
+
+    /**
+     * Adds the entry without looking for the key, which may then have several values.
+     */
+    void add(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Index values must not be negative: " + value);
+        }
+        if (size + 1 > values.length * MAX_LOAD) {
+            resize(values.length << 1);
+        }
+        insert(key, value);
+        size++;
+    }
+
+    /**
+     * Removes the key's entry with this value; returns whether there was one.
+     */
+    boolean remove(long key, int value) {
+        int mask = values.length - 1;
+        for (int i = home(key, mask); values[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key && values[i] == value) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void clear() {
+        Arrays.fill(values, EMPTY);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Bytes of the two arrays.
+     */
+    long heapBytes() {
+        return (long) keys.length * Long.BYTES + (long) values.length * Integer.BYTES;
+    }
+
+    private void insert(long key, int value) {
+        int mask = values.length - 1;
+        int i = home(key, mask);
+        while (values[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Empties slot i, moving later entries of the probe run into it unless that would put
+     * them before their home slot.
+     */
+    private void shiftBack(int i) {
+        int mask = values.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == EMPTY) {
+                break;
+            }
+            int home = home(keys[j], mask);
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = EMPTY;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        long[] newKeys = new long[capacity];
+        int[] newValues = new int[capacity];
+        Arrays.fill(newValues, EMPTY);
+        // Values last: a racing lookup reads values.length as its bound
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static int home(long key, int mask) {
+        // Murmur3 finalizer; ids are sequential and email keys are String hash codes
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
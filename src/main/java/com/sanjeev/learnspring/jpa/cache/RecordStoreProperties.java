@@ -0,0 +1,63 @@
+package com.sanjeev.learnspring.jpa.cache;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for the off-heap customer record store.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.customers.record-store")
+@Validated
+public class RecordStoreProperties {
+
+    // Load the customers table at startup and serve reads by id and email from it
+    private boolean enabled = true;
+
+    // Records held at most; further customers are read from the database
+    @Min(value = 1, message = "Record store max records must be at least 1")
+    private int maxRecords = 250000;
+
+    // Records per off-heap segment; segments are allocated as the store fills
+    @Min(value = 64, message = "Record store segment records must be at least 64")
+    private int segmentRecords = 4096;
+
+    // Rows fetched per round-trip by the startup scan
+    @Min(value = 1, message = "Record store fetch size must be at least 1")
+    private int fetchSize = 1000;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+
+    public void setMaxRecords(int maxRecords) {
+        this.maxRecords = maxRecords;
+    }
+
+    public int getSegmentRecords() {
+        return segmentRecords;
+    }
+
+    public void setSegmentRecords(int segmentRecords) {
+        this.segmentRecords = segmentRecords;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+}
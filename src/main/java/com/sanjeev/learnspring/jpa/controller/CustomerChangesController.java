@@ -0,0 +1,53 @@
+package com.sanjeev.learnspring.jpa.controller;
+
+import com.sanjeev.learnspring.jpa.outbox.CustomerChangeStream;
+import com.sanjeev.learnspring.jpa.outbox.CustomerOutboxRelay;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Change-data stream of customer changes from the transactional outbox.
+ */
+@RestController
+@RequestMapping("/api/customers/changes")
+public class CustomerChangesController {
+
+    private final CustomerChangeStream changeStream;
+    private final CustomerOutboxRelay outboxRelay;
+
+    public CustomerChangesController(CustomerChangeStream changeStream, CustomerOutboxRelay outboxRelay) {
+        this.changeStream = changeStream;
+        this.outboxRelay = outboxRelay;
+    }
+
+    /**
+     * Tail changes after a sequence number as Server-Sent Events; each event id is its seq.
+     * Reconnecting clients can pass the standard Last-Event-ID header instead of since.
+     * GET /api/customers/changes?since=0
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = since != null ? since : lastEventId != null ? lastEventId : 0L;
+        return changeStream.subscribe(from);
+    }
+
+    /**
+     * Relay progress: last published seq, pending entries and subscribers.
+     */
+    @GetMapping("/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getRelayStatus() {
+        return outboxRelay.getStatus();
+    }
+}
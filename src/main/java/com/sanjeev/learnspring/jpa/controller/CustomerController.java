@@ -1,11 +1,18 @@
 package com.sanjeev.learnspring.jpa.controller;
 
+import com.sanjeev.learnspring.jpa.cache.CachedResource;
+import com.sanjeev.learnspring.jpa.cache.CustomerReadCache;
 import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
 import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
 import com.sanjeev.learnspring.jpa.dto.CustomerUpdateDTO;
 import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.exception.CustomerUpdateConflictException;
+import com.sanjeev.learnspring.jpa.exception.CustomerVersionMismatchException;
 import com.sanjeev.learnspring.jpa.service.CustomerService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * REST Controller for Customer operations.
@@ -22,15 +30,19 @@ import java.util.List;
  * - DTOs for request/response
  * - Validation with @Valid
  * - URI location header for created resources
+ * - ETag / If-None-Match conditional GETs on the hot read endpoints
+ * - If-Match optimistic concurrency on updates (412 Precondition Failed when stale)
  */
 @RestController
 @RequestMapping("/api/customers")
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerReadCache readCache;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, CustomerReadCache readCache) {
         this.customerService = customerService;
+        this.readCache = readCache;
     }
 
     /**
@@ -46,13 +58,19 @@ public class CustomerController {
 
     /**
      * GET /api/customers/{id} - Get customer by ID
-     * Returns: 200 OK if found, 404 Not Found if not exists
+     * Returns: 200 OK if found, 304 Not Modified if If-None-Match matches, 404 Not Found if not exists
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
-    public ResponseEntity<CustomerResponseDTO> getCustomerById(@PathVariable Long id) {
-        CustomerResponseDTO customer = customerService.getCustomerById(id);
-        return ResponseEntity.ok(customer);
+    public ResponseEntity<byte[]> getCustomerById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String currentETag = readCache.currentCustomerETag(id);
+        if (CachedResource.eTagMatches(ifNoneMatch, currentETag)) {
+            return notModified(currentETag);
+        }
+        CachedResource customer = readCache.customer(id, () -> customerService.getCustomerById(id));
+        return conditional(customer, ifNoneMatch);
     }
 
     /**
@@ -80,25 +98,26 @@ public class CustomerController {
 
     /**
      * GET /api/customers/city/{city} - Get customers by city
-     * Returns: 200 OK with list of customers
+     * Returns: 200 OK with list of customers, 304 Not Modified if If-None-Match matches
      */
     @GetMapping("/city/{city}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<CustomerResponseDTO>> getCustomersByCity(@PathVariable String city) {
-        List<CustomerResponseDTO> customers = customerService.getCustomersByCity(city);
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<byte[]> getCustomersByCity(
+            @PathVariable String city,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cachedList("city:" + city, ifNoneMatch, () -> customerService.getCustomersByCity(city));
     }
 
     /**
      * GET /api/customers/status/{status} - Get customers by status
-     * Returns: 200 OK with list of customers
+     * Returns: 200 OK with list of customers, 304 Not Modified if If-None-Match matches
      */
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<CustomerResponseDTO>> getCustomersByStatus(
-            @PathVariable Customer.CustomerStatus status) {
-        List<CustomerResponseDTO> customers = customerService.getCustomersByStatus(status);
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<byte[]> getCustomersByStatus(
+            @PathVariable Customer.CustomerStatus status,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cachedList("status:" + status.name(), ifNoneMatch, () -> customerService.getCustomersByStatus(status));
     }
 
     /**
@@ -135,16 +154,18 @@ public class CustomerController {
 
     /**
      * PUT /api/customers/{id} - Update customer (partial update)
-     * Returns: 200 OK with updated customer, 404 Not Found if not exists
+     * Returns: 200 OK with updated customer and its new ETag, 404 Not Found if not exists,
+     * 412 Precondition Failed if If-Match is stale, 409 Conflict if a concurrent update changed the same fields
      * Validates: Fields using @Valid
      */
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<CustomerResponseDTO> updateCustomer(
             @PathVariable Long id,
-            @Valid @RequestBody CustomerUpdateDTO updateDTO) {
-        CustomerResponseDTO updated = customerService.updateCustomer(id, updateDTO);
-        return ResponseEntity.ok(updated);
+            @Valid @RequestBody CustomerUpdateDTO updateDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = CustomerReadCache.versionFromIfMatch(ifMatch, id);
+        return versioned(id, () -> customerService.updateCustomer(id, updateDTO, expectedVersion));
     }
 
     /**
@@ -160,35 +181,44 @@ public class CustomerController {
 
     /**
      * PATCH /api/customers/{id}/activate - Activate customer
-     * Returns: 200 OK with updated customer
+     * Returns: 200 OK with updated customer and its new ETag, 412 Precondition Failed if If-Match is stale
      */
     @PatchMapping("/{id}/activate")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<CustomerResponseDTO> activateCustomer(@PathVariable Long id) {
-        CustomerResponseDTO activated = customerService.activateCustomer(id);
-        return ResponseEntity.ok(activated);
+    public ResponseEntity<CustomerResponseDTO> activateCustomer(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = CustomerReadCache.versionFromIfMatch(ifMatch, id);
+        return versioned(id, () -> customerService.updateCustomerStatus(
+                id, Customer.CustomerStatus.ACTIVE, expectedVersion));
     }
 
     /**
      * PATCH /api/customers/{id}/suspend - Suspend customer
-     * Returns: 200 OK with updated customer
+     * Returns: 200 OK with updated customer and its new ETag, 412 Precondition Failed if If-Match is stale
      */
     @PatchMapping("/{id}/suspend")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<CustomerResponseDTO> suspendCustomer(@PathVariable Long id) {
-        CustomerResponseDTO suspended = customerService.suspendCustomer(id);
-        return ResponseEntity.ok(suspended);
+    public ResponseEntity<CustomerResponseDTO> suspendCustomer(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = CustomerReadCache.versionFromIfMatch(ifMatch, id);
+        return versioned(id, () -> customerService.updateCustomerStatus(
+                id, Customer.CustomerStatus.SUSPENDED, expectedVersion));
     }
 
     /**
      * PATCH /api/customers/{id}/deactivate - Deactivate customer
-     * Returns: 200 OK with updated customer
+     * Returns: 200 OK with updated customer and its new ETag, 412 Precondition Failed if If-Match is stale
      */
     @PatchMapping("/{id}/deactivate")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<CustomerResponseDTO> deactivateCustomer(@PathVariable Long id) {
-        CustomerResponseDTO deactivated = customerService.deactivateCustomer(id);
-        return ResponseEntity.ok(deactivated);
+    public ResponseEntity<CustomerResponseDTO> deactivateCustomer(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = CustomerReadCache.versionFromIfMatch(ifMatch, id);
+        return versioned(id, () -> customerService.updateCustomerStatus(
+                id, Customer.CustomerStatus.INACTIVE, expectedVersion));
     }
 
     /**
@@ -212,5 +242,46 @@ public class CustomerController {
         long count = customerService.getActiveCustomerCount();
         return ResponseEntity.ok(count);
     }
-}
 
+    // Conditional GET helpers
+
+    private ResponseEntity<byte[]> cachedList(String key, String ifNoneMatch,
+                                              Supplier<List<CustomerResponseDTO>> loader) {
+        String currentETag = readCache.currentListETag(key);
+        if (CachedResource.eTagMatches(ifNoneMatch, currentETag)) {
+            return notModified(currentETag);
+        }
+        return conditional(readCache.list(key, loader), ifNoneMatch);
+    }
+
+    private ResponseEntity<byte[]> conditional(CachedResource resource, String ifNoneMatch) {
+        if (resource.matches(ifNoneMatch)) {
+            return notModified(resource.getETag());
+        }
+        return ResponseEntity.ok()
+                .eTag(resource.getETag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(resource.getBody());
+    }
+
+    // Optimistic write helpers
+
+    private ResponseEntity<CustomerResponseDTO> versioned(Long id, Supplier<CustomerResponseDTO> update) {
+        try {
+            CustomerResponseDTO updated = update.get();
+            return ResponseEntity.ok()
+                    .eTag(CustomerReadCache.customerETag(id, updated.getVersion()))
+                    .body(updated);
+        } catch (CustomerVersionMismatchException ex) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(CustomerReadCache.customerETag(id, ex.getCurrentVersion()))
+                    .build();
+        } catch (CustomerUpdateConflictException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    private ResponseEntity<byte[]> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.sanjeev.learnspring.jpa.controller;
+
+import com.sanjeev.learnspring.jpa.cache.CustomerRecordStore;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.invalidation.InvalidationBus;
+import com.sanjeev.learnspring.jpa.maintenance.CustomerArchiver;
+import com.sanjeev.learnspring.jpa.maintenance.CustomerPurge;
+import com.sanjeev.learnspring.jpa.shard.CustomerShardRebalancer;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin operations on the customer tables.
+ */
+@RestController
+@RequestMapping("/api/customers/maintenance")
+public class CustomerMaintenanceController {
+
+    private final CustomerPurge purge;
+    private final CustomerArchiver archiver;
+    private final CustomerRecordStore recordStore;
+    private final InvalidationBus invalidationBus;
+    private final CustomerShardRebalancer rebalancer;
+    private final CustomerShards customerShards;
+
+    public CustomerMaintenanceController(CustomerPurge purge, CustomerArchiver archiver,
+                                         CustomerRecordStore recordStore, InvalidationBus invalidationBus,
+                                         CustomerShardRebalancer rebalancer, CustomerShards customerShards) {
+        this.purge = purge;
+        this.archiver = archiver;
+        this.recordStore = recordStore;
+        this.invalidationBus = invalidationBus;
+        this.rebalancer = rebalancer;
+        this.customerShards = customerShards;
+    }
+
+    /**
+     * POST /api/customers/maintenance/purge?status=DELETED&status=INACTIVE - Start a purge run
+     * Returns: 202 Accepted with the run, 409 Conflict if a run is in progress,
+     * 400 Bad Request for ACTIVE; without status the configured statuses are purged
+     */
+    @PostMapping("/purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startPurge(
+            @RequestParam(name = "status", required = false) List<Customer.CustomerStatus> statuses) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(purge.startPurge(statuses));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/customers/maintenance/purge - Purge totals and the latest run's progress
+     */
+    @GetMapping("/purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getPurgeStatus() {
+        return purge.getStatus();
+    }
+
+    /**
+     * DELETE /api/customers/maintenance/purge - Cancel the run in progress
+     * Returns: 204 No Content, 404 Not Found if no run is in progress
+     */
+    @DeleteMapping("/purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> cancelPurge() {
+        return purge.cancel() ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * POST /api/customers/maintenance/archive - Start an archive pass in the background
+     * Returns: 202 Accepted, 409 Conflict if a pass is in progress
+     */
+    @PostMapping("/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startArchive() {
+        if (!archiver.startArchive()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Archive pass already running"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(archiver.getStatus());
+    }
+
+    /**
+     * GET /api/customers/maintenance/archive - Archive totals and size
+     */
+    @GetMapping("/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getArchiveStatus() {
+        return archiver.getStatus();
+    }
+
+    /**
+     * GET /api/customers/maintenance/record-store - Record store footprint, hits and GC comparison
+     */
+    @GetMapping("/record-store")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getRecordStoreStatus() {
+        return recordStore.getStatus();
+    }
+
+    /**
+     * GET /api/customers/maintenance/invalidation - Invalidation bus counters, peers and propagation lag
+     */
+    @GetMapping("/invalidation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getInvalidationStatus() {
+        return invalidationBus.getStatus();
+    }
+
+    /**
+     * GET /api/customers/maintenance/shards - Shard layout, pools and rebalance progress
+     */
+    @GetMapping("/shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getShardStatus() {
+        return rebalancer.getStatus();
+    }
+
+    /**
+     * POST /api/customers/maintenance/shards/rebalance - Move customers to the shards the ring places them on
+     * Returns: 202 Accepted, 409 Conflict if a pass is in progress, 400 Bad Request if sharding is off
+     */
+    @PostMapping("/shards/rebalance")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> startRebalance() {
+        if (!customerShards.isEnabled()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Customers are not sharded"));
+        }
+        if (!rebalancer.startRebalance()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Rebalance already running"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(rebalancer.getStatus());
+    }
+}
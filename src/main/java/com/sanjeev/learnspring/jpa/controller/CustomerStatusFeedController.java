@@ -0,0 +1,44 @@
+package com.sanjeev.learnspring.jpa.controller;
+
+import com.sanjeev.learnspring.jpa.feed.CustomerStatusFeed;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Push alternative to polling the customer stats and status endpoints.
+ */
+@RestController
+@RequestMapping("/api/customers/stats/live")
+public class CustomerStatusFeedController {
+
+    private final CustomerStatusFeed statusFeed;
+
+    public CustomerStatusFeedController(CustomerStatusFeed statusFeed) {
+        this.statusFeed = statusFeed;
+    }
+
+    /**
+     * Status counts ("counts" events) and status transitions ("transitions" events) as Server-Sent Events.
+     * GET /api/customers/stats/live
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamStatus() {
+        return statusFeed.subscribe();
+    }
+
+    /**
+     * Producer and subscriber metrics of the feed.
+     */
+    @GetMapping("/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getMetrics() {
+        return statusFeed.getMetrics();
+    }
+}
@@ -0,0 +1,71 @@
+package com.sanjeev.learnspring.jpa.controller;
+
+import com.sanjeev.learnspring.jpa.datasource.ConnectionPoolManager;
+import com.sanjeev.learnspring.jpa.datasource.ReadReplicaDataSource;
+import com.sanjeev.learnspring.jpa.sql.SlowQueryLog;
+import com.sanjeev.learnspring.jpa.sql.SqlStatementMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Connection pool settings and metrics, JDBC statement metrics and the slow-query log.
+ */
+@RestController
+@RequestMapping("/api/datasource")
+public class DataSourceController {
+
+    private final ConnectionPoolManager poolManager;
+    private final ObjectProvider<ReadReplicaDataSource> readReplicas;
+    private final SqlStatementMetrics statementMetrics;
+    private final SlowQueryLog slowQueryLog;
+
+    public DataSourceController(ConnectionPoolManager poolManager,
+                                ObjectProvider<ReadReplicaDataSource> readReplicas,
+                                SqlStatementMetrics statementMetrics,
+                                SlowQueryLog slowQueryLog) {
+        this.poolManager = poolManager;
+        this.readReplicas = readReplicas;
+        this.statementMetrics = statementMetrics;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @GetMapping("/pool")
+    public Map<String, Object> getPool() {
+        return poolManager.getStatus();
+    }
+
+    /**
+     * Replica health, lag and routing counters; only enabled with app.database.routing.enabled.
+     */
+    @GetMapping("/replicas")
+    public Map<String, Object> getReplicas() {
+        ReadReplicaDataSource replicas = readReplicas.getIfAvailable();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("enabled", replicas != null);
+        if (replicas != null) {
+            response.putAll(replicas.getStatus());
+        }
+        return response;
+    }
+
+    /**
+     * Statement counts, rows and time, in total and per repository method and request mapping.
+     */
+    @GetMapping("/statements")
+    public Map<String, Object> getStatements() {
+        return statementMetrics.getMetrics();
+    }
+
+    /**
+     * Slow-query log counters and the statement fingerprints with the most logged time.
+     */
+    @GetMapping("/slow-queries")
+    public Map<String, Object> getSlowQueries() {
+        return slowQueryLog.getStatus();
+    }
+}
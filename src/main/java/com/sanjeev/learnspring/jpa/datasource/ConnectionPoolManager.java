@@ -0,0 +1,90 @@
+package com.sanjeev.learnspring.jpa.datasource;
+
+import com.sanjeev.learnspring.config.event.ConfigurationChangedEvent;
+import com.sanjeev.learnspring.config.reload.DatabaseSettings;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the Hikari pool in line with app.database.pool and reports its state.
+ *
+ * minSize maps to minimumIdle, maxSize to maximumPoolSize and timeout to
+ * connectionTimeout (ms). Hikari accepts these three at runtime, so a hot-reloaded
+ * pool change is applied without restarting. Hikari would only trim surplus
+ * connections on its next housekeeping run, so when the maximum shrinks the current
+ * connections are soft-evicted: idle ones close now, busy ones when returned.
+ */
+@Component
+public class ConnectionPoolManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolManager.class);
+
+    private final HikariDataSource dataSource;
+    private final ConnectionPoolMetrics poolMetrics;
+
+    public ConnectionPoolManager(HikariDataSource dataSource, ConnectionPoolMetrics poolMetrics) {
+        this.dataSource = dataSource;
+        this.poolMetrics = poolMetrics;
+    }
+
+    @EventListener
+    public void onConfigurationChanged(ConfigurationChangedEvent event) {
+        if (event.hasChangedUnder("app.database.pool.")) {
+            apply(event.getCurrent().getDatabase().pool());
+        }
+    }
+
+    /**
+     * Applies pool sizing to the running pool.
+     */
+    public void apply(DatabaseSettings.Pool pool) {
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        boolean shrinking = pool.maxSize() < config.getMaximumPoolSize();
+        // Raise the maximum first so minimumIdle never exceeds it in between
+        if (pool.maxSize() >= config.getMaximumPoolSize()) {
+            config.setMaximumPoolSize(pool.maxSize());
+            config.setMinimumIdle(Math.min(pool.minSize(), pool.maxSize()));
+        } else {
+            config.setMinimumIdle(Math.min(pool.minSize(), pool.maxSize()));
+            config.setMaximumPoolSize(pool.maxSize());
+        }
+        config.setConnectionTimeout(pool.timeout());
+        HikariPoolMXBean poolBean = dataSource.getHikariPoolMXBean();
+        if (shrinking && poolBean != null) {
+            poolBean.softEvictConnections();
+        }
+        log.info("Connection pool {} resized: min idle {}, max {}, timeout {}ms",
+                config.getPoolName(), config.getMinimumIdle(), config.getMaximumPoolSize(), config.getConnectionTimeout());
+    }
+
+    public Map<String, Object> getStatus() {
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("minimumIdle", config.getMinimumIdle());
+        settings.put("maximumPoolSize", config.getMaximumPoolSize());
+        settings.put("connectionTimeoutMs", config.getConnectionTimeout());
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pool", config.getPoolName());
+        status.put("settings", settings);
+        status.put("metrics", poolMetrics.getMetrics());
+        return status;
+    }
+
+    /**
+     * Initial configuration, before the pool is started.
+     */
+    static void applyTo(HikariDataSource dataSource, DatabaseSettings.Pool pool) {
+        dataSource.setMaximumPoolSize(pool.maxSize());
+        dataSource.setMinimumIdle(Math.min(pool.minSize(), pool.maxSize()));
+        dataSource.setConnectionTimeout(pool.timeout());
+    }
+}
@@ -0,0 +1,92 @@
+package com.sanjeev.learnspring.jpa.datasource;
+
+import com.sanjeev.learnspring.metrics.LatencyHistogram;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hikari metrics tracker that keeps pool gauges and a connection acquire-latency histogram
+ * in memory, without a metrics library.
+ *
+ * Acquire latency is the time a caller waited in getConnection(); it goes up when the
+ * pool is too small for the load.
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+    private final LongAdder usageTotalMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder connectionsCreated = new LongAdder();
+
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                connectionsCreated.increment();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireLatency.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageTotalMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * Clears the histogram and counters, e.g. between load test runs. Pool gauges are live values.
+     */
+    public void reset() {
+        acquireLatency.reset();
+        usageTotalMillis.reset();
+        timeouts.reset();
+        connectionsCreated.reset();
+    }
+
+    public long getAcquireCount() {
+        return acquireLatency.getCount();
+    }
+
+    public long getAcquirePercentileMicros(double quantile) {
+        return acquireLatency.getPercentileMicros(quantile);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        PoolStats stats = poolStats;
+        if (stats != null) {
+            metrics.put("total", stats.getTotalConnections());
+            metrics.put("active", stats.getActiveConnections());
+            metrics.put("idle", stats.getIdleConnections());
+            metrics.put("pending", stats.getPendingThreads());
+            metrics.put("max", stats.getMaxConnections());
+            metrics.put("min", stats.getMinConnections());
+        }
+        long count = acquireLatency.getCount();
+        metrics.put("connectionsCreated", connectionsCreated.sum());
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("usageMeanMillis", count == 0 ? 0 : (double) usageTotalMillis.sum() / count);
+        metrics.put("acquireLatency", acquireLatency.toMap());
+        return metrics;
+    }
+}
@@ -0,0 +1,129 @@
+package com.sanjeev.learnspring.jpa.datasource;
+
+import com.sanjeev.learnspring.config.reload.LiveConfiguration;
+import com.sanjeev.learnspring.jpa.shard.ShardRoutingDataSource;
+import com.sanjeev.learnspring.jpa.shard.ShardingProperties;
+import com.sanjeev.learnspring.jpa.sql.SlowQueryLog;
+import com.sanjeev.learnspring.jpa.sql.SqlMetricsProperties;
+import com.sanjeev.learnspring.jpa.sql.SqlStatementFilter;
+import com.sanjeev.learnspring.jpa.sql.SqlStatementMetrics;
+import com.sanjeev.learnspring.jpa.sql.StatementMetricsDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Hikari connection pool whose sizing comes from app.database.pool (DatabaseProperties).
+ *
+ * Connection details (URL, driver, credentials) still come from spring.datasource.*;
+ * app.database.url describes the external database of the demo and is not connected to.
+ * Defining the DataSource here makes Spring Boot's DataSource auto-configuration back off,
+ * so spring.datasource.hikari.* settings are not applied.
+ *
+ * The pool, or the replica or shard routing proxy in front of it, is wrapped in the primary
+ * {@link StatementMetricsDataSource}, so every statement of JPA, Flyway and plain JDBC
+ * users is counted.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    public static final String POOL_NAME = "customers-pool";
+
+    @Bean
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                       LiveConfiguration liveConfiguration,
+                                       ConnectionPoolMetrics poolMetrics) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(POOL_NAME);
+        ConnectionPoolManager.applyTo(dataSource, liveConfiguration.current().getDatabase().pool());
+        dataSource.setMetricsTrackerFactory(poolMetrics);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public StatementMetricsDataSource statementMetricsDataSource(HikariDataSource dataSource,
+                                                                 ObjectProvider<LazyConnectionDataSourceProxy> routingDataSource,
+                                                                 SqlStatementMetrics metrics,
+                                                                 SlowQueryLog slowQueryLog,
+                                                                 SqlMetricsProperties properties) {
+        DataSource target = routingDataSource.getIfAvailable();
+        return new StatementMetricsDataSource(target != null ? target : dataSource, metrics, slowQueryLog, properties);
+    }
+
+    @Bean
+    public SqlStatementFilter sqlStatementFilter(SqlStatementMetrics metrics, SqlMetricsProperties properties) {
+        return new SqlStatementFilter(metrics, properties);
+    }
+
+    /**
+     * Read-replica routing (app.database.routing.enabled=true).
+     *
+     * JPA and JDBC users get a lazy proxy in front of the primary pool: it only fetches a
+     * physical connection at the first statement, by which time the transaction manager
+     * has marked it read-only, so @Transactional(readOnly = true) work goes to a replica.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "app.database.routing.enabled", havingValue = "true")
+    static class ReplicaRoutingConfig {
+
+        @Bean
+        public ReadReplicaDataSource readReplicaDataSource(HikariDataSource dataSource,
+                                                           ReplicaRoutingProperties properties) {
+            return new ReadReplicaDataSource(dataSource, properties);
+        }
+
+        @Bean
+        public LazyConnectionDataSourceProxy routingDataSource(HikariDataSource dataSource,
+                                                               ReadReplicaDataSource readReplicaDataSource) {
+            LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(dataSource);
+            routing.setReadOnlyDataSource(readReplicaDataSource);
+            return routing;
+        }
+
+        @Bean
+        public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingProperties properties) {
+            return new ReadYourWritesFilter(properties);
+        }
+    }
+
+    /**
+     * Sharded customers (app.database.sharding.enabled=true).
+     *
+     * JPA and JDBC users get a lazy proxy in front of the shards, so a transaction's
+     * connection comes from the shard {@link com.sanjeev.learnspring.jpa.shard.ShardContext}
+     * selects at its first statement. Replica routing uses the same proxy and cannot be
+     * combined with it.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "app.database.sharding.enabled", havingValue = "true")
+    static class ShardingConfig {
+
+        @Bean
+        public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource dataSource,
+                                                             ShardingProperties properties,
+                                                             ReplicaRoutingProperties replicaRoutingProperties,
+                                                             FlywayProperties flywayProperties) {
+            if (replicaRoutingProperties.isEnabled()) {
+                throw new IllegalStateException(
+                        "app.database.sharding and app.database.routing cannot be enabled together");
+            }
+            return new ShardRoutingDataSource(dataSource, properties, flywayProperties.getLocations());
+        }
+
+        @Bean
+        public LazyConnectionDataSourceProxy routingDataSource(ShardRoutingDataSource shardRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.sanjeev.learnspring.jpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connections for read-only transactions, spread over the replicas in app.database.routing.
+ *
+ * Each connection goes to the replica with the fewest active connections among those
+ * that are reachable and no more than app.database.routing.max-lag ms behind. Lag is
+ * measured with the heartbeat row (V9 migration) the primary rewrites every
+ * lag-check-interval: a replica showing the latest beat is caught up, one showing an older
+ * beat has been missing writes since the beat after it. Reads fall back to the primary when
+ * no replica qualifies, when a replica refuses a connection, or while the current
+ * client is pinned to the primary after its own write ({@link ReadYourWritesFilter}).
+ */
+public class ReadReplicaDataSource extends AbstractDataSource implements SmartLifecycle, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaDataSource.class);
+
+    private static final String READ_HEARTBEAT = "SELECT beat FROM replication_heartbeat WHERE id = 1";
+    private static final String UPDATE_HEARTBEAT = "UPDATE replication_heartbeat SET beat = ? WHERE id = 1";
+
+    private final DataSource primary;
+    private final ReplicaRoutingProperties properties;
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final LongAdder primaryFallbacks = new LongAdder();
+    private final LongAdder primarySticky = new LongAdder();
+    private volatile long lastBeat;
+    private volatile ScheduledExecutorService monitor;
+
+    public ReadReplicaDataSource(DataSource primary, ReplicaRoutingProperties properties) {
+        this.primary = primary;
+        this.properties = properties;
+        for (ReplicaRoutingProperties.Replica config : properties.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + config.getName());
+            pool.setJdbcUrl(config.getUrl());
+            pool.setUsername(config.getUsername());
+            pool.setPassword(config.getPassword());
+            pool.setMaximumPoolSize(config.getMaxPoolSize());
+            pool.setMinimumIdle(0);
+            pool.setReadOnly(true);
+            pool.setInitializationFailTimeout(-1);
+            replicas.add(new Replica(config.getName(), pool));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadYourWritesFilter.isPinnedToPrimary()) {
+            primarySticky.increment();
+            return primary.getConnection();
+        }
+        long maxLag = properties.getMaxLag();
+        List<Replica> candidates = replicas.stream()
+                .filter(replica -> replica.healthy && replica.lagMillis <= maxLag)
+                .sorted(Comparator.comparingInt(Replica::activeConnections))
+                .toList();
+        for (Replica replica : candidates) {
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.routed.increment();
+                return connection;
+            } catch (SQLException ex) {
+                replica.markUnhealthy(ex);
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Replica pools only hold connections for their configured credentials, so a connection
+     * for other credentials always comes from the primary.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (monitor != null) {
+            return;
+        }
+        monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(this::checkLag, 0, properties.getLagCheckInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+            monitor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return monitor != null;
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    /**
+     * Writes a new heartbeat on the primary and reads the last one each replica has applied.
+     */
+    void checkLag() {
+        try {
+            lastBeat = beat();
+        } catch (SQLException ex) {
+            log.warn("Could not write replication heartbeat: {}", ex.toString());
+            return;
+        }
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(READ_HEARTBEAT)) {
+                replica.lagMillis = result.next()
+                        ? lagMillis(result.getLong(1), lastBeat, properties.getLagCheckInterval(),
+                                System.currentTimeMillis())
+                        : Long.MAX_VALUE;
+                replica.healthy = true;
+            } catch (SQLException ex) {
+                replica.markUnhealthy(ex);
+            }
+        }
+    }
+
+    /**
+     * How long a replica showing replicaBeat has been missing writes: zero if it shows the
+     * latest beat, otherwise since the beat after its own, written one interval later.
+     */
+    static long lagMillis(long replicaBeat, long lastBeat, long interval, long now) {
+        if (replicaBeat >= lastBeat) {
+            return 0;
+        }
+        return Math.max(0, now - (replicaBeat + interval));
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("maxLagMs", properties.getMaxLag());
+        status.put("stickyWindowMs", properties.getStickyWindow());
+        status.put("primaryFallbacks", primaryFallbacks.sum());
+        status.put("primarySticky", primarySticky.sum());
+        List<Map<String, Object>> replicaStatus = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", replica.name);
+            entry.put("healthy", replica.healthy);
+            entry.put("lagMs", replica.lagMillis == Long.MAX_VALUE ? null : replica.lagMillis);
+            entry.put("activeConnections", replica.activeConnections());
+            entry.put("routed", replica.routed.sum());
+            replicaStatus.add(entry);
+        }
+        status.put("replicas", replicaStatus);
+        return status;
+    }
+
+    private long beat() throws SQLException {
+        long now = System.currentTimeMillis();
+        try (Connection connection = primary.getConnection()) {
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_HEARTBEAT)) {
+                update.setLong(1, now);
+                if (update.executeUpdate() == 0) {
+                    throw new SQLException("replication_heartbeat has no row 1");
+                }
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+        return now;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private final LongAdder routed = new LongAdder();
+        // Unknown until the first lag check
+        private volatile boolean healthy;
+        private volatile long lagMillis = Long.MAX_VALUE;
+
+        private Replica(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            return mxBean == null ? 0 : mxBean.getActiveConnections();
+        }
+
+        private void markUnhealthy(SQLException ex) {
+            if (healthy) {
+                log.warn("Replica {} is unavailable: {}", name, ex.toString());
+            }
+            healthy = false;
+        }
+    }
+}
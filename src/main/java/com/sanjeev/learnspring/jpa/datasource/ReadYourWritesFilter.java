@@ -0,0 +1,77 @@
+package com.sanjeev.learnspring.jpa.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a client's reads on the primary for app.database.routing.sticky-window ms after its
+ * own write, so it never reads an older state from a replica that hasn't caught up yet.
+ *
+ * A client is the authenticated user, or the remote address for anonymous requests; a
+ * write is any successful request with an unsafe method. Runs after Spring Security,
+ * and pins the request thread for {@link ReadReplicaDataSource}.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final ReplicaRoutingProperties properties;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesFilter(ReplicaRoutingProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Whether read-only transactions on this thread must use the primary.
+     */
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = clientKey(request);
+        Long lastWrite = lastWrites.get(client);
+        long now = System.currentTimeMillis();
+        PINNED.set(lastWrite != null && now - lastWrite < properties.getStickyWindow());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PINNED.remove();
+        }
+        if (!SAFE_METHODS.contains(request.getMethod()) && response.getStatus() < 400) {
+            recordWrite(client, System.currentTimeMillis());
+        }
+    }
+
+    private void recordWrite(String client, long now) {
+        lastWrites.put(client, now);
+        if (lastWrites.size() > PRUNE_THRESHOLD) {
+            lastWrites.values().removeIf(time -> now - time >= properties.getStickyWindow());
+        }
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "addr:" + request.getRemoteAddr();
+    }
+}
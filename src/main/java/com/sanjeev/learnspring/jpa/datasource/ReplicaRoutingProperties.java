@@ -0,0 +1,137 @@
+package com.sanjeev.learnspring.jpa.datasource;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Type-safe configuration properties for routing read-only transactions to replicas.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.database.routing")
+@Validated
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+
+    @Valid
+    private List<Replica> replicas = new ArrayList<>();
+
+    // After a client's own write its reads stay on the primary for this long (ms)
+    @Min(value = 0, message = "Sticky window must not be negative")
+    private long stickyWindow = 5000;
+
+    // Replicas lagging further behind the primary (ms) are skipped
+    @Min(value = 0, message = "Max replica lag must not be negative")
+    private long maxLag = 1000;
+
+    // Interval (ms) of the replication heartbeat and lag checks
+    @Min(value = 100, message = "Lag check interval must be at least 100ms")
+    private long lagCheckInterval = 1000;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public long getStickyWindow() {
+        return stickyWindow;
+    }
+
+    public void setStickyWindow(long stickyWindow) {
+        this.stickyWindow = stickyWindow;
+    }
+
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    public void setMaxLag(long maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    public long getLagCheckInterval() {
+        return lagCheckInterval;
+    }
+
+    public void setLagCheckInterval(long lagCheckInterval) {
+        this.lagCheckInterval = lagCheckInterval;
+    }
+
+    /**
+     * Connection settings of one read replica.
+     */
+    public static class Replica {
+
+        @NotBlank(message = "Replica name must not be blank")
+        private String name;
+
+        @NotBlank(message = "Replica URL must not be blank")
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        @Min(value = 1, message = "Replica pool size must be at least 1")
+        private int maxPoolSize = 10;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class CustomerResponseDTO {
     private String status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 
     public static CustomerResponseDTO fromEntity(Customer customer) {
         CustomerResponseDTO dto = new CustomerResponseDTO();
@@ -33,6 +34,7 @@ public class CustomerResponseDTO {
         dto.setStatus(customer.getStatus() != null ? customer.getStatus().name() : null);
         dto.setCreatedAt(customer.getCreatedAt());
         dto.setUpdatedAt(customer.getUpdatedAt());
+        dto.setVersion(customer.getVersion());
         return dto;
     }
 
@@ -132,8 +134,15 @@ public class CustomerResponseDTO {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getFullName() {
         return firstName + " " + lastName;
     }
 }
-
@@ -1,19 +1,47 @@
 package com.sanjeev.learnspring.jpa.entity;
 
+import com.sanjeev.learnspring.jpa.shard.AssignableIdentityGenerator;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 /**
  * JPA Entity representing a Customer.
  * Demonstrates various JPA annotations and field types.
+ *
+ * Updates are optimistically locked on {@link #getVersion() version} and only write
+ * the columns that actually changed.
+ *
+ * The schema is owned by the Flyway migrations in db/migration; the indexes below mirror
+ * them for readers of the entity. The *Folded columns are lower-cased copies of the
+ * searched values, kept in step by the lifecycle callbacks, so that case-insensitive and
+ * full-name queries can use an index.
  */
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_city_status", columnList = "city, status"),
+        @Index(name = "idx_customers_status_last_name", columnList = "status, last_name"),
+        @Index(name = "idx_customers_status_created_at", columnList = "status, created_at DESC"),
+        @Index(name = "idx_customers_last_name_first_name", columnList = "last_name, first_name"),
+        @Index(name = "idx_customers_first_name", columnList = "first_name"),
+        @Index(name = "idx_customers_date_of_birth", columnList = "date_of_birth"),
+        @Index(name = "idx_customers_created_at", columnList = "created_at"),
+        @Index(name = "idx_customers_city_folded", columnList = "city_folded"),
+        @Index(name = "idx_customers_full_name_folded", columnList = "full_name_folded"),
+        @Index(name = "idx_customers_last_name_folded", columnList = "last_name_folded"),
+        @Index(name = "idx_customers_email_folded", columnList = "email_folded"),
+        @Index(name = "idx_customers_status_updated_at", columnList = "status, updated_at")
+})
+@DynamicUpdate
 public class Customer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "customer-id")
+    @GenericGenerator(name = "customer-id", type = AssignableIdentityGenerator.class)
     private Long id;
 
     @Column(nullable = false, length = 50)
@@ -48,6 +76,23 @@ public class Customer {
 
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Search columns, derived from the fields above
+    @Column(length = 50)
+    private String cityFolded;
+
+    @Column(length = 100)
+    private String emailFolded;
+
+    @Column(length = 50)
+    private String lastNameFolded;
+
+    @Column(length = 101)
+    private String fullNameFolded;
+
     // Constructors
     public Customer() {
     }
@@ -67,11 +112,28 @@ public class Customer {
         if (status == null) {
             status = CustomerStatus.ACTIVE;
         }
+        foldSearchColumns();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        foldSearchColumns();
+    }
+
+    private void foldSearchColumns() {
+        cityFolded = fold(city);
+        emailFolded = fold(email);
+        lastNameFolded = fold(lastName);
+        fullNameFolded = fold(getFullName());
+    }
+
+    /**
+     * Search form of a value: lower-cased like SQL LOWER(), so queries can fold their
+     * parameter in SQL and compare it with a folded column.
+     */
+    public static String fold(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
     }
 
     // Getters and Setters
@@ -171,6 +233,10 @@ public class Customer {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     // Helper method
     public String getFullName() {
         return firstName + " " + lastName;
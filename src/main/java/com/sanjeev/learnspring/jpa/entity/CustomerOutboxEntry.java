@@ -0,0 +1,99 @@
+package com.sanjeev.learnspring.jpa.entity;
+
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Row of the customer_outbox table, written in the same transaction as the customer change.
+ *
+ * The id is only an insertion handle and may have gaps (rolled-back transactions). The relay
+ * assigns seq once the row is committed, so published sequence numbers are consecutive;
+ * seq stays null until then.
+ */
+@Entity
+@Table(name = "customer_outbox", indexes = {
+        @Index(name = "idx_customer_outbox_seq", columnList = "seq", unique = true)
+})
+public class CustomerOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long seq;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CustomerChangedEvent.ChangeType changeType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Customer.CustomerStatus status;
+
+    // Customer as JSON after the change; null for deletes
+    @Column(length = 4000)
+    private String payload;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime publishedAt;
+
+    // Constructors
+    protected CustomerOutboxEntry() {
+    }
+
+    public CustomerOutboxEntry(Long customerId, CustomerChangedEvent.ChangeType changeType,
+                               Customer.CustomerStatus status, String payload) {
+        this.customerId = customerId;
+        this.changeType = changeType;
+        this.status = status;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public CustomerChangedEvent.ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public Customer.CustomerStatus getStatus() {
+        return status;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    /**
+     * Called by the relay when the entry is published.
+     */
+    public void markPublished(long seq, LocalDateTime publishedAt) {
+        this.seq = seq;
+        this.publishedAt = publishedAt;
+    }
+}
@@ -0,0 +1,69 @@
+package com.sanjeev.learnspring.jpa.event;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+
+/**
+ * Published by CustomerService for every customer mutation.
+ * Listeners that must only see committed changes use @TransactionalEventListener.
+ */
+public class CustomerChangedEvent {
+
+    private final Long customerId;
+    private final ChangeType changeType;
+    private final Customer.CustomerStatus status;
+    private final CustomerResponseDTO customer;
+
+    public CustomerChangedEvent(Long customerId, ChangeType changeType, Customer.CustomerStatus status) {
+        this(customerId, changeType, status, null);
+    }
+
+    public CustomerChangedEvent(Long customerId, ChangeType changeType, Customer.CustomerStatus status,
+                                CustomerResponseDTO customer) {
+        this.customerId = customerId;
+        this.changeType = changeType;
+        this.status = status;
+        this.customer = customer;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    /**
+     * Status after the change, or null for deletes.
+     */
+    public Customer.CustomerStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * The customer as written, or null for deletes and when the publisher didn't have it.
+     */
+    public CustomerResponseDTO getCustomer() {
+        return customer;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerChangedEvent{" +
+                "customerId=" + customerId +
+                ", changeType=" + changeType +
+                ", status=" + status +
+                '}';
+    }
+
+    /**
+     * Kind of mutation
+     */
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STATUS_CHANGED
+    }
+}
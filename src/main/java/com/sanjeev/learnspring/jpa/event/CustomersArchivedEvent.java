@@ -0,0 +1,29 @@
+package com.sanjeev.learnspring.jpa.event;
+
+import java.util.List;
+
+/**
+ * Published by CustomerArchiver for each batch of customers it moved to customers_archive.
+ * The customers are unchanged and still readable by id, but no longer in the customers
+ * table, so lists and counts over it change. Listeners that must only see committed
+ * changes use @TransactionalEventListener.
+ */
+public class CustomersArchivedEvent {
+
+    private final List<Long> customerIds;
+
+    public CustomersArchivedEvent(List<Long> customerIds) {
+        this.customerIds = List.copyOf(customerIds);
+    }
+
+    public List<Long> getCustomerIds() {
+        return customerIds;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomersArchivedEvent{" +
+                "customers=" + customerIds.size() +
+                '}';
+    }
+}
@@ -0,0 +1,49 @@
+package com.sanjeev.learnspring.jpa.event;
+
+import java.util.Map;
+
+/**
+ * Published by InvalidationBus for customers another instance changed, with the version
+ * it committed (InvalidationMessage.GONE if the customer no longer exists there). When
+ * the bus may have missed changes it publishes one event for all customers instead. The
+ * changes are already committed, so listeners use @EventListener.
+ */
+public class CustomersInvalidatedEvent {
+
+    private final Map<Long, Long> versions;
+    private final boolean all;
+
+    private CustomersInvalidatedEvent(Map<Long, Long> versions, boolean all) {
+        this.versions = Map.copyOf(versions);
+        this.all = all;
+    }
+
+    public static CustomersInvalidatedEvent of(Map<Long, Long> versions) {
+        return new CustomersInvalidatedEvent(versions, false);
+    }
+
+    public static CustomersInvalidatedEvent all() {
+        return new CustomersInvalidatedEvent(Map.of(), true);
+    }
+
+    /**
+     * Committed version by customer id; empty when {@link #isAll()}.
+     */
+    public Map<Long, Long> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Whether every cached customer, list and count must be dropped.
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomersInvalidatedEvent{" +
+                (all ? "all" : "customers=" + versions.size()) +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package com.sanjeev.learnspring.jpa.event;
+
+import java.util.List;
+
+/**
+ * Published by CustomerPurge for each chunk of customers it deleted, instead of one
+ * CustomerChangedEvent per customer. The chunk's DELETED outbox entries are written in
+ * the same transaction. Listeners that must only see committed changes use
+ * @TransactionalEventListener.
+ */
+public class CustomersPurgedEvent {
+
+    private final List<Long> customerIds;
+
+    public CustomersPurgedEvent(List<Long> customerIds) {
+        this.customerIds = List.copyOf(customerIds);
+    }
+
+    public List<Long> getCustomerIds() {
+        return customerIds;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomersPurgedEvent{" +
+                "customers=" + customerIds.size() +
+                '}';
+    }
+}
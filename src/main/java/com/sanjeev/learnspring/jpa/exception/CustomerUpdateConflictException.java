@@ -0,0 +1,11 @@
+package com.sanjeev.learnspring.jpa.exception;
+
+/**
+ * A concurrent update changed the same fields, or kept winning until the retries ran out.
+ */
+public class CustomerUpdateConflictException extends RuntimeException {
+
+    public CustomerUpdateConflictException(Long id, String reason) {
+        super("Concurrent update of customer " + id + ": " + reason);
+    }
+}
@@ -0,0 +1,18 @@
+package com.sanjeev.learnspring.jpa.exception;
+
+/**
+ * The client's If-Match version is no longer the customer's current version.
+ */
+public class CustomerVersionMismatchException extends RuntimeException {
+
+    private final Long currentVersion;
+
+    public CustomerVersionMismatchException(Long id, Long expectedVersion, Long currentVersion) {
+        super("Customer " + id + " is at version " + currentVersion + ", not the expected version " + expectedVersion);
+        this.currentVersion = currentVersion;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
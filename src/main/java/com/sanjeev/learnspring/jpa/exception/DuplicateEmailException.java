@@ -3,4 +3,8 @@ public class DuplicateEmailException extends RuntimeException {
     public DuplicateEmailException(String email) {
         super("Customer with email already exists: " + email);
     }
+
+    public DuplicateEmailException(String email, Throwable cause) {
+        super("Customer with email already exists: " + email, cause);
+    }
 }
@@ -0,0 +1,447 @@
+package com.sanjeev.learnspring.jpa.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersArchivedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersInvalidatedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersPurgedEvent;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live feed of customer status counts and status transitions, multicast over Server-Sent Events.
+ *
+ * Committed changes only mark the counts dirty and record the latest transition per
+ * customer. Once per app.status-feed.tick a single producer runs one grouped count
+ * query (only if something changed), renders a "counts" and a "transitions" frame once
+ * and hands the same bytes to every subscriber, so database load does not grow with
+ * the number of dashboards.
+ *
+ * Subscribers hold no thread: a small pool (app.status-feed.sender-threads) writes their
+ * frames. Counts are coalesced per subscriber, so one that falls behind skips to the
+ * newest snapshot; transitions go through a bounded buffer (app.status-feed.buffer-size)
+ * and a subscriber that overflows it is disconnected instead of slowing the others.
+ *
+ * A client that stops reading blocks its sender thread in the socket write. Once such a
+ * write has run longer than app.status-feed.write-timeout the subscriber is dropped and
+ * the pool gets a thread in place of the stuck one, so the other subscribers keep
+ * receiving. The emitter can only be completed by the stuck thread itself (its methods
+ * are synchronized with the blocked send), once the write returns or the container's
+ * write timeout (server.tomcat.connection-timeout) fails it.
+ */
+@Component
+public class CustomerStatusFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerStatusFeed.class);
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("keep-alive").build();
+
+    private final CustomerRepository customerRepository;
+    private final CustomerShards customerShards;
+    private final StatusFeedProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean countsDirty = new AtomicBoolean(true);
+    private final Map<Long, Map<String, Object>> pendingTransitions = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+    private volatile Set<DataWithMediaType> latestCounts;
+    private volatile Map<String, Object> lastCounts = Map.of();
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder countQueries = new LongAdder();
+    private final LongAdder transitionsPublished = new LongAdder();
+    private final LongAdder transitionsCoalesced = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder snapshotsSkipped = new LongAdder();
+    private final LongAdder slowSubscribersDropped = new LongAdder();
+    private final LongAdder stalledSubscribersDropped = new LongAdder();
+
+    private volatile ScheduledExecutorService ticker;
+    private volatile ThreadPoolExecutor senders;
+
+    public CustomerStatusFeed(CustomerRepository customerRepository, CustomerShards customerShards,
+                              StatusFeedProperties properties, ObjectMapper objectMapper) {
+        this.customerRepository = customerRepository;
+        this.customerShards = customerShards;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.senders = newSenderPool(properties.getSenderThreads());
+    }
+
+    /**
+     * Opens a feed that starts with the current counts.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        register(emitter);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, properties.getBufferSize());
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        Set<DataWithMediaType> counts = latestCounts;
+        if (counts != null && !countsDirty.get()) {
+            subscriber.offerCounts(counts);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        countsDirty.set(true);
+        if (event.getChangeType() == CustomerChangedEvent.ChangeType.UPDATED) {
+            return;
+        }
+        Map<String, Object> transition = new LinkedHashMap<>();
+        transition.put("customerId", event.getCustomerId());
+        transition.put("changeType", event.getChangeType());
+        transition.put("status", event.getStatus());
+        transition.put("at", LocalDateTime.now());
+        if (pendingTransitions.put(event.getCustomerId(), transition) != null) {
+            transitionsCoalesced.increment();
+        }
+    }
+
+    /**
+     * Purged customers only change the counts; per-customer transitions would flood the feed.
+     */
+    @TransactionalEventListener
+    public void onCustomersPurged(CustomersPurgedEvent event) {
+        countsDirty.set(true);
+    }
+
+    /**
+     * Archived customers leave the counts, which cover the customers table only.
+     */
+    @TransactionalEventListener
+    public void onCustomersArchived(CustomersArchivedEvent event) {
+        countsDirty.set(true);
+    }
+
+    /**
+     * Another instance changed customers; status transitions are only published by the
+     * instance that made them.
+     */
+    @EventListener
+    public void onCustomersInvalidated(CustomersInvalidatedEvent event) {
+        countsDirty.set(true);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        if (senders.isShutdown()) {
+            senders = newSenderPool(properties.getSenderThreads());
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-status-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::safeTick, properties.getTick(), properties.getTick(),
+                TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::heartbeat, properties.getHeartbeatInterval(),
+                properties.getHeartbeatInterval(), TimeUnit.MILLISECONDS);
+        long reapInterval = Math.min(properties.getTick(), properties.getWriteTimeout());
+        ticker.scheduleWithFixedDelay(this::reapStalledWrites, reapInterval, reapInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        subscribers.clear();
+        senders.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ticker != null;
+    }
+
+    /**
+     * One producer step: coalesce everything that changed since the last tick into at most
+     * one counts frame and one transitions frame and multicast them.
+     */
+    void tick() {
+        ticks.increment();
+        List<Map<String, Object>> transitions = new ArrayList<>();
+        for (Long customerId : pendingTransitions.keySet()) {
+            Map<String, Object> transition = pendingTransitions.remove(customerId);
+            if (transition != null) {
+                transitions.add(transition);
+            }
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        if (countsDirty.getAndSet(false)) {
+            Set<DataWithMediaType> counts = render("counts", loadCounts());
+            latestCounts = counts;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offerCounts(counts);
+            }
+        }
+        if (!transitions.isEmpty()) {
+            Set<DataWithMediaType> frame = render("transitions", transitions);
+            transitionsPublished.add(transitions.size());
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    /**
+     * Drops the subscribers whose current write has outlasted the write timeout and sizes
+     * the sender pool to make up for the threads they hold.
+     */
+    void reapStalledWrites() {
+        long timeout = TimeUnit.MILLISECONDS.toNanos(properties.getWriteTimeout());
+        long now = System.nanoTime();
+        int stalled = 0;
+        for (Subscriber subscriber : writing) {
+            if (now - subscriber.writeStartedAt > timeout) {
+                stalled++;
+                subscriber.dropStalled();
+            }
+        }
+        resizeSenders(properties.getSenderThreads() + stalled);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("subscribers", subscribers.size());
+        metrics.put("ticks", ticks.sum());
+        metrics.put("countQueries", countQueries.sum());
+        metrics.put("transitionsPublished", transitionsPublished.sum());
+        metrics.put("transitionsCoalesced", transitionsCoalesced.sum());
+        metrics.put("framesSent", framesSent.sum());
+        metrics.put("snapshotsSkipped", snapshotsSkipped.sum());
+        metrics.put("slowSubscribersDropped", slowSubscribersDropped.sum());
+        metrics.put("stalledSubscribersDropped", stalledSubscribersDropped.sum());
+        metrics.put("senderThreads", senders.getCorePoolSize());
+        metrics.put("lastCounts", lastCounts);
+        metrics.put("tickMs", properties.getTick());
+        metrics.put("bufferSize", properties.getBufferSize());
+        return metrics;
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException ex) {
+            countsDirty.set(true);
+            log.warn("Customer status feed tick failed: {}", ex.toString());
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    private Map<String, Object> loadCounts() {
+        countQueries.increment();
+        Map<Customer.CustomerStatus, Long> byStatus = new EnumMap<>(Customer.CustomerStatus.class);
+        for (Customer.CustomerStatus status : Customer.CustomerStatus.values()) {
+            byStatus.put(status, 0L);
+        }
+        long total = 0;
+        // One grouped count per shard, summed
+        for (List<Object[]> rows : customerShards.scatter(customerRepository::countGroupedByStatus)) {
+            for (Object[] row : rows) {
+                long count = ((Number) row[1]).longValue();
+                byStatus.merge((Customer.CustomerStatus) row[0], count, Long::sum);
+                total += count;
+            }
+        }
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("total", total);
+        counts.put("byStatus", byStatus);
+        counts.put("at", LocalDateTime.now());
+        lastCounts = counts;
+        return counts;
+    }
+
+    private Set<DataWithMediaType> render(String name, Object data) {
+        try {
+            return SseEmitter.event()
+                    .name(name)
+                    .data(objectMapper.writeValueAsString(data), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not render status feed frame", ex);
+        }
+    }
+
+    private static ThreadPoolExecutor newSenderPool(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "customer-status-sse");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Threads above the new size leave the pool once idle.
+     */
+    private synchronized void resizeSenders(int threads) {
+        ThreadPoolExecutor pool = senders;
+        if (threads > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(threads);
+            pool.setCorePoolSize(threads);
+        } else if (threads < pool.getCorePoolSize()) {
+            pool.setCorePoolSize(threads);
+            pool.setMaximumPoolSize(threads);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<Set<DataWithMediaType>> counts = new AtomicReference<>();
+        private final BlockingQueue<Set<DataWithMediaType>> frames;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile long writeStartedAt;
+
+        private Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.frames = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Replaces an unsent counts frame rather than queueing behind it.
+         */
+        private void offerCounts(Set<DataWithMediaType> frame) {
+            if (counts.getAndSet(frame) != null) {
+                snapshotsSkipped.increment();
+            }
+            schedule();
+        }
+
+        private void offer(Set<DataWithMediaType> frame) {
+            if (!frames.offer(frame)) {
+                // Never block the producer: the sender thread completes the emitter once its write returns
+                slowSubscribersDropped.increment();
+                closed = true;
+                subscribers.remove(this);
+            }
+            schedule();
+        }
+
+        private void heartbeat() {
+            if (!scheduled.get() && frames.isEmpty()) {
+                offer(HEARTBEAT);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException ex) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Runs on at most one sender thread at a time per subscriber.
+         */
+        private void drain() {
+            try {
+                do {
+                    Set<DataWithMediaType> frame;
+                    while (!closed && ((frame = counts.getAndSet(null)) != null || (frame = frames.poll()) != null)) {
+                        write(frame);
+                    }
+                    if (closed) {
+                        close();
+                        return;
+                    }
+                    scheduled.set(false);
+                } while ((counts.get() != null || !frames.isEmpty() || closed) && scheduled.compareAndSet(false, true));
+            } catch (IOException | RuntimeException ex) {
+                subscribers.remove(this);
+                emitter.completeWithError(ex);
+            }
+        }
+
+        private void write(Set<DataWithMediaType> frame) throws IOException {
+            writeStartedAt = System.nanoTime();
+            writing.add(this);
+            try {
+                emitter.send(frame);
+            } finally {
+                writing.remove(this);
+            }
+            framesSent.increment();
+        }
+
+        /**
+         * Stops feeding a subscriber stuck in a write; its sender completes the emitter once the write returns.
+         */
+        private void dropStalled() {
+            if (!closed) {
+                closed = true;
+                subscribers.remove(this);
+                stalledSubscribersDropped.increment();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.sanjeev.learnspring.jpa.feed;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for the live customer status feed.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.status-feed")
+@Validated
+public class StatusFeedProperties {
+
+    // Interval (ms) at which pending changes are coalesced and pushed to subscribers
+    @Min(value = 50, message = "Status feed tick must be at least 50ms")
+    private long tick = 1000;
+
+    // Unsent frames a subscriber may fall behind before it is disconnected
+    @Min(value = 1, message = "Status feed buffer size must be at least 1")
+    private int bufferSize = 64;
+
+    // Threads writing to subscribers; shared by all connections
+    @Min(value = 1, message = "Status feed needs at least 1 sender thread")
+    private int senderThreads = 4;
+
+    // Time (ms) a write to a subscriber may block before the subscriber is dropped
+    @Min(value = 100, message = "Status feed write timeout must be at least 100ms")
+    private long writeTimeout = 5000;
+
+    // Interval (ms) of SSE keep-alive comments to idle subscribers
+    @Min(value = 1000, message = "Heartbeat interval must be at least 1000ms")
+    private long heartbeatInterval = 15000;
+
+    // Getters and Setters
+    public long getTick() {
+        return tick;
+    }
+
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+    public long getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    public void setWriteTimeout(long writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+}
@@ -0,0 +1,114 @@
+package com.sanjeev.learnspring.jpa.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Messages as rows of customer_invalidations in the shared database
+ * (app.invalidation.transport=database), for deployments where multicast isn't
+ * available. Every instance polls for rows past the highest seq it has read.
+ *
+ * A row whose insert commits after a row with a higher seq was already read is never
+ * seen. Each node inserts from one thread in autocommit, so such a row always belongs to
+ * another node than the one it raced with, and the next message of its node shows the
+ * receiver a gap in that node's sequence.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidation.transport", havingValue = "database")
+public class DatabaseInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseInvalidationTransport.class);
+
+    private static final String INSERT = "INSERT INTO customer_invalidations (node_id, payload, created_at) "
+            + "VALUES (?, ?, LOCALTIMESTAMP)";
+    private static final String POLL = "SELECT seq, node_id, payload FROM customer_invalidations "
+            + "WHERE seq > ? ORDER BY seq LIMIT ?";
+    private static final String PRUNE = "DELETE FROM customer_invalidations WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InvalidationProperties.DatabaseProperties properties;
+    private volatile long nodeId;
+    private volatile ScheduledExecutorService poller;
+    // Only touched by the poller thread after start
+    private long lastSeq;
+
+    public DatabaseInvalidationTransport(JdbcTemplate jdbcTemplate, InvalidationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties.getDatabase();
+    }
+
+    @Override
+    public synchronized void start(long nodeId, Consumer<byte[]> receiver) {
+        if (poller != null) {
+            return;
+        }
+        this.nodeId = nodeId;
+        // Earlier messages predate this instance's caches
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM customer_invalidations", Long.class);
+        lastSeq = max != null ? max : 0;
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> poll(receiver), properties.getPollInterval(),
+                properties.getPollInterval(), TimeUnit.MILLISECONDS);
+        long pruneInterval = Math.max(properties.getRetention() / 10, properties.getPollInterval());
+        executor.scheduleWithFixedDelay(this::prune, pruneInterval, pruneInterval, TimeUnit.MILLISECONDS);
+        poller = executor;
+    }
+
+    @Override
+    public void send(byte[] message) {
+        jdbcTemplate.update(INSERT, nodeId, message);
+    }
+
+    @Override
+    public synchronized void stop() {
+        ScheduledExecutorService executor = poller;
+        poller = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void poll(Consumer<byte[]> receiver) {
+        try {
+            List<Row> rows;
+            do {
+                rows = jdbcTemplate.query(POLL, (rs, rowNum) -> new Row(rs.getLong("seq"), rs.getLong("node_id"),
+                        rs.getBytes("payload")), lastSeq, properties.getPollSize());
+                for (Row row : rows) {
+                    lastSeq = row.seq();
+                    if (row.nodeId() != nodeId) {
+                        receiver.accept(row.payload());
+                    }
+                }
+            } while (rows.size() == properties.getPollSize() && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException ex) {
+            log.warn("Invalidation poll failed: {}", ex.toString());
+        }
+    }
+
+    private void prune() {
+        try {
+            long cutoff = System.currentTimeMillis() - properties.getRetention();
+            jdbcTemplate.update(PRUNE, new Timestamp(cutoff));
+        } catch (RuntimeException ex) {
+            log.warn("Invalidation prune failed: {}", ex.toString());
+        }
+    }
+
+    private record Row(long seq, long nodeId, byte[] payload) {
+    }
+}
@@ -0,0 +1,397 @@
+package com.sanjeev.learnspring.jpa.invalidation;
+
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersArchivedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersInvalidatedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersPurgedEvent;
+import com.sanjeev.learnspring.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the customer caches of several instances (CustomerRecordStore, CustomerReadCache,
+ * the status feed's counts) consistent by broadcasting every committed customer change
+ * to the other instances, which drop their copies of older versions.
+ *
+ * Changes are queued after commit without blocking and sent by one thread as
+ * InvalidationMessages of up to app.invalidation.batch-size customers, once the oldest
+ * has waited app.invalidation.linger-time ms; repeated changes of a customer within a
+ * batch are sent once. Each instance numbers its messages, and an idle instance sends its
+ * last number every heartbeat-interval ms. A receiver that finds a number missing, or
+ * first hears of an instance that has been sending for a while, has lost changes and
+ * drops all cached customers instead; so does every receiver when the sender's queue
+ * (queue-capacity) overflowed, because the sender then skips a number.
+ *
+ * Inactive unless app.invalidation.transport names an InvalidationTransport.
+ */
+@Component
+public class InvalidationBus implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    // Heartbeats a node may miss before it is forgotten
+    private static final int PEER_EXPIRY_HEARTBEATS = 60;
+
+    private final InvalidationTransport transport;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long heartbeatNanos;
+    private final long nodeId;
+    private final BlockingQueue<Pending> queue;
+    // Set when a change was dropped; the next message skips a sequence number
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    // Guarded by itself
+    private final Map<Long, Peer> peers = new HashMap<>();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder entriesSent = new LongAdder();
+    private final LongAdder heartbeatsSent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder entriesApplied = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder gaps = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAccumulator highWatermark = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram commitToApply = new LatencyHistogram();
+    private final LatencyHistogram sendToReceive = new LatencyHistogram();
+
+    private volatile boolean running;
+    private volatile Thread senderThread;
+    private volatile long sequence;
+    private volatile long lastSentNanos;
+    private volatile long startedNanos;
+
+    public InvalidationBus(Optional<InvalidationTransport> transport, InvalidationProperties properties,
+                           ApplicationEventPublisher eventPublisher) {
+        if (transport.isEmpty() && !"none".equals(properties.getTransport())) {
+            throw new IllegalStateException("No InvalidationTransport for app.invalidation.transport="
+                    + properties.getTransport());
+        }
+        this.transport = transport.orElse(null);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = properties.getBatchSize();
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(properties.getLingerTime());
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(properties.getHeartbeatInterval());
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        this.nodeId = id;
+    }
+
+    @TransactionalEventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        boolean gone = event.getChangeType() == CustomerChangedEvent.ChangeType.DELETED
+                || event.getCustomer() == null || event.getCustomer().getVersion() == null;
+        enqueue(event.getCustomerId(), gone ? InvalidationMessage.GONE : event.getCustomer().getVersion());
+    }
+
+    @TransactionalEventListener
+    public void onCustomersPurged(CustomersPurgedEvent event) {
+        event.getCustomerIds().forEach(id -> enqueue(id, InvalidationMessage.GONE));
+    }
+
+    @TransactionalEventListener
+    public void onCustomersArchived(CustomersArchivedEvent event) {
+        event.getCustomerIds().forEach(id -> enqueue(id, InvalidationMessage.GONE));
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || transport == null) {
+            return;
+        }
+        try {
+            transport.start(nodeId, this::receive);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not start the invalidation transport", ex);
+        }
+        startedNanos = System.nanoTime();
+        lastSentNanos = startedNanos - heartbeatNanos;
+        running = true;
+        Thread thread = new Thread(this::sendLoop, "invalidation-sender");
+        thread.setDaemon(true);
+        thread.start();
+        senderThread = thread;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = senderThread;
+        senderThread = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Send what is left on the caller's thread
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            send(batch);
+            batch.clear();
+        }
+        transport.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Send and receive counters, known nodes, and the lag from commit on the sending
+     * instance to the caches here being invalidated (both clocks are wall clocks, so the
+     * lag includes any skew between hosts).
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running);
+        status.put("transport", transport != null ? transport.getClass().getSimpleName() : "none");
+        status.put("nodeId", nodeId);
+        status.put("sequence", sequence);
+        status.put("queueDepth", queue.size());
+        status.put("queueHighWatermark", highWatermark.get());
+        status.put("enqueued", enqueued.sum());
+        status.put("dropped", dropped.sum());
+        status.put("messagesSent", messagesSent.sum());
+        status.put("entriesSent", entriesSent.sum());
+        status.put("heartbeatsSent", heartbeatsSent.sum());
+        status.put("sendFailures", sendFailures.sum());
+        status.put("received", received.sum());
+        status.put("entriesApplied", entriesApplied.sum());
+        status.put("duplicates", duplicates.sum());
+        status.put("gaps", gaps.sum());
+        status.put("flushes", flushes.sum());
+        status.put("malformed", malformed.sum());
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (peers) {
+            peers.forEach((id, peer) -> {
+                Map<String, Object> node = new LinkedHashMap<>();
+                node.put("nodeId", id);
+                node.put("sequence", peer.sequence);
+                node.put("lastHeardMillisAgo", TimeUnit.NANOSECONDS.toMillis(now - peer.lastHeardNanos));
+                nodes.add(node);
+            });
+        }
+        status.put("peers", nodes);
+        status.put("commitToApplyLag", commitToApply.toMap());
+        status.put("sendToReceiveLag", sendToReceive.toMap());
+        return status;
+    }
+
+    private void enqueue(Long customerId, long version) {
+        if (transport == null || customerId == null) {
+            return;
+        }
+        if (!queue.offer(new Pending(customerId, version, nowMicros(), System.nanoTime()))) {
+            dropped.increment();
+            overflowed.set(true);
+            return;
+        }
+        enqueued.increment();
+        highWatermark.accumulate(queue.size());
+    }
+
+    private void sendLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                long untilHeartbeat = lastSentNanos + heartbeatNanos - System.nanoTime();
+                Pending first = untilHeartbeat > 0 ? queue.poll(untilHeartbeat, TimeUnit.NANOSECONDS) : null;
+                if (first == null) {
+                    send(batch);
+                    expirePeers();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                // stop() sends the rest of the queue; hand back anything already taken
+                for (Pending pending : batch) {
+                    if (!queue.offer(pending)) {
+                        dropped.increment();
+                        overflowed.set(true);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends the batch as one message, or a heartbeat if it is empty.
+     */
+    private void send(List<Pending> batch) {
+        Map<Long, InvalidationMessage.Entry> entries = new LinkedHashMap<>();
+        long committedAt = Long.MAX_VALUE;
+        for (Pending pending : batch) {
+            entries.merge(pending.customerId(),
+                    new InvalidationMessage.Entry(InvalidationMessage.EntityType.CUSTOMER, pending.customerId(),
+                            pending.version()),
+                    (held, next) -> next.version() > held.version() ? next : held);
+            committedAt = Math.min(committedAt, pending.committedAtMicros());
+        }
+        long seq = sequence;
+        if (overflowed.getAndSet(false)) {
+            seq++;
+        }
+        if (!entries.isEmpty()) {
+            seq++;
+        }
+        sequence = seq;
+        long sentAt = nowMicros();
+        InvalidationMessage message = new InvalidationMessage(nodeId, seq,
+                entries.isEmpty() ? sentAt : committedAt, sentAt, new ArrayList<>(entries.values()));
+        lastSentNanos = System.nanoTime();
+        try {
+            transport.send(message.encode());
+            if (message.isHeartbeat()) {
+                heartbeatsSent.increment();
+            } else {
+                messagesSent.increment();
+                entriesSent.add(entries.size());
+            }
+        } catch (Exception ex) {
+            // The sequence number is spent, so receivers flush on the next message
+            sendFailures.increment();
+            log.warn("Failed to send invalidation message {}: {}", seq, ex.toString());
+        }
+    }
+
+    private void receive(byte[] bytes) {
+        InvalidationMessage message;
+        try {
+            message = InvalidationMessage.decode(bytes);
+        } catch (IllegalArgumentException ex) {
+            malformed.increment();
+            return;
+        }
+        if (message.getNodeId() == nodeId) {
+            return;
+        }
+        received.increment();
+        sendToReceive.record(lagNanos(message.getSentAtMicros()));
+        boolean flush = false;
+        synchronized (peers) {
+            long now = System.nanoTime();
+            Peer peer = peers.get(message.getNodeId());
+            if (peer == null) {
+                // A node sends from sequence 1 and heartbeats reach every receiver, so a
+                // node first heard of mid-stream after a few heartbeats means lost messages
+                flush = message.getSequence() > 1 && now - startedNanos > 2 * heartbeatNanos;
+                peer = new Peer();
+                peers.put(message.getNodeId(), peer);
+            } else if (message.getSequence() <= peer.sequence) {
+                peer.lastHeardNanos = now;
+                if (!message.isHeartbeat()) {
+                    duplicates.increment();
+                }
+                return;
+            } else {
+                flush = message.getSequence() != peer.sequence + 1 || message.isHeartbeat();
+            }
+            peer.sequence = message.getSequence();
+            peer.lastHeardNanos = now;
+        }
+        if (flush) {
+            gaps.increment();
+            flushes.increment();
+            log.info("Invalidation messages from node {} were lost, dropping all cached customers",
+                    message.getNodeId());
+            eventPublisher.publishEvent(CustomersInvalidatedEvent.all());
+        } else if (!message.isHeartbeat()) {
+            Map<Long, Long> versions = new HashMap<>();
+            for (InvalidationMessage.Entry entry : message.getEntries()) {
+                versions.merge(entry.id(), entry.version(), Math::max);
+            }
+            eventPublisher.publishEvent(CustomersInvalidatedEvent.of(versions));
+            entriesApplied.add(versions.size());
+        } else {
+            return;
+        }
+        commitToApply.record(lagNanos(message.getCommittedAtMicros()));
+    }
+
+    private void expirePeers() {
+        long now = System.nanoTime();
+        synchronized (peers) {
+            Iterator<Peer> iterator = peers.values().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().lastHeardNanos > PEER_EXPIRY_HEARTBEATS * heartbeatNanos) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static long lagNanos(long sinceMicros) {
+        return TimeUnit.MICROSECONDS.toNanos(Math.max(nowMicros() - sinceMicros, 0));
+    }
+
+    private static long nowMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    private record Pending(long customerId, long version, long committedAtMicros, long enqueuedNanos) {
+    }
+
+    private static final class Peer {
+
+        private long sequence;
+        private long lastHeardNanos;
+    }
+}
@@ -0,0 +1,140 @@
+package com.sanjeev.learnspring.jpa.invalidation;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One batch of invalidations from one node, in a compact binary form that fits a
+ * datagram: a 37-byte header and 17 bytes per entry.
+ *
+ * Header: magic, format, sender node id, the sender's sequence number, when the oldest
+ * entry was committed and when the batch was sent (epoch microseconds), entry count.
+ * Entry: entity type, id, and the version written, or {@link #GONE} if the entity no
+ * longer exists. A message without entries is a heartbeat carrying the sender's last
+ * sequence number, so a receiver notices a lost last batch.
+ */
+public final class InvalidationMessage {
+
+    /**
+     * Version of an entity that was deleted, purged or archived.
+     */
+    public static final long GONE = Long.MAX_VALUE;
+
+    static final int HEADER_BYTES = 37;
+    static final int ENTRY_BYTES = 17;
+    static final int MAX_ENTRIES = (1400 - HEADER_BYTES) / ENTRY_BYTES;
+
+    private static final short MAGIC = 0x4356;
+    private static final byte FORMAT = 1;
+
+    private final long nodeId;
+    private final long sequence;
+    private final long committedAtMicros;
+    private final long sentAtMicros;
+    private final List<Entry> entries;
+
+    public InvalidationMessage(long nodeId, long sequence, long committedAtMicros, long sentAtMicros,
+                               List<Entry> entries) {
+        if (entries.size() > MAX_ENTRIES) {
+            throw new IllegalArgumentException("At most " + MAX_ENTRIES + " entries per message");
+        }
+        this.nodeId = nodeId;
+        this.sequence = sequence;
+        this.committedAtMicros = committedAtMicros;
+        this.sentAtMicros = sentAtMicros;
+        this.entries = List.copyOf(entries);
+    }
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + entries.size() * ENTRY_BYTES);
+        buffer.putShort(MAGIC).put(FORMAT)
+                .putLong(nodeId).putLong(sequence).putLong(committedAtMicros).putLong(sentAtMicros)
+                .putShort((short) entries.size());
+        for (Entry entry : entries) {
+            buffer.put(entry.type().code).putLong(entry.id()).putLong(entry.version());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Entries of unknown entity types, e.g. from a newer node, are skipped.
+     *
+     * @throws IllegalArgumentException if the bytes are not a message of this format
+     */
+    public static InvalidationMessage decode(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.getShort() != MAGIC || buffer.get() != FORMAT) {
+                throw new IllegalArgumentException("Not an invalidation message");
+            }
+            long nodeId = buffer.getLong();
+            long sequence = buffer.getLong();
+            long committedAt = buffer.getLong();
+            long sentAt = buffer.getLong();
+            int count = buffer.getShort() & 0xFFFF;
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                EntityType type = EntityType.of(buffer.get());
+                long id = buffer.getLong();
+                long version = buffer.getLong();
+                if (type != null) {
+                    entries.add(new Entry(type, id, version));
+                }
+            }
+            return new InvalidationMessage(nodeId, sequence, committedAt, sentAt, entries);
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Truncated invalidation message", ex);
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getCommittedAtMicros() {
+        return committedAtMicros;
+    }
+
+    public long getSentAtMicros() {
+        return sentAtMicros;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public boolean isHeartbeat() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Entities whose changes are broadcast, with their wire codes.
+     */
+    public enum EntityType {
+        CUSTOMER((byte) 1);
+
+        private final byte code;
+
+        EntityType(byte code) {
+            this.code = code;
+        }
+
+        static EntityType of(byte code) {
+            for (EntityType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    public record Entry(EntityType type, long id, long version) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.sanjeev.learnspring.jpa.invalidation;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for the cross-instance cache invalidation bus.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.invalidation")
+@Validated
+public class InvalidationProperties {
+
+    // "none", "multicast" or "database"; any other value expects a custom InvalidationTransport bean
+    @NotBlank(message = "Invalidation transport must not be blank")
+    private String transport = "none";
+
+    // Changes per message at most (a message must fit one datagram)
+    @Min(value = 1, message = "Invalidation batch size must be at least 1")
+    @Max(value = InvalidationMessage.MAX_ENTRIES, message = "Invalidation batch size must not exceed 80")
+    private int batchSize = 64;
+
+    // Longest time (ms) the first change of a partial batch waits for more changes
+    @Min(value = 0, message = "Invalidation linger time cannot be negative")
+    private long lingerTime = 20;
+
+    // Changes waiting to be sent; when full, changes are dropped and receivers flush
+    @Min(value = 1, message = "Invalidation queue capacity must be at least 1")
+    private int queueCapacity = 10000;
+
+    // How often (ms) an idle instance announces its last sequence number
+    @Min(value = 100, message = "Invalidation heartbeat interval must be at least 100 ms")
+    private long heartbeatInterval = 5000;
+
+    @Valid
+    private MulticastProperties multicast = new MulticastProperties();
+
+    @Valid
+    private DatabaseProperties database = new DatabaseProperties();
+
+    // Getters and Setters
+    public String getTransport() {
+        return transport;
+    }
+
+    public void setTransport(String transport) {
+        this.transport = transport;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getLingerTime() {
+        return lingerTime;
+    }
+
+    public void setLingerTime(long lingerTime) {
+        this.lingerTime = lingerTime;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public MulticastProperties getMulticast() {
+        return multicast;
+    }
+
+    public void setMulticast(MulticastProperties multicast) {
+        this.multicast = multicast;
+    }
+
+    public DatabaseProperties getDatabase() {
+        return database;
+    }
+
+    public void setDatabase(DatabaseProperties database) {
+        this.database = database;
+    }
+
+    /**
+     * Nested configuration for the UDP multicast transport.
+     */
+    public static class MulticastProperties {
+
+        @NotBlank(message = "Multicast group must not be blank")
+        private String group = "239.255.42.99";
+
+        @Min(value = 1, message = "Multicast port must be at least 1")
+        @Max(value = 65535, message = "Multicast port must not exceed 65535")
+        private int port = 4446;
+
+        // Network interface to join the group on; the loopback interface if blank
+        private String networkInterface = "";
+
+        // Hops a datagram may take; 0 keeps it on this host
+        @Min(value = 0, message = "Multicast TTL cannot be negative")
+        @Max(value = 255, message = "Multicast TTL must not exceed 255")
+        private int ttl = 0;
+
+        // Getters and Setters
+        public String getGroup() {
+            return group;
+        }
+
+        public void setGroup(String group) {
+            this.group = group;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public String getNetworkInterface() {
+            return networkInterface;
+        }
+
+        public void setNetworkInterface(String networkInterface) {
+            this.networkInterface = networkInterface;
+        }
+
+        public int getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(int ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Nested configuration for the transport through the shared database.
+     */
+    public static class DatabaseProperties {
+
+        // How often (ms) new messages are polled for
+        @Min(value = 10, message = "Invalidation poll interval must be at least 10 ms")
+        private long pollInterval = 200;
+
+        // Messages read per poll at most
+        @Min(value = 1, message = "Invalidation poll size must be at least 1")
+        private int pollSize = 500;
+
+        // Age (ms) after which messages are deleted
+        @Min(value = 1000, message = "Invalidation retention must be at least 1000 ms")
+        private long retention = 600000;
+
+        // Getters and Setters
+        public long getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(long pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public int getPollSize() {
+            return pollSize;
+        }
+
+        public void setPollSize(int pollSize) {
+            this.pollSize = pollSize;
+        }
+
+        public long getRetention() {
+            return retention;
+        }
+
+        public void setRetention(long retention) {
+            this.retention = retention;
+        }
+    }
+}
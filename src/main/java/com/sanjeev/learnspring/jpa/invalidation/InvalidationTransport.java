@@ -0,0 +1,24 @@
+package com.sanjeev.learnspring.jpa.invalidation;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded InvalidationMessages between instances. Delivery may be lossy,
+ * duplicated or reordered; the bus detects that from the sequence numbers.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Starts delivering messages of other nodes to the receiver, from a transport thread.
+     * Messages of this node may be delivered too.
+     */
+    void start(long nodeId, Consumer<byte[]> receiver) throws IOException;
+
+    /**
+     * Called from the bus's sender thread only, one message at a time.
+     */
+    void send(byte[] message) throws IOException;
+
+    void stop();
+}
@@ -0,0 +1,126 @@
+package com.sanjeev.learnspring.jpa.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * One UDP datagram per message to a multicast group (app.invalidation.transport=multicast).
+ *
+ * By default the group is joined on the loopback interface with a TTL of 0, so it
+ * connects the instances running on this host, e.g. several copies started on different
+ * server ports for testing; set app.invalidation.multicast.network-interface and ttl to
+ * span hosts. Datagrams may be lost, which receivers notice from the sequence numbers.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidation.transport", havingValue = "multicast")
+public class MulticastInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(MulticastInvalidationTransport.class);
+
+    private static final int MAX_DATAGRAM = 1500;
+
+    private final InvalidationProperties.MulticastProperties properties;
+    private volatile MulticastSocket socket;
+    private volatile InetSocketAddress group;
+
+    public MulticastInvalidationTransport(InvalidationProperties properties) {
+        this.properties = properties.getMulticast();
+    }
+
+    @Override
+    public synchronized void start(long nodeId, Consumer<byte[]> receiver) throws IOException {
+        NetworkInterface networkInterface = networkInterface();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getByName(properties.getGroup()),
+                properties.getPort());
+        MulticastSocket multicastSocket = new MulticastSocket(null);
+        try {
+            // Every instance on the host binds the same port
+            multicastSocket.setReuseAddress(true);
+            multicastSocket.bind(new InetSocketAddress(properties.getPort()));
+            multicastSocket.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+            multicastSocket.setOption(StandardSocketOptions.IP_MULTICAST_TTL, properties.getTtl());
+            multicastSocket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            multicastSocket.joinGroup(address, networkInterface);
+        } catch (IOException ex) {
+            multicastSocket.close();
+            throw ex;
+        }
+        socket = multicastSocket;
+        group = address;
+        Thread thread = new Thread(() -> receive(multicastSocket, receiver), "invalidation-multicast");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Invalidation bus joined multicast group {} on {}", address, networkInterface.getName());
+    }
+
+    @Override
+    public void send(byte[] message) throws IOException {
+        MulticastSocket multicastSocket = socket;
+        if (multicastSocket == null) {
+            throw new IOException("Multicast transport is not started");
+        }
+        multicastSocket.send(new DatagramPacket(message, message.length, group));
+    }
+
+    @Override
+    public synchronized void stop() {
+        MulticastSocket multicastSocket = socket;
+        socket = null;
+        if (multicastSocket != null) {
+            // Unblocks the receiver thread
+            multicastSocket.close();
+        }
+    }
+
+    private static void receive(MulticastSocket multicastSocket, Consumer<byte[]> receiver) {
+        byte[] buffer = new byte[MAX_DATAGRAM];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!multicastSocket.isClosed()) {
+            try {
+                packet.setLength(buffer.length);
+                multicastSocket.receive(packet);
+                receiver.accept(Arrays.copyOfRange(buffer, packet.getOffset(), packet.getOffset() + packet.getLength()));
+            } catch (SocketException ex) {
+                if (!multicastSocket.isClosed()) {
+                    log.warn("Invalidation multicast receive failed: {}", ex.toString());
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Invalidation multicast receive failed: {}", ex.toString());
+            }
+        }
+    }
+
+    private NetworkInterface networkInterface() throws IOException {
+        String name = properties.getNetworkInterface();
+        if (name != null && !name.isBlank()) {
+            NetworkInterface named = NetworkInterface.getByName(name);
+            if (named == null) {
+                throw new SocketException("No network interface named " + name);
+            }
+            return named;
+        }
+        return NetworkInterface.networkInterfaces()
+                .filter(candidate -> {
+                    try {
+                        return candidate.isLoopback() && candidate.isUp();
+                    } catch (SocketException ex) {
+                        return false;
+                    }
+                })
+                .findFirst()
+                .orElseThrow(() -> new SocketException("No loopback network interface"));
+    }
+}
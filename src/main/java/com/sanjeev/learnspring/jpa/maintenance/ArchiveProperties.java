@@ -0,0 +1,75 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for moving cold customers to customers_archive.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.customers.archive")
+@Validated
+public class ArchiveProperties {
+
+    // Run archive passes in the background
+    private boolean enabled = true;
+
+    // INACTIVE customers not updated for this many days are archived; DELETED ones right away
+    @Min(value = 0, message = "Archive inactive-days must not be negative")
+    private int inactiveDays = 30;
+
+    // Customers moved per transaction
+    @Min(value = 1, message = "Archive batch size must be at least 1")
+    private int batchSize = 500;
+
+    // Pause (ms) between batches, leaving the database to foreground work
+    @Min(value = 0, message = "Archive pause must not be negative")
+    private long pause = 50;
+
+    // Delay (ms) between archive passes, and before the first one
+    @Min(value = 1000, message = "Archive interval must be at least 1000ms")
+    private long interval = 3600000;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInactiveDays() {
+        return inactiveDays;
+    }
+
+    public void setInactiveDays(int inactiveDays) {
+        this.inactiveDays = inactiveDays;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPause() {
+        return pause;
+    }
+
+    public void setPause(long pause) {
+        this.pause = pause;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+}
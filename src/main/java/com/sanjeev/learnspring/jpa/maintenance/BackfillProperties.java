@@ -0,0 +1,51 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for the background backfill of customer search columns.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.customers.backfill")
+@Validated
+public class BackfillProperties {
+
+    // Start the backfill in the background after startup
+    private boolean enabled = true;
+
+    // Width of the id range updated per transaction
+    @Min(value = 1, message = "Backfill batch size must be at least 1")
+    private int batchSize = 1000;
+
+    // Pause (ms) between batches, leaving the database to foreground work
+    @Min(value = 0, message = "Backfill pause must not be negative")
+    private long pause = 10;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPause() {
+        return pause;
+    }
+
+    public void setPause(long pause) {
+        this.pause = pause;
+    }
+}
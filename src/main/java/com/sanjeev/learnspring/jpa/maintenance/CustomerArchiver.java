@@ -0,0 +1,203 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import com.sanjeev.learnspring.jpa.event.CustomersArchivedEvent;
+import com.sanjeev.learnspring.jpa.repository.CustomerArchiveRepository;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves cold customers from customers to customers_archive: DELETED ones, and INACTIVE
+ * ones not updated for app.customers.archive.inactive-days.
+ *
+ * A pass runs every app.customers.archive.interval ms (app.customers.archive.enabled) or
+ * on demand, shard by shard into each shard's own customers_archive. It takes batches of
+ * batch-size cold customers in updated_at order through idx_customers_status_updated_at;
+ * each batch is one transaction that locks them, copies them with INSERT ... SELECT and
+ * deletes them, so a customer is always in exactly one of the tables. Batches are
+ * separated by pause ms. Reads by id and email fall back to the archive, and a write to
+ * an archived customer, e.g. reactivating it, moves it back first; the customers table,
+ * and with it its indexes, only holds live customers. CustomerPurge deletes archived
+ * customers along with those still in customers.
+ */
+@Component
+public class CustomerArchiver implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerArchiver.class);
+
+    private static final String COLUMNS = "id, first_name, last_name, email, phone, date_of_birth, address, city, "
+            + "zip_code, status, created_at, updated_at, version, city_folded, email_folded, last_name_folded, "
+            + "full_name_folded";
+    private static final String SELECT_COLD = "SELECT id FROM customers WHERE status = ? AND updated_at < ? "
+            + "ORDER BY updated_at LIMIT ? FOR UPDATE";
+    private static final String COPY_BATCH = "INSERT INTO customers_archive (" + COLUMNS + ", archived_at) "
+            + "SELECT " + COLUMNS + ", LOCALTIMESTAMP FROM customers WHERE id = ANY(?)";
+    private static final String DELETE_BATCH = "DELETE FROM customers WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerArchiveRepository archiveRepository;
+    private final CustomerShards customerShards;
+    private final ArchiveProperties properties;
+
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder passes = new LongAdder();
+    private final AtomicBoolean passRunning = new AtomicBoolean();
+    private volatile ScheduledExecutorService executor;
+
+    public CustomerArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher, CustomerArchiveRepository archiveRepository,
+                            CustomerShards customerShards, ArchiveProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.archiveRepository = archiveRepository;
+        this.customerShards = customerShards;
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isEnabled()) {
+            executor.scheduleWithFixedDelay(this::archiveSafely, properties.getInterval(), properties.getInterval(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Starts a pass in the background.
+     *
+     * @return false if a pass is already running or the archiver is stopped
+     */
+    public boolean startArchive() {
+        ScheduledExecutorService current = executor;
+        if (current == null || passRunning.get()) {
+            return false;
+        }
+        current.execute(this::archiveSafely);
+        return true;
+    }
+
+    /**
+     * Archives all customers that are cold when called, batch by batch on the calling thread.
+     *
+     * @return the number of customers moved
+     */
+    public long archive() throws InterruptedException {
+        if (!passRunning.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            long moved = customerShards.sumEachShard(() -> archive("DELETED", now)
+                    + archive("INACTIVE", now.minusDays(properties.getInactiveDays())));
+            passes.increment();
+            return moved;
+        } finally {
+            passRunning.set(false);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("archived", archived.sum());
+        status.put("batches", batches.sum());
+        status.put("passes", passes.sum());
+        status.put("running", passRunning.get());
+        status.put("archiveSize", customerShards.sum(archiveRepository::count));
+        status.put("inactiveDays", properties.getInactiveDays());
+        status.put("intervalMs", properties.isEnabled() ? properties.getInterval() : null);
+        return status;
+    }
+
+    private long archive(String status, LocalDateTime updatedBefore) throws InterruptedException {
+        long moved = 0;
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            Integer batch = transactionTemplate.execute(tx -> archiveBatch(status, updatedBefore));
+            int count = batch == null ? 0 : batch;
+            moved += count;
+            if (count < properties.getBatchSize()) {
+                return moved;
+            }
+            if (properties.getPause() > 0) {
+                Thread.sleep(properties.getPause());
+            }
+        }
+    }
+
+    private int archiveBatch(String status, LocalDateTime updatedBefore) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_COLD, Long.class,
+                status, updatedBefore, properties.getBatchSize());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.update(connection -> byIds(connection.prepareStatement(COPY_BATCH), ids));
+        jdbcTemplate.update(connection -> byIds(connection.prepareStatement(DELETE_BATCH), ids));
+        batches.increment();
+        archived.add(ids.size());
+        eventPublisher.publishEvent(new CustomersArchivedEvent(ids));
+        return ids.size();
+    }
+
+    private static PreparedStatement byIds(PreparedStatement statement, List<Long> ids) throws SQLException {
+        statement.setArray(1, statement.getConnection().createArrayOf("BIGINT", ids.toArray()));
+        return statement;
+    }
+
+    private void archiveSafely() {
+        try {
+            long moved = archive();
+            if (moved > 0) {
+                log.info("Archived {} cold customers", moved);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.warn("Customer archive pass failed: {}", ex.toString());
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.event.CustomersPurgedEvent;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based, resumable purge of customers in given statuses (DELETED by default).
+ *
+ * A run walks the id range that existed on any shard when it started in chunks of
+ * app.customers.purge.batch-size ids. A chunk locks the run's row in customer_purge_runs
+ * on shard 0, then on each shard in turn, in a short transaction of its own, locks the
+ * chunk's matching customers, writes their DELETED outbox entries with one INSERT ...
+ * SELECT and deletes them by id, and finally advances the run's next_id. Customers
+ * CustomerArchiver moved to customers_archive are purged the same way in the same chunk,
+ * so archiving does not hide them from the purge. Nothing is loaded into a persistence
+ * context, and a chunk repeated after a restart finds its customers already gone, so a
+ * run interrupted by a restart is resumed where it stopped
+ * (app.customers.purge.resume-on-startup). Instances resuming the same run
+ * take turns on its row rather than repeating chunks.
+ *
+ * Between chunks the purge pauses at least app.customers.purge.pause ms and long enough
+ * to stay within duty-cycle, so a loaded primary gets more room automatically. Runs
+ * start from the admin endpoint or on app.customers.purge.cron; one runs at a time.
+ * ACTIVE customers are never purged.
+ */
+@Component
+public class CustomerPurge implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerPurge.class);
+
+    private static final String RUNNING = "RUNNING";
+    private static final String COMPLETED = "COMPLETED";
+    private static final String CANCELLED = "CANCELLED";
+    private static final String FAILED = "FAILED";
+
+    private static final String RUN_COLUMNS = "id, statuses, state, next_id, max_id, deleted, chunks, "
+            + "started_at, updated_at, finished_at, error";
+    private static final String ID_RANGE = "SELECT "
+            + "LEAST(COALESCE(c.min_id, a.min_id), COALESCE(a.min_id, c.min_id)) AS min_id, "
+            + "GREATEST(COALESCE(c.max_id, a.max_id), COALESCE(a.max_id, c.max_id)) AS max_id "
+            + "FROM (SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM customers) c, "
+            + "(SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM customers_archive) a";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate shardTransactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerShards customerShards;
+    private final PurgeProperties properties;
+
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private volatile Long activeRun;
+    private volatile ScheduledExecutorService executor;
+
+    public CustomerPurge(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         ApplicationEventPublisher eventPublisher, CustomerShards customerShards,
+                         PurgeProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A shard's part of a chunk commits on its own, whichever shard the chunk's transaction is on
+        this.shardTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.customerShards = customerShards;
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isResumeOnStartup()) {
+            executor.execute(() -> runSafely(this::resume));
+        }
+        scheduleNext(executor);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            // An interrupted run stays RUNNING and is resumed on the next start
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Starts a run in the background; null or empty statuses mean app.customers.purge.statuses.
+     *
+     * @return the new run
+     * @throws IllegalStateException if a run is in progress or the purge is stopped
+     * @throws IllegalArgumentException if ACTIVE is among the statuses
+     */
+    public Map<String, Object> startPurge(Collection<Customer.CustomerStatus> statuses) {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            throw new IllegalStateException("Customer purge is stopped");
+        }
+        long runId = createRun(statuses);
+        current.execute(() -> runSafely(() -> purge(runId)));
+        return getRun(runId);
+    }
+
+    /**
+     * Creates a run and purges it chunk by chunk on the calling thread.
+     *
+     * @return the run's id
+     */
+    public long purge(Collection<Customer.CustomerStatus> statuses) throws InterruptedException {
+        long runId = createRun(statuses);
+        purge(runId);
+        return runId;
+    }
+
+    /**
+     * Continues the run left RUNNING, e.g. by a restart, on the calling thread.
+     *
+     * @return the number of customers it deleted, 0 if no run was left
+     */
+    public long resume() throws InterruptedException {
+        List<Long> running = jdbcTemplate.queryForList(
+                "SELECT id FROM customer_purge_runs WHERE state = ? ORDER BY id", Long.class, RUNNING);
+        long purged = 0;
+        for (Long runId : running) {
+            log.info("Resuming customer purge run {}", runId);
+            purged += purge(runId);
+        }
+        return purged;
+    }
+
+    /**
+     * Cancels the run in progress; its current chunk still commits.
+     *
+     * @return whether a run was cancelled
+     */
+    public boolean cancel() {
+        return jdbcTemplate.update("UPDATE customer_purge_runs SET state = ?, updated_at = LOCALTIMESTAMP, "
+                + "finished_at = LOCALTIMESTAMP WHERE state = ?", CANCELLED, RUNNING) > 0;
+    }
+
+    /**
+     * A run's progress, or null if there is no such run.
+     */
+    public Map<String, Object> getRun(long runId) {
+        List<Map<String, Object>> runs = jdbcTemplate.query(
+                "SELECT " + RUN_COLUMNS + " FROM customer_purge_runs WHERE id = ?", this::mapRun, runId);
+        return runs.isEmpty() ? null : runs.get(0);
+    }
+
+    /**
+     * Totals of this process, the schedule and the most recent run.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("activeRun", activeRun);
+        status.put("deleted", deleted.sum());
+        status.put("chunks", chunks.sum());
+        status.put("statuses", properties.getStatuses());
+        status.put("batchSize", properties.getBatchSize());
+        status.put("cron", properties.getCron());
+        List<Map<String, Object>> latest = jdbcTemplate.query(
+                "SELECT " + RUN_COLUMNS + " FROM customer_purge_runs ORDER BY id DESC LIMIT 1", this::mapRun);
+        status.put("lastRun", latest.isEmpty() ? null : latest.get(0));
+        return status;
+    }
+
+    private long createRun(Collection<Customer.CustomerStatus> requested) {
+        Set<Customer.CustomerStatus> statuses = EnumSet.noneOf(Customer.CustomerStatus.class);
+        statuses.addAll(requested == null || requested.isEmpty() ? properties.getStatuses() : requested);
+        if (statuses.contains(Customer.CustomerStatus.ACTIVE)) {
+            throw new IllegalArgumentException("Active customers are never purged");
+        }
+        String statusList = statuses.stream().map(Enum::name).collect(Collectors.joining(","));
+        Long runId = transactionTemplate.execute(tx -> {
+            // Serialize starts on the lock row so two instances cannot both start one
+            jdbcTemplate.queryForObject("SELECT id FROM customer_purge_lock WHERE id = 1 FOR UPDATE", Integer.class);
+            List<Long> running = jdbcTemplate.queryForList(
+                    "SELECT id FROM customer_purge_runs WHERE state = ?", Long.class, RUNNING);
+            if (!running.isEmpty()) {
+                throw new IllegalStateException("Customer purge run " + running.get(0) + " is still running");
+            }
+            // Archived customers are purged as well, so the range covers both tables of every shard
+            List<Map<String, Object>> ranges = customerShards.scatter(() -> jdbcTemplate.queryForMap(ID_RANGE));
+            long minId = ranges.stream().map(range -> (Number) range.get("min_id")).filter(Objects::nonNull)
+                    .mapToLong(Number::longValue).min().orElse(1);
+            long maxId = ranges.stream().map(range -> (Number) range.get("max_id")).filter(Objects::nonNull)
+                    .mapToLong(Number::longValue).max().orElse(0);
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement insert = connection.prepareStatement("INSERT INTO customer_purge_runs "
+                        + "(statuses, state, next_id, max_id, deleted, chunks, started_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, 0, 0, LOCALTIMESTAMP, LOCALTIMESTAMP)", Statement.RETURN_GENERATED_KEYS);
+                insert.setString(1, statusList);
+                insert.setString(2, RUNNING);
+                insert.setLong(3, minId);
+                insert.setLong(4, maxId);
+                return insert;
+            }, keys);
+            return keys.getKey().longValue();
+        });
+        log.info("Started customer purge run {} of {}", runId, statusList);
+        return runId;
+    }
+
+    private long purge(long runId) throws InterruptedException {
+        activeRun = runId;
+        try {
+            long purged = 0;
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                long started = System.nanoTime();
+                Integer chunkDeleted = transactionTemplate.execute(tx -> purgeChunk(runId));
+                if (chunkDeleted == null) {
+                    break;
+                }
+                purged += chunkDeleted;
+                throttle(System.nanoTime() - started);
+            }
+            Map<String, Object> run = getRun(runId);
+            log.info("Customer purge run {} {}: {} customers deleted", runId,
+                    run != null ? run.get("state") : "gone", purged);
+            return purged;
+        } catch (RuntimeException ex) {
+            jdbcTemplate.update("UPDATE customer_purge_runs SET state = ?, error = ?, updated_at = LOCALTIMESTAMP, "
+                    + "finished_at = LOCALTIMESTAMP WHERE id = ? AND state = ?",
+                    FAILED, StringUtils.truncate(ex.toString(), 1000), runId, RUNNING);
+            throw ex;
+        } finally {
+            activeRun = null;
+        }
+    }
+
+    /**
+     * Purges the run's next chunk.
+     *
+     * @return the number of customers deleted, or null if the run is no longer RUNNING
+     */
+    private Integer purgeChunk(long runId) {
+        List<RunProgress> runs = jdbcTemplate.query(
+                "SELECT next_id, max_id, statuses FROM customer_purge_runs WHERE id = ? AND state = ? FOR UPDATE",
+                (rs, row) -> new RunProgress(rs.getLong(1), rs.getLong(2), rs.getString(3)), runId, RUNNING);
+        if (runs.isEmpty()) {
+            return null;
+        }
+        RunProgress run = runs.get(0);
+        long from = run.nextId();
+        long to = Math.min(from + properties.getBatchSize(), run.maxId() + 1);
+
+        String[] statuses = run.statuses().split(",");
+        List<Long> ids = new ArrayList<>();
+        customerShards.forEachShard(() -> ids.addAll(shardTransactionTemplate.execute(tx -> {
+            List<Long> shardIds = new ArrayList<>(purgeChunk("customers", from, to, statuses));
+            shardIds.addAll(purgeChunk("customers_archive", from, to, statuses));
+            return shardIds;
+        })));
+        boolean finished = to > run.maxId();
+        jdbcTemplate.update("UPDATE customer_purge_runs SET next_id = ?, deleted = deleted + ?, chunks = chunks + 1, "
+                + "state = ?, updated_at = LOCALTIMESTAMP, finished_at = " + (finished ? "LOCALTIMESTAMP" : "NULL")
+                + " WHERE id = ?", to, ids.size(), finished ? COMPLETED : RUNNING, runId);
+        chunks.increment();
+        deleted.add(ids.size());
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new CustomersPurgedEvent(ids));
+        }
+        return ids.size();
+    }
+
+    /**
+     * Deletes the table's customers in [from, to) with one of the statuses on the current
+     * shard, writing their DELETED outbox entries first.
+     *
+     * @return their ids
+     */
+    private List<Long> purgeChunk(String table, long from, long to, String[] statuses) {
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        Collections.addAll(args, (Object[]) statuses);
+        String placeholders = String.join(", ", Collections.nCopies(statuses.length, "?"));
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id >= ? AND id < ? "
+                + "AND status IN (" + placeholders + ") ORDER BY id FOR UPDATE", Long.class, args.toArray());
+        if (!ids.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement insert = connection.prepareStatement("INSERT INTO customer_outbox "
+                        + "(customer_id, change_type, created_at) "
+                        + "SELECT id, 'DELETED', LOCALTIMESTAMP FROM " + table + " WHERE id = ANY(?) ORDER BY id");
+                insert.setArray(1, idArray(insert, ids));
+                return insert;
+            });
+            jdbcTemplate.update(connection -> {
+                PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE id = ANY(?)");
+                delete.setArray(1, idArray(delete, ids));
+                return delete;
+            });
+        }
+        return ids;
+    }
+
+    private static Array idArray(PreparedStatement statement, List<Long> ids) throws SQLException {
+        return statement.getConnection().createArrayOf("BIGINT", ids.toArray());
+    }
+
+    private void throttle(long chunkNanos) throws InterruptedException {
+        long chunkMillis = TimeUnit.NANOSECONDS.toMillis(chunkNanos);
+        double dutyCycle = properties.getDutyCycle();
+        long pause = Math.max(properties.getPause(), (long) (chunkMillis * (1 - dutyCycle) / dutyCycle));
+        if (pause > 0) {
+            Thread.sleep(pause);
+        }
+    }
+
+    private void scheduleNext(ScheduledExecutorService scheduler) {
+        if (!StringUtils.hasText(properties.getCron())) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = CronExpression.parse(properties.getCron()).next(now);
+        if (next == null) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            try {
+                runSafely(() -> {
+                    // A run left over from an earlier schedule is finished instead of starting another
+                    if (resume() == 0 && getRunningCount() == 0) {
+                        purge(properties.getStatuses());
+                    }
+                    return 0;
+                });
+            } finally {
+                if (!scheduler.isShutdown()) {
+                    scheduleNext(scheduler);
+                }
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private long getRunningCount() {
+        Long running = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM customer_purge_runs WHERE state = ?", Long.class, RUNNING);
+        return running == null ? 0 : running;
+    }
+
+    private void runSafely(PurgeTask task) {
+        try {
+            task.run();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.warn("Customer purge failed: {}", ex.toString());
+        }
+    }
+
+    private Map<String, Object> mapRun(ResultSet rs, int row) throws SQLException {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("id", rs.getLong("id"));
+        run.put("statuses", List.of(rs.getString("statuses").split(",")));
+        run.put("state", rs.getString("state"));
+        run.put("nextId", rs.getLong("next_id"));
+        run.put("maxId", rs.getLong("max_id"));
+        run.put("deleted", rs.getLong("deleted"));
+        run.put("chunks", rs.getLong("chunks"));
+        run.put("startedAt", rs.getObject("started_at", LocalDateTime.class));
+        run.put("updatedAt", rs.getObject("updated_at", LocalDateTime.class));
+        run.put("finishedAt", rs.getObject("finished_at", LocalDateTime.class));
+        run.put("error", rs.getString("error"));
+        return run;
+    }
+
+    private record RunProgress(long nextId, long maxId, String statuses) {
+    }
+
+    @FunctionalInterface
+    private interface PurgeTask {
+        long run() throws InterruptedException;
+    }
+}
@@ -0,0 +1,94 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Type-safe configuration properties for the chunked purge of customers.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.customers.purge")
+@Validated
+public class PurgeProperties {
+
+    // Statuses purged by scheduled runs and by runs started without statuses
+    @NotEmpty(message = "Purge statuses must not be empty")
+    private List<Customer.CustomerStatus> statuses = new ArrayList<>(List.of(Customer.CustomerStatus.DELETED));
+
+    // Width of the id range deleted per transaction
+    @Min(value = 1, message = "Purge batch size must be at least 1")
+    private int batchSize = 1000;
+
+    // Minimum pause (ms) between chunks
+    @Min(value = 0, message = "Purge pause must not be negative")
+    private long pause = 50;
+
+    // Share of wall-clock time spent in chunk transactions; slower chunks mean longer pauses
+    @DecimalMin(value = "0.01", message = "Purge duty cycle must be between 0.01 and 1")
+    @DecimalMax(value = "1.0", message = "Purge duty cycle must be between 0.01 and 1")
+    private double dutyCycle = 0.5;
+
+    // Spring cron expression for scheduled runs; empty runs only on demand
+    private String cron = "";
+
+    // Continue a run left RUNNING by a previous process after startup
+    private boolean resumeOnStartup = true;
+
+    // Getters and Setters
+    public List<Customer.CustomerStatus> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<Customer.CustomerStatus> statuses) {
+        this.statuses = statuses;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPause() {
+        return pause;
+    }
+
+    public void setPause(long pause) {
+        this.pause = pause;
+    }
+
+    public double getDutyCycle() {
+        return dutyCycle;
+    }
+
+    public void setDutyCycle(double dutyCycle) {
+        this.dutyCycle = dutyCycle;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(String cron) {
+        this.cron = cron;
+    }
+
+    public boolean isResumeOnStartup() {
+        return resumeOnStartup;
+    }
+
+    public void setResumeOnStartup(boolean resumeOnStartup) {
+        this.resumeOnStartup = resumeOnStartup;
+    }
+}
@@ -0,0 +1,149 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills the folded search columns of customers written before they existed.
+ *
+ * Runs once in the background after startup (app.customers.backfill.enabled), over
+ * every shard in turn. On each it walks the ids of rows whose full_name_folded is still
+ * NULL in ranges of app.customers.backfill.batch-size, one short auto-committed UPDATE
+ * per range with a pause in between, so no long table lock is held. The NULLs are the progress marker:
+ * an interrupted backfill resumes with the remaining rows on the next start. Rows
+ * written meanwhile already get their folded values from Customer's callbacks. The
+ * version is not bumped since no visible field changes.
+ */
+@Component
+public class SearchColumnBackfill implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchColumnBackfill.class);
+
+    private static final String PENDING_RANGE =
+            "SELECT MIN(id), MAX(id) FROM customers WHERE full_name_folded IS NULL";
+    private static final String BACKFILL_BATCH = "UPDATE customers SET "
+            + "city_folded = LOWER(city), email_folded = LOWER(email), last_name_folded = LOWER(last_name), "
+            + "full_name_folded = LOWER(CONCAT(first_name, ' ', last_name)) "
+            + "WHERE id >= ? AND id < ? AND full_name_folded IS NULL";
+
+    private final DataSource dataSource;
+    private final CustomerShards customerShards;
+    private final BackfillProperties properties;
+
+    private final LongAdder rowsUpdated = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile ExecutorService executor;
+
+    public SearchColumnBackfill(DataSource dataSource, CustomerShards customerShards, BackfillProperties properties) {
+        this.dataSource = dataSource;
+        this.customerShards = customerShards;
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (executor != null || !properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-search-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(() -> {
+            try {
+                long updated = backfill();
+                if (updated > 0) {
+                    log.info("Backfilled search columns of {} customers", updated);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (SQLException ex) {
+                log.warn("Customer search column backfill failed: {}", ex.toString());
+            }
+        });
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Backfills all rows pending when called, batch by batch on the calling thread.
+     *
+     * @return the number of rows updated
+     */
+    public long backfill() throws SQLException, InterruptedException {
+        return customerShards.sumEachShard(this::backfillShard);
+    }
+
+    public long getRowsUpdated() {
+        return rowsUpdated.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    private long backfillShard() throws SQLException, InterruptedException {
+        long[] range = pendingRange();
+        if (range == null) {
+            return 0;
+        }
+        int batchSize = properties.getBatchSize();
+        long updated = 0;
+        for (long from = range[0]; from <= range[1]; from += batchSize) {
+            updated += updateBatch(from, from + batchSize);
+            if (properties.getPause() > 0 && from + batchSize <= range[1]) {
+                Thread.sleep(properties.getPause());
+            }
+        }
+        return updated;
+    }
+
+    private long[] pendingRange() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(PENDING_RANGE)) {
+            if (!result.next() || result.getObject(1) == null) {
+                return null;
+            }
+            return new long[] {result.getLong(1), result.getLong(2)};
+        }
+    }
+
+    private int updateBatch(long fromId, long toId) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(BACKFILL_BATCH)) {
+            connection.setAutoCommit(true);
+            statement.setLong(1, fromId);
+            statement.setLong(2, toId);
+            int updated = statement.executeUpdate();
+            batches.increment();
+            rowsUpdated.add(updated);
+            return updated;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.sanjeev.learnspring.jpa.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjeev.learnspring.jpa.entity.CustomerOutboxEntry;
+import com.sanjeev.learnspring.jpa.repository.CustomerOutboxRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events subscribers tailing the published customer outbox.
+ *
+ * Each subscriber keeps its own cursor and reads keyset pages (seq &gt; cursor) from
+ * customer_outbox, so a new subscriber catches up from ?since= and a live one gets
+ * every entry exactly once in order. The relay only signals that new entries exist;
+ * a subscriber already draining picks them up in its next page.
+ */
+@Component
+public class CustomerChangeStream {
+
+    private final CustomerOutboxRepository outboxRepository;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "customer-changes-sse");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CustomerChangeStream(CustomerOutboxRepository outboxRepository, OutboxProperties properties,
+                                ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Opens a stream of changes with seq greater than since.
+     */
+    public SseEmitter subscribe(long since) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter, since);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * Called by the relay after new entries were committed.
+     */
+    void publish() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.schedule();
+        }
+    }
+
+    void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    void completeAll() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean dirty;
+        private volatile long cursor;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        private void schedule() {
+            dirty = true;
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        /**
+         * Runs on at most one sender thread at a time per subscriber.
+         */
+        private void drain() {
+            try {
+                do {
+                    dirty = false;
+                    List<CustomerOutboxEntry> page;
+                    do {
+                        page = outboxRepository.findBySeqGreaterThanOrderBySeqAsc(
+                                cursor, PageRequest.of(0, properties.getBatchSize()));
+                        for (CustomerOutboxEntry entry : page) {
+                            emitter.send(SseEmitter.event()
+                                    .id(String.valueOf(entry.getSeq()))
+                                    .name(entry.getChangeType().name())
+                                    .data(toEvent(entry), MediaType.APPLICATION_JSON));
+                            cursor = entry.getSeq();
+                        }
+                    } while (page.size() == properties.getBatchSize());
+                    scheduled.set(false);
+                } while (dirty && scheduled.compareAndSet(false, true));
+            } catch (IOException | RuntimeException ex) {
+                subscribers.remove(this);
+                emitter.completeWithError(ex);
+            }
+        }
+
+        private void heartbeat() {
+            if (scheduled.get()) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | RuntimeException ex) {
+                subscribers.remove(this);
+                emitter.completeWithError(ex);
+            }
+        }
+
+        private Map<String, Object> toEvent(CustomerOutboxEntry entry) throws IOException {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("seq", entry.getSeq());
+            event.put("customerId", entry.getCustomerId());
+            event.put("changeType", entry.getChangeType());
+            event.put("status", entry.getStatus());
+            event.put("createdAt", entry.getCreatedAt());
+            event.put("payload", entry.getPayload() == null ? null : objectMapper.readTree(entry.getPayload()));
+            return event;
+        }
+    }
+}
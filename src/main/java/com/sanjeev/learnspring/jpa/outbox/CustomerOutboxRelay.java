@@ -0,0 +1,169 @@
+package com.sanjeev.learnspring.jpa.outbox;
+
+import com.sanjeev.learnspring.jpa.entity.CustomerOutboxEntry;
+import com.sanjeev.learnspring.jpa.repository.CustomerOutboxRepository;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Polls customer_outbox for committed, unsequenced entries and publishes them.
+ *
+ * Each poll locks up to app.outbox.batch-size entries in id order, assigns the numbers
+ * following the current maximum seq and commits; only then are change-stream subscribers
+ * woken. Numbers are only handed out under those locks and roll back with the
+ * transaction, so they are gap-free and a consumer can resume from the last seq it saw.
+ * Entries sequenced by another instance's relay also wake the local subscribers.
+ * Full batches are followed immediately by the next poll; otherwise the relay sleeps
+ * app.outbox.poll-interval ms.
+ *
+ * When customers are sharded, entries are written on the customer's shard; each poll
+ * first collects those of the other shards into shard 0's outbox, where they are
+ * sequenced. An entry collected twice after a failure is published twice.
+ */
+@Component
+public class CustomerOutboxRelay implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerOutboxRelay.class);
+
+    private final CustomerOutboxRepository outboxRepository;
+    private final CustomerChangeStream changeStream;
+    private final CustomerShards customerShards;
+    private final OutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder polls = new LongAdder();
+    private volatile long lastSeq;
+    private volatile ScheduledExecutorService executor;
+
+    public CustomerOutboxRelay(CustomerOutboxRepository outboxRepository,
+                               CustomerChangeStream changeStream,
+                               CustomerShards customerShards,
+                               OutboxProperties properties,
+                               PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.changeStream = changeStream;
+        this.customerShards = customerShards;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.schedule(this::pollLoop, 0, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(changeStream::heartbeat, properties.getHeartbeatInterval(),
+                properties.getHeartbeatInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        changeStream.completeAll();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Sequences and publishes one batch.
+     *
+     * @return the number of entries published
+     */
+    public int relayBatch() {
+        customerShards.collectOutboxes(properties.getBatchSize());
+        long[] highMark = new long[1];
+        Integer count = transactionTemplate.execute(status -> {
+            List<CustomerOutboxEntry> batch = outboxRepository.findBySeqIsNullOrderByIdAsc(
+                    PageRequest.of(0, properties.getBatchSize()));
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            // Read under the row locks, so a relay in another instance cannot hand out the same numbers
+            long seq = outboxRepository.findMaxSeq();
+            LocalDateTime now = LocalDateTime.now();
+            int sequenced = 0;
+            for (CustomerOutboxEntry entry : batch) {
+                // Sequenced by another relay while we waited for the lock
+                if (entry.getSeq() != null) {
+                    continue;
+                }
+                entry.markPublished(++seq, now);
+                sequenced++;
+            }
+            highMark[0] = seq;
+            return sequenced;
+        });
+        polls.increment();
+        int sequenced = count == null ? 0 : count;
+        published.add(sequenced);
+        // Relays of other instances publish too; subscribers here must hear about their entries
+        long head = sequenced > 0 ? highMark[0] : outboxRepository.findMaxSeq();
+        if (head != lastSeq) {
+            lastSeq = head;
+            changeStream.publish();
+        }
+        return sequenced;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("lastSeq", getLastSeq());
+        status.put("published", published.sum());
+        status.put("polls", polls.sum());
+        status.put("pending", outboxRepository.countBySeqIsNull());
+        status.put("batchSize", properties.getBatchSize());
+        status.put("pollIntervalMs", properties.getPollInterval());
+        status.put("subscribers", changeStream.getSubscriberCount());
+        return status;
+    }
+
+    private void pollLoop() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        long delay = properties.getPollInterval();
+        try {
+            if (relayBatch() == properties.getBatchSize()) {
+                delay = 0;
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Customer outbox relay failed: {}", ex.toString());
+        }
+        if (!current.isShutdown()) {
+            current.schedule(this::pollLoop, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
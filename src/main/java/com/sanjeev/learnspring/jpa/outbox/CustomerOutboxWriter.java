@@ -0,0 +1,60 @@
+package com.sanjeev.learnspring.jpa.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.entity.CustomerOutboxEntry;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
+import com.sanjeev.learnspring.jpa.repository.CustomerOutboxRepository;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes a customer_outbox row for every CustomerChangedEvent.
+ *
+ * A plain @EventListener runs synchronously inside CustomerService's transaction, so the
+ * outbox row commits or rolls back together with the customer change; MANDATORY makes
+ * a publication outside a transaction fail instead of silently writing a separate one.
+ */
+@Component
+public class CustomerOutboxWriter {
+
+    private final CustomerOutboxRepository outboxRepository;
+    private final CustomerRepository customerRepository;
+    private final ObjectMapper objectMapper;
+
+    public CustomerOutboxWriter(CustomerOutboxRepository outboxRepository,
+                                CustomerRepository customerRepository,
+                                ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.customerRepository = customerRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        String payload = null;
+        if (event.getChangeType() != CustomerChangedEvent.ChangeType.DELETED) {
+            // Flush so @PreUpdate has set updatedAt; the customer comes from the persistence context
+            customerRepository.flush();
+            payload = customerRepository.findById(event.getCustomerId())
+                    .map(CustomerResponseDTO::fromEntity)
+                    .map(this::toJson)
+                    .orElse(null);
+        }
+        outboxRepository.save(new CustomerOutboxEntry(
+                event.getCustomerId(), event.getChangeType(), event.getStatus(), payload));
+    }
+
+    private String toJson(CustomerResponseDTO customer) {
+        try {
+            return objectMapper.writeValueAsString(customer);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize outbox payload", ex);
+        }
+    }
+}
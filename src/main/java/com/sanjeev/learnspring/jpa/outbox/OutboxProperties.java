@@ -0,0 +1,52 @@
+package com.sanjeev.learnspring.jpa.outbox;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for the customer outbox relay and change stream.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.outbox")
+@Validated
+public class OutboxProperties {
+
+    // Entries sequenced per relay transaction, and entries read per change-stream page
+    @Min(value = 1, message = "Outbox batch size must be at least 1")
+    private int batchSize = 500;
+
+    // Pause (ms) between relay polls that found less than a full batch
+    @Min(value = 1, message = "Outbox poll interval must be at least 1ms")
+    private long pollInterval = 100;
+
+    // Interval (ms) of SSE keep-alive comments to idle subscribers
+    @Min(value = 1000, message = "Heartbeat interval must be at least 1000ms")
+    private long heartbeatInterval = 15000;
+
+    // Getters and Setters
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sanjeev.learnspring.jpa.repository;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Access to customers_archive, the cold customers moved out of the customers table by
+ * CustomerArchiver. Archived customers are only read, straight into response DTOs rather
+ * than managed entities; a write first moves the customer back with {@link #restore}.
+ * With sharded customers every shard has its own archive, so these run on the shard
+ * CustomerShards selected.
+ */
+@Repository
+public class CustomerArchiveRepository {
+
+    private static final String COLUMNS = "id, first_name, last_name, email, phone, date_of_birth, address, "
+            + "city, zip_code, status, created_at, updated_at, version";
+
+    private static final String RESTORED_COLUMNS = COLUMNS + ", city_folded, email_folded, last_name_folded, "
+            + "full_name_folded";
+    private static final String RESTORE = "INSERT INTO customers (" + RESTORED_COLUMNS + ") "
+            + "SELECT " + RESTORED_COLUMNS + " FROM OLD TABLE (DELETE FROM customers_archive WHERE id = ? "
+            + "AND NOT EXISTS (SELECT 1 FROM customers c WHERE c.id = customers_archive.id))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Find an archived customer by id
+     */
+    public Optional<CustomerResponseDTO> findById(Long id) {
+        return first(jdbcTemplate.query("SELECT " + COLUMNS + " FROM customers_archive WHERE id = ?",
+                CustomerArchiveRepository::toDto, id));
+    }
+
+    /**
+     * Find the most recently archived customer with this email; emails are not unique in the archive
+     */
+    public Optional<CustomerResponseDTO> findByEmail(String email) {
+        return first(jdbcTemplate.query("SELECT " + COLUMNS + " FROM customers_archive WHERE email = ? "
+                + "ORDER BY archived_at DESC LIMIT 1", CustomerArchiveRepository::toDto, email));
+    }
+
+    /**
+     * Moves an archived customer back into customers in one statement, within the caller's
+     * transaction. A concurrent restore of the same customer waits on the archived row and
+     * then finds it gone. A customer whose id is in customers, e.g. one whose UPDATE only
+     * missed on its version, is left where it is.
+     *
+     * @return whether the customer was archived
+     * @throws org.springframework.dao.DataIntegrityViolationException if a newer customer
+     *         took its email meanwhile
+     */
+    public boolean restore(Long id) {
+        return jdbcTemplate.update(RESTORE, id) == 1;
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers_archive", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static Optional<CustomerResponseDTO> first(List<CustomerResponseDTO> customers) {
+        return customers.isEmpty() ? Optional.empty() : Optional.of(customers.get(0));
+    }
+
+    private static CustomerResponseDTO toDto(ResultSet rs, int row) throws SQLException {
+        CustomerResponseDTO dto = new CustomerResponseDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setFirstName(rs.getString("first_name"));
+        dto.setLastName(rs.getString("last_name"));
+        dto.setEmail(rs.getString("email"));
+        dto.setPhone(rs.getString("phone"));
+        dto.setDateOfBirth(rs.getObject("date_of_birth", LocalDate.class));
+        dto.setAddress(rs.getString("address"));
+        dto.setCity(rs.getString("city"));
+        dto.setZipCode(rs.getString("zip_code"));
+        dto.setStatus(rs.getString("status"));
+        dto.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        dto.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        dto.setVersion(rs.getLong("version"));
+        return dto;
+    }
+}
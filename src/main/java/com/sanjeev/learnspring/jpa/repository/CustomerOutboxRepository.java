@@ -0,0 +1,34 @@
+package com.sanjeev.learnspring.jpa.repository;
+
+import com.sanjeev.learnspring.jpa.entity.CustomerOutboxEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the customer_outbox table.
+ */
+@Repository
+public interface CustomerOutboxRepository extends JpaRepository<CustomerOutboxEntry, Long> {
+
+    /**
+     * Committed entries the relay has not sequenced yet, oldest first, locked against other relays.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<CustomerOutboxEntry> findBySeqIsNullOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Keyset page of published entries after the given sequence number.
+     */
+    List<CustomerOutboxEntry> findBySeqGreaterThanOrderBySeqAsc(long seq, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(o.seq), 0) FROM CustomerOutboxEntry o")
+    long findMaxSeq();
+
+    long countBySeqIsNull();
+}
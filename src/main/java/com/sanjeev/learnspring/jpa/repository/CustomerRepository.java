@@ -2,9 +2,11 @@ package com.sanjeev.learnspring.jpa.repository;
 
 import com.sanjeev.learnspring.jpa.entity.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -85,22 +87,33 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     long countByStatus(Customer.CustomerStatus status);
 
     /**
-     * Delete customers by status
+     * Customer count of every status in one grouped query, as [status, count] rows
      */
-    void deleteByStatus(Customer.CustomerStatus status);
+    @Query("SELECT c.status, COUNT(c) FROM Customer c GROUP BY c.status")
+    List<Object[]> countGroupedByStatus();
 
     // Custom JPQL queries using @Query annotation
 
     /**
-     * Find customers by full name (custom JPQL query)
+     * Find customers by full name.
+     * The folded full name narrows the rows through its index; the exact comparison keeps
+     * the match case-sensitive. Rows SearchColumnBackfill has not reached yet are found
+     * through the NULLs of the same index and compared on the original columns.
      */
-    @Query("SELECT c FROM Customer c WHERE CONCAT(c.firstName, ' ', c.lastName) = :fullName")
+    @Query(value = "SELECT * FROM customers WHERE full_name_folded = LOWER(:fullName) " +
+                   "AND CONCAT(first_name, ' ', last_name) = :fullName " +
+                   "UNION ALL SELECT * FROM customers WHERE full_name_folded IS NULL " +
+                   "AND CONCAT(first_name, ' ', last_name) = :fullName",
+           nativeQuery = true)
     List<Customer> findByFullName(@Param("fullName") String fullName);
 
     /**
-     * Find customers by city with case-insensitive search
+     * Find customers by city with case-insensitive search, including rows whose folded
+     * city has not been backfilled yet.
      */
-    @Query("SELECT c FROM Customer c WHERE LOWER(c.city) = LOWER(:city)")
+    @Query(value = "SELECT * FROM customers WHERE city_folded = LOWER(:city) " +
+                   "UNION ALL SELECT * FROM customers WHERE city_folded IS NULL AND LOWER(city) = LOWER(:city)",
+           nativeQuery = true)
     List<Customer> findByCityIgnoreCase(@Param("city") String city);
 
     /**
@@ -110,7 +123,9 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findCustomersCreatedAfter(@Param("date") java.time.LocalDateTime date);
 
     /**
-     * Search customers by name or email (custom query)
+     * Search customers by name or email (custom query).
+     * Matches the term anywhere in the value, so it reads the original columns and scans;
+     * it does not depend on the folded columns being backfilled.
      */
     @Query("SELECT c FROM Customer c WHERE " +
            "LOWER(c.firstName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
@@ -119,9 +134,48 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> searchCustomers(@Param("searchTerm") String searchTerm);
 
     /**
-     * Native SQL query example
+     * Remove all customers in one statement and reset the id sequence.
+     * Unlike deleteAll(), nothing is loaded into the persistence context.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "TRUNCATE TABLE customers RESTART IDENTITY", nativeQuery = true)
+    void truncate();
+
+    /**
+     * Set the status and bump the version in one round-trip, returning the updated row.
+     * Empty if there is no such customer or it is no longer at :expectedVersion (null
+     * skips the check). The UPDATE runs inside H2's FINAL TABLE, which yields the rows as
+     * they are after it. A customer already in the persistence context is returned as
+     * loaded, so use it where the customer has not been read in the same transaction.
+     *
+     * FINAL TABLE is H2 (and DB2) syntax: this query only runs on H2. Other databases need
+     * their own form, e.g. UPDATE ... RETURNING * on PostgreSQL, or an UPDATE followed by
+     * a read on MySQL.
+     */
+    @Transactional
+    @Query(value = "SELECT * FROM FINAL TABLE (UPDATE customers SET status = :status, version = version + 1, " +
+                   "updated_at = LOCALTIMESTAMP WHERE id = :id " +
+                   "AND (CAST(:expectedVersion AS BIGINT) IS NULL OR version = :expectedVersion))",
+           nativeQuery = true)
+    Optional<Customer> updateStatusReturning(@Param("id") Long id, @Param("status") String status,
+                                             @Param("expectedVersion") Long expectedVersion);
+
+    /**
+     * Delete a customer by id in one statement, without loading it first.
+     * Returns the number of rows deleted, 0 if there was no such customer.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Customer c WHERE c.id = :id")
+    int deleteCustomerById(@Param("id") Long id);
+
+    /**
+     * Native SQL query example.
+     * Ordering by status as well (a constant here) matches idx_customers_status_created_at,
+     * so the newest rows are read in index order and the scan stops after :limit rows.
      */
-    @Query(value = "SELECT * FROM customers WHERE status = :status ORDER BY created_at DESC LIMIT :limit",
+    @Query(value = "SELECT * FROM customers WHERE status = :status ORDER BY status, created_at DESC LIMIT :limit",
            nativeQuery = true)
     List<Customer> findRecentCustomersByStatus(@Param("status") String status, @Param("limit") int limit);
 }
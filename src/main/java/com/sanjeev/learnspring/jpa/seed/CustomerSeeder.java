@@ -0,0 +1,154 @@
+package com.sanjeev.learnspring.jpa.seed;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CommandLineRunner that replaces DataInitializer for load testing (app.seed.enabled=true).
+ *
+ * Truncates the customers table, then writes app.seed.count deterministic synthetic
+ * customers with JDBC batch inserts, splitting the row range across app.seed.threads
+ * writers that each use their own connection and commit once per batch.
+ */
+@Component
+@ConditionalOnProperty(name = "app.seed.enabled", havingValue = "true")
+public class CustomerSeeder implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSeeder.class);
+
+    private static final String INSERT_SQL = "INSERT INTO customers "
+            + "(first_name, last_name, email, phone, date_of_birth, address, city, zip_code, status, created_at, updated_at, version, "
+            + "city_folded, email_folded, last_name_folded, full_name_folded) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?)";
+
+    private final CustomerRepository customerRepository;
+    private final CustomerShards customerShards;
+    private final DataSource dataSource;
+    private final SeedProperties properties;
+
+    private volatile double lastRowsPerSecond;
+
+    public CustomerSeeder(CustomerRepository customerRepository, CustomerShards customerShards,
+                          DataSource dataSource, SeedProperties properties) {
+        this.customerRepository = customerRepository;
+        this.customerShards = customerShards;
+        this.dataSource = dataSource;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        long count = properties.getCount();
+        int threads = (int) Math.max(1, Math.min(properties.getThreads(), count));
+        log.info("===== Seeding {} synthetic customers (seed: {}, threads: {}, batch size: {}) =====",
+                count, properties.getSeed(), threads, properties.getBatchSize());
+
+        customerShards.truncate(customerRepository::truncate);
+
+        SyntheticCustomerGenerator generator = new SyntheticCustomerGenerator(properties);
+        AtomicLong written = new AtomicLong();
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            long rangeSize = (count + threads - 1) / threads;
+            for (int t = 0; t < threads; t++) {
+                long from = t * rangeSize;
+                long to = Math.min(count, from + rangeSize);
+                if (from < to) {
+                    writers.add(executor.submit(() -> {
+                        writeRange(generator, from, to, written, count);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Customer seeding failed after " + written.get() + " rows", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        // Rows go to shard 0 with identity ids; sharded, the rebalancer spreads them
+        customerShards.markUnsettled();
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        lastRowsPerSecond = seconds > 0 ? written.get() / seconds : 0;
+        log.info("===== Seeded {} customers in {} s ({} rows/sec) =====",
+                written.get(), String.format("%.2f", seconds), String.format("%.0f", lastRowsPerSecond));
+    }
+
+    public double getLastRowsPerSecond() {
+        return lastRowsPerSecond;
+    }
+
+    private void writeRange(SyntheticCustomerGenerator generator, long from, long to,
+                            AtomicLong written, long total) throws SQLException {
+        int batchSize = properties.getBatchSize();
+        long progressStep = Math.max(total / 10, 1);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                int pending = 0;
+                for (long index = from; index < to; index++) {
+                    bind(statement, generator.generate(index));
+                    statement.addBatch();
+                    if (++pending == batchSize || index == to - 1) {
+                        statement.executeBatch();
+                        connection.commit();
+                        long before = written.getAndAdd(pending);
+                        if ((before + pending) / progressStep > before / progressStep) {
+                            log.info("Seeded {}/{} customers", before + pending, total);
+                        }
+                        pending = 0;
+                    }
+                }
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Customer customer) throws SQLException {
+        statement.setString(1, customer.getFirstName());
+        statement.setString(2, customer.getLastName());
+        statement.setString(3, customer.getEmail());
+        statement.setString(4, customer.getPhone());
+        statement.setDate(5, Date.valueOf(customer.getDateOfBirth()));
+        statement.setString(6, customer.getAddress());
+        statement.setString(7, customer.getCity());
+        statement.setString(8, customer.getZipCode());
+        statement.setString(9, customer.getStatus().name());
+        statement.setTimestamp(10, Timestamp.valueOf(customer.getCreatedAt()));
+        statement.setTimestamp(11, Timestamp.valueOf(customer.getUpdatedAt()));
+        // Bypasses the entity callbacks, so the search columns are folded here
+        statement.setString(12, Customer.fold(customer.getCity()));
+        statement.setString(13, Customer.fold(customer.getEmail()));
+        statement.setString(14, Customer.fold(customer.getLastName()));
+        statement.setString(15, Customer.fold(customer.getFullName()));
+    }
+}
@@ -0,0 +1,120 @@
+package com.sanjeev.learnspring.jpa.seed;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type-safe configuration for the synthetic customer seeder (app.seed.*).
+ */
+@Component
+@ConfigurationProperties(prefix = "app.seed")
+@Validated
+public class SeedProperties {
+
+    private boolean enabled = false;
+
+    @Min(value = 0, message = "Seed count cannot be negative")
+    private long count = 100000;
+
+    // Same seed, same rows: every row is derived from (seed, row index) only
+    private long seed = 42L;
+
+    @Min(value = 1, message = "Seed batch size must be at least 1")
+    private int batchSize = 1000;
+
+    @Min(value = 1, message = "Seed threads must be at least 1")
+    private int threads = 4;
+
+    // Zipf exponent over the city list: 0 = uniform, higher = more concentrated in the first cities
+    @DecimalMin(value = "0.0", message = "City skew cannot be negative")
+    private double citySkew = 1.1;
+
+    @NotEmpty(message = "At least one seed city is required")
+    private List<String> cities = new ArrayList<>(List.of(
+            "New York", "Los Angeles", "Chicago", "Houston", "Phoenix",
+            "Philadelphia", "San Antonio", "San Diego", "Dallas", "San Jose",
+            "Austin", "Jacksonville", "Fort Worth", "Columbus", "Charlotte",
+            "Seattle", "Denver", "Boston", "Portland", "Miami"));
+
+    // Relative weights of each status
+    private Map<Customer.CustomerStatus, Integer> statusWeights = new EnumMap<>(Map.of(
+            Customer.CustomerStatus.ACTIVE, 80,
+            Customer.CustomerStatus.INACTIVE, 12,
+            Customer.CustomerStatus.SUSPENDED, 5,
+            Customer.CustomerStatus.DELETED, 3));
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public double getCitySkew() {
+        return citySkew;
+    }
+
+    public void setCitySkew(double citySkew) {
+        this.citySkew = citySkew;
+    }
+
+    public List<String> getCities() {
+        return cities;
+    }
+
+    public void setCities(List<String> cities) {
+        this.cities = cities;
+    }
+
+    public Map<Customer.CustomerStatus, Integer> getStatusWeights() {
+        return statusWeights;
+    }
+
+    public void setStatusWeights(Map<Customer.CustomerStatus, Integer> statusWeights) {
+        this.statusWeights = statusWeights;
+    }
+}
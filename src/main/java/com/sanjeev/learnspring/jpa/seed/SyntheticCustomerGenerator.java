@@ -0,0 +1,127 @@
+package com.sanjeev.learnspring.jpa.seed;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic generator of synthetic customers.
+ *
+ * Every field of row i is derived from a SplitMix64 hash of (seed, i, field), so the
+ * same seed always yields the same rows no matter how the index range is split
+ * across writer threads. Cities follow a Zipf distribution and statuses follow the
+ * configured weights.
+ */
+public class SyntheticCustomerGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda",
+            "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+            "Thomas", "Sarah", "Charles", "Karen", "Daniel", "Nancy", "Matthew", "Lisa"};
+
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis",
+            "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+            "Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White"};
+
+    private static final String[] STREETS = {
+            "Main Street", "Oak Avenue", "Pine Road", "Maple Drive", "Cedar Lane",
+            "Elm Street", "Birch Boulevard", "Willow Way", "Spruce Avenue", "Lake Road"};
+
+    private static final LocalDate OLDEST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    private static final int BIRTH_DATE_RANGE_DAYS = 50 * 365;
+    private static final LocalDateTime FIRST_SIGNUP = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final long SIGNUP_RANGE_SECONDS = 5L * 365 * 24 * 3600;
+
+    private final long seed;
+    private final String[] cities;
+    private final double[] cityCumulative;
+    private final Customer.CustomerStatus[] statuses;
+    private final double[] statusCumulative;
+
+    public SyntheticCustomerGenerator(SeedProperties properties) {
+        this.seed = properties.getSeed();
+
+        List<String> cityList = properties.getCities();
+        this.cities = cityList.toArray(new String[0]);
+        double[] cityWeights = new double[cities.length];
+        for (int rank = 0; rank < cities.length; rank++) {
+            cityWeights[rank] = 1.0 / Math.pow(rank + 1, properties.getCitySkew());
+        }
+        this.cityCumulative = cumulative(cityWeights);
+
+        Map<Customer.CustomerStatus, Integer> weights = properties.getStatusWeights();
+        this.statuses = weights.entrySet().stream()
+                .filter(entry -> entry.getValue() != null && entry.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toArray(Customer.CustomerStatus[]::new);
+        if (statuses.length == 0) {
+            throw new IllegalArgumentException("At least one status weight must be positive");
+        }
+        this.statusCumulative = cumulative(Arrays.stream(statuses).mapToDouble(weights::get).toArray());
+    }
+
+    /**
+     * Generates row i (0-based). Ids are left to the database.
+     */
+    public Customer generate(long index) {
+        String firstName = FIRST_NAMES[pick(index, 1, FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[pick(index, 2, LAST_NAMES.length)];
+        // The row index keeps emails unique across the whole data set
+        String email = firstName.toLowerCase() + "." + lastName.toLowerCase() + "." + index + "@seed.example.com";
+
+        Customer customer = new Customer(firstName, lastName, email);
+        customer.setPhone(String.format("+1-555-%04d", pick(index, 3, 10000)));
+        customer.setDateOfBirth(OLDEST_BIRTH_DATE.plusDays(pick(index, 4, BIRTH_DATE_RANGE_DAYS)));
+        customer.setAddress((pick(index, 5, 9999) + 1) + " " + STREETS[pick(index, 6, STREETS.length)]);
+        int city = sample(cityCumulative, uniform(index, 7));
+        customer.setCity(cities[city]);
+        customer.setZipCode(String.format("%05d", 10000 + city * 100 + pick(index, 8, 100)));
+        customer.setStatus(statuses[sample(statusCumulative, uniform(index, 9))]);
+        LocalDateTime createdAt = FIRST_SIGNUP.plusSeconds(Math.floorMod(hash(index, 10), SIGNUP_RANGE_SECONDS));
+        customer.setCreatedAt(createdAt);
+        customer.setUpdatedAt(createdAt);
+        return customer;
+    }
+
+    private long hash(long index, int field) {
+        return mix(seed ^ mix(index * 0x9E3779B97F4A7C15L + field));
+    }
+
+    private int pick(long index, int field, int bound) {
+        return (int) Math.floorMod(hash(index, field), (long) bound);
+    }
+
+    private double uniform(long index, int field) {
+        return (hash(index, field) >>> 11) * 0x1.0p-53;
+    }
+
+    private static int sample(double[] cumulative, double u) {
+        int position = Arrays.binarySearch(cumulative, u);
+        int slot = position >= 0 ? position + 1 : -position - 1;
+        return Math.min(slot, cumulative.length - 1);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        double[] cumulative = new double[weights.length];
+        double running = 0;
+        for (int i = 0; i < weights.length; i++) {
+            running += weights[i];
+            cumulative[i] = running / total;
+        }
+        return cumulative;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
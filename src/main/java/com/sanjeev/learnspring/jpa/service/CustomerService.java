@@ -1,31 +1,93 @@
 package com.sanjeev.learnspring.jpa.service;
 
+import com.sanjeev.learnspring.jpa.cache.CustomerRecordStore;
 import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
 import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
 import com.sanjeev.learnspring.jpa.dto.CustomerUpdateDTO;
 import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
 import com.sanjeev.learnspring.jpa.exception.CustomerNotFoundException;
+import com.sanjeev.learnspring.jpa.exception.CustomerUpdateConflictException;
+import com.sanjeev.learnspring.jpa.exception.CustomerVersionMismatchException;
 import com.sanjeev.learnspring.jpa.exception.DuplicateEmailException;
+import com.sanjeev.learnspring.jpa.repository.CustomerArchiveRepository;
 import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.spi.ViolatedConstraintNameExtractor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * Service layer for Customer operations.
  * Demonstrates @Transactional, DTO mapping, and business logic.
+ *
+ * Customers may be spread over shards ({@link CustomerShards}): work by id or email runs
+ * on the customer's shard, lists and counts are gathered from all of them.
  */
 @Service
 @Transactional
 public class CustomerService {
 
+    private static final String EMAIL_CONSTRAINT = "UK_CUSTOMERS_EMAIL";
+    // H2 reports the index backing a constraint, e.g. UK_CUSTOMERS_EMAIL_INDEX_5
+    private static final Pattern H2_INDEX_SUFFIX = Pattern.compile("_INDEX_[0-9A-F]+$", Pattern.CASE_INSENSITIVE);
+    private static final Comparator<Customer> BY_ID = Comparator.comparing(Customer::getId);
+
     private final CustomerRepository customerRepository;
+    private final CustomerArchiveRepository archiveRepository;
+    private final CustomerRecordStore recordStore;
+    private final CustomerShards customerShards;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate attemptTemplate;
+    private final ViolatedConstraintNameExtractor constraintNames;
+    private final int maxUpdateAttempts;
+    private final LongAdder updateRetries = new LongAdder();
 
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository,
+                           CustomerArchiveRepository archiveRepository,
+                           CustomerRecordStore recordStore,
+                           CustomerShards customerShards,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager,
+                           EntityManagerFactory entityManagerFactory,
+                           @Value("${app.customers.update.max-attempts:3}") int maxUpdateAttempts) {
         this.customerRepository = customerRepository;
+        this.archiveRepository = archiveRepository;
+        this.recordStore = recordStore;
+        this.customerShards = customerShards;
+        this.eventPublisher = eventPublisher;
+        this.attemptTemplate = new TransactionTemplate(transactionManager);
+        this.attemptTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxUpdateAttempts = Math.max(1, maxUpdateAttempts);
+        this.constraintNames = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getViolatedConstraintNameExtractor();
     }
 
     // CRUD operations with DTOs
@@ -34,11 +96,6 @@ public class CustomerService {
      * Create a new customer from DTO
      */
     public CustomerResponseDTO createCustomer(CustomerRequestDTO requestDTO) {
-        // Check for duplicate email
-        if (customerRepository.existsByEmail(requestDTO.getEmail())) {
-            throw new DuplicateEmailException(requestDTO.getEmail());
-        }
-
         // Convert DTO to entity
         Customer customer = new Customer();
         customer.setFirstName(requestDTO.getFirstName());
@@ -51,9 +108,17 @@ public class CustomerService {
         customer.setZipCode(requestDTO.getZipCode());
         customer.setStatus(Customer.CustomerStatus.ACTIVE);
 
-        // Save and return DTO
-        Customer saved = customerRepository.save(customer);
-        return CustomerResponseDTO.fromEntity(saved);
+        // Save and return DTO; the insert runs here, on the new customer's shard, so a
+        // taken email fails here
+        Customer saved;
+        try {
+            saved = customerShards.insert(customer, customerRepository::save, customerRepository::flush);
+        } catch (DataIntegrityViolationException ex) {
+            throw translateViolation(ex, requestDTO.getEmail());
+        }
+        CustomerResponseDTO created = CustomerResponseDTO.fromEntity(saved);
+        publish(saved.getId(), CustomerChangedEvent.ChangeType.CREATED, saved.getStatus(), created);
+        return created;
     }
 
     /**
@@ -61,148 +126,378 @@ public class CustomerService {
      */
     @Transactional(readOnly = true)
     public List<CustomerResponseDTO> getAllCustomers() {
-        return customerRepository.findAll().stream()
-                .map(CustomerResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+        return gather(customerRepository::findAll);
     }
 
     /**
-     * Get customer by ID as DTO
+     * Get customer by ID as DTO: from the record store, else the table, else the archive
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public CustomerResponseDTO getCustomerById(Long id) {
-        Customer customer = customerRepository.findById(id)
+        // Inside a caller's transaction its own uncommitted writes are only in the database
+        boolean useStore = !TransactionSynchronizationManager.isActualTransactionActive();
+        CustomerResponseDTO stored = useStore ? recordStore.findById(id) : null;
+        if (stored != null) {
+            return stored;
+        }
+        long removalStamp = recordStore.removalStamp();
+        return customerShards.find(id, () -> customerRepository.findById(id))
+                .map(customer -> loaded(CustomerResponseDTO.fromEntity(customer), useStore, removalStamp))
+                .or(() -> customerShards.find(id, () -> archiveRepository.findById(id)))
                 .orElseThrow(() -> new CustomerNotFoundException(id));
-        return CustomerResponseDTO.fromEntity(customer);
     }
 
     /**
-     * Get customer by email as DTO
+     * Get customer by email as DTO: from the record store, else the table, else the archive
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public CustomerResponseDTO getCustomerByEmail(String email) {
-        Customer customer = customerRepository.findByEmail(email)
+        boolean useStore = !TransactionSynchronizationManager.isActualTransactionActive();
+        CustomerResponseDTO stored = useStore ? recordStore.findByEmail(email) : null;
+        if (stored != null) {
+            return stored;
+        }
+        long removalStamp = recordStore.removalStamp();
+        return customerShards.findByEmail(email, () -> customerRepository.findByEmail(email))
+                .map(customer -> loaded(CustomerResponseDTO.fromEntity(customer), useStore, removalStamp))
+                .or(() -> findArchivedByEmail(email))
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found with email: " + email));
-        return CustomerResponseDTO.fromEntity(customer);
+    }
+
+    /**
+     * The archived customer with the email; of several on different shards the newest one,
+     * as ids are handed out in order.
+     */
+    private Optional<CustomerResponseDTO> findArchivedByEmail(String email) {
+        return customerShards.scatter(() -> archiveRepository.findByEmail(email)).stream()
+                .flatMap(Optional::stream)
+                .max(Comparator.comparing(CustomerResponseDTO::getId));
+    }
+
+    private CustomerResponseDTO loaded(CustomerResponseDTO customer, boolean useStore, long removalStamp) {
+        return useStore ? recordStore.addLoaded(customer, removalStamp) : customer;
     }
 
     /**
      * Update customer with DTO (partial update)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CustomerResponseDTO updateCustomer(Long id, CustomerUpdateDTO updateDTO) {
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new CustomerNotFoundException(id));
+        return updateCustomer(id, updateDTO, null);
+    }
 
-        // Check for duplicate email if email is being changed
-        if (updateDTO.getEmail() != null && !updateDTO.getEmail().equals(customer.getEmail())) {
-            if (customerRepository.existsByEmail(updateDTO.getEmail())) {
-                throw new DuplicateEmailException(updateDTO.getEmail());
+    /**
+     * Partial update that only applies while the customer is still at expectedVersion
+     * (the If-Match version); null skips the check.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CustomerResponseDTO updateCustomer(Long id, CustomerUpdateDTO updateDTO, Long expectedVersion) {
+        Map<UpdatableField, Object> changes = new EnumMap<>(UpdatableField.class);
+        for (UpdatableField field : UpdatableField.values()) {
+            Object value = field.requested(updateDTO);
+            if (value != null) {
+                changes.put(field, value);
             }
-            customer.setEmail(updateDTO.getEmail());
-        }
-
-        // Update only provided fields
-        if (updateDTO.getFirstName() != null) {
-            customer.setFirstName(updateDTO.getFirstName());
-        }
-        if (updateDTO.getLastName() != null) {
-            customer.setLastName(updateDTO.getLastName());
-        }
-        if (updateDTO.getPhone() != null) {
-            customer.setPhone(updateDTO.getPhone());
-        }
-        if (updateDTO.getDateOfBirth() != null) {
-            customer.setDateOfBirth(updateDTO.getDateOfBirth());
         }
-        if (updateDTO.getAddress() != null) {
-            customer.setAddress(updateDTO.getAddress());
-        }
-        if (updateDTO.getCity() != null) {
-            customer.setCity(updateDTO.getCity());
-        }
-        if (updateDTO.getZipCode() != null) {
-            customer.setZipCode(updateDTO.getZipCode());
-        }
-
-        Customer updated = customerRepository.save(customer);
-        return CustomerResponseDTO.fromEntity(updated);
+        return applyWithRetry(id, expectedVersion, changes, CustomerChangedEvent.ChangeType.UPDATED);
     }
 
     /**
      * Delete customer by ID
      */
     public void deleteCustomer(Long id) {
-        if (!customerRepository.existsById(id)) {
+        customerShards.ensurePlaced(id);
+        if (customerShards.onShardOf(id, () -> customerRepository.deleteCustomerById(id)) == 0) {
             throw new CustomerNotFoundException(id);
         }
-        customerRepository.deleteById(id);
+        customerShards.releaseEmails(id);
+        publish(id, CustomerChangedEvent.ChangeType.DELETED, null, null);
     }
 
     // Business logic methods
 
     @Transactional(readOnly = true)
     public List<CustomerResponseDTO> getCustomersByCity(String city) {
-        return customerRepository.findByCity(city).stream()
-                .map(CustomerResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+        return gather(() -> customerRepository.findByCity(city));
     }
 
     @Transactional(readOnly = true)
     public List<CustomerResponseDTO> getCustomersByStatus(Customer.CustomerStatus status) {
-        return customerRepository.findByStatus(status).stream()
-                .map(CustomerResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+        return gather(() -> customerRepository.findByStatus(status));
     }
 
     @Transactional(readOnly = true)
     public List<CustomerResponseDTO> searchCustomers(String searchTerm) {
-        return customerRepository.searchCustomers(searchTerm).stream()
-                .map(CustomerResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+        return gather(() -> customerRepository.searchCustomers(searchTerm));
     }
 
     @Transactional(readOnly = true)
     public List<CustomerResponseDTO> getCustomersByName(String firstName, String lastName) {
-        return customerRepository.findByFirstNameAndLastName(firstName, lastName).stream()
-                .map(CustomerResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+        return gather(() -> customerRepository.findByFirstNameAndLastName(firstName, lastName));
     }
 
     @Transactional(readOnly = true)
     public List<CustomerResponseDTO> getCustomersBornAfter(LocalDate date) {
-        return customerRepository.findByDateOfBirthAfter(date).stream()
+        return gather(() -> customerRepository.findByDateOfBirthAfter(date));
+    }
+
+    /**
+     * The query on every shard, merged in id order when there are several
+     */
+    private List<CustomerResponseDTO> gather(Supplier<List<Customer>> query) {
+        return customerShards.gather(query, BY_ID).stream()
                 .map(CustomerResponseDTO::fromEntity)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CustomerResponseDTO activateCustomer(Long id) {
-        return updateCustomerStatus(id, Customer.CustomerStatus.ACTIVE);
+        return updateCustomerStatus(id, Customer.CustomerStatus.ACTIVE, null);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CustomerResponseDTO suspendCustomer(Long id) {
-        return updateCustomerStatus(id, Customer.CustomerStatus.SUSPENDED);
+        return updateCustomerStatus(id, Customer.CustomerStatus.SUSPENDED, null);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CustomerResponseDTO deactivateCustomer(Long id) {
-        return updateCustomerStatus(id, Customer.CustomerStatus.INACTIVE);
+        return updateCustomerStatus(id, Customer.CustomerStatus.INACTIVE, null);
+    }
+
+    /**
+     * Status change that only applies while the customer is still at expectedVersion; null skips the check.
+     *
+     * On its own it is a single UPDATE returning the row, atomic and so never retried; that
+     * statement uses H2's FINAL TABLE (see CustomerRepository#updateStatusReturning). Inside
+     * a caller's transaction the customer may already be loaded, so the change goes through
+     * the entity instead. Either way an archived customer is moved back first.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CustomerResponseDTO updateCustomerStatus(Long id, Customer.CustomerStatus status, Long expectedVersion) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            Map<UpdatableField, Object> changes = new EnumMap<>(UpdatableField.class);
+            changes.put(UpdatableField.STATUS, status);
+            return applyWithRetry(id, expectedVersion, changes, CustomerChangedEvent.ChangeType.STATUS_CHANGED);
+        }
+        customerShards.ensurePlaced(id);
+        return customerShards.onShardOf(id, () -> attemptTemplate.execute(tx -> {
+            Customer updated = customerRepository.updateStatusReturning(id, status.name(), expectedVersion)
+                    .or(() -> restoreArchived(id)
+                            ? customerRepository.updateStatusReturning(id, status.name(), expectedVersion)
+                            : Optional.empty())
+                    .orElseThrow(() -> statusNotUpdated(id, expectedVersion));
+            CustomerResponseDTO changed = CustomerResponseDTO.fromEntity(updated);
+            publish(id, CustomerChangedEvent.ChangeType.STATUS_CHANGED, updated.getStatus(), changed);
+            return changed;
+        }));
+    }
+
+    /**
+     * Why a status UPDATE matched no row: only a version check can fail on an existing customer.
+     */
+    private RuntimeException statusNotUpdated(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return new CustomerNotFoundException(id);
+        }
+        // The caller's version may have come from a stale held record
+        recordStore.evict(id);
+        return customerRepository.findById(id)
+                .<RuntimeException>map(customer ->
+                        new CustomerVersionMismatchException(id, expectedVersion, customer.getVersion()))
+                .orElseGet(() -> new CustomerNotFoundException(id));
     }
 
-    private CustomerResponseDTO updateCustomerStatus(Long id, Customer.CustomerStatus status) {
+    // Optimistic updates
+
+    /**
+     * Applies the changes in a transaction of their own and retries when another writer
+     * committed first, as long as that writer left every field we change untouched.
+     *
+     * The values of the changed fields are remembered on the first read; a retry only
+     * re-applies the changes if the fresh row still holds those values, so concurrent
+     * updates of disjoint fields all succeed while updates of the same field conflict.
+     * Inside a caller's transaction the conflict can't be retried and surfaces as is.
+     *
+     * A new email is claimed in the email directory of sharded customers first, and the
+     * old one released once the change commits.
+     */
+    private CustomerResponseDTO applyWithRetry(Long id, Long expectedVersion, Map<UpdatableField, Object> changes,
+                                               CustomerChangedEvent.ChangeType changeType) {
+        Map<UpdatableField, Object> seen = new EnumMap<>(UpdatableField.class);
+        customerShards.ensurePlaced(id);
+        String email = (String) changes.get(UpdatableField.EMAIL);
+        if (email != null && customerShards.claimEmail(email, id)) {
+            CustomerResponseDTO changed = attempts(id, expectedVersion, changes, seen, changeType);
+            Object previous = seen.get(UpdatableField.EMAIL);
+            if (previous != null && !previous.equals(email)) {
+                customerShards.releaseEmail((String) previous, id);
+            }
+            return changed;
+        }
+        return attempts(id, expectedVersion, changes, seen, changeType);
+    }
+
+    private CustomerResponseDTO attempts(Long id, Long expectedVersion, Map<UpdatableField, Object> changes,
+                                         Map<UpdatableField, Object> seen, CustomerChangedEvent.ChangeType changeType) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return customerShards.onShardOf(id, () -> apply(id, expectedVersion, changes, seen, changeType));
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // A new transaction, and with it a fresh persistence context, per attempt
+                return customerShards.onShardOf(id, () ->
+                        attemptTemplate.execute(status -> apply(id, expectedVersion, changes, seen, changeType)));
+            } catch (OptimisticLockingFailureException ex) {
+                // Changed under us, maybe around this service: the held record can't be trusted
+                recordStore.evict(id);
+                if (attempt >= maxUpdateAttempts) {
+                    throw new CustomerUpdateConflictException(id, "still conflicting after " + attempt + " attempts");
+                }
+                updateRetries.increment();
+            }
+        }
+    }
+
+    private CustomerResponseDTO apply(Long id, Long expectedVersion, Map<UpdatableField, Object> changes,
+                                      Map<UpdatableField, Object> seen, CustomerChangedEvent.ChangeType changeType) {
         Customer customer = customerRepository.findById(id)
+                .or(() -> restoreArchived(id) ? customerRepository.findById(id) : Optional.empty())
                 .orElseThrow(() -> new CustomerNotFoundException(id));
-        customer.setStatus(status);
-        Customer updated = customerRepository.save(customer);
-        return CustomerResponseDTO.fromEntity(updated);
+        if (expectedVersion != null && !expectedVersion.equals(customer.getVersion())) {
+            recordStore.evict(id);
+            throw new CustomerVersionMismatchException(id, expectedVersion, customer.getVersion());
+        }
+        for (UpdatableField field : changes.keySet()) {
+            Object current = field.current(customer);
+            if (!seen.containsKey(field)) {
+                seen.put(field, current);
+            } else if (!Objects.equals(seen.get(field), current)) {
+                throw new CustomerUpdateConflictException(id, field.name() + " was changed concurrently");
+            }
+        }
+
+        changes.forEach((field, value) -> field.apply(customer, value));
+
+        // Flush now so a concurrent update or a taken email fails here, inside the attempt,
+        // and the DTO carries the new version
+        Customer updated;
+        try {
+            updated = customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException ex) {
+            throw translateViolation(ex, (String) changes.get(UpdatableField.EMAIL));
+        }
+        CustomerResponseDTO changed = CustomerResponseDTO.fromEntity(updated);
+        publish(id, changeType, updated.getStatus(), changed);
+        return changed;
+    }
+
+    /**
+     * Moves an archived customer back into customers, in the transaction of the write that
+     * needs it: rolled back with it, it stays archived.
+     *
+     * @return whether the customer was archived
+     */
+    private boolean restoreArchived(Long id) {
+        try {
+            return archiveRepository.restore(id);
+        } catch (DataIntegrityViolationException ex) {
+            // A newer customer took its email while it was archived
+            String email = archiveRepository.findById(id).map(CustomerResponseDTO::getEmail).orElse(null);
+            throw translateViolation(ex, email);
+        }
+    }
+
+    /**
+     * The unique email constraint is the duplicate check, saving a lookup before every
+     * write: its violation becomes a DuplicateEmailException, any other is rethrown.
+     */
+    private RuntimeException translateViolation(DataIntegrityViolationException ex, String email) {
+        if (email != null && EMAIL_CONSTRAINT.equalsIgnoreCase(violatedConstraint(ex))) {
+            return new DuplicateEmailException(email, ex);
+        }
+        return ex;
+    }
+
+    /**
+     * Name of the violated constraint, from Hibernate for entity writes or from the dialect
+     * for JDBC writes, without schema, quotes or H2's index suffix; null if unknown.
+     */
+    private String violatedConstraint(DataIntegrityViolationException ex) {
+        String name = null;
+        for (Throwable cause = ex; name == null && cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                name = violation.getConstraintName();
+            } else if (cause instanceof SQLException sqlException) {
+                name = constraintNames.extractConstraintName(sqlException);
+            }
+        }
+        if (name == null) {
+            return null;
+        }
+        // H2: "PUBLIC.UK_CUSTOMERS_EMAIL_INDEX_5 ON PUBLIC.CUSTOMERS(EMAIL ...) VALUES (...)"
+        name = name.replace("\"", "").trim();
+        int end = name.indexOf(' ');
+        name = end > 0 ? name.substring(0, end) : name;
+        name = name.substring(name.lastIndexOf('.') + 1);
+        return H2_INDEX_SUFFIX.matcher(name).replaceFirst("");
+    }
+
+    public long getUpdateRetries() {
+        return updateRetries.sum();
+    }
+
+    private void publish(Long id, CustomerChangedEvent.ChangeType changeType, Customer.CustomerStatus status,
+                         CustomerResponseDTO customer) {
+        eventPublisher.publishEvent(new CustomerChangedEvent(id, changeType, status, customer));
     }
 
     @Transactional(readOnly = true)
     public long getCustomerCount() {
-        return customerRepository.count();
+        return customerShards.sum(customerRepository::count);
     }
 
     @Transactional(readOnly = true)
     public long getActiveCustomerCount() {
-        return customerRepository.countByStatus(Customer.CustomerStatus.ACTIVE);
+        return customerShards.sum(() -> customerRepository.countByStatus(Customer.CustomerStatus.ACTIVE));
     }
-}
 
+    /**
+     * Customer fields a partial update can change
+     */
+    private enum UpdatableField {
+        FIRST_NAME(CustomerUpdateDTO::getFirstName, Customer::getFirstName, (c, v) -> c.setFirstName((String) v)),
+        LAST_NAME(CustomerUpdateDTO::getLastName, Customer::getLastName, (c, v) -> c.setLastName((String) v)),
+        EMAIL(CustomerUpdateDTO::getEmail, Customer::getEmail, (c, v) -> c.setEmail((String) v)),
+        PHONE(CustomerUpdateDTO::getPhone, Customer::getPhone, (c, v) -> c.setPhone((String) v)),
+        DATE_OF_BIRTH(CustomerUpdateDTO::getDateOfBirth, Customer::getDateOfBirth,
+                (c, v) -> c.setDateOfBirth((LocalDate) v)),
+        ADDRESS(CustomerUpdateDTO::getAddress, Customer::getAddress, (c, v) -> c.setAddress((String) v)),
+        CITY(CustomerUpdateDTO::getCity, Customer::getCity, (c, v) -> c.setCity((String) v)),
+        ZIP_CODE(CustomerUpdateDTO::getZipCode, Customer::getZipCode, (c, v) -> c.setZipCode((String) v)),
+        STATUS(dto -> null, Customer::getStatus, (c, v) -> c.setStatus((Customer.CustomerStatus) v));
+
+        private final Function<CustomerUpdateDTO, Object> requested;
+        private final Function<Customer, Object> current;
+        private final BiConsumer<Customer, Object> setter;
+
+        UpdatableField(Function<CustomerUpdateDTO, Object> requested, Function<Customer, Object> current,
+                       BiConsumer<Customer, Object> setter) {
+            this.requested = requested;
+            this.current = current;
+            this.setter = setter;
+        }
+
+        Object requested(CustomerUpdateDTO dto) {
+            return requested.apply(dto);
+        }
+
+        Object current(Customer customer) {
+            return current.apply(customer);
+        }
+
+        void apply(Customer customer, Object value) {
+            setter.accept(customer, value);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.IdentityGenerator;
+
+/**
+ * Identity generation that keeps an id the application assigned: entities persisted
+ * without an id get the column's identity value, entities with one (customers placed on
+ * a shard by their id, see {@link CustomerShards}) are inserted with it. Mapped with
+ * {@code @GenericGenerator}.
+ */
+public class AssignableIdentityGenerator extends IdentityGenerator implements BeforeExecutionGenerator {
+
+    @Override
+    public boolean generatedOnExecution(Object owner, SharedSessionContractImplementor session) {
+        return assigned(owner, session) == null;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return assigned(owner, session);
+    }
+
+    @Override
+    public boolean generatedOnExecution() {
+        return true;
+    }
+
+    private static Object assigned(Object owner, SharedSessionContractImplementor session) {
+        return session.getEntityPersister(null, owner).getIdentifier(owner, session);
+    }
+}
@@ -0,0 +1,120 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import com.sanjeev.learnspring.jpa.exception.DuplicateEmailException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Global email index of a sharded deployment, in customer_email_directory on shard 0:
+ * which customer id holds each email, the ring then telling the shard. Each shard's
+ * unique constraint only covers its own rows, so the directory is also what keeps
+ * emails unique across shards.
+ *
+ * An email is claimed before the customer row holding it is written and released after
+ * the row stops holding it commits, so the directory may briefly claim emails no row
+ * holds, never the other way round. A claim is only taken over once no row holds its
+ * email and it is older than {@link #STALE_CLAIM}, which leaves a concurrent writer of
+ * the same email time to commit.
+ */
+final class CustomerEmailDirectory {
+
+    static final Duration STALE_CLAIM = Duration.ofMinutes(1);
+
+    private static final String INSERT = "INSERT INTO customer_email_directory (email, customer_id, claimed_at) "
+            + "VALUES (?, ?, LOCALTIMESTAMP)";
+    private static final String FIND = "SELECT customer_id, claimed_at FROM customer_email_directory WHERE email = ?";
+    private static final String TAKE_OVER = "UPDATE customer_email_directory "
+            + "SET customer_id = ?, claimed_at = LOCALTIMESTAMP WHERE email = ? AND customer_id = ?";
+    private static final String RELEASE = "DELETE FROM customer_email_directory WHERE email = ? AND customer_id = ?";
+    private static final String RELEASE_ALL = "DELETE FROM customer_email_directory WHERE customer_id = ?";
+    private static final String REGISTER = "INSERT INTO customer_email_directory (email, customer_id, claimed_at) "
+            + "SELECT CAST(? AS VARCHAR(100)), CAST(? AS BIGINT), LOCALTIMESTAMP "
+            + "WHERE NOT EXISTS (SELECT 1 FROM customer_email_directory WHERE email = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Whether the customer with the id (first argument) holds the email on its shard
+    private final BiPredicate<Long, String> holds;
+
+    CustomerEmailDirectory(JdbcTemplate jdbcTemplate, BiPredicate<Long, String> holds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.holds = holds;
+    }
+
+    /**
+     * Id of the customer the email is claimed for, or null.
+     */
+    Long find(String email) {
+        Claim claim = claimOf(email);
+        return claim != null ? claim.customerId() : null;
+    }
+
+    /**
+     * Claims the email for the customer: true if it was claimed now, false if the
+     * customer already had it.
+     *
+     * @throws DuplicateEmailException if another customer holds it
+     */
+    boolean claim(String email, long customerId) {
+        while (true) {
+            try {
+                jdbcTemplate.update(INSERT, email, customerId);
+                return true;
+            } catch (DuplicateKeyException ex) {
+                Claim claim = claimOf(email);
+                if (claim == null) {
+                    // Released in between
+                    continue;
+                }
+                if (claim.customerId() == customerId) {
+                    return false;
+                }
+                long staleBefore = System.currentTimeMillis() - STALE_CLAIM.toMillis();
+                if (claim.claimedAt().getTime() > staleBefore || holds.test(claim.customerId(), email)) {
+                    throw new DuplicateEmailException(email, ex);
+                }
+                if (jdbcTemplate.update(TAKE_OVER, customerId, email, claim.customerId()) == 1) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    void release(String email, long customerId) {
+        jdbcTemplate.update(RELEASE, email, customerId);
+    }
+
+    /**
+     * Releases every email claimed for the customer, once it is deleted.
+     */
+    void releaseAll(long customerId) {
+        jdbcTemplate.update(RELEASE_ALL, customerId);
+    }
+
+    /**
+     * Records which customers hold the emails, for rows written around the directory;
+     * emails already claimed keep their claim.
+     */
+    void register(List<Object[]> emailsAndIds) {
+        jdbcTemplate.batchUpdate(REGISTER, emailsAndIds.stream()
+                .map(row -> new Object[]{row[0], row[1], row[0]})
+                .toList());
+    }
+
+    void clear() {
+        jdbcTemplate.update("DELETE FROM customer_email_directory");
+    }
+
+    private Claim claimOf(String email) {
+        List<Claim> claims = jdbcTemplate.query(FIND, (rs, rowNum) ->
+                new Claim(rs.getLong("customer_id"), rs.getTimestamp("claimed_at")), email);
+        return claims.isEmpty() ? null : claims.get(0);
+    }
+
+    private record Claim(long customerId, Timestamp claimedAt) {
+    }
+}
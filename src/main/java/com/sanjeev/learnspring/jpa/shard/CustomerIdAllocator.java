@@ -0,0 +1,55 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Customer ids unique across shards, reserved from customer_id_blocks on shard 0 a block
+ * at a time, so only one id in id-block-size costs a round-trip. Ids of a block left
+ * unused at shutdown are skipped, as with a sequence cache.
+ *
+ * A reservation never starts below the floor, the highest id on any shard plus one,
+ * which is looked up again after {@link #resetFloor()}: rows inserted around the
+ * allocator (the synthetic seeder's identity ids) are never handed out twice.
+ */
+final class CustomerIdAllocator {
+
+    private static final String RESERVE = "SELECT next_id FROM FINAL TABLE "
+            + "(UPDATE customer_id_blocks SET next_id = GREATEST(next_id, ?) + ? WHERE id = 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private final LongSupplier floor;
+    private boolean floorChecked;
+    private long next;
+    private long limit;
+
+    CustomerIdAllocator(JdbcTemplate jdbcTemplate, int blockSize, LongSupplier floor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+        this.floor = floor;
+    }
+
+    synchronized long nextId() {
+        if (next == limit) {
+            long minimum = floorChecked ? 0 : floor.getAsLong();
+            Long end = jdbcTemplate.queryForObject(RESERVE, Long.class, minimum, blockSize);
+            if (end == null) {
+                throw new IllegalStateException("customer_id_blocks has no row");
+            }
+            floorChecked = true;
+            next = end - blockSize;
+            limit = end;
+        }
+        return next++;
+    }
+
+    /**
+     * Rechecks the floor before the next id, dropping the rest of the current block.
+     */
+    synchronized void resetFloor() {
+        floorChecked = false;
+        next = limit;
+    }
+}
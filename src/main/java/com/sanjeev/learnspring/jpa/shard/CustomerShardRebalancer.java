@@ -0,0 +1,194 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resharding: after shards were added (or rows were loaded around {@link CustomerShards}),
+ * walks every shard in id order, rebalance-batch-size customers at a time, moves the
+ * customers the ring now places elsewhere to their shard and adds missing emails to the
+ * email directory, then does the same for the shard's archived customers. A pass that
+ * gets through every shard settles the layout.
+ *
+ * Customers stay readable and writable throughout: one missed on its new shard is moved
+ * there on the spot, and a customer being moved is locked on its old shard until it is
+ * gone from there. Shards can only be added: rows of a shard dropped from the
+ * configuration are out of reach.
+ */
+@Component
+public class CustomerShardRebalancer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerShardRebalancer.class);
+
+    private final CustomerShards shards;
+
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder moved = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder passes = new LongAdder();
+    private final AtomicBoolean passRunning = new AtomicBoolean();
+    private volatile ExecutorService executor;
+    private volatile LocalDateTime lastPassFinishedAt;
+    private volatile String lastError;
+
+    public CustomerShardRebalancer(CustomerShards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-shard-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Starts a pass in the background.
+     *
+     * @return false if sharding is off, a pass is already running or the rebalancer is stopped
+     */
+    public boolean startRebalance() {
+        ExecutorService current = executor;
+        if (!shards.isEnabled() || current == null || passRunning.get()) {
+            return false;
+        }
+        current.execute(this::rebalanceSafely);
+        return true;
+    }
+
+    /**
+     * Runs a pass on the calling thread.
+     *
+     * @return the number of customers moved
+     */
+    public long rebalance() throws InterruptedException {
+        if (!shards.isEnabled() || !passRunning.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long movedInPass = 0;
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                movedInPass += rebalance(shard) + rebalanceArchive(shard);
+            }
+            shards.markSettled(true);
+            passes.increment();
+            lastPassFinishedAt = LocalDateTime.now();
+            lastError = null;
+            return movedInPass;
+        } finally {
+            passRunning.set(false);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", passRunning.get());
+        status.put("scanned", scanned.sum());
+        status.put("moved", moved.sum());
+        status.put("batches", batches.sum());
+        status.put("passes", passes.sum());
+        status.put("lastPassFinishedAt", lastPassFinishedAt);
+        status.put("lastError", lastError);
+        status.putAll(shards.getStatus());
+        return status;
+    }
+
+    private long rebalance(int shard) throws InterruptedException {
+        int batchSize = shards.getRebalanceBatchSize();
+        long afterId = 0;
+        long movedFromShard = 0;
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            List<Object[]> batch = shards.scan(shard, afterId, batchSize);
+            if (batch.isEmpty()) {
+                return movedFromShard;
+            }
+            shards.registerEmails(batch);
+            List<Long> misplaced = batch.stream()
+                    .map(row -> (Long) row[0])
+                    .filter(id -> shards.shardOf(id) != shard)
+                    .toList();
+            if (!misplaced.isEmpty()) {
+                int count = shards.move(shard, misplaced);
+                moved.add(count);
+                movedFromShard += count;
+            }
+            scanned.add(batch.size());
+            batches.increment();
+            if (batch.size() < batchSize) {
+                return movedFromShard;
+            }
+            afterId = (Long) batch.get(batch.size() - 1)[0];
+        }
+    }
+
+    private long rebalanceArchive(int shard) throws InterruptedException {
+        int batchSize = shards.getRebalanceBatchSize();
+        long afterId = 0;
+        long movedFromShard = 0;
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            List<Long> batch = shards.scanArchive(shard, afterId, batchSize);
+            if (batch.isEmpty()) {
+                return movedFromShard;
+            }
+            List<Long> misplaced = batch.stream().filter(id -> shards.shardOf(id) != shard).toList();
+            if (!misplaced.isEmpty()) {
+                int count = shards.moveArchived(shard, misplaced);
+                moved.add(count);
+                movedFromShard += count;
+            }
+            scanned.add(batch.size());
+            batches.increment();
+            if (batch.size() < batchSize) {
+                return movedFromShard;
+            }
+            afterId = batch.get(batch.size() - 1);
+        }
+    }
+
+    private void rebalanceSafely() {
+        try {
+            long count = rebalance();
+            log.info("Customer shard rebalance moved {} customers", count);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            lastError = ex.toString();
+            log.warn("Customer shard rebalance failed: {}", ex.toString());
+        }
+    }
+}
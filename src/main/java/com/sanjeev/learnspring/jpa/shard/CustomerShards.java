@@ -0,0 +1,710 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Where customers live when they are sharded (app.database.sharding.enabled), and the
+ * single place that knows: with sharding off every method runs its work as is, on the
+ * one database.
+ *
+ * A customer's id places it on a shard through the {@link ShardRing}; ids come from a
+ * global {@link CustomerIdAllocator}, so the id is assigned before the insert and the
+ * row is written where it will be read. Emails are placed through the
+ * {@link CustomerEmailDirectory}. Queries that aren't by id or email are scattered over
+ * all shards in parallel and gathered, ordered by id.
+ *
+ * A transaction stays on the shard of its first statement. Work by id inside a caller's
+ * transaction that already runs on another shard is refused with an
+ * IllegalStateException; a customer created there gets an id of the transaction's shard.
+ *
+ * When the ring changes (shards were added) rows sit on shards that no longer own them
+ * until {@link CustomerShardRebalancer} has moved them; until then the layout is
+ * unsettled, and a customer missing from its shard is looked for on the others and moved
+ * on the spot.
+ *
+ * Archived customers are kept on the shard of their id too, where a write restores them
+ * into customers, and move with it. The purge, archive and backfill jobs cover every
+ * shard through {@link #sumEachShard(ShardTask)}.
+ */
+@Component
+public class CustomerShards implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerShards.class);
+
+    private static final String COLUMNS = "id, first_name, last_name, email, phone, date_of_birth, address, city, "
+            + "zip_code, status, created_at, updated_at, version, city_folded, email_folded, last_name_folded, "
+            + "full_name_folded";
+    private static final MovedTable CUSTOMERS = MovedTable.of("customers", COLUMNS);
+    // Archived customers live on the shard of their id as well
+    private static final MovedTable ARCHIVE = MovedTable.of("customers_archive", COLUMNS + ", archived_at");
+    private static final String SCAN = "SELECT id, email FROM customers WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String SCAN_ARCHIVE = "SELECT id FROM customers_archive WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String HOLDS = "SELECT COUNT(*) FROM customers WHERE id = ? AND email = ?";
+    private static final String OUTBOX_COLUMNS = "customer_id, change_type, status, payload, created_at";
+    private static final String SELECT_OUTBOX = "SELECT id, " + OUTBOX_COLUMNS + " FROM customer_outbox "
+            + "WHERE seq IS NULL ORDER BY id LIMIT ? FOR UPDATE";
+    private static final String INSERT_OUTBOX = "INSERT INTO customer_outbox (" + OUTBOX_COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_OUTBOX = "DELETE FROM customer_outbox WHERE id = ANY(?)";
+    private static final String READ_LAYOUT = "SELECT signature, settled FROM customer_shard_layout WHERE id = 1";
+    private static final String INSERT_LAYOUT = "INSERT INTO customer_shard_layout (id, signature, settled, updated_at) "
+            + "VALUES (1, ?, ?, LOCALTIMESTAMP)";
+    private static final String UPDATE_LAYOUT = "UPDATE customer_shard_layout "
+            + "SET signature = ?, settled = ?, updated_at = LOCALTIMESTAMP WHERE id = 1";
+
+    private final ShardingProperties properties;
+    private final ShardRoutingDataSource routing;
+    private final ShardRing ring;
+    private final List<JdbcTemplate> shardJdbc = new ArrayList<>();
+    private final List<TransactionTemplate> shardTransactions = new ArrayList<>();
+    private final TransactionTemplate readOnlyTemplate;
+    private final CustomerIdAllocator idAllocator;
+    private final CustomerEmailDirectory emailDirectory;
+    private final ExecutorService scatterExecutor;
+
+    private final LongAdder scatters = new LongAdder();
+    private final LongAdder relocated = new LongAdder();
+    private volatile boolean settled = true;
+
+    public CustomerShards(ShardingProperties properties, ObjectProvider<ShardRoutingDataSource> routing,
+                          PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.routing = routing.getIfAvailable();
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        if (this.routing == null) {
+            this.ring = null;
+            this.idAllocator = null;
+            this.emailDirectory = null;
+            this.scatterExecutor = null;
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        for (int shard = 0; shard < this.routing.getShardCount(); shard++) {
+            names.add("shard" + shard);
+            shardJdbc.add(new JdbcTemplate(this.routing.getShard(shard)));
+            shardTransactions.add(new TransactionTemplate(new DataSourceTransactionManager(this.routing.getShard(shard))));
+        }
+        this.ring = new ShardRing(names, properties.getVirtualNodes());
+        this.idAllocator = new CustomerIdAllocator(shardJdbc.get(0), properties.getIdBlockSize(), this::idFloor);
+        this.emailDirectory = new CustomerEmailDirectory(shardJdbc.get(0), this::holds);
+        AtomicInteger threads = new AtomicInteger();
+        this.scatterExecutor = Executors.newFixedThreadPool(properties.getScatterThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "customer-shard-scatter-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Compares the ring with the one the rows were placed with, once shard 0 is migrated.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isEnabled()) {
+            return;
+        }
+        List<Map<String, Object>> layout = shardJdbc.get(0).queryForList(READ_LAYOUT);
+        if (layout.isEmpty()) {
+            settled = IntStream.range(0, getShardCount()).allMatch(shard -> idFloor(shard) == 1);
+            shardJdbc.get(0).update(INSERT_LAYOUT, ring.getSignature(), settled);
+        } else if (ring.getSignature().equals(layout.get(0).get("signature"))) {
+            settled = Boolean.TRUE.equals(layout.get(0).get("settled"));
+        } else {
+            settled = false;
+            shardJdbc.get(0).update(UPDATE_LAYOUT, ring.getSignature(), false);
+        }
+        if (!settled) {
+            log.warn("Customer shard layout {} is not settled; run the rebalancer "
+                    + "(POST /api/customers/maintenance/shards/rebalance)", ring.getSignature());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return routing != null;
+    }
+
+    public int getShardCount() {
+        return isEnabled() ? routing.getShardCount() : 1;
+    }
+
+    public int shardOf(long id) {
+        return isEnabled() ? ring.shardOf(id) : 0;
+    }
+
+    /**
+     * Runs the work on the customer's shard.
+     *
+     * @throws IllegalStateException if the caller's transaction already runs on another shard
+     */
+    public <T> T onShardOf(long id, Supplier<T> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        int shard = ring.shardOf(id);
+        checkTransactionShard(shard, "customer " + id);
+        return ShardContext.call(shard, work);
+    }
+
+    /**
+     * Looks the customer up on its shard; while the layout is unsettled a miss moves the
+     * customer there from wherever it still is and looks again.
+     */
+    public <T> Optional<T> find(long id, Supplier<Optional<T>> query) {
+        Optional<T> found = onShardOf(id, query);
+        if (found.isEmpty() && isEnabled() && !settled && relocate(id)) {
+            found = onShardOf(id, query);
+        }
+        return found;
+    }
+
+    /**
+     * Before a write by id: makes sure the customer is on its shard.
+     */
+    public void ensurePlaced(long id) {
+        if (isEnabled() && !settled) {
+            relocate(id);
+        }
+    }
+
+    /**
+     * Runs the work once per shard, one after the other.
+     */
+    public void forEachShard(Runnable work) {
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            ShardContext.call(shard, () -> {
+                work.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Runs the task once per shard, one after the other, and sums what it returns; an
+     * interrupt between shards stops it. Background jobs use it to cover every shard.
+     */
+    public <E extends Exception> long sumEachShard(ShardTask<E> task) throws E, InterruptedException {
+        long sum = 0;
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            Integer previous = ShardContext.enter(shard);
+            try {
+                sum += task.run();
+            } finally {
+                ShardContext.restore(previous);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Runs the query on every shard in parallel, each in a read-only transaction of its
+     * own, and returns the results by shard. With sharding off it runs once, as is.
+     */
+    public <T> List<T> scatter(Supplier<T> query) {
+        if (!isEnabled()) {
+            return Collections.singletonList(query.get());
+        }
+        scatters.increment();
+        List<CompletableFuture<T>> results = new ArrayList<>();
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int target = shard;
+            results.add(CompletableFuture.supplyAsync(() ->
+                    ShardContext.call(target, () -> readOnlyTemplate.execute(status -> query.get())), scatterExecutor));
+        }
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Scatters the query and merges the shards' results in order. Each shard sorts its
+     * own part in parallel, then the parts are merged. With sharding off the query's own
+     * order is kept.
+     */
+    public <T> List<T> gather(Supplier<List<T>> query, Comparator<? super T> order) {
+        if (!isEnabled()) {
+            return query.get();
+        }
+        return mergeSorted(scatter(() -> {
+            List<T> part = new ArrayList<>(query.get());
+            part.sort(order);
+            return part;
+        }), order);
+    }
+
+    /**
+     * Sums a count over all shards.
+     */
+    public long sum(Supplier<Long> count) {
+        return scatter(count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * K-way merge of lists each sorted by the order.
+     */
+    public static <T> List<T> mergeSorted(List<List<T>> parts, Comparator<? super T> order) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        record Cursor<T>(List<T> part, int index) {
+            T head() {
+                return part.get(index);
+            }
+        }
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(Math.max(1, parts.size()),
+                (a, b) -> order.compare(a.head(), b.head()));
+        int size = 0;
+        for (List<T> part : parts) {
+            size += part.size();
+            if (!part.isEmpty()) {
+                heads.add(new Cursor<>(part, 0));
+            }
+        }
+        List<T> merged = new ArrayList<>(size);
+        while (!heads.isEmpty()) {
+            Cursor<T> cursor = heads.poll();
+            merged.add(cursor.head());
+            if (cursor.index() + 1 < cursor.part().size()) {
+                heads.add(new Cursor<>(cursor.part(), cursor.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Inserts a new customer through save on the shard its newly allocated id places it
+     * on, after claiming its email. An assigned id defers the insert to the flush, so
+     * flush runs there too: the transaction's first statement decides its shard. In a
+     * caller's transaction that already runs on a shard, the id is one that shard owns.
+     */
+    public Customer insert(Customer customer, UnaryOperator<Customer> save, Runnable flush) {
+        if (!isEnabled()) {
+            return save.apply(customer);
+        }
+        Integer transactionShard = routing.getTransactionShard();
+        long id = transactionShard != null ? nextIdOn(transactionShard) : idAllocator.nextId();
+        customer.setId(id);
+        claimEmail(customer.getEmail(), id);
+        try {
+            return ShardContext.call(ring.shardOf(id), () -> {
+                Customer saved = save.apply(customer);
+                flush.run();
+                return saved;
+            });
+        } catch (RuntimeException ex) {
+            emailDirectory.release(customer.getEmail(), id);
+            throw ex;
+        }
+    }
+
+    /**
+     * Inserts new customers through saveAll, one call per shard.
+     */
+    public List<Customer> insertAll(List<Customer> customers, Function<List<Customer>, List<Customer>> saveAll) {
+        if (!isEnabled()) {
+            return saveAll.apply(customers);
+        }
+        Map<Integer, List<Customer>> byShard = new LinkedHashMap<>();
+        List<Customer> claimed = new ArrayList<>();
+        try {
+            for (Customer customer : customers) {
+                long id = idAllocator.nextId();
+                customer.setId(id);
+                claimEmail(customer.getEmail(), id);
+                claimed.add(customer);
+                byShard.computeIfAbsent(ring.shardOf(id), shard -> new ArrayList<>()).add(customer);
+            }
+            List<Customer> saved = new ArrayList<>(customers.size());
+            byShard.forEach((shard, part) -> {
+                checkTransactionShard(shard, "new customers");
+                saved.addAll(ShardContext.call(shard, () -> saveAll.apply(part)));
+            });
+            return saved;
+        } catch (RuntimeException ex) {
+            claimed.forEach(customer -> emailDirectory.release(customer.getEmail(), customer.getId()));
+            throw ex;
+        }
+    }
+
+    /**
+     * Looks the customer holding the email up on the shard the email directory points
+     * to; while the layout is unsettled the directory may not know the email yet, and a
+     * miss is looked for on all shards.
+     */
+    public <T> Optional<T> findByEmail(String email, Supplier<Optional<T>> query) {
+        if (!isEnabled()) {
+            return query.get();
+        }
+        Long id = emailDirectory.find(email);
+        Optional<T> found = id != null ? find(id, query) : Optional.empty();
+        if (found.isEmpty() && !settled) {
+            found = scatter(query).stream().flatMap(Optional::stream).findFirst();
+        }
+        return found;
+    }
+
+    /**
+     * Whether every customer is on its shard and in the email directory.
+     */
+    public boolean isSettled() {
+        return settled;
+    }
+
+    /**
+     * Claims the email for the customer before a write gives it that email. The claim
+     * is undone if the caller's transaction rolls back.
+     *
+     * @return true if it was claimed now, false if the customer already had it or sharding is off
+     * @throws com.sanjeev.learnspring.jpa.exception.DuplicateEmailException if another customer holds it
+     */
+    public boolean claimEmail(String email, long id) {
+        if (!isEnabled() || !emailDirectory.claim(email, id)) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        emailDirectory.release(email, id);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Releases the customer's email once the write that took it away has committed.
+     */
+    public void releaseEmail(String email, long id) {
+        if (isEnabled()) {
+            afterCommit(() -> emailDirectory.release(email, id));
+        }
+    }
+
+    /**
+     * Releases the deleted customer's emails once the delete has committed.
+     */
+    public void releaseEmails(long id) {
+        if (isEnabled()) {
+            afterCommit(() -> emailDirectory.releaseAll(id));
+        }
+    }
+
+    /**
+     * Moves up to limit unsequenced outbox entries of each other shard to shard 0's
+     * outbox, in id order; an entry is committed there before it is deleted on its shard.
+     *
+     * @return the number of entries moved
+     */
+    public int collectOutboxes(int limit) {
+        int collected = 0;
+        for (int shard = 1; shard < getShardCount(); shard++) {
+            int source = shard;
+            Integer count = shardTransactions.get(source).execute(tx -> {
+                List<Long> ids = new ArrayList<>();
+                List<Object[]> entries = shardJdbc.get(source).query(SELECT_OUTBOX, (rs, rowNum) -> {
+                    ids.add(rs.getLong("id"));
+                    return new Object[]{rs.getLong("customer_id"), rs.getString("change_type"),
+                            rs.getString("status"), rs.getString("payload"), rs.getTimestamp("created_at")};
+                }, limit);
+                if (entries.isEmpty()) {
+                    return 0;
+                }
+                shardTransactions.get(0).executeWithoutResult(target ->
+                        shardJdbc.get(0).batchUpdate(INSERT_OUTBOX, entries));
+                shardJdbc.get(source).update(connection -> byIds(connection.prepareStatement(DELETE_OUTBOX), ids));
+                return entries.size();
+            });
+            collected += count == null ? 0 : count;
+        }
+        return collected;
+    }
+
+    /**
+     * Empties the customers table of every shard through truncate, and the email directory.
+     */
+    public void truncate(Runnable truncate) {
+        forEachShard(truncate);
+        if (isEnabled()) {
+            emailDirectory.clear();
+            idAllocator.resetFloor();
+            markSettled(true);
+        }
+    }
+
+    /**
+     * Records that rows were written around this class (the synthetic seeder loads
+     * shard 0 directly), so they must be rebalanced.
+     */
+    public void markUnsettled() {
+        if (isEnabled()) {
+            idAllocator.resetFloor();
+            markSettled(false);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", isEnabled());
+        if (!isEnabled()) {
+            return status;
+        }
+        status.put("layout", ring.getSignature());
+        status.put("settled", settled);
+        status.put("scatters", scatters.sum());
+        status.put("relocated", relocated.sum());
+        status.put("shards", routing.getStatus());
+        return status;
+    }
+
+    // Rebalancing, for CustomerShardRebalancer
+
+    /**
+     * Ids and emails of the shard's customers after the id, in id order.
+     */
+    List<Object[]> scan(int shard, long afterId, int limit) {
+        return shardJdbc.get(shard).query(SCAN, (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getString("email")},
+                afterId, limit);
+    }
+
+    /**
+     * Ids of the shard's archived customers after the id, in id order.
+     */
+    List<Long> scanArchive(int shard, long afterId, int limit) {
+        return shardJdbc.get(shard).queryForList(SCAN_ARCHIVE, Long.class, afterId, limit);
+    }
+
+    /**
+     * Adds the emails of rows written around the directory.
+     */
+    void registerEmails(List<Object[]> idsAndEmails) {
+        emailDirectory.register(idsAndEmails.stream().map(row -> new Object[]{row[1], row[0]}).toList());
+    }
+
+    /**
+     * Moves the customers with the ids from the shard to the shards owning them, and
+     * returns how many moved. Each customer is locked on its source, copied to its
+     * owner unless already there and then deleted, in a transaction per shard; a failure
+     * between the copy and the delete leaves a copy that the next move of the customer
+     * drops.
+     */
+    int move(int from, List<Long> ids) {
+        return move(from, ids, CUSTOMERS);
+    }
+
+    /**
+     * Moves the archived customers with the ids like {@link #move(int, List)}.
+     */
+    int moveArchived(int from, List<Long> ids) {
+        return move(from, ids, ARCHIVE);
+    }
+
+    private int move(int from, List<Long> ids, MovedTable table) {
+        Integer moved = shardTransactions.get(from).execute(source -> {
+            List<Object[]> rows = shardJdbc.get(from).query(
+                    connection -> byIds(connection.prepareStatement(table.selectForMove()), ids),
+                    (rs, rowNum) -> {
+                        Object[] row = new Object[table.columnCount()];
+                        for (int column = 0; column < table.columnCount(); column++) {
+                            row[column] = rs.getObject(column + 1);
+                        }
+                        return row;
+                    });
+            Map<Integer, List<Object[]>> byOwner = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                int owner = ring.shardOf((Long) row[0]);
+                if (owner != from) {
+                    byOwner.computeIfAbsent(owner, shard -> new ArrayList<>()).add(row);
+                }
+            }
+            List<Long> movedIds = new ArrayList<>();
+            byOwner.forEach((owner, part) -> {
+                copy(owner, part, table);
+                part.forEach(row -> movedIds.add((Long) row[0]));
+            });
+            if (!movedIds.isEmpty()) {
+                shardJdbc.get(from).update(connection -> byIds(connection.prepareStatement(table.delete()), movedIds));
+            }
+            return movedIds.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    /**
+     * Records whether the rows are placed by the current ring.
+     */
+    void markSettled(boolean settled) {
+        shardJdbc.get(0).update(UPDATE_LAYOUT, ring.getSignature(), settled);
+        this.settled = settled;
+    }
+
+    int getRebalanceBatchSize() {
+        return properties.getRebalanceBatchSize();
+    }
+
+    private void copy(int owner, List<Object[]> rows, MovedTable table) {
+        shardTransactions.get(owner).executeWithoutResult(target -> {
+            List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+            Set<Long> present = new HashSet<>(shardJdbc.get(owner).query(
+                    connection -> byIds(connection.prepareStatement(table.selectPresent()), ids),
+                    (rs, rowNum) -> rs.getLong(1)));
+            List<Object[]> absent = rows.stream().filter(row -> !present.contains((Long) row[0])).toList();
+            if (!absent.isEmpty()) {
+                shardJdbc.get(owner).batchUpdate(table.insert(), absent);
+            }
+        });
+    }
+
+    /**
+     * Skips the ids other shards own; they are never used, like the rest of an unused block.
+     */
+    private long nextIdOn(int shard) {
+        long id;
+        do {
+            id = idAllocator.nextId();
+        } while (ring.shardOf(id) != shard);
+        return id;
+    }
+
+    private void checkTransactionShard(int shard, String what) {
+        Integer transactionShard = routing.getTransactionShard();
+        if (transactionShard != null && transactionShard != shard) {
+            throw new IllegalStateException("Work on " + what + " belongs on shard " + shard
+                    + ", but the current transaction already runs on shard " + transactionShard);
+        }
+    }
+
+    private static void afterCommit(Runnable work) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    work.run();
+                }
+            });
+        } else {
+            work.run();
+        }
+    }
+
+    private boolean relocate(long id) {
+        int owner = ring.shardOf(id);
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            if (shard == owner) {
+                continue;
+            }
+            for (MovedTable table : List.of(CUSTOMERS, ARCHIVE)) {
+                if (count(shard, table.exists(), id) > 0 && move(shard, List.of(id), table) > 0) {
+                    relocated.increment();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean holds(long id, String email) {
+        if (settled) {
+            return count(ring.shardOf(id), HOLDS, id, email) > 0;
+        }
+        return IntStream.range(0, getShardCount()).anyMatch(shard -> count(shard, HOLDS, id, email) > 0);
+    }
+
+    private long count(int shard, String sql, Object... args) {
+        Long count = shardJdbc.get(shard).queryForObject(sql, Long.class, args);
+        return count == null ? 0 : count;
+    }
+
+    private long idFloor() {
+        return IntStream.range(0, getShardCount()).mapToLong(this::idFloor).max().orElse(1);
+    }
+
+    private long idFloor(int shard) {
+        Long max = shardJdbc.get(shard).queryForObject("SELECT MAX(id) FROM customers", Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    private static PreparedStatement byIds(PreparedStatement statement, List<Long> ids) throws SQLException {
+        statement.setArray(1, statement.getConnection().createArrayOf("BIGINT", ids.toArray()));
+        return statement;
+    }
+
+    /**
+     * Work of {@link #sumEachShard(ShardTask)}.
+     */
+    @FunctionalInterface
+    public interface ShardTask<E extends Exception> {
+        long run() throws E, InterruptedException;
+    }
+
+    /**
+     * Statements moving a table's rows between shards.
+     */
+    private record MovedTable(String selectForMove, String selectPresent, String insert, String delete,
+                              String exists, int columnCount) {
+
+        static MovedTable of(String table, String columns) {
+            int columnCount = columns.split(",").length;
+            return new MovedTable(
+                    "SELECT " + columns + " FROM " + table + " WHERE id = ANY(?) FOR UPDATE",
+                    "SELECT id FROM " + table + " WHERE id = ANY(?)",
+                    "INSERT INTO " + table + " (" + columns + ") VALUES ("
+                            + String.join(", ", Collections.nCopies(columnCount, "?")) + ")",
+                    "DELETE FROM " + table + " WHERE id = ANY(?)",
+                    "SELECT COUNT(*) FROM " + table + " WHERE id = ?",
+                    columnCount);
+        }
+    }
+}
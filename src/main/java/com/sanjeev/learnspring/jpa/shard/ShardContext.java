@@ -0,0 +1,53 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread's next connection comes from. Work outside
+ * {@link #call(int, Supplier)} uses shard 0.
+ *
+ * The shard only matters when a connection is fetched: a transaction stays on the shard
+ * of its first statement, whatever is selected afterwards.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Runs the work with connections from the shard, restoring the previous one after.
+     */
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = enter(shard);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Selects the shard for work that throws checked exceptions; the returned previous
+     * shard goes to {@link #restore(Integer)} in a finally block.
+     */
+    static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent-hash ring placing customer ids on shards.
+ *
+ * Every shard owns virtual-nodes points on a 64-bit ring, derived from its name; an id
+ * belongs to the shard owning the first point at or after the id's hash. Adding a shard
+ * only takes ids over from the others, about 1/N of them, so resharding moves the
+ * fewest rows. Immutable.
+ */
+public final class ShardRing {
+
+    private final long[] points;
+    private final int[] owners;
+    private final String signature;
+
+    public ShardRing(List<String> shardNames, int virtualNodes) {
+        int size = shardNames.size() * virtualNodes;
+        long[][] entries = new long[size][];
+        int next = 0;
+        for (int shard = 0; shard < shardNames.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[next++] = new long[]{hash(shardNames.get(shard) + "#" + node), shard};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+        this.signature = "v" + virtualNodes + ":" + String.join(",", shardNames);
+    }
+
+    /**
+     * Index of the shard owning the id.
+     */
+    public int shardOf(long id) {
+        int index = Arrays.binarySearch(points, mix(id));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * Identifies the layout: rings with equal signatures place every id alike.
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    private static long hash(String value) {
+        // FNV-1a, then mixed so that similar names spread over the ring
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Murmur3 fmix64: consecutive ids land far apart
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
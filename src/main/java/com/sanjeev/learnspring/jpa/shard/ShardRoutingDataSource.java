@@ -0,0 +1,144 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connections from the shard selected by {@link ShardContext}.
+ *
+ * Shard 0 is the primary pool, which also keeps the tables that are not sharded (sequenced
+ * outbox, purge runs, invalidations, email directory, id allocator). Every other shard
+ * gets a pool of its own at app.database.sharding.url-template and is brought to the
+ * current schema with the application's Flyway migrations at startup, so embedded H2
+ * shards need no setup.
+ *
+ * The shard a transaction fetched its connection from is remembered for the rest of the
+ * transaction ({@link #getTransactionShard()}), so work meant for another shard can be
+ * refused instead of silently running on the wrong one.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final List<DataSource> shards = new ArrayList<>();
+    private final List<String> urls = new ArrayList<>();
+    private final List<LongAdder> routed = new ArrayList<>();
+    private final Object transactionShardKey = new Object();
+
+    public ShardRoutingDataSource(HikariDataSource primary, ShardingProperties properties, List<String> migrationLocations) {
+        shards.add(primary);
+        urls.add(primary.getJdbcUrl());
+        for (int shard = 1; shard < properties.getShards(); shard++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("customers-shard-" + shard);
+            pool.setJdbcUrl(String.format(properties.getUrlTemplate(), shard));
+            pool.setUsername(properties.getUsername());
+            pool.setPassword(properties.getPassword());
+            pool.setMaximumPoolSize(properties.getMaxPoolSize());
+            pool.setMinimumIdle(0);
+            pool.setInitializationFailTimeout(-1);
+            Flyway.configure()
+                    .dataSource(pool)
+                    .locations(migrationLocations.toArray(String[]::new))
+                    .load()
+                    .migrate();
+            shards.add(pool);
+            urls.add(pool.getJdbcUrl());
+        }
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+            routed.add(new LongAdder());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        int shard = ShardContext.current();
+        routed.get(shard).increment();
+        bindToTransaction(shard);
+        return shard;
+    }
+
+    /**
+     * Shard of the current transaction's connection; null outside a transaction and
+     * before its first statement.
+     */
+    public Integer getTransactionShard() {
+        return (Integer) TransactionSynchronizationManager.getResource(transactionShardKey);
+    }
+
+    private void bindToTransaction(int shard) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(transactionShardKey)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(transactionShardKey, shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // A REQUIRES_NEW transaction in between fetches a connection of its own
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(transactionShardKey);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(transactionShardKey, shard);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(transactionShardKey);
+            }
+        });
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * The shard's own pool, bypassing routing and statement metrics.
+     */
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    public void destroy() {
+        // Shard 0 is the primary pool, closed by its own bean
+        for (int shard = 1; shard < shards.size(); shard++) {
+            ((HikariDataSource) shards.get(shard)).close();
+        }
+    }
+
+    public List<Map<String, Object>> getStatus() {
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            HikariPoolMXBean mxBean = ((HikariDataSource) shards.get(shard)).getHikariPoolMXBean();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("shard", shard);
+            entry.put("url", urls.get(shard));
+            entry.put("activeConnections", mxBean == null ? 0 : mxBean.getActiveConnections());
+            entry.put("routed", routed.get(shard).sum());
+            status.add(entry);
+        }
+        return status;
+    }
+}
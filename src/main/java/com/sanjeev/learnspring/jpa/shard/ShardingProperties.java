@@ -0,0 +1,131 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for spreading customers over several databases.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.database.sharding")
+@Validated
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // Number of shards, including the primary database (shard 0)
+    @Min(value = 1, message = "There must be at least one shard")
+    private int shards = 4;
+
+    // JDBC URL of shard n (n >= 1), formatted with n
+    @NotBlank(message = "Shard URL template must not be blank")
+    private String urlTemplate = "jdbc:h2:mem:customers_shard%d;DB_CLOSE_DELAY=-1";
+
+    private String username = "sa";
+
+    private String password = "";
+
+    // Pool size of each shard other than shard 0
+    @Min(value = 1, message = "Shard pool size must be at least 1")
+    private int maxPoolSize = 5;
+
+    // Points per shard on the hash ring; more points spread ids more evenly
+    @Min(value = 1, message = "Virtual nodes must be at least 1")
+    private int virtualNodes = 64;
+
+    // Customer ids reserved from the global allocator at a time
+    @Min(value = 1, message = "Id block size must be at least 1")
+    private int idBlockSize = 100;
+
+    // Threads querying shards in parallel for lists and counts
+    @Min(value = 1, message = "Scatter threads must be at least 1")
+    private int scatterThreads = 8;
+
+    // Customers moved per transaction while rebalancing
+    @Min(value = 1, message = "Rebalance batch size must be at least 1")
+    private int rebalanceBatchSize = 500;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public String getUrlTemplate() {
+        return urlTemplate;
+    }
+
+    public void setUrlTemplate(String urlTemplate) {
+        this.urlTemplate = urlTemplate;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public int getIdBlockSize() {
+        return idBlockSize;
+    }
+
+    public void setIdBlockSize(int idBlockSize) {
+        this.idBlockSize = idBlockSize;
+    }
+
+    public int getScatterThreads() {
+        return scatterThreads;
+    }
+
+    public void setScatterThreads(int scatterThreads) {
+        this.scatterThreads = scatterThreads;
+    }
+
+    public int getRebalanceBatchSize() {
+        return rebalanceBatchSize;
+    }
+
+    public void setRebalanceBatchSize(int rebalanceBatchSize) {
+        this.rebalanceBatchSize = rebalanceBatchSize;
+    }
+}
@@ -0,0 +1,38 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Attributes the statements of each CustomerRepository call, including inherited
+ * JpaRepository methods and flushes they trigger, to the repository method. The method
+ * is also the counter's label, which the slow-query log reports as the caller.
+ */
+@Aspect
+@Component
+public class RepositoryStatementAspect {
+
+    private final SqlStatementMetrics metrics;
+    private final SqlMetricsProperties properties;
+
+    public RepositoryStatementAspect(SqlStatementMetrics metrics, SqlMetricsProperties properties) {
+        this.metrics = metrics;
+        this.properties = properties;
+    }
+
+    @Around("target(com.sanjeev.learnspring.jpa.repository.CustomerRepository)")
+    public Object countStatements(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!properties.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        SqlStatementCounter counter = SqlStatementCounter.start("CustomerRepository." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            counter.close();
+            metrics.recordRepositoryCall(joinPoint.getSignature().getName(), counter);
+        }
+    }
+}
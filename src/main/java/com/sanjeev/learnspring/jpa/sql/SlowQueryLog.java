@@ -0,0 +1,344 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Logs statements slower than app.sql-metrics.slow-query.threshold, plus a sampled
+ * fraction (sample-rate) of the others, with their bound parameters, duration and the
+ * CustomerRepository method that issued them. Replaces spring.jpa.show-sql, which
+ * prints every statement synchronously and without parameters. Parameter values are
+ * masked to their types unless log-parameters is set, since they can hold personal data.
+ *
+ * The executing thread only decides whether to log and offers the statement to a
+ * bounded queue; when the queue is full the statement is dropped and counted rather
+ * than blocking. A daemon thread formats and writes the log. Statements are grouped by
+ * fingerprint (literals replaced with ?, IN lists collapsed, whitespace and case
+ * normalized): the first of each fingerprint per summary-interval is logged in full,
+ * further ones only as a count in the summary at the end of the interval.
+ */
+@Component
+public class SlowQueryLog implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\bin \\( ?\\?(?: ?, ?\\?)* ?\\)");
+
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    private static final int REPORTED_FINGERPRINTS = 20;
+
+    private final SqlMetricsProperties properties;
+    private final BlockingQueue<SlowQuery> queue;
+    // Filled by the writer thread; read for the status
+    private final Map<String, FingerprintStats> fingerprints = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private volatile Thread writer;
+
+    public SlowQueryLog(SqlMetricsProperties properties) {
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getSlowQuery().getQueueCapacity());
+    }
+
+    /**
+     * Whether bound parameters need to be kept for {@link #record}.
+     */
+    boolean isEnabled() {
+        return properties.getSlowQuery().isEnabled();
+    }
+
+    /**
+     * Queues the statement for logging if it was slow or is sampled. Never blocks.
+     *
+     * @param parameters bound parameters by index - 1, or null; copied if queued
+     */
+    void record(String sql, Object[] parameters, long elapsedNanos) {
+        SqlMetricsProperties.SlowQueryProperties settings = properties.getSlowQuery();
+        if (!settings.isEnabled() || writer == null) {
+            return;
+        }
+        boolean slow = elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(settings.getThreshold());
+        if (!slow && (settings.getSampleRate() <= 0
+                || ThreadLocalRandom.current().nextDouble() >= settings.getSampleRate())) {
+            return;
+        }
+        SlowQuery query = new SlowQuery(sql, parameters != null ? parameters.clone() : null, elapsedNanos,
+                SqlStatementCounter.currentLabel(), slow);
+        if (!queue.offer(query)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        Thread thread = new Thread(this::writeLoop, "slow-query-log");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        writer = null;
+        thread.interrupt();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    /**
+     * Queue and dedupe counters, and the fingerprints with the most statement time.
+     */
+    public Map<String, Object> getStatus() {
+        SqlMetricsProperties.SlowQueryProperties settings = properties.getSlowQuery();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", settings.isEnabled());
+        status.put("thresholdMillis", settings.getThreshold());
+        status.put("sampleRate", settings.getSampleRate());
+        status.put("queued", queue.size());
+        status.put("dropped", dropped.sum());
+        status.put("logged", logged.sum());
+        status.put("suppressed", suppressed.sum());
+        List<Map<String, Object>> top = new ArrayList<>();
+        fingerprints.values().stream()
+                .map(FingerprintStats::snapshot)
+                .sorted(Comparator.comparing((Map<String, Object> stats) -> (Long) stats.get("totalMicros")).reversed())
+                .limit(REPORTED_FINGERPRINTS)
+                .forEach(top::add);
+        status.put("fingerprints", top);
+        return status;
+    }
+
+    /**
+     * Logged statistics of the statement's fingerprint, or null if none was logged.
+     */
+    Map<String, Object> getStats(String sql) {
+        FingerprintStats stats = fingerprints.get(fingerprint(sql));
+        return stats != null ? stats.snapshot() : null;
+    }
+
+    /**
+     * Normalizes a statement so that executions differing only in literals share a key.
+     */
+    static String fingerprint(String sql) {
+        if (sql == null) {
+            return "(unknown)";
+        }
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+        return IN_LIST.matcher(normalized).replaceAll("in (?)");
+    }
+
+    private void writeLoop() {
+        long interval = TimeUnit.MILLISECONDS.toNanos(properties.getSlowQuery().getSummaryInterval());
+        long nextSummary = System.nanoTime() + interval;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                SlowQuery query = queue.poll(Math.max(nextSummary - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                if (query != null) {
+                    write(query);
+                }
+                if (System.nanoTime() - nextSummary >= 0) {
+                    summarize(interval);
+                    nextSummary = System.nanoTime() + interval;
+                }
+            }
+        } catch (InterruptedException ex) {
+            // Stopping: write what is still queued
+        }
+        SlowQuery query;
+        while ((query = queue.poll()) != null) {
+            write(query);
+        }
+        summarize(interval);
+    }
+
+    private void write(SlowQuery query) {
+        try {
+            String fingerprint = fingerprint(query.sql());
+            String parameters = render(query.parameters(), properties.getSlowQuery().isLogParameters());
+            FingerprintStats stats = fingerprints.get(fingerprint);
+            if (stats == null && fingerprints.size() < properties.getSlowQuery().getMaxFingerprints()) {
+                stats = new FingerprintStats(fingerprint);
+                fingerprints.put(fingerprint, stats);
+            }
+            if (stats != null && stats.record(query, parameters) > 1) {
+                suppressed.increment();
+                return;
+            }
+            logged.increment();
+            String caller = query.caller() != null ? query.caller() : "(no repository method)";
+            if (query.slow()) {
+                log.warn("Slow SQL ({} ms) from {}: {} parameters={}",
+                        millis(query.elapsedNanos()), caller, query.sql(), parameters);
+            } else {
+                log.info("Sampled SQL ({} ms) from {}: {} parameters={}",
+                        millis(query.elapsedNanos()), caller, query.sql(), parameters);
+            }
+        } catch (RuntimeException ex) {
+            log.debug("Could not log statement: {}", ex.toString());
+        }
+    }
+
+    private void summarize(long intervalNanos) {
+        for (FingerprintStats stats : fingerprints.values()) {
+            FingerprintStats.Window window = stats.closeWindow();
+            if (window == null) {
+                continue;
+            }
+            String message = "SQL repeated {} more times in the last {} s (max {} ms, last from {}): {}";
+            Object[] args = {window.repeats(), TimeUnit.NANOSECONDS.toSeconds(intervalNanos),
+                    millis(window.maxNanos()), window.caller(), stats.fingerprint};
+            if (window.slow()) {
+                log.warn(message, args);
+            } else {
+                log.info(message, args);
+            }
+        }
+    }
+
+    /**
+     * Parameters as logged: their values, or with withValues false only their types.
+     */
+    static String render(Object[] parameters, boolean withValues) {
+        if (parameters == null) {
+            return "[]";
+        }
+        StringBuilder rendered = new StringBuilder("[");
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                rendered.append(", ");
+            }
+            rendered.append(render(parameters[i], withValues));
+        }
+        return rendered.append(']').toString();
+    }
+
+    private static String render(Object value, boolean withValues) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (!withValues) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (value instanceof InputStream || value instanceof Reader || value instanceof Blob || value instanceof Clob) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        String text = value.toString();
+        if (text.length() > MAX_PARAMETER_LENGTH) {
+            text = text.substring(0, MAX_PARAMETER_LENGTH) + "...";
+        }
+        return value instanceof CharSequence || value instanceof Character ? "'" + text + "'" : text;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    private record SlowQuery(String sql, Object[] parameters, long elapsedNanos, String caller, boolean slow) {
+    }
+
+    private static final class FingerprintStats {
+
+        private final String fingerprint;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private String caller;
+        private String parameters;
+        // Statements since the last summary; the first of them was logged in full
+        private long windowCount;
+        private long windowMaxNanos;
+        private boolean windowSlow;
+
+        private FingerprintStats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * @return the number of statements with this fingerprint in the current window
+         */
+        synchronized long record(SlowQuery query, String renderedParameters) {
+            count++;
+            totalNanos += query.elapsedNanos();
+            maxNanos = Math.max(maxNanos, query.elapsedNanos());
+            caller = query.caller();
+            parameters = renderedParameters;
+            windowCount++;
+            if (windowCount > 1) {
+                windowMaxNanos = Math.max(windowMaxNanos, query.elapsedNanos());
+                windowSlow |= query.slow();
+            }
+            return windowCount;
+        }
+
+        /**
+         * Starts a new window, returning the repeats of the old one or null if there were none.
+         */
+        synchronized Window closeWindow() {
+            Window window = windowCount > 1
+                    ? new Window(windowCount - 1, windowMaxNanos, caller, windowSlow) : null;
+            windowCount = 0;
+            windowMaxNanos = 0;
+            windowSlow = false;
+            return window;
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("fingerprint", fingerprint);
+            stats.put("count", count);
+            stats.put("totalMicros", totalNanos / 1_000);
+            stats.put("maxMicros", maxNanos / 1_000);
+            stats.put("lastCaller", caller);
+            stats.put("lastParameters", parameters);
+            return stats;
+        }
+
+        private record Window(long repeats, long maxNanos, String caller, boolean slow) {
+        }
+    }
+}
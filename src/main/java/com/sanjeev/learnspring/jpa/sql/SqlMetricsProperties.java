@@ -0,0 +1,140 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for JDBC statement instrumentation.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.sql-metrics")
+@Validated
+public class SqlMetricsProperties {
+
+    // Count statements, rows and time of every JDBC call
+    private boolean enabled = true;
+
+    // Report each request's totals in X-SQL-* response headers
+    private boolean responseHeaders = false;
+
+    @Valid
+    private SlowQueryProperties slowQuery = new SlowQueryProperties();
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public void setResponseHeaders(boolean responseHeaders) {
+        this.responseHeaders = responseHeaders;
+    }
+
+    public SlowQueryProperties getSlowQuery() {
+        return slowQuery;
+    }
+
+    public void setSlowQuery(SlowQueryProperties slowQuery) {
+        this.slowQuery = slowQuery;
+    }
+
+    /**
+     * Nested configuration for the slow-query log.
+     */
+    public static class SlowQueryProperties {
+
+        private boolean enabled = true;
+
+        // Statements taking at least this long (ms) are logged
+        @Min(value = 0, message = "Slow query threshold must not be negative")
+        private long threshold = 100;
+
+        // Fraction of all other statements logged as samples
+        @DecimalMin(value = "0.0", message = "Sample rate must be between 0 and 1")
+        @DecimalMax(value = "1.0", message = "Sample rate must be between 0 and 1")
+        private double sampleRate = 0.0;
+
+        // Statements waiting for the log writer; more are dropped and counted
+        @Min(value = 1, message = "Slow query queue capacity must be at least 1")
+        private int queueCapacity = 1024;
+
+        // Repeats of a logged fingerprint are summarized once per interval (ms)
+        @Min(value = 1000, message = "Slow query summary interval must be at least 1000ms")
+        private long summaryInterval = 60000;
+
+        // Distinct fingerprints tracked; statements of others are logged without dedupe
+        @Min(value = 1, message = "Max fingerprints must be at least 1")
+        private int maxFingerprints = 500;
+
+        // Log bound parameter values; off by default since they can hold personal data or secrets
+        private boolean logParameters = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(long threshold) {
+            this.threshold = threshold;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getSummaryInterval() {
+            return summaryInterval;
+        }
+
+        public void setSummaryInterval(long summaryInterval) {
+            this.summaryInterval = summaryInterval;
+        }
+
+        public int getMaxFingerprints() {
+            return maxFingerprints;
+        }
+
+        public void setMaxFingerprints(int maxFingerprints) {
+            this.maxFingerprints = maxFingerprints;
+        }
+
+        public boolean isLogParameters() {
+            return logParameters;
+        }
+
+        public void setLogParameters(boolean logParameters) {
+            this.logParameters = logParameters;
+        }
+    }
+}
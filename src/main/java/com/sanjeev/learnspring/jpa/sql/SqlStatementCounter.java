@@ -0,0 +1,136 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statements, rows and JDBC time of one unit of work on the current thread, e.g. an
+ * HTTP request or a repository call.
+ *
+ * Counters nest: every counter open on the thread sees each statement, so a repository
+ * call inside a request counts towards both. Close it on the thread that started it,
+ * preferably with try-with-resources.
+ */
+public final class SqlStatementCounter implements AutoCloseable {
+
+    private static final ThreadLocal<ArrayDeque<SqlStatementCounter>> ACTIVE = new ThreadLocal<>();
+
+    // What the counter measures, e.g. a repository method; may be null
+    private final String label;
+    // Only filled by capturing counters
+    private final List<String> sql;
+    private long statements;
+    private long rows;
+    private long nanos;
+
+    private SqlStatementCounter(String label, boolean captureSql) {
+        this.label = label;
+        this.sql = captureSql ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Opens a counter on the current thread.
+     */
+    public static SqlStatementCounter start() {
+        return open(new SqlStatementCounter(null, false));
+    }
+
+    /**
+     * Opens a counter with a label that {@link #currentLabel()} reports while it is open.
+     */
+    public static SqlStatementCounter start(String label) {
+        return open(new SqlStatementCounter(label, false));
+    }
+
+    /**
+     * Opens a counter that also keeps the SQL of each statement, e.g. for assertion messages.
+     */
+    public static SqlStatementCounter startCapturing() {
+        return open(new SqlStatementCounter(null, true));
+    }
+
+    /**
+     * Label of the innermost labelled counter open on this thread, or null.
+     */
+    public static String currentLabel() {
+        ArrayDeque<SqlStatementCounter> active = ACTIVE.get();
+        if (active != null) {
+            for (SqlStatementCounter counter : active) {
+                if (counter.label != null) {
+                    return counter.label;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static SqlStatementCounter open(SqlStatementCounter counter) {
+        ArrayDeque<SqlStatementCounter> active = ACTIVE.get();
+        if (active == null) {
+            active = new ArrayDeque<>();
+            ACTIVE.set(active);
+        }
+        active.push(counter);
+        return counter;
+    }
+
+    static void statementExecuted(String statementSql, long elapsedNanos, long affectedRows) {
+        ArrayDeque<SqlStatementCounter> active = ACTIVE.get();
+        if (active == null) {
+            return;
+        }
+        for (SqlStatementCounter counter : active) {
+            counter.statements++;
+            counter.rows += affectedRows;
+            counter.nanos += elapsedNanos;
+            if (counter.sql != null) {
+                counter.sql.add(statementSql);
+            }
+        }
+    }
+
+    static void rowsRead(long count) {
+        ArrayDeque<SqlStatementCounter> active = ACTIVE.get();
+        if (active == null) {
+            return;
+        }
+        for (SqlStatementCounter counter : active) {
+            counter.rows += count;
+        }
+    }
+
+    @Override
+    public void close() {
+        ArrayDeque<SqlStatementCounter> active = ACTIVE.get();
+        if (active != null) {
+            active.removeFirstOccurrence(this);
+            if (active.isEmpty()) {
+                ACTIVE.remove();
+            }
+        }
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * Rows read from result sets plus rows reported by updates.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * SQL of each statement in execution order; empty unless started with {@link #startCapturing()}.
+     */
+    public List<String> getSql() {
+        return sql == null ? List.of() : Collections.unmodifiableList(sql);
+    }
+}
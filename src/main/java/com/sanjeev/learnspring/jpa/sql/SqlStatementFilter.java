@@ -0,0 +1,111 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Counts the statements of each HTTP request and records them per request mapping
+ * (e.g. "GET /api/customers/{id}").
+ *
+ * With app.sql-metrics.response-headers the totals are also sent as X-SQL-Statements,
+ * X-SQL-Rows and X-SQL-Time-Micros. Headers have to precede the body, so they are added
+ * when the body is first written: by then the handler has returned and its transaction
+ * has committed, and streaming responses are not buffered.
+ */
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+    public static final String TIME_HEADER = "X-SQL-Time-Micros";
+
+    private final SqlStatementMetrics metrics;
+    private final SqlMetricsProperties properties;
+
+    public SqlStatementFilter(SqlStatementMetrics metrics, SqlMetricsProperties properties) {
+        this.metrics = metrics;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter counter = SqlStatementCounter.start();
+        StatementHeadersResponse headersResponse = properties.isResponseHeaders()
+                ? new StatementHeadersResponse(response, counter) : null;
+        try {
+            chain.doFilter(request, headersResponse != null ? headersResponse : response);
+        } finally {
+            counter.close();
+            if (headersResponse != null) {
+                headersResponse.writeHeaders();
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            metrics.recordRequest(request.getMethod() + " " + (pattern != null ? pattern : "(unmapped)"), counter);
+        }
+    }
+
+    private static final class StatementHeadersResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementCounter counter;
+        private boolean written;
+
+        private StatementHeadersResponse(HttpServletResponse response, SqlStatementCounter counter) {
+            super(response);
+            this.counter = counter;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            writeHeaders();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            writeHeaders();
+            super.sendError(status);
+        }
+
+        private void writeHeaders() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(STATEMENTS_HEADER, Long.toString(counter.getStatements()));
+            setHeader(ROWS_HEADER, Long.toString(counter.getRows()));
+            setHeader(TIME_HEADER, Long.toString(counter.getNanos() / 1_000));
+        }
+    }
+}
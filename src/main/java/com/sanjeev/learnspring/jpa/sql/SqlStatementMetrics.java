@@ -0,0 +1,103 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import com.sanjeev.learnspring.metrics.LatencyHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory JDBC statement metrics: application-wide totals with a latency histogram,
+ * plus totals per CustomerRepository method and per request mapping.
+ *
+ * Statements per call is the figure to watch: a repository method or endpoint whose
+ * average grows with the data has an N+1 or a hidden extra round-trip.
+ */
+@Component
+public class SqlStatementMetrics {
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<String, CallStats> repositoryMethods = new ConcurrentHashMap<>();
+    private final Map<String, CallStats> requests = new ConcurrentHashMap<>();
+
+    void statementExecuted(String sql, long nanos, long affectedRows) {
+        statements.increment();
+        rows.add(affectedRows);
+        latency.record(nanos);
+        SqlStatementCounter.statementExecuted(sql, nanos, affectedRows);
+    }
+
+    void rowsRead(long count) {
+        rows.add(count);
+        SqlStatementCounter.rowsRead(count);
+    }
+
+    void recordRepositoryCall(String method, SqlStatementCounter counter) {
+        repositoryMethods.computeIfAbsent(method, key -> new CallStats()).record(counter);
+    }
+
+    void recordRequest(String mapping, SqlStatementCounter counter) {
+        requests.computeIfAbsent(mapping, key -> new CallStats()).record(counter);
+    }
+
+    public void reset() {
+        statements.reset();
+        rows.reset();
+        latency.reset();
+        repositoryMethods.clear();
+        requests.clear();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("statements", statements.sum());
+        metrics.put("rows", rows.sum());
+        metrics.put("meanMicros", latency.getMeanMicros());
+        metrics.put("p50Micros", latency.getPercentileMicros(0.50));
+        metrics.put("p99Micros", latency.getPercentileMicros(0.99));
+        metrics.put("repositoryMethods", toMap(repositoryMethods));
+        metrics.put("requests", toMap(requests));
+        return metrics;
+    }
+
+    private static Map<String, Object> toMap(Map<String, CallStats> stats) {
+        Map<String, Object> sorted = new TreeMap<>();
+        stats.forEach((name, callStats) -> sorted.put(name, callStats.toMap()));
+        return sorted;
+    }
+
+    private static final class CallStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        private void record(SqlStatementCounter counter) {
+            calls.increment();
+            statements.add(counter.getStatements());
+            rows.add(counter.getRows());
+            nanos.add(counter.getNanos());
+            maxStatements.accumulate(counter.getStatements());
+        }
+
+        private Map<String, Object> toMap() {
+            long callCount = calls.sum();
+            long statementCount = statements.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("calls", callCount);
+            map.put("statements", statementCount);
+            map.put("statementsPerCall", callCount == 0 ? 0.0 : (double) statementCount / callCount);
+            map.put("maxStatements", maxStatements.get());
+            map.put("rows", rows.sum());
+            map.put("totalMicros", nanos.sum() / 1_000);
+            return map;
+        }
+    }
+}
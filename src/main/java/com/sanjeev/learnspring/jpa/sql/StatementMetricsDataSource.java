@@ -0,0 +1,168 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * DataSource that counts every statement executed through its connections.
+ *
+ * Connections, statements and result sets are wrapped in JDK proxies: execute* calls are
+ * timed and reported with their update counts to {@link SqlStatementMetrics}, and each
+ * row a result set returns is counted as it is read. A batch is one statement, since it
+ * is one round-trip. Parameters bound to prepared statements are kept for the
+ * {@link SlowQueryLog}, which gets every execution with its duration. With
+ * app.sql-metrics.enabled=false connections are handed out unwrapped.
+ */
+public class StatementMetricsDataSource extends DelegatingDataSource {
+
+    private final SqlStatementMetrics metrics;
+    private final SlowQueryLog slowQueryLog;
+    private final SqlMetricsProperties properties;
+
+    public StatementMetricsDataSource(DataSource target, SqlStatementMetrics metrics,
+                                      SlowQueryLog slowQueryLog, SqlMetricsProperties properties) {
+        super(target);
+        this.metrics = metrics;
+        this.slowQueryLog = slowQueryLog;
+        this.properties = properties;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = obtainTargetDataSource().getConnection();
+        return properties.isEnabled() ? wrap(connection) : connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = obtainTargetDataSource().getConnection(username, password);
+        return properties.isEnabled() ? wrap(connection) : connection;
+    }
+
+    private Connection wrap(Connection connection) {
+        Connection[] self = new Connection[1];
+        self[0] = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(proxy, connection, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return wrap(statement, sql, self[0]);
+                    }
+                    return result;
+                });
+        return self[0];
+    }
+
+    private Statement wrap(Statement statement, String preparedSql, Connection connection) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        BoundParameters parameters = type != Statement.class && slowQueryLog.isEnabled() ? new BoundParameters() : null;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("getConnection")) {
+                        return connection;
+                    }
+                    if (parameters != null) {
+                        parameters.intercept(name, args);
+                    }
+                    if (!name.startsWith("execute")) {
+                        Object result = invoke(proxy, statement, method, args);
+                        return result instanceof ResultSet resultSet ? wrap(resultSet) : result;
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                    long start = System.nanoTime();
+                    Object result = invoke(proxy, statement, method, args);
+                    long elapsed = System.nanoTime() - start;
+                    metrics.statementExecuted(sql, elapsed, affectedRows(result));
+                    slowQueryLog.record(sql, parameters != null ? parameters.values : null, elapsed);
+                    return result instanceof ResultSet resultSet ? wrap(resultSet) : result;
+                });
+    }
+
+    private ResultSet wrap(ResultSet resultSet) {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {ResultSet.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(proxy, resultSet, method, args);
+                    if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                        metrics.rowsRead(1);
+                    }
+                    return result;
+                });
+    }
+
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof Long count) {
+            return Math.max(count, 0);
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Values passed to a prepared statement's indexed setters, by index - 1.
+     */
+    private static final class BoundParameters {
+
+        private Object[] values = new Object[0];
+
+        void intercept(String method, Object[] args) {
+            if (method.equals("clearParameters")) {
+                values = new Object[0];
+            } else if (method.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer index && index > 0) {
+                if (index > values.length) {
+                    values = Arrays.copyOf(values, index);
+                }
+                values[index - 1] = method.equals("setNull") ? null : args[1];
+            }
+        }
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        // Proxies are compared by identity, like the pooled objects they wrap
+        switch (method.getName()) {
+            case "equals":
+                if (method.getParameterCount() == 1) {
+                    return proxy == args[0];
+                }
+                break;
+            case "hashCode":
+                if (method.getParameterCount() == 0) {
+                    return System.identityHashCode(proxy);
+                }
+                break;
+            default:
+                break;
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
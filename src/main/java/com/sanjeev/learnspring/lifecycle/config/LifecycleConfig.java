@@ -1,10 +1,14 @@
 package com.sanjeev.learnspring.lifecycle.config;
 
+import com.sanjeev.learnspring.lifecycle.scope.PooledScope;
+import com.sanjeev.learnspring.lifecycle.service.PrototypeService;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
 
 /**
  * Configuration class demonstrating lifecycle callbacks.
@@ -24,6 +28,17 @@ public class LifecycleConfig {
         log.info("=== All beans are being created and configured ===");
     }
 
+    /**
+     * PrototypeService served from the "pooled" scope: lookups borrow a reusable instance
+     * instead of creating a new one. Not an autowire candidate, so by-type lookups of
+     * PrototypeService still resolve to the plain prototype bean.
+     */
+    @Bean(autowireCandidate = false)
+    @Scope(PooledScope.SCOPE_NAME)
+    public PrototypeService pooledPrototypeService() {
+        return new PrototypeService();
+    }
+
     @PreDestroy
     public void destroy() {
         log.info("=== LifecycleConfig @PreDestroy - Application context is shutting down ===");
@@ -3,6 +3,7 @@ package com.sanjeev.learnspring.lifecycle.controller;
 import com.sanjeev.learnspring.lifecycle.service.PrototypeService;
 import com.sanjeev.learnspring.lifecycle.service.PrototypeTrackerService;
 import com.sanjeev.learnspring.lifecycle.service.SingletonService;
+import com.sanjeev.learnspring.lifecycle.startup.StartupTimelineRecorder;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -17,11 +18,14 @@ public class LifecycleController {
 
     private final SingletonService singletonService;
     private final PrototypeTrackerService trackerService;
+    private final StartupTimelineRecorder startupRecorder;
 
     public LifecycleController(SingletonService singletonService,
-                               PrototypeTrackerService trackerService) {
+                               PrototypeTrackerService trackerService,
+                               StartupTimelineRecorder startupRecorder) {
         this.singletonService = singletonService;
         this.trackerService = trackerService;
+        this.startupRecorder = startupRecorder;
     }
 
     @GetMapping("/singleton")
@@ -45,16 +49,45 @@ public class LifecycleController {
         return response;
     }
 
+    @GetMapping("/pooled")
+    public Map<String, Object> getPooled() {
+        PrototypeService pooled = trackerService.borrowPooledInstance();
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", pooled.getMessage());
+            response.put("instanceId", pooled.getInstanceId());
+            response.put("scope", "pooled");
+            response.put("note", "Instance borrowed from a bounded pool and returned after use");
+            return response;
+        } finally {
+            trackerService.releasePooledInstance(pooled);
+        }
+    }
+
+    @GetMapping("/pool")
+    public Map<String, Map<String, Object>> getPoolMetrics() {
+        return trackerService.getPoolMetrics();
+    }
+
     @GetMapping("/tracker")
     public Map<String, Object> getTrackerInfo() {
         Map<String, Object> response = new HashMap<>();
         response.put("totalPrototypeInstancesCreated", trackerService.getTotalInstancesCreated());
         response.put("trackedInstanceIds", trackerService.getTrackedInstances());
+        response.put("trackedInstanceCapacity", trackerService.getRecentCapacity());
+        if (trackerService.isTrackingLiveInstances()) {
+            response.put("livePrototypeInstances", trackerService.getLiveInstanceCount());
+        }
         response.put("singletonInstanceId", singletonService.getInstanceId());
         response.put("note", "Tracker is singleton, but creates multiple prototypes");
         return response;
     }
 
+    @GetMapping("/startup")
+    public Map<String, Object> getStartupTimeline() {
+        return startupRecorder.getTimeline();
+    }
+
     @GetMapping("/demo")
     public Map<String, Object> runDemo() {
         Map<String, Object> response = new HashMap<>();
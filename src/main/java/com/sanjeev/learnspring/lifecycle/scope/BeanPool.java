@@ -0,0 +1,198 @@
+package com.sanjeev.learnspring.lifecycle.scope;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded object pool backing a single bean in the "pooled" scope.
+ *
+ * A fair semaphore caps the number of borrowed instances at maxSize. New instances are
+ * only created when no idle one is available, so idle + borrowed never exceeds maxSize.
+ * Idle instances are kept LIFO (most recently returned first) and evicted from the
+ * cold end once they have been idle longer than maxIdleMillis.
+ */
+class BeanPool {
+    private static final Logger log = LoggerFactory.getLogger(BeanPool.class);
+
+    private final String beanName;
+    private final int maxSize;
+    private final int minIdle;
+    private final long maxIdleNanos;
+    private final long borrowTimeoutMillis;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Entry> idle = new ConcurrentLinkedDeque<>();
+    private final Map<Object, Entry> borrowed = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder returns = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+
+    BeanPool(String beanName, int maxSize, int minIdle, long maxIdleMillis, long borrowTimeoutMillis) {
+        this.beanName = beanName;
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(maxIdleMillis);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows an idle instance, or creates one through the factory if none is idle.
+     * Blocks up to the borrow timeout when maxSize instances are already out.
+     */
+    Object borrow(Supplier<Entry> factory) {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new PoolExhaustedException(beanName, maxSize, borrowTimeoutMillis);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PoolExhaustedException(beanName, maxSize, borrowTimeoutMillis);
+        }
+        borrowWaitNanos.add(System.nanoTime() - start);
+
+        try {
+            Entry entry = takeValidIdle();
+            if (entry == null) {
+                entry = factory.get();
+                created.increment();
+            }
+            borrowed.put(entry.bean, entry);
+            borrows.increment();
+            return entry.bean;
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns a borrowed instance. Instances that fail {@link Poolable#reset()} are destroyed.
+     */
+    void release(Object bean) {
+        Entry entry = borrowed.remove(bean);
+        if (entry == null) {
+            throw new IllegalArgumentException("Object was not borrowed from pool '" + beanName + "'");
+        }
+        returns.increment();
+        try {
+            if (bean instanceof Poolable poolable && !poolable.reset()) {
+                validationFailures.increment();
+                destroy(entry);
+            } else {
+                entry.lastUsedNanos = System.nanoTime();
+                idle.offerFirst(entry);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Destroys idle instances that have not been used for maxIdle, keeping at least minIdle.
+     */
+    int evictIdle() {
+        int evicted = 0;
+        long now = System.nanoTime();
+        while (idle.size() > minIdle) {
+            Entry oldest = idle.pollLast();
+            if (oldest == null) {
+                break;
+            }
+            if (now - oldest.lastUsedNanos < maxIdleNanos) {
+                idle.offerLast(oldest);
+                break;
+            }
+            destroy(oldest);
+            evictions.increment();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Destroys every idle instance. Borrowed instances are left to their holders.
+     */
+    void clear() {
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    Map<String, Object> metrics() {
+        long borrowCount = borrows.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxSize", maxSize);
+        metrics.put("active", borrowed.size());
+        metrics.put("idle", idle.size());
+        metrics.put("waiting", permits.getQueueLength());
+        metrics.put("created", created.sum());
+        metrics.put("destroyed", destroyed.sum());
+        metrics.put("borrowed", borrowCount);
+        metrics.put("returned", returns.sum());
+        metrics.put("validationFailures", validationFailures.sum());
+        metrics.put("evicted", evictions.sum());
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("avgBorrowWaitMicros",
+                borrowCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(borrowWaitNanos.sum() / borrowCount));
+        return metrics;
+    }
+
+    private Entry takeValidIdle() {
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (!(entry.bean instanceof Poolable poolable) || poolable.validate()) {
+                return entry;
+            }
+            validationFailures.increment();
+            destroy(entry);
+        }
+        return null;
+    }
+
+    private void destroy(Entry entry) {
+        destroyed.increment();
+        if (entry.destructionCallback == null) {
+            return;
+        }
+        try {
+            entry.destructionCallback.run();
+        } catch (RuntimeException ex) {
+            log.warn("Destruction callback failed for pooled bean '{}': {}", beanName, ex.getMessage());
+        }
+    }
+
+    /**
+     * A pooled instance together with the destruction callback Spring registered for it.
+     */
+    static final class Entry {
+        final Object bean;
+        final Runnable destructionCallback;
+        volatile long lastUsedNanos;
+
+        Entry(Object bean, Runnable destructionCallback) {
+            this.bean = bean;
+            this.destructionCallback = destructionCallback;
+            this.lastUsedNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.sanjeev.learnspring.lifecycle.scope;
+
+public class PoolExhaustedException extends RuntimeException {
+    public PoolExhaustedException(String beanName, int maxSize, long timeoutMillis) {
+        super("Pool for bean '" + beanName + "' exhausted: all " + maxSize
+                + " instances borrowed for more than " + timeoutMillis + "ms");
+    }
+}
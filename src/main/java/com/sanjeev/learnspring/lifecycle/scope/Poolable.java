@@ -0,0 +1,24 @@
+package com.sanjeev.learnspring.lifecycle.scope;
+
+/**
+ * Optional callbacks for beans living in the "pooled" scope.
+ * A bean that does not implement this is always considered valid and reusable.
+ */
+public interface Poolable {
+
+    /**
+     * Called before an idle instance is handed out again.
+     * Returning false destroys the instance and borrows (or creates) another one.
+     */
+    default boolean validate() {
+        return true;
+    }
+
+    /**
+     * Called when an instance is returned to the pool, to clear per-use state.
+     * Returning false destroys the instance instead of keeping it idle.
+     */
+    default boolean reset() {
+        return true;
+    }
+}
@@ -0,0 +1,157 @@
+package com.sanjeev.learnspring.lifecycle.scope;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.Scope;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custom "pooled" bean scope.
+ *
+ * Each lookup of a pooled bean borrows an instance from a bounded pool instead of running
+ * the full bean-creation pipeline (constructor, @PostConstruct, post-processors). The
+ * caller must hand the instance back with {@link #release(String, Object)} when done.
+ * Destruction callbacks (@PreDestroy) run when an instance is evicted or the context closes,
+ * which is something plain prototype beans never get.
+ *
+ * Registers itself with the bean factory, so declaring it as a component is enough.
+ */
+@Component
+public class PooledScope implements Scope, BeanFactoryPostProcessor, EnvironmentAware, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(PooledScope.class);
+
+    public static final String SCOPE_NAME = "pooled";
+
+    private final Map<String, BeanPool> pools = new ConcurrentHashMap<>();
+    // Spring registers the destruction callback from inside ObjectFactory.getObject()
+    private final ThreadLocal<Runnable> pendingDestructionCallback = new ThreadLocal<>();
+
+    private int maxSize = 16;
+    private int minIdle = 0;
+    private long maxIdleMillis = 60000;
+    private long borrowTimeoutMillis = 1000;
+    private long evictionIntervalMillis = 30000;
+    private ScheduledExecutorService evictor;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.maxSize = environment.getProperty("app.lifecycle.pool.max-size", Integer.class, maxSize);
+        this.minIdle = environment.getProperty("app.lifecycle.pool.min-idle", Integer.class, minIdle);
+        this.maxIdleMillis = environment.getProperty("app.lifecycle.pool.max-idle-time", Long.class, maxIdleMillis);
+        this.borrowTimeoutMillis = environment.getProperty("app.lifecycle.pool.borrow-timeout", Long.class, borrowTimeoutMillis);
+        this.evictionIntervalMillis = environment.getProperty("app.lifecycle.pool.eviction-interval", Long.class, evictionIntervalMillis);
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool sizing: max-size=" + maxSize + ", min-idle=" + minIdle);
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        beanFactory.registerScope(SCOPE_NAME, this);
+        if (evictionIntervalMillis > 0) {
+            evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pooled-scope-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictor.scheduleWithFixedDelay(this::evictIdle,
+                    evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        log.info("Registered '{}' scope (max-size: {}, min-idle: {}, max-idle-time: {}ms)",
+                SCOPE_NAME, maxSize, minIdle, maxIdleMillis);
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        BeanPool pool = pools.computeIfAbsent(name,
+                beanName -> new BeanPool(beanName, maxSize, minIdle, maxIdleMillis, borrowTimeoutMillis));
+        return pool.borrow(() -> {
+            try {
+                Object bean = objectFactory.getObject();
+                return new BeanPool.Entry(bean, pendingDestructionCallback.get());
+            } finally {
+                pendingDestructionCallback.remove();
+            }
+        });
+    }
+
+    /**
+     * Returns a borrowed instance to the pool of the given bean.
+     */
+    public void release(String name, Object bean) {
+        BeanPool pool = pools.get(name);
+        if (pool == null) {
+            throw new IllegalArgumentException("No pool exists for bean '" + name + "'");
+        }
+        pool.release(bean);
+    }
+
+    /**
+     * Drops the whole pool of a bean, destroying its idle instances.
+     */
+    @Override
+    public Object remove(String name) {
+        BeanPool pool = pools.remove(name);
+        if (pool != null) {
+            pool.clear();
+        }
+        return null;
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        pendingDestructionCallback.set(callback);
+    }
+
+    @Override
+    public Object resolveContextualObject(String key) {
+        return null;
+    }
+
+    @Override
+    public String getConversationId() {
+        return null;
+    }
+
+    public int evictIdle() {
+        int evicted = 0;
+        for (BeanPool pool : pools.values()) {
+            evicted += pool.evictIdle();
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle pooled instances", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Pool metrics keyed by bean name.
+     */
+    public Map<String, Map<String, Object>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new TreeMap<>();
+        pools.forEach((name, pool) -> metrics.put(name, pool.metrics()));
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        pools.values().forEach(BeanPool::clear);
+        pools.clear();
+    }
+}
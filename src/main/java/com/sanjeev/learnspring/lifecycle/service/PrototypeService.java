@@ -29,7 +29,8 @@ public class PrototypeService {
     @PreDestroy
     public void destroy() {
         // This will NOT be called by Spring for prototype beans!
-        log.warn("PrototypeService @PreDestroy called - Instance #{} (This should NOT happen!)", instanceId);
+        // Only instances of the pooled variant are destroyed, when evicted from the pool.
+        log.info("PrototypeService @PreDestroy called - Instance #{} (pooled instance evicted)", instanceId);
     }
 
     public String getMessage() {
@@ -1,58 +1,182 @@
 package com.sanjeev.learnspring.lifecycle.service;
 
+import com.sanjeev.learnspring.lifecycle.scope.PooledScope;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Singleton service that tracks prototype bean instances.
  * Demonstrates how a singleton can request multiple prototype instances.
+ *
+ * Tracking is lock-free and bounded: a LongAdder holds the total count and a
+ * fixed-size ring of primitive longs keeps only the most recent instance ids, each
+ * packed with the sequence number it was written for.
+ * Live instances can optionally be tracked through weak references, which are
+ * reaped from a ReferenceQueue once the garbage collector clears them.
  */
 @Service
 public class PrototypeTrackerService {
     private static final Logger log = LoggerFactory.getLogger(PrototypeTrackerService.class);
+    public static final String POOLED_BEAN_NAME = "pooledPrototypeService";
+    private static final VarHandle RING = MethodHandles.arrayElementVarHandle(long[].class);
+
     private final ApplicationContext context;
-    private final List<Integer> trackedInstances;
+    private final PooledScope pooledScope;
+    private final LongAdder totalCreated = new LongAdder();
+    private final long[] recentInstances;
+    private final int ringMask;
+    private final AtomicLong ringCursor = new AtomicLong();
+
+    private final boolean trackLiveInstances;
+    private final Set<Reference<PrototypeService>> liveReferences = ConcurrentHashMap.newKeySet();
+    private final ReferenceQueue<PrototypeService> reaperQueue = new ReferenceQueue<>();
 
-    public PrototypeTrackerService(ApplicationContext context) {
+    public PrototypeTrackerService(ApplicationContext context,
+                                   PooledScope pooledScope,
+                                   @Value("${app.lifecycle.tracker.recent-capacity:1024}") int recentCapacity,
+                                   @Value("${app.lifecycle.tracker.track-live:false}") boolean trackLiveInstances) {
+        if (recentCapacity < 1) {
+            throw new IllegalArgumentException("Tracker recent capacity must be at least 1");
+        }
         this.context = context;
-        this.trackedInstances = new ArrayList<>();
+        this.pooledScope = pooledScope;
+        // Round up to a power of two so the ring index is a mask instead of a modulo
+        int capacity = Integer.highestOneBit(recentCapacity - 1) << 1;
+        this.recentInstances = new long[Math.max(capacity, 1)];
+        this.ringMask = recentInstances.length - 1;
+        this.trackLiveInstances = trackLiveInstances;
         log.info("PrototypeTrackerService created");
     }
 
     @PostConstruct
     public void init() {
-        log.info("PrototypeTrackerService @PostConstruct - Ready to track prototype instances");
+        log.info("PrototypeTrackerService @PostConstruct - Ready to track prototype instances " +
+                "(recent capacity: {}, live tracking: {})", recentInstances.length, trackLiveInstances);
     }
 
     @PreDestroy
     public void destroy() {
-        log.info("PrototypeTrackerService @PreDestroy - Tracked {} prototype instances", trackedInstances.size());
+        log.info("PrototypeTrackerService @PreDestroy - Tracked {} prototype instances", totalCreated.sum());
+        liveReferences.clear();
     }
 
     /**
      * Creates a new prototype instance and tracks it.
      */
     public PrototypeService createPrototypeInstance() {
-        log.info("Requesting new PrototypeService instance from ApplicationContext");
         PrototypeService prototype = context.getBean(PrototypeService.class);
-        trackedInstances.add(prototype.getInstanceId());
-        log.info("Tracked prototype instance #{}", prototype.getInstanceId());
+        track(prototype);
+        log.debug("Tracked prototype instance #{}", prototype.getInstanceId());
         return prototype;
     }
 
+    /**
+     * Borrows a reusable PrototypeService from the pooled scope.
+     * Must be handed back with {@link #releasePooledInstance(PrototypeService)}.
+     */
+    public PrototypeService borrowPooledInstance() {
+        return context.getBean(POOLED_BEAN_NAME, PrototypeService.class);
+    }
+
+    public void releasePooledInstance(PrototypeService prototype) {
+        pooledScope.release(POOLED_BEAN_NAME, prototype);
+    }
+
+    public Map<String, Map<String, Object>> getPoolMetrics() {
+        return pooledScope.getMetrics();
+    }
+
+    /**
+     * Records an instance in the counters, the recent-id ring and (if enabled) the live set.
+     */
+    void track(PrototypeService prototype) {
+        totalCreated.increment();
+        long sequence = ringCursor.getAndIncrement();
+        RING.setRelease(recentInstances, (int) (sequence & ringMask), pack(sequence, prototype.getInstanceId()));
+
+        if (trackLiveInstances) {
+            reapClearedReferences();
+            liveReferences.add(new WeakReference<>(prototype, reaperQueue));
+        }
+    }
+
+    /**
+     * Returns the most recently tracked instance ids, oldest first.
+     * At most the ring capacity is returned, regardless of how many instances were created.
+     */
     public List<Integer> getTrackedInstances() {
-        return new ArrayList<>(trackedInstances);
+        long end = ringCursor.get();
+        long start = Math.max(0, end - recentInstances.length);
+        List<Integer> snapshot = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            long entry = (long) RING.getAcquire(recentInstances, (int) (i & ringMask));
+            // Skips a slot claimed for i whose writer has not published yet: it still holds
+            // an earlier lap's id, or nothing
+            if (entry >>> 32 == sequenceTag(i)) {
+                snapshot.add((int) entry);
+            }
+        }
+        return snapshot;
     }
 
     public int getTotalInstancesCreated() {
-        return trackedInstances.size();
+        return (int) totalCreated.sum();
+    }
+
+    /**
+     * Number of tracked instances that are still reachable, or -1 when live tracking is disabled.
+     */
+    public int getLiveInstanceCount() {
+        if (!trackLiveInstances) {
+            return -1;
+        }
+        reapClearedReferences();
+        return liveReferences.size();
+    }
+
+    public boolean isTrackingLiveInstances() {
+        return trackLiveInstances;
+    }
+
+    public int getRecentCapacity() {
+        return recentInstances.length;
     }
-}
 
+    /**
+     * Upper half: the sequence number's tag; lower half: the instance id.
+     */
+    private static long pack(long sequence, int instanceId) {
+        return sequenceTag(sequence) << 32 | (instanceId & 0xFFFFFFFFL);
+    }
+
+    // Never 0, so an unwritten slot matches no sequence number
+    private static long sequenceTag(long sequence) {
+        long tag = (sequence + 1) & 0xFFFFFFFFL;
+        return tag != 0 ? tag : 1;
+    }
+
+    private void reapClearedReferences() {
+        Reference<? extends PrototypeService> cleared;
+        while ((cleared = reaperQueue.poll()) != null) {
+            liveReferences.remove(cleared);
+        }
+    }
+}
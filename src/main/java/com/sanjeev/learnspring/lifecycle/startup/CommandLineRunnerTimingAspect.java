@@ -0,0 +1,30 @@
+package com.sanjeev.learnspring.lifecycle.startup;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every CommandLineRunner and reports it to the {@link StartupTimelineRecorder}.
+ */
+@Aspect
+@Component
+public class CommandLineRunnerTimingAspect {
+
+    private final StartupTimelineRecorder recorder;
+
+    public CommandLineRunnerTimingAspect(StartupTimelineRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Around("execution(* org.springframework.boot.CommandLineRunner+.run(..))")
+    public Object timeRunner(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            recorder.recordRunner(joinPoint.getTarget().getClass().getSimpleName(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.sanjeev.learnspring.lifecycle.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Set;
+
+/**
+ * Keeps an allowlist of beans eager when lazy initialization is enabled
+ * (spring.main.lazy-initialization=true, see the "lazy" profile).
+ *
+ * Hot-path beans listed in app.startup.eager-beans are still created during startup,
+ * so the first requests don't pay for their construction; everything else is deferred.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyStartupConfig {
+
+    // static: the filter is looked up by a BeanFactoryPostProcessor, before regular beans exist
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeanAllowlist(Environment environment) {
+        Set<String> eagerBeans = Binder.get(environment)
+                .bind("app.startup.eager-beans", Bindable.setOf(String.class))
+                .orElse(Set.of());
+        return (beanName, beanDefinition, beanType) -> eagerBeans.contains(beanName);
+    }
+}
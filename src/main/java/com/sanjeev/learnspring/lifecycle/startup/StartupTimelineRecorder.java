@@ -0,0 +1,198 @@
+package com.sanjeev.learnspring.lifecycle.startup;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a startup timeline: how long each bean took to instantiate and initialize,
+ * how long each CommandLineRunner ran, and when the application became ready.
+ *
+ * Instantiation time spans from the first post-processor callback to the end of the
+ * constructor, so it includes any constructor dependencies created along the way.
+ * Initialization time covers @PostConstruct and init methods; the recorder runs ahead of the
+ * other post-processors, so AOP proxy creation is not included.
+ *
+ * The context refresh is timed from the context's startup date, which refresh sets before
+ * any bean (this recorder included) is created, to the ApplicationStartedEvent.
+ *
+ * Until the application is ready every bean is recorded; afterwards only singletons
+ * (i.e. beans created lazily on first use), so prototypes don't grow the timeline.
+ */
+@Component
+public class StartupTimelineRecorder implements InstantiationAwareBeanPostProcessor, BeanFactoryAware,
+        ApplicationContextAware, ApplicationListener<ApplicationEvent>, PriorityOrdered {
+
+    private final long recorderCreatedNanos = System.nanoTime();
+    private final Map<String, BeanTiming> beanTimings = new ConcurrentHashMap<>();
+    private final Map<String, Long> runnerNanos = new ConcurrentHashMap<>();
+    private ConfigurableListableBeanFactory beanFactory;
+    private long refreshStartedMillis;
+
+    private volatile boolean ready;
+    private volatile long startedNanos;
+    private volatile long startedMillis;
+    private volatile long readyNanos;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        if (beanFactory instanceof ConfigurableListableBeanFactory configurable) {
+            this.beanFactory = configurable;
+        }
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        refreshStartedMillis = applicationContext.getStartupDate();
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+        if (shouldRecord(beanName)) {
+            BeanTiming timing = new BeanTiming(beanClass.getName(), ready);
+            timing.instantiationStart = System.nanoTime();
+            beanTimings.put(beanName, timing);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean postProcessAfterInstantiation(Object bean, String beanName) throws BeansException {
+        BeanTiming timing = beanTimings.get(beanName);
+        if (timing != null && timing.instantiationEnd == 0) {
+            timing.instantiationEnd = System.nanoTime();
+        }
+        return true;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        BeanTiming timing = beanTimings.get(beanName);
+        if (timing != null && timing.initStart == 0) {
+            timing.initStart = System.nanoTime();
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        BeanTiming timing = beanTimings.get(beanName);
+        if (timing != null && timing.initEnd == 0) {
+            timing.initEnd = System.nanoTime();
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationStartedEvent) {
+            startedNanos = System.nanoTime();
+            startedMillis = System.currentTimeMillis();
+        } else if (event instanceof ApplicationReadyEvent) {
+            readyNanos = System.nanoTime();
+            ready = true;
+        }
+    }
+
+    /**
+     * Called by {@link CommandLineRunnerTimingAspect} after each runner completes.
+     */
+    void recordRunner(String runnerName, long durationNanos) {
+        runnerNanos.put(runnerName, durationNanos);
+    }
+
+    /**
+     * The full timeline, slowest beans first.
+     */
+    public Map<String, Object> getTimeline() {
+        List<Map<String, Object>> beans = new ArrayList<>();
+        beanTimings.entrySet().stream()
+                .filter(entry -> entry.getValue().initEnd != 0)
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<String, BeanTiming> entry) -> entry.getValue().totalNanos()).reversed())
+                .forEach(entry -> beans.add(entry.getValue().toMap(entry.getKey(), recorderCreatedNanos)));
+
+        Map<String, Object> runners = new LinkedHashMap<>();
+        runnerNanos.forEach((name, nanos) -> runners.put(name, toMillis(nanos)));
+
+        Map<String, Object> timeline = new LinkedHashMap<>();
+        timeline.put("ready", ready);
+        timeline.put("jvmUptimeAtReadyMs", ready
+                ? ManagementFactory.getRuntimeMXBean().getUptime() - toMillis(System.nanoTime() - readyNanos)
+                : null);
+        timeline.put("contextRefreshMs", startedMillis == 0 ? null : (double) (startedMillis - refreshStartedMillis));
+        timeline.put("commandLineRunnersMs", ready ? toMillis(readyNanos - startedNanos) : null);
+        timeline.put("commandLineRunners", runners);
+        timeline.put("beanCount", beans.size());
+        timeline.put("beans", beans);
+        return timeline;
+    }
+
+    private boolean shouldRecord(String beanName) {
+        if (!ready) {
+            return true;
+        }
+        return beanFactory != null
+                && beanFactory.containsBeanDefinition(beanName)
+                && beanFactory.getBeanDefinition(beanName).isSingleton();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class BeanTiming {
+        private final String type;
+        private final boolean createdAfterReady;
+        private volatile long instantiationStart;
+        private volatile long instantiationEnd;
+        private volatile long initStart;
+        private volatile long initEnd;
+
+        private BeanTiming(String type, boolean createdAfterReady) {
+            this.type = type;
+            this.createdAfterReady = createdAfterReady;
+        }
+
+        private long totalNanos() {
+            return initEnd - instantiationStart;
+        }
+
+        private Map<String, Object> toMap(String beanName, long originNanos) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("bean", beanName);
+            map.put("type", type);
+            map.put("startOffsetMs", toMillis(instantiationStart - originNanos));
+            map.put("instantiationMs", instantiationEnd == 0 ? null : toMillis(instantiationEnd - instantiationStart));
+            map.put("initMs", initStart == 0 ? null : toMillis(initEnd - initStart));
+            map.put("totalMs", toMillis(totalNanos()));
+            map.put("lazy", createdAfterReady);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.sanjeev.learnspring.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed, roughly logarithmic microsecond buckets (10us to 10s).
+ *
+ * Recording is a bucket search plus two LongAdder increments, cheap enough for every
+ * call on a hot path. Percentiles are reported as the upper bound of the bucket they
+ * fall in, so they are estimates rounded up.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_UPPER_BOUNDS_MICROS = {
+            10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000, Long.MAX_VALUE};
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_UPPER_BOUNDS_MICROS.length];
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = nanos / 1_000;
+        int bucket = 0;
+        while (micros > BUCKET_UPPER_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        totalNanos.add(nanos);
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.sum() / count / 1_000;
+    }
+
+    /**
+     * Upper bound in microseconds of the bucket holding the given quantile (0..1), or 0 with no samples.
+     */
+    public long getPercentileMicros(double quantile) {
+        long[] counts = bucketCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return BUCKET_UPPER_BOUNDS_MICROS[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Count, mean, p50/p90/p99 and the non-empty buckets.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", getCount());
+        summary.put("meanMicros", getMeanMicros());
+        summary.put("p50Micros", getPercentileMicros(0.50));
+        summary.put("p90Micros", getPercentileMicros(0.90));
+        summary.put("p99Micros", getPercentileMicros(0.99));
+
+        long[] counts = bucketCounts();
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            long bound = BUCKET_UPPER_BOUNDS_MICROS[i];
+            bucket.put("leMicros", bound == Long.MAX_VALUE ? "+Inf" : bound);
+            bucket.put("count", counts[i]);
+            histogram.add(bucket);
+        }
+        summary.put("buckets", histogram);
+        return summary;
+    }
+
+    private long[] bucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+}
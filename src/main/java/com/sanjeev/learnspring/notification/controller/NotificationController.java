@@ -0,0 +1,27 @@
+package com.sanjeev.learnspring.notification.controller;
+
+import com.sanjeev.learnspring.notification.service.NotificationDispatcher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Notification dispatcher queue and delivery metrics.
+ */
+@RestController
+@RequestMapping("/api/notifications")
+public class NotificationController {
+
+    private final NotificationDispatcher dispatcher;
+
+    public NotificationController(NotificationDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @GetMapping("/metrics")
+    public Map<String, Object> getMetrics() {
+        return dispatcher.getMetrics();
+    }
+}
@@ -0,0 +1,65 @@
+package com.sanjeev.learnspring.notification.dto;
+
+import java.time.Instant;
+
+/**
+ * One customer lifecycle notification waiting to be delivered to app.notification.email.
+ */
+public class Notification {
+
+    private final Long customerId;
+    private final Type type;
+    private final String recipient;
+    private final Instant occurredAt;
+    private final long enqueuedNanos;
+
+    public Notification(Long customerId, Type type, String recipient) {
+        this.customerId = customerId;
+        this.type = type;
+        this.recipient = recipient;
+        this.occurredAt = Instant.now();
+        this.enqueuedNanos = System.nanoTime();
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    /**
+     * System.nanoTime() when the notification was created, for queueing-delay metrics.
+     */
+    public long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Notification{" +
+                "customerId=" + customerId +
+                ", type=" + type +
+                ", recipient='" + recipient + '\'' +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+
+    /**
+     * Lifecycle transitions that are notified
+     */
+    public enum Type {
+        CUSTOMER_CREATED,
+        CUSTOMER_SUSPENDED,
+        CUSTOMER_DEACTIVATED
+    }
+}
@@ -0,0 +1,51 @@
+package com.sanjeev.learnspring.notification.listener;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
+import com.sanjeev.learnspring.notification.dto.Notification;
+import com.sanjeev.learnspring.notification.properties.NotificationProperties;
+import com.sanjeev.learnspring.notification.service.NotificationDispatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Turns committed customer creations, suspensions and deactivations into notifications.
+ * Runs on the request thread after commit, so it only does a non-blocking enqueue.
+ */
+@Component
+public class CustomerNotificationListener {
+
+    private final NotificationDispatcher dispatcher;
+    private final NotificationProperties properties;
+
+    public CustomerNotificationListener(NotificationDispatcher dispatcher, NotificationProperties properties) {
+        this.dispatcher = dispatcher;
+        this.properties = properties;
+    }
+
+    @TransactionalEventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Notification.Type type = typeOf(event);
+        if (type != null) {
+            dispatcher.offer(new Notification(event.getCustomerId(), type, properties.getEmail()));
+        }
+    }
+
+    private static Notification.Type typeOf(CustomerChangedEvent event) {
+        if (event.getChangeType() == CustomerChangedEvent.ChangeType.CREATED) {
+            return Notification.Type.CUSTOMER_CREATED;
+        }
+        if (event.getChangeType() == CustomerChangedEvent.ChangeType.STATUS_CHANGED) {
+            if (event.getStatus() == Customer.CustomerStatus.SUSPENDED) {
+                return Notification.Type.CUSTOMER_SUSPENDED;
+            }
+            if (event.getStatus() == Customer.CustomerStatus.INACTIVE) {
+                return Notification.Type.CUSTOMER_DEACTIVATED;
+            }
+        }
+        return null;
+    }
+}
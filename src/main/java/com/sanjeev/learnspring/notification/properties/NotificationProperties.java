@@ -0,0 +1,98 @@
+package com.sanjeev.learnspring.notification.properties;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Type-safe configuration properties for customer notifications.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.notification")
+@Validated
+public class NotificationProperties {
+
+    private boolean enabled = true;
+
+    @NotBlank(message = "Notification email must not be blank")
+    private String email;
+
+    @Min(value = 1, message = "Batch size must be at least 1")
+    @Max(value = 10000, message = "Batch size must not exceed 10000")
+    private int batchSize = 100;
+
+    // Events waiting for dispatch; further events are dropped (and counted) when full
+    @Min(value = 1, message = "Queue capacity must be at least 1")
+    private int queueCapacity = 10000;
+
+    // Longest time (ms) the first event of a partial batch waits for more events
+    @Min(value = 0, message = "Linger time cannot be negative")
+    private long lingerTime = 500;
+
+    // "log" or "file"; any other value expects a custom NotificationSender bean
+    @NotBlank(message = "Notification sender must not be blank")
+    private String sender = "log";
+
+    // Used by the file sender
+    private String file = "notifications.log";
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getLingerTime() {
+        return lingerTime;
+    }
+
+    public void setLingerTime(long lingerTime) {
+        this.lingerTime = lingerTime;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+}
@@ -0,0 +1,43 @@
+package com.sanjeev.learnspring.notification.sender;
+
+import com.sanjeev.learnspring.notification.dto.Notification;
+import com.sanjeev.learnspring.notification.properties.NotificationProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Local stand-in that appends each batch to app.notification.file, one line per
+ * notification (app.notification.sender=file).
+ */
+@Component
+@ConditionalOnProperty(name = "app.notification.sender", havingValue = "file")
+public class FileNotificationSender implements NotificationSender {
+
+    private final Path file;
+
+    public FileNotificationSender(NotificationProperties properties) {
+        this.file = Paths.get(properties.getFile());
+    }
+
+    @Override
+    public void send(List<Notification> batch) throws IOException {
+        // One write and flush per batch
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Notification notification : batch) {
+                writer.write(notification.getOccurredAt() + "\t" + notification.getType() + "\t"
+                        + notification.getCustomerId() + "\t" + notification.getRecipient());
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.sanjeev.learnspring.notification.sender;
+
+import com.sanjeev.learnspring.notification.dto.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Local stand-in that logs each batch instead of sending e-mail (app.notification.sender=log).
+ */
+@Component
+@ConditionalOnProperty(name = "app.notification.sender", havingValue = "log", matchIfMissing = true)
+public class LoggingNotificationSender implements NotificationSender {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingNotificationSender.class);
+
+    @Override
+    public void send(List<Notification> batch) {
+        log.info("Sending {} notification(s) to {}", batch.size(), batch.get(0).getRecipient());
+        if (log.isDebugEnabled()) {
+            batch.forEach(notification -> log.debug("  {}", notification));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.sanjeev.learnspring.notification.sender;
+
+import com.sanjeev.learnspring.notification.dto.Notification;
+
+import java.util.List;
+
+/**
+ * Delivers a batch of notifications. Called from the dispatcher thread only, one batch at a time.
+ * Throwing fails the whole batch; the dispatcher counts it and moves on.
+ */
+public interface NotificationSender {
+
+    void send(List<Notification> batch) throws Exception;
+}
@@ -0,0 +1,203 @@
+package com.sanjeev.learnspring.notification.service;
+
+import com.sanjeev.learnspring.metrics.LatencyHistogram;
+import com.sanjeev.learnspring.notification.dto.Notification;
+import com.sanjeev.learnspring.notification.properties.NotificationProperties;
+import com.sanjeev.learnspring.notification.sender.NotificationSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded queue of notifications drained in batches by a single dispatcher thread.
+ *
+ * {@link #offer} never blocks: when the queue (app.notification.queue-capacity) is full
+ * the notification is dropped and counted, so a slow sender shows up as back-pressure
+ * in the metrics instead of slowing down requests. The dispatcher sends a batch once
+ * it holds app.notification.batch-size notifications or its oldest one has waited
+ * app.notification.linger-time ms. Whatever is still queued is flushed on shutdown.
+ */
+@Service
+public class NotificationDispatcher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final NotificationSender sender;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Notification> queue;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder failedNotifications = new LongAdder();
+    private final LongAccumulator highWatermark = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram queueDelay = new LatencyHistogram();
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+
+    private volatile boolean running;
+    private volatile Thread dispatcherThread;
+
+    public NotificationDispatcher(NotificationSender sender, NotificationProperties properties) {
+        this.sender = sender;
+        this.batchSize = properties.getBatchSize();
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(properties.getLingerTime());
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    /**
+     * Queues a notification without blocking.
+     *
+     * @return false if the queue was full and the notification was dropped
+     */
+    public boolean offer(Notification notification) {
+        if (!queue.offer(notification)) {
+            dropped.increment();
+            return false;
+        }
+        enqueued.increment();
+        highWatermark.accumulate(queue.size());
+        return true;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::dispatchLoop, "notification-dispatcher");
+        thread.setDaemon(true);
+        thread.start();
+        dispatcherThread = thread;
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        Thread thread = dispatcherThread;
+        dispatcherThread = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Flush what is left on the caller's thread
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            dispatch(batch);
+            batch.clear();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public Map<String, Object> getMetrics() {
+        long batchCount = batches.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("batchSize", batchSize);
+        metrics.put("lingerMs", TimeUnit.NANOSECONDS.toMillis(lingerNanos));
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueRemainingCapacity", queue.remainingCapacity());
+        metrics.put("queueHighWatermark", highWatermark.get());
+        metrics.put("enqueued", enqueued.sum());
+        metrics.put("dropped", dropped.sum());
+        metrics.put("delivered", delivered.sum());
+        metrics.put("batches", batchCount);
+        metrics.put("averageBatchSize", batchCount == 0 ? 0 : (double) (delivered.sum() + failedNotifications.sum()) / batchCount);
+        metrics.put("failedBatches", failedBatches.sum());
+        metrics.put("failedNotifications", failedNotifications.sum());
+        metrics.put("queueDelay", queueDelay.toMap());
+        metrics.put("sendLatency", sendLatency.toMap());
+        return metrics;
+    }
+
+    private void dispatchLoop() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Notification first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.getEnqueuedNanos() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Notification next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                // stop() flushes the queue; hand back anything already taken
+                for (Notification notification : batch) {
+                    if (!queue.offer(notification)) {
+                        dropped.increment();
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private void dispatch(List<Notification> batch) {
+        long now = System.nanoTime();
+        for (Notification notification : batch) {
+            queueDelay.record(now - notification.getEnqueuedNanos());
+        }
+        batches.increment();
+        try {
+            sender.send(List.copyOf(batch));
+            delivered.add(batch.size());
+        } catch (Exception ex) {
+            failedBatches.increment();
+            failedNotifications.add(batch.size());
+            log.warn("Failed to send {} notification(s): {}", batch.size(), ex.toString());
+        } finally {
+            sendLatency.record(System.nanoTime() - now);
+        }
+    }
+}
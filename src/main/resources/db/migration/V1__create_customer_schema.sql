@@ -0,0 +1,33 @@
+-- Baseline: the customers and customer_outbox tables as Hibernate generated them
+-- under ddl-auto=create-drop, with the email constraint named.
+
+CREATE TABLE customers (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    first_name    VARCHAR(50)  NOT NULL,
+    last_name     VARCHAR(50)  NOT NULL,
+    email         VARCHAR(100) NOT NULL,
+    phone         VARCHAR(20),
+    date_of_birth DATE,
+    address       VARCHAR(200),
+    city          VARCHAR(50),
+    zip_code      VARCHAR(20),
+    status        VARCHAR(20) CHECK (status IN ('ACTIVE', 'INACTIVE', 'SUSPENDED', 'DELETED')),
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    version       BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_customers_email UNIQUE (email)
+);
+
+CREATE TABLE customer_outbox (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    seq          BIGINT,
+    customer_id  BIGINT      NOT NULL,
+    change_type  VARCHAR(20) NOT NULL CHECK (change_type IN ('CREATED', 'UPDATED', 'DELETED', 'STATUS_CHANGED')),
+    status       VARCHAR(20) CHECK (status IN ('ACTIVE', 'INACTIVE', 'SUSPENDED', 'DELETED')),
+    payload      VARCHAR(4000),
+    created_at   TIMESTAMP(6) NOT NULL,
+    published_at TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT idx_customer_outbox_seq UNIQUE (seq)
+);
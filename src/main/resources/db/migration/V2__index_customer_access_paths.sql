@@ -0,0 +1,26 @@
+-- Indexes for the CustomerRepository queries; CustomerQueryPlanTest fails if one of them
+-- falls back to a table scan. Composite indexes lead with the equality column so their
+-- prefix also serves the single-column lookup.
+
+-- findByCity, findByCityAndStatus
+CREATE INDEX idx_customers_city_status ON customers (city, status);
+
+-- findByStatus, countByStatus, deleteByStatus, countGroupedByStatus (grouped in index
+-- order) and findByStatusOrderByLastNameAsc. For the latter H2 only uses the index to find
+-- the status; its plan still sorts the matches by last_name.
+CREATE INDEX idx_customers_status_last_name ON customers (status, last_name);
+
+-- findRecentCustomersByStatus: newest first within a status, stops after LIMIT rows
+CREATE INDEX idx_customers_status_created_at ON customers (status, created_at DESC);
+
+-- findByLastName, findByFirstNameAndLastName
+CREATE INDEX idx_customers_last_name_first_name ON customers (last_name, first_name);
+
+-- findByFirstName, findByFirstNameStartingWith (prefix range)
+CREATE INDEX idx_customers_first_name ON customers (first_name);
+
+-- findByDateOfBirthAfter
+CREATE INDEX idx_customers_date_of_birth ON customers (date_of_birth);
+
+-- findCustomersCreatedAfter
+CREATE INDEX idx_customers_created_at ON customers (created_at);
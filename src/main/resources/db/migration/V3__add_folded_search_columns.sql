@@ -0,0 +1,21 @@
+-- Lower-cased copies of the searched columns, kept by Customer's @PrePersist/@PreUpdate,
+-- so case-insensitive and full-name queries compare indexed columns instead of LOWER()
+-- or CONCAT() results. Existing rows stay NULL here and are filled in batches by
+-- SearchColumnBackfill after startup, so the migration itself does not rewrite the table.
+
+ALTER TABLE customers ADD COLUMN city_folded VARCHAR(50);
+ALTER TABLE customers ADD COLUMN email_folded VARCHAR(100);
+ALTER TABLE customers ADD COLUMN last_name_folded VARCHAR(50);
+-- first_name || ' ' || last_name
+ALTER TABLE customers ADD COLUMN full_name_folded VARCHAR(101);
+
+-- findByCityIgnoreCase
+CREATE INDEX idx_customers_city_folded ON customers (city_folded);
+
+-- findByFullName, searchCustomers (also serves first-name prefixes); the backfill finds
+-- rows still to do through its NULLs
+CREATE INDEX idx_customers_full_name_folded ON customers (full_name_folded);
+
+-- searchCustomers
+CREATE INDEX idx_customers_last_name_folded ON customers (last_name_folded);
+CREATE INDEX idx_customers_email_folded ON customers (email_folded);
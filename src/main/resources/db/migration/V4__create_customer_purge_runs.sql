@@ -0,0 +1,21 @@
+-- Progress of CustomerPurge runs. next_id is the first id not yet processed and is
+-- advanced in the same transaction as each chunk's DELETE, so a run interrupted by a
+-- restart resumes exactly where it stopped. max_id bounds the run to the rows that
+-- existed when it started.
+
+CREATE TABLE customer_purge_runs (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    statuses    VARCHAR(100) NOT NULL,
+    state       VARCHAR(20)  NOT NULL CHECK (state IN ('RUNNING', 'COMPLETED', 'CANCELLED', 'FAILED')),
+    next_id     BIGINT       NOT NULL,
+    max_id      BIGINT       NOT NULL,
+    deleted     BIGINT       NOT NULL,
+    chunks      BIGINT       NOT NULL,
+    started_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    finished_at TIMESTAMP(6),
+    error       VARCHAR(1000),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_customer_purge_runs_state ON customer_purge_runs (state);
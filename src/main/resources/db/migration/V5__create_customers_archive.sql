@@ -0,0 +1,31 @@
+-- Cold customers (DELETED, or INACTIVE for a while) moved out of the hot customers table
+-- by CustomerArchiver, so its size and index depth follow the live customers. Same
+-- columns plus archived_at; ids are kept, and email is not unique here because it may be
+-- reused by a new customer once its old owner is archived.
+
+CREATE TABLE customers_archive (
+    id               BIGINT       NOT NULL,
+    first_name       VARCHAR(50)  NOT NULL,
+    last_name        VARCHAR(50)  NOT NULL,
+    email            VARCHAR(100) NOT NULL,
+    phone            VARCHAR(20),
+    date_of_birth    DATE,
+    address          VARCHAR(200),
+    city             VARCHAR(50),
+    zip_code         VARCHAR(20),
+    status           VARCHAR(20),
+    created_at       TIMESTAMP(6),
+    updated_at       TIMESTAMP(6),
+    version          BIGINT       NOT NULL,
+    city_folded      VARCHAR(50),
+    email_folded     VARCHAR(100),
+    last_name_folded VARCHAR(50),
+    full_name_folded VARCHAR(101),
+    archived_at      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_customers_archive_email ON customers_archive (email);
+
+-- The archiver's selection: cold statuses by age
+CREATE INDEX idx_customers_status_updated_at ON customers (status, updated_at);
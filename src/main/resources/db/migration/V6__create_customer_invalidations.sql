@@ -0,0 +1,14 @@
+-- Cache invalidation messages exchanged by instances sharing this database when
+-- app.invalidation.transport=database. Each row is one encoded InvalidationMessage;
+-- instances poll for rows past the last seq they read and skip their own. Rows are
+-- pruned once older than app.invalidation.database.retention.
+
+CREATE TABLE customer_invalidations (
+    seq        BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    node_id    BIGINT          NOT NULL,
+    payload    VARBINARY(1400) NOT NULL,
+    created_at TIMESTAMP(6)    NOT NULL,
+    PRIMARY KEY (seq)
+);
+
+CREATE INDEX idx_customer_invalidations_created_at ON customer_invalidations (created_at);
@@ -0,0 +1,32 @@
+-- Tables of sharded deployments (app.database.sharding), used on shard 0 only; every
+-- shard runs all migrations, so they exist, empty, on the others too.
+--
+-- customer_id_blocks hands out customer ids a block at a time: next_id is the first id
+-- not yet reserved. customer_email_directory maps every email to the id of the customer
+-- holding it, which the hash ring places on a shard. customer_shard_layout records the
+-- ring the rows were last placed with, so a changed ring is noticed and rebalanced.
+
+CREATE TABLE customer_id_blocks (
+    id      INT    NOT NULL,
+    next_id BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO customer_id_blocks (id, next_id) VALUES (1, 1);
+
+CREATE TABLE customer_email_directory (
+    email       VARCHAR(100) NOT NULL,
+    customer_id BIGINT       NOT NULL,
+    claimed_at  TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (email)
+);
+
+CREATE INDEX idx_customer_email_directory_customer_id ON customer_email_directory (customer_id);
+
+CREATE TABLE customer_shard_layout (
+    id         INT           NOT NULL,
+    signature  VARCHAR(4000) NOT NULL,
+    settled    BOOLEAN       NOT NULL,
+    updated_at TIMESTAMP(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,10 @@
+-- Single row CustomerPurge locks before checking for and creating a RUNNING run.
+-- Locking the RUNNING runs themselves locks nothing when there are none, so two
+-- concurrent starts could both create one.
+
+CREATE TABLE customer_purge_lock (
+    id INT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO customer_purge_lock (id) VALUES (1);
@@ -0,0 +1,11 @@
+-- Heartbeat row ReadReplicaDataSource rewrites on the primary every
+-- app.database.routing.lag-check-interval; replicas are as far behind as the beat
+-- they still show. beat is epoch milliseconds, 0 until the first check.
+
+CREATE TABLE replication_heartbeat (
+    id   INT    NOT NULL,
+    beat BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat) VALUES (1, 0);
@@ -0,0 +1,239 @@
+package com.sanjeev.learnspring.client.service;
+
+import com.sanjeev.learnspring.client.dto.ApiResponse;
+import com.sanjeev.learnspring.client.exception.ApiClientException;
+import com.sanjeev.learnspring.client.exception.CircuitOpenException;
+import com.sanjeev.learnspring.config.properties.ApiProperties;
+import com.sanjeev.learnspring.config.reload.ApiSettings;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ApiClient against a local stub server whose responses are scripted per test.
+ */
+class ApiClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final Queue<StubResponse> script = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final Set<String> apiKeys = ConcurrentHashMap.newKeySet();
+
+    private ApiProperties properties;
+    private ApiClientMetrics metrics;
+    private ApiClient client;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+
+        properties = new ApiProperties();
+        properties.setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        properties.setKey("test-key");
+        properties.setTimeout(1000);
+        properties.setRetryCount(2);
+        properties.setBackoffInitial(5);
+        properties.setBackoffMax(20);
+        metrics = new ApiClientMetrics();
+        client = new ApiClient(() -> ApiSettings.of(properties), metrics);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void get_reusesKeepAliveConnectionAndSendsApiKey() {
+        for (int i = 0; i < 5; i++) {
+            ApiResponse response = client.get("/items");
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getBody()).isEqualTo("ok");
+            assertThat(response.getAttempts()).isEqualTo(1);
+        }
+
+        assertThat(requests.get()).isEqualTo(5);
+        assertThat(clientPorts).hasSize(1);
+        assertThat(apiKeys).containsExactly("test-key");
+    }
+
+    @Test
+    void get_retriesServerErrorsWithBackoff() {
+        script.add(StubResponse.status(503));
+        script.add(StubResponse.status(500));
+
+        ApiResponse response = client.get("/items");
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getAttempts()).isEqualTo(3);
+        assertThat(metrics.getRetries()).isEqualTo(2);
+    }
+
+    @Test
+    void get_doesNotRetryClientErrors() {
+        script.add(StubResponse.status(404));
+
+        ApiResponse response = client.get("/missing");
+
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void get_failsAfterRetriesAreExhausted() {
+        for (int i = 0; i < 3; i++) {
+            script.add(StubResponse.status(503));
+        }
+
+        assertThatThrownBy(() -> client.get("/items"))
+                .isInstanceOfSatisfying(ApiClientException.class, ex -> {
+                    assertThat(ex.getStatus()).isEqualTo(503);
+                    assertThat(ex.getAttempts()).isEqualTo(3);
+                });
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void get_retriesAttemptsThatTimeOut() {
+        properties.setTimeout(200);
+        script.add(StubResponse.delayed(1000));
+
+        ApiResponse response = client.get("/items");
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void get_hedgesSlowRequests() {
+        properties.setHedgeDelay(50);
+        properties.setRetryCount(0);
+        script.add(StubResponse.delayed(2000));
+
+        long start = System.nanoTime();
+        ApiResponse response = client.get("/items");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.isHedged()).isTrue();
+        assertThat(elapsedMillis).isLessThan(1500);
+        assertThat(metrics.getHedges()).isEqualTo(1);
+        assertThat(metrics.getHedgeWins()).isEqualTo(1);
+    }
+
+    @Test
+    void circuitBreaker_opensOnFailuresAndRecoversAfterOpenDuration() throws Exception {
+        properties.setRetryCount(0);
+        properties.getBreaker().setWindowSize(4);
+        properties.getBreaker().setMinimumCalls(4);
+        properties.getBreaker().setFailureRateThreshold(50);
+        properties.getBreaker().setOpenDuration(200);
+        for (int i = 0; i < 4; i++) {
+            script.add(StubResponse.status(500));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.get("/items")).isInstanceOf(ApiClientException.class);
+        }
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> client.get("/items")).isInstanceOf(CircuitOpenException.class);
+        assertThat(requests.get()).isEqualTo(4);
+        assertThat(metrics.getRejected()).isEqualTo(1);
+
+        Thread.sleep(250);
+        assertThat(client.get("/items").getStatus()).isEqualTo(200);
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void circuitBreaker_malformedPathDoesNotUseUpTheHalfOpenTrial() throws Exception {
+        properties.setRetryCount(0);
+        properties.getBreaker().setWindowSize(2);
+        properties.getBreaker().setMinimumCalls(2);
+        properties.getBreaker().setFailureRateThreshold(50);
+        properties.getBreaker().setOpenDuration(100);
+        script.add(StubResponse.status(500));
+        script.add(StubResponse.status(500));
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.get("/items")).isInstanceOf(ApiClientException.class);
+        }
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        Thread.sleep(150);
+        assertThatThrownBy(() -> client.get("/items with spaces")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(client.get("/items").getStatus()).isEqualTo(200);
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        String key = exchange.getRequestHeaders().getFirst(ApiClient.API_KEY_HEADER);
+        if (key != null) {
+            apiKeys.add(key);
+        }
+        StubResponse stub = script.poll();
+        if (stub == null) {
+            stub = StubResponse.status(200);
+        }
+        try {
+            if (stub.delayMillis > 0) {
+                Thread.sleep(stub.delayMillis);
+            }
+            byte[] body = (stub.status == 200 ? "ok" : "error").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(stub.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            // client gave up on this exchange
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static final class StubResponse {
+        private final int status;
+        private final long delayMillis;
+
+        private StubResponse(int status, long delayMillis) {
+            this.status = status;
+            this.delayMillis = delayMillis;
+        }
+
+        static StubResponse status(int status) {
+            return new StubResponse(status, 0);
+        }
+
+        static StubResponse delayed(long delayMillis) {
+            return new StubResponse(200, delayMillis);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.sanjeev.learnspring.config.aot;
+
+import com.sanjeev.learnspring.aop.annotation.TrackExecutionTime;
+import com.sanjeev.learnspring.aop.aspect.PerformanceAspect;
+import com.sanjeev.learnspring.config.properties.DatabaseProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicationRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    ApplicationRuntimeHintsTest() {
+        new ApplicationRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void aspectsAreRegisteredForReflection() {
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(PerformanceAspect.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_METHODS)).accepts(hints);
+    }
+
+    @Test
+    void adviceAnnotationsAreRegisteredAsProxies() {
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(TrackExecutionTime.class)).accepts(hints);
+    }
+
+    @Test
+    void configurationPropertiesAreRegisteredForBinding() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(DatabaseProperties.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(DatabaseProperties.PoolProperties.class)).accepts(hints);
+    }
+}
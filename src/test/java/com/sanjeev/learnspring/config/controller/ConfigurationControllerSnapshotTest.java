@@ -0,0 +1,92 @@
+package com.sanjeev.learnspring.config.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjeev.learnspring.config.service.ConfigurationSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Configuration endpoints served from pre-rendered snapshots.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "user", roles = {"USER"})
+class ConfigurationControllerSnapshotTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ConfigurationSnapshotService snapshotService;
+
+    @Test
+    void gzipAndIdentityResponses_carryTheSameJson() throws Exception {
+        MvcResult identity = mockMvc.perform(get("/api/config/all"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        MvcResult gzip = mockMvc.perform(get("/api/config/all").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+
+        byte[] plain = identity.getResponse().getContentAsByteArray();
+        byte[] compressed = gzip.getResponse().getContentAsByteArray();
+        assertThat(identity.getResponse().getContentLength()).isEqualTo(plain.length);
+        assertThat(gzip.getResponse().getContentLength()).isEqualTo(compressed.length);
+
+        byte[] decompressed;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            decompressed = in.readAllBytes();
+        }
+        assertThat(decompressed).isEqualTo(plain);
+
+        JsonNode all = objectMapper.readTree(plain);
+        assertThat(all.path("appInfo").path("name").asText()).isNotEmpty();
+        assertThat(all.path("database").has("poolMaxSize")).isTrue();
+    }
+
+    @Test
+    void gzipRefusedWithZeroQuality_isServedUncompressed() throws Exception {
+        mockMvc.perform(get("/api/config/all").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        mockMvc.perform(get("/api/config/all").header(HttpHeaders.ACCEPT_ENCODING, "*, gzip; q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        mockMvc.perform(get("/api/config/all").header(HttpHeaders.ACCEPT_ENCODING, "br, *;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        mockMvc.perform(get("/api/config/all").header(HttpHeaders.ACCEPT_ENCODING, "x-gzip-like"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void repeatedRequests_reuseTheSameRenderedBytes() throws Exception {
+        byte[] before = snapshotService.get(ConfigurationSnapshotService.Section.API).getJson();
+
+        mockMvc.perform(get("/api/config/api")).andExpect(status().isOk());
+
+        assertThat(snapshotService.get(ConfigurationSnapshotService.Section.API).getJson()).isSameAs(before);
+    }
+}
@@ -0,0 +1,148 @@
+package com.sanjeev.learnspring.config.reload;
+
+import com.sanjeev.learnspring.config.event.ConfigurationChangedEvent;
+import com.sanjeev.learnspring.config.exception.InvalidConfigurationException;
+import com.sanjeev.learnspring.config.service.AppInfoService;
+import com.sanjeev.learnspring.config.service.ConfigurationService;
+import com.sanjeev.learnspring.config.service.ConfigurationSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Hot reload of the properties files in app.config.reload.location.
+ */
+@SpringBootTest
+@RecordApplicationEvents
+class LiveConfigurationTest {
+
+    @TempDir
+    static Path configDir;
+
+    @DynamicPropertySource
+    static void reloadLocation(DynamicPropertyRegistry registry) {
+        registry.add("app.config.reload.location", configDir::toString);
+        // Long enough that the explicit reload() calls below always win against the watcher
+        registry.add("app.config.reload.debounce", () -> "1000");
+    }
+
+    @Autowired
+    private LiveConfiguration liveConfiguration;
+
+    @Autowired
+    private AppInfoService appInfoService;
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private ConfigurationSnapshotService snapshotService;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @AfterEach
+    void restoreDefaults() throws Exception {
+        Files.deleteIfExists(configDir.resolve("application.properties"));
+        liveConfiguration.reload();
+    }
+
+    @Test
+    void reload_swapsSnapshotAndPublishesDiff() throws Exception {
+        ConfigSnapshot before = liveConfiguration.current();
+        writeConfig("app.features.sms-enabled=true", "app.api.timeout=7000");
+
+        liveConfiguration.reload();
+
+        ConfigSnapshot after = liveConfiguration.current();
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+        assertThat(appInfoService.isSmsEnabled()).isTrue();
+        assertThat(configurationService.getApiSettings().timeout()).isEqualTo(7000);
+        assertThat(before.getApi().timeout()).isEqualTo(5000);
+        assertThat(environment.getProperty("app.api.timeout")).isEqualTo("7000");
+        assertThat(new String(snapshotService.get(ConfigurationSnapshotService.Section.API).getJson(),
+                StandardCharsets.UTF_8)).contains("\"timeout\":7000");
+
+        List<ConfigurationChangedEvent> published = events.stream(ConfigurationChangedEvent.class).toList();
+        assertThat(published).hasSize(1);
+        assertThat(published.get(0).getChanges()).containsOnlyKeys("app.features.sms-enabled", "app.api.timeout");
+        assertThat(published.get(0).getChanges().get("app.api.timeout"))
+                .isEqualTo(new ConfigurationChangedEvent.ValueChange("5000", "7000"));
+    }
+
+    @Test
+    void reload_keepsSystemPropertiesAboveTheFile() throws Exception {
+        System.setProperty("app.features.max-upload-size", "2048");
+        try {
+            writeConfig("app.features.max-upload-size=4096", "app.api.retry-count=5");
+
+            liveConfiguration.reload();
+
+            assertThat(appInfoService.getMaxUploadSize()).isEqualTo(2048L);
+            assertThat(environment.getProperty("app.features.max-upload-size")).isEqualTo("2048");
+            assertThat(configurationService.getApiSettings().retryCount()).isEqualTo(5);
+        } finally {
+            System.clearProperty("app.features.max-upload-size");
+        }
+    }
+
+    @Test
+    void reload_withoutChanges_keepsSnapshotAndPublishesNothing() {
+        ConfigSnapshot before = liveConfiguration.current();
+
+        assertThat(liveConfiguration.reload()).isEmpty();
+
+        assertThat(liveConfiguration.current()).isSameAs(before);
+        assertThat(events.stream(ConfigurationChangedEvent.class)).isEmpty();
+    }
+
+    @Test
+    void reload_rejectsValuesViolatingConstraints() throws Exception {
+        ConfigSnapshot before = liveConfiguration.current();
+        writeConfig("app.api.timeout=10");
+
+        assertThatThrownBy(() -> liveConfiguration.reload())
+                .isInstanceOf(InvalidConfigurationException.class)
+                .hasMessageContaining("timeout");
+
+        assertThat(liveConfiguration.current()).isSameAs(before);
+        assertThat(environment.getProperty("app.api.timeout")).isEqualTo("5000");
+    }
+
+    @Test
+    void fileWatcher_reloadsOnModification() throws Exception {
+        long version = liveConfiguration.current().getVersion();
+        writeConfig("app.features.email-enabled=false");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (liveConfiguration.current().getVersion() == version && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(liveConfiguration.current().getVersion()).isGreaterThan(version);
+        assertThat(appInfoService.isEmailEnabled()).isFalse();
+    }
+
+    private static void writeConfig(String... lines) throws Exception {
+        Files.write(configDir.resolve("application.properties"), List.of(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -54,34 +54,34 @@ class ConfigurationServiceTest {
 
     @Test
     void configurationService_databasePropertiesLoaded() {
-        var dbProps = configurationService.getDatabaseProperties();
+        var database = configurationService.getDatabaseSettings();
 
-        assertThat(dbProps.getUrl()).isNotBlank();
-        assertThat(dbProps.getUsername()).isNotBlank();
-        assertThat(dbProps.getPool().getMinSize()).isPositive();
-        assertThat(dbProps.getPool().getMaxSize()).isPositive();
-        assertThat(dbProps.getPool().getTimeout()).isPositive();
+        assertThat(database.url()).isNotBlank();
+        assertThat(database.username()).isNotBlank();
+        assertThat(database.pool().minSize()).isPositive();
+        assertThat(database.pool().maxSize()).isPositive();
+        assertThat(database.pool().timeout()).isPositive();
     }
 
     @Test
     void configurationService_nestedPropertiesWork() {
-        var dbProps = configurationService.getDatabaseProperties();
+        var database = configurationService.getDatabaseSettings();
 
         // Nested pool properties should be loaded
-        assertThat(dbProps.getPool()).isNotNull();
-        assertThat(dbProps.getPool().getMinSize()).isEqualTo(5);
-        assertThat(dbProps.getPool().getMaxSize()).isEqualTo(20);
-        assertThat(dbProps.getPool().getTimeout()).isEqualTo(30000L);
+        assertThat(database.pool()).isNotNull();
+        assertThat(database.pool().minSize()).isEqualTo(5);
+        assertThat(database.pool().maxSize()).isEqualTo(20);
+        assertThat(database.pool().timeout()).isEqualTo(30000L);
     }
 
     @Test
     void configurationService_apiPropertiesLoaded() {
-        var apiProps = configurationService.getApiProperties();
+        var api = configurationService.getApiSettings();
 
-        assertThat(apiProps.getBaseUrl()).isNotBlank();
-        assertThat(apiProps.getTimeout()).isPositive();
-        assertThat(apiProps.getRetryCount()).isGreaterThanOrEqualTo(0);
-        assertThat(apiProps.getKey()).isNotBlank();
+        assertThat(api.baseUrl()).isNotBlank();
+        assertThat(api.timeout()).isPositive();
+        assertThat(api.retryCount()).isGreaterThanOrEqualTo(0);
+        assertThat(api.key()).isNotBlank();
     }
 
     @Test
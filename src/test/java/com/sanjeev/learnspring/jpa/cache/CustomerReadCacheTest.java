@@ -0,0 +1,48 @@
+package com.sanjeev.learnspring.jpa.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A full cache evicts the entry read least recently, not an arbitrary one.
+ */
+class CustomerReadCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CustomerReadCache cache = new CustomerReadCache(new ObjectMapper().findAndRegisterModules(), 3);
+
+    @Test
+    void fullCache_evictsTheLeastRecentlyReadCustomer() {
+        read(1L);
+        read(2L);
+        read(3L);
+        // Touch 1 so 2 becomes the eldest
+        read(1L);
+        read(4L);
+
+        assertThat(cache.currentCustomerETag(1L)).isNotNull();
+        assertThat(cache.currentCustomerETag(2L)).isNull();
+        assertThat(cache.currentCustomerETag(3L)).isNotNull();
+        assertThat(cache.currentCustomerETag(4L)).isNotNull();
+        assertThat(cache.getStats()).containsEntry("customers", 3);
+
+        int before = loads.get();
+        read(1L);
+        assertThat(loads.get()).isEqualTo(before);
+    }
+
+    private void read(Long id) {
+        cache.customer(id, () -> {
+            loads.incrementAndGet();
+            CustomerResponseDTO dto = new CustomerResponseDTO();
+            dto.setId(id);
+            dto.setVersion(0L);
+            return dto;
+        });
+    }
+}
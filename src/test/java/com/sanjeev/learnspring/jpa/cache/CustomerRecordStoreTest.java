@@ -0,0 +1,131 @@
+package com.sanjeev.learnspring.jpa.cache;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerUpdateDTO;
+import com.sanjeev.learnspring.jpa.exception.CustomerNotFoundException;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static com.sanjeev.learnspring.jpa.sql.SqlStatementAssertions.assertStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Off-heap record store: reads by id and email follow committed writes without touching
+ * the database, and rows written around CustomerService are picked up on first read.
+ */
+@SpringBootTest
+class CustomerRecordStoreTest {
+
+    @Autowired
+    private CustomerRecordStore recordStore;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void awaitLoaded() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!recordStore.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(recordStore.isReady()).isTrue();
+    }
+
+    @Test
+    void reads_followCommittedWritesWithoutStatements() {
+        CustomerRequestDTO request = newCustomer();
+        request.setDateOfBirth(LocalDate.of(1984, 2, 29));
+        request.setAddress("Straße 7, Zürich");
+        CustomerResponseDTO created = customerService.createCustomer(request);
+
+        CustomerResponseDTO stored = assertStatements(0, () -> customerService.getCustomerById(created.getId()));
+        assertThat(stored).usingRecursiveComparison().isEqualTo(created);
+
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setEmail("renamed." + UUID.randomUUID() + "@example.com");
+        update.setCity("Storeburg");
+        CustomerResponseDTO updated = customerService.updateCustomer(created.getId(), update);
+        CustomerResponseDTO suspended = customerService.suspendCustomer(created.getId());
+
+        CustomerResponseDTO byEmail = assertStatements(0, () -> customerService.getCustomerByEmail(update.getEmail()));
+        assertThat(byEmail.getCity()).isEqualTo("Storeburg");
+        assertThat(byEmail.getStatus()).isEqualTo("SUSPENDED");
+        assertThat(byEmail.getVersion()).isEqualTo(suspended.getVersion()).isGreaterThan(updated.getVersion());
+        assertThat(recordStore.findByEmail(created.getEmail())).isNull();
+
+        customerService.deleteCustomer(created.getId());
+        assertThat(recordStore.findById(created.getId())).isNull();
+        assertThatThrownBy(() -> customerService.getCustomerById(created.getId()))
+                .isInstanceOf(CustomerNotFoundException.class);
+    }
+
+    @Test
+    void rowsWrittenAroundTheService_areAddedOnFirstRead() {
+        String email = "jdbc." + UUID.randomUUID() + "@example.com";
+        jdbcTemplate.update("INSERT INTO customers (first_name, last_name, email, status, created_at, updated_at, "
+                + "version) VALUES ('Jo', 'Dbc', ?, 'ACTIVE', LOCALTIMESTAMP, LOCALTIMESTAMP, 0)", email);
+        assertThat(recordStore.findByEmail(email)).isNull();
+
+        CustomerResponseDTO loaded = assertStatements(1, () -> customerService.getCustomerByEmail(email));
+
+        assertThat(recordStore.findByEmail(email)).usingRecursiveComparison().isEqualTo(loaded);
+        assertStatements(0, () -> customerService.getCustomerById(loaded.getId()));
+    }
+
+    @Test
+    void status_reportsFootprintAndHeapCacheEstimate() {
+        customerService.createCustomer(newCustomer());
+
+        Map<String, Object> status = recordStore.getStatus();
+
+        assertThat((Integer) status.get("records")).isPositive();
+        assertThat((Long) status.get("offHeapBytes")).isGreaterThanOrEqualTo((Long) status.get("offHeapUsedBytes"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> comparison = (Map<String, Object>) status.get("heapCacheComparison");
+        assertThat((Long) comparison.get("estimatedObjects")).isGreaterThan((Integer) comparison.get("storeHeapObjects"));
+    }
+
+    @Test
+    void index_matchesAMapUnderChurn() {
+        LongIntHashIndex index = new LongIntHashIndex(16);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                index.put(key, i);
+                expected.put(key, i);
+            } else if (expected.containsKey(key)) {
+                assertThat(index.remove(key, expected.remove(key))).isTrue();
+            }
+        }
+        assertThat(index.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertThat(index.get(key)).isEqualTo(expected.getOrDefault(key, -1));
+        }
+    }
+
+    private static CustomerRequestDTO newCustomer() {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Otto");
+        request.setLastName("Offheap");
+        request.setEmail("otto." + UUID.randomUUID() + "@example.com");
+        request.setCity("Storeburg");
+        return request;
+    }
+}
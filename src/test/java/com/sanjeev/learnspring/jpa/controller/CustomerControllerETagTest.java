@@ -0,0 +1,73 @@
+package com.sanjeev.learnspring.jpa.controller;
+
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GET behaviour of the customer read endpoints.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = {"ADMIN"})
+class CustomerControllerETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private CustomerService customerService;
+
+    @Test
+    void matchingETag_returnsNotModifiedWithoutLoading() throws Exception {
+        String eTag = mockMvc.perform(get("/api/customers/2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        clearInvocations(customerService);
+
+        mockMvc.perform(get("/api/customers/2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        verify(customerService, never()).getCustomerById(any());
+    }
+
+    @Test
+    void write_changesCustomerAndListETags() throws Exception {
+        String customerETag = mockMvc.perform(get("/api/customers/3"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String listETag = mockMvc.perform(get("/api/customers/status/ACTIVE"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/customers/status/ACTIVE").header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch("/api/customers/3/suspend")).andExpect(status().isOk());
+
+        String newCustomerETag = mockMvc.perform(get("/api/customers/3").header(HttpHeaders.IF_NONE_MATCH, customerETag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/customers/status/ACTIVE").header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isOk());
+        assertThat(newCustomerETag).isNotEqualTo(customerETag);
+
+        mockMvc.perform(patch("/api/customers/3/activate")).andExpect(status().isOk());
+    }
+}
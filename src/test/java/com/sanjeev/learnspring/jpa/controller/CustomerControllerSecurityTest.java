@@ -1,5 +1,6 @@
 package com.sanjeev.learnspring.jpa.controller;
 
+import com.sanjeev.learnspring.jpa.cache.CustomerReadCache;
 import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
 import com.sanjeev.learnspring.jpa.service.CustomerService;
 import org.junit.jupiter.api.Test;
@@ -7,6 +8,7 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,6 +19,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(CustomerController.class)
+@Import(CustomerReadCache.class)
 class CustomerControllerSecurityTest {
 
     @Autowired
@@ -0,0 +1,185 @@
+package com.sanjeev.learnspring.jpa.datasource;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read-only transactions routed to H2 stand-in replicas: "in-sync" is the primary database
+ * under a second pool, "lagging" a separate database whose heartbeat never advances.
+ */
+@SpringBootTest(properties = {
+        "app.database.routing.enabled=true",
+        "app.database.routing.lag-check-interval=100",
+        "app.database.routing.max-lag=1000",
+        "app.database.routing.sticky-window=2000",
+        "app.database.routing.replicas[0].name=in-sync",
+        "app.database.routing.replicas[0].url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1",
+        "app.database.routing.replicas[0].username=sa",
+        "app.database.routing.replicas[1].name=lagging",
+        "app.database.routing.replicas[1].url=" + ReadReplicaRoutingTest.LAGGING_URL,
+        "app.database.routing.replicas[1].username=sa"
+})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTest {
+
+    static final String LAGGING_URL = "jdbc:h2:mem:lagging-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ReadReplicaDataSource readReplicas;
+
+    @Autowired
+    private HikariDataSource primary;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void createLaggingReplica() throws Exception {
+        try (Connection connection = DriverManager.getConnection(LAGGING_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS replication_heartbeat (id INT PRIMARY KEY, beat BIGINT NOT NULL)");
+            statement.execute("MERGE INTO replication_heartbeat KEY (id) VALUES (1, 0)");
+        }
+    }
+
+    @Test
+    void readOnlyTransactions_goToTheInSyncReplicaOnly() throws Exception {
+        awaitTrue(() -> Boolean.TRUE.equals(replica("in-sync").get("healthy"))
+                && Boolean.TRUE.equals(replica("lagging").get("healthy")));
+        assertThat((Long) replica("in-sync").get("lagMs")).isZero();
+        assertThat((Long) replica("lagging").get("lagMs")).isGreaterThan(1000L);
+
+        long inSyncBefore = routed("in-sync");
+        customerService.getAllCustomers();
+        customerService.getCustomerCount();
+        assertThat(routed("in-sync")).isEqualTo(inSyncBefore + 2);
+        assertThat(routed("lagging")).isZero();
+
+        // Writes stay on the primary
+        customerService.createCustomer(newCustomer());
+        assertThat(routed("in-sync")).isEqualTo(inSyncBefore + 2);
+    }
+
+    @Test
+    void clientsOwnWrite_pinsItsReadsToThePrimary() throws Exception {
+        awaitTrue(() -> Boolean.TRUE.equals(replica("in-sync").get("healthy")));
+
+        mockMvc.perform(post("/api/customers").with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Rhea\",\"lastName\":\"Replica\",\"email\":\"rhea."
+                                + UUID.randomUUID() + "@example.com\"}"))
+                .andExpect(status().isCreated());
+
+        long stickyBefore = (Long) readReplicas.getStatus().get("primarySticky");
+        long inSyncBefore = routed("in-sync");
+        mockMvc.perform(get("/api/customers/search").param("term", "Rhea").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk());
+        assertThat((Long) readReplicas.getStatus().get("primarySticky")).isEqualTo(stickyBefore + 1);
+        assertThat(routed("in-sync")).isEqualTo(inSyncBefore);
+
+        // Another client hasn't written and reads from the replica
+        mockMvc.perform(get("/api/customers").with(user("user").roles("USER")))
+                .andExpect(status().isOk());
+        assertThat(routed("in-sync")).isEqualTo(inSyncBefore + 1);
+    }
+
+    @Test
+    void lag_isZeroForTheLatestBeatAndCountsFromTheMissedOne() {
+        ReplicaRoutingProperties defaults = new ReplicaRoutingProperties();
+        long interval = defaults.getLagCheckInterval();
+        long lastBeat = 1_000_000;
+        long now = lastBeat + 5;
+
+        assertThat(ReadReplicaDataSource.lagMillis(lastBeat, lastBeat, interval, now)).isZero();
+        // One beat behind: missing writes since lastBeat only
+        assertThat(ReadReplicaDataSource.lagMillis(lastBeat - interval, lastBeat, interval, now))
+                .isEqualTo(5).isLessThanOrEqualTo(defaults.getMaxLag());
+        assertThat(ReadReplicaDataSource.lagMillis(lastBeat - 3 * interval, lastBeat, interval, now))
+                .isEqualTo(2 * interval + 5).isGreaterThan(defaults.getMaxLag());
+    }
+
+    @Test
+    void explicitCredentials_goToThePrimary() throws Exception {
+        DriverManagerDataSource unpooled = new DriverManagerDataSource(primary.getJdbcUrl());
+        ReadReplicaDataSource dataSource = new ReadReplicaDataSource(unpooled, new ReplicaRoutingProperties());
+        try (Connection connection = dataSource.getConnection("sa", "")) {
+            assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:testdb");
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void unreachableReplica_fallsBackToThePrimary() throws Exception {
+        ReplicaRoutingProperties properties = new ReplicaRoutingProperties();
+        ReplicaRoutingProperties.Replica missing = new ReplicaRoutingProperties.Replica();
+        missing.setName("missing");
+        missing.setUrl("jdbc:h2:mem:missing-replica;IFEXISTS=TRUE");
+        missing.setUsername("sa");
+        properties.setReplicas(List.of(missing));
+        ReadReplicaDataSource dataSource = new ReadReplicaDataSource(primary, properties);
+        try {
+            dataSource.checkLag();
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(connection.isValid(1)).isTrue();
+            }
+            assertThat(dataSource.getStatus()).containsEntry("primaryFallbacks", 1L);
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> replica(String name) {
+        return ((List<Map<String, Object>>) readReplicas.getStatus().get("replicas")).stream()
+                .filter(replica -> replica.get("name").equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private long routed(String name) {
+        return (Long) replica(name).get("routed");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static CustomerRequestDTO newCustomer() {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Paula");
+        request.setLastName("Primary");
+        request.setEmail("paula." + UUID.randomUUID() + "@example.com");
+        return request;
+    }
+}
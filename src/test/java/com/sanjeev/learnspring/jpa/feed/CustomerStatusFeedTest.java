@@ -0,0 +1,239 @@
+package com.sanjeev.learnspring.jpa.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent.ChangeType;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import com.sanjeev.learnspring.jpa.shard.CustomerShards;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = {"ADMIN"})
+class CustomerStatusFeedTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerShards customerShards;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void tick_coalescesTransitionsPerCustomerAndRunsOneCountQuery() throws Exception {
+        CustomerStatusFeed feed = newFeed(64);
+        RecordingEmitter subscriber = new RecordingEmitter(null);
+        feed.register(subscriber);
+        try {
+            feed.onCustomerChanged(new CustomerChangedEvent(9001L, ChangeType.CREATED, Customer.CustomerStatus.ACTIVE));
+            feed.onCustomerChanged(new CustomerChangedEvent(9001L, ChangeType.STATUS_CHANGED, Customer.CustomerStatus.SUSPENDED));
+            feed.onCustomerChanged(new CustomerChangedEvent(9001L, ChangeType.STATUS_CHANGED, Customer.CustomerStatus.INACTIVE));
+            feed.onCustomerChanged(new CustomerChangedEvent(9002L, ChangeType.CREATED, Customer.CustomerStatus.ACTIVE));
+            feed.tick();
+            awaitTrue(() -> subscriber.frames().size() == 2);
+
+            List<String> frames = subscriber.frames();
+            assertThat(frames.get(0)).startsWith("event:counts").contains("\"byStatus\"");
+            assertThat(frames.get(1)).startsWith("event:transitions")
+                    .contains("\"customerId\":9001,\"changeType\":\"STATUS_CHANGED\",\"status\":\"INACTIVE\"")
+                    .contains("\"customerId\":9002")
+                    .doesNotContain("SUSPENDED");
+
+            // Nothing changed: the next tick neither queries nor sends
+            feed.tick();
+            assertThat(feed.getMetrics())
+                    .containsEntry("countQueries", 1L)
+                    .containsEntry("transitionsPublished", 2L)
+                    .containsEntry("transitionsCoalesced", 2L);
+            assertThat(subscriber.frames()).hasSize(2);
+        } finally {
+            feed.stop();
+        }
+    }
+
+    @Test
+    void slowSubscriber_isDisconnectedWithoutHoldingBackOthers() throws Exception {
+        CustomerStatusFeed feed = newFeed(2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        feed.register(slow);
+        feed.register(fast);
+        try {
+            int ticks = 6;
+            for (int tick = 1; tick <= ticks; tick++) {
+                feed.onCustomerChanged(new CustomerChangedEvent((long) tick, ChangeType.CREATED, Customer.CustomerStatus.ACTIVE));
+                feed.tick();
+                int expected = tick;
+                awaitTrue(() -> fast.transitionFrames() == expected);
+            }
+
+            assertThat(feed.getSubscriberCount()).isEqualTo(1);
+            assertThat(feed.getMetrics()).containsEntry("slowSubscribersDropped", 1L);
+
+            release.countDown();
+            awaitTrue(() -> slow.completed);
+            assertThat(slow.transitionFrames()).isLessThan(ticks);
+        } finally {
+            release.countDown();
+            feed.stop();
+        }
+    }
+
+    @Test
+    void stalledWrite_isDroppedAndItsSenderThreadReplaced() throws Exception {
+        StatusFeedProperties properties = new StatusFeedProperties();
+        properties.setSenderThreads(1);
+        properties.setWriteTimeout(100);
+        CustomerStatusFeed feed = new CustomerStatusFeed(customerRepository, customerShards, properties, objectMapper);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        feed.register(stalled);
+        feed.register(healthy);
+        try {
+            // The only sender thread blocks in the stalled subscriber's write
+            feed.tick();
+            awaitTrue(() -> stalled.sending);
+            feed.onCustomerChanged(new CustomerChangedEvent(9101L, ChangeType.CREATED, Customer.CustomerStatus.ACTIVE));
+            feed.tick();
+
+            awaitTrue(() -> {
+                feed.reapStalledWrites();
+                return healthy.transitionFrames() == 1;
+            });
+            assertThat(feed.getSubscriberCount()).isEqualTo(1);
+            assertThat(feed.getMetrics())
+                    .containsEntry("stalledSubscribersDropped", 1L)
+                    .containsEntry("senderThreads", 2);
+
+            // Once the write returns the stalled subscriber is completed and the pool shrinks back
+            release.countDown();
+            awaitTrue(() -> stalled.completed);
+            feed.reapStalledWrites();
+            assertThat(feed.getMetrics()).containsEntry("senderThreads", 1);
+        } finally {
+            release.countDown();
+            feed.stop();
+        }
+    }
+
+    @Test
+    void liveEndpoint_streamsCountsAndTransitionsOfCommittedChanges() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/customers/stats/live"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Stella");
+        request.setLastName("Status");
+        request.setEmail("stella." + UUID.randomUUID() + "@example.com");
+        CustomerResponseDTO created = customerService.createCustomer(request);
+        customerService.suspendCustomer(created.getId());
+
+        awaitTrue(() -> content(stream).contains("\"customerId\":" + created.getId()));
+        assertThat(content(stream)).contains("event:counts").contains("event:transitions");
+    }
+
+    private CustomerStatusFeed newFeed(int bufferSize) {
+        StatusFeedProperties properties = new StatusFeedProperties();
+        properties.setBufferSize(bufferSize);
+        return new CustomerStatusFeed(customerRepository, customerShards, properties, objectMapper);
+    }
+
+    private static String content(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    /**
+     * Captures frames as SSE text; with a latch every send blocks until it is released.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch release;
+        private final List<String> frames = new ArrayList<>();
+        private volatile boolean sending;
+        private volatile boolean completed;
+
+        private RecordingEmitter(CountDownLatch release) {
+            super(0L);
+            this.release = release;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            sending = true;
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder frame = new StringBuilder();
+            items.forEach(item -> frame.append(item.getData()));
+            synchronized (frames) {
+                frames.add(frame.toString());
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        private List<String> frames() {
+            synchronized (frames) {
+                return new ArrayList<>(frames);
+            }
+        }
+
+        private long transitionFrames() {
+            return frames().stream().filter(frame -> frame.startsWith("event:transitions")).count();
+        }
+    }
+}
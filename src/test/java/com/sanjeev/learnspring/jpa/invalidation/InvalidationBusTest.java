@@ -0,0 +1,190 @@
+package com.sanjeev.learnspring.jpa.invalidation;
+
+import com.sanjeev.learnspring.jpa.cache.CustomerRecordStore;
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.event.CustomersInvalidatedEvent;
+import com.sanjeev.learnspring.jpa.event.CustomersPurgedEvent;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Invalidation bus: changes committed on one instance reach the others through the
+ * database transport, and a receiver that loses a message drops everything.
+ */
+@SpringBootTest(properties = {
+        "app.invalidation.transport=database",
+        "app.invalidation.linger-time=0",
+        "app.invalidation.heartbeat-interval=60000",
+        "app.invalidation.database.poll-interval=20"
+})
+class InvalidationBusTest {
+
+    @Autowired
+    private InvalidationBus bus;
+
+    @Autowired
+    private InvalidationProperties properties;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRecordStore recordStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void message_roundTripsThroughTheWireFormat() {
+        InvalidationMessage message = new InvalidationMessage(42, 7, 1_000, 2_000, List.of(
+                new InvalidationMessage.Entry(InvalidationMessage.EntityType.CUSTOMER, 5, 3),
+                new InvalidationMessage.Entry(InvalidationMessage.EntityType.CUSTOMER, 6, InvalidationMessage.GONE)));
+
+        byte[] bytes = message.encode();
+        InvalidationMessage decoded = InvalidationMessage.decode(bytes);
+
+        assertThat(bytes).hasSize(InvalidationMessage.HEADER_BYTES + 2 * InvalidationMessage.ENTRY_BYTES);
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(message);
+        assertThatThrownBy(() -> InvalidationMessage.decode(new byte[]{1, 2, 3}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> InvalidationMessage.decode(Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void committedChanges_reachAnotherInstance() throws InterruptedException {
+        List<CustomersInvalidatedEvent> events = new CopyOnWriteArrayList<>();
+        InvalidationBus remote = new InvalidationBus(
+                Optional.of(new DatabaseInvalidationTransport(jdbcTemplate, properties)), properties,
+                event -> events.add((CustomersInvalidatedEvent) event));
+        remote.start();
+        try {
+            CustomerResponseDTO created = customerService.createCustomer(newCustomer());
+
+            await(() -> events.stream().anyMatch(event -> event.getVersions().containsKey(created.getId())));
+            assertThat(events).noneMatch(CustomersInvalidatedEvent::isAll);
+            assertThat(events.stream().filter(event -> event.getVersions().containsKey(created.getId())))
+                    .singleElement()
+                    .satisfies(event -> assertThat(event.getVersions().get(created.getId()))
+                            .isEqualTo(created.getVersion()));
+            assertThat((Long) remote.getStatus().get("entriesApplied")).isPositive();
+        } finally {
+            remote.stop();
+        }
+    }
+
+    @Test
+    void remoteChanges_evictLocalCopies() throws InterruptedException {
+        await(recordStore::isReady);
+        CustomerResponseDTO created = customerService.createCustomer(newCustomer());
+        assertThat(recordStore.findById(created.getId())).isNotNull();
+        InvalidationBus remote = new InvalidationBus(
+                Optional.of(new DatabaseInvalidationTransport(jdbcTemplate, properties)), properties, event -> { });
+        remote.start();
+        try {
+            remote.onCustomersPurged(new CustomersPurgedEvent(List.of(created.getId())));
+
+            await(() -> recordStore.findById(created.getId()) == null);
+            assertThat(recordStore.findById(created.getId())).isNull();
+        } finally {
+            remote.stop();
+        }
+    }
+
+    @Test
+    void lostMessage_flushesTheReceiver() throws InterruptedException {
+        LinkedTransports link = new LinkedTransports();
+        List<CustomersInvalidatedEvent> events = new CopyOnWriteArrayList<>();
+        InvalidationBus sender = new InvalidationBus(Optional.of(link.transport()), properties, event -> { });
+        InvalidationBus receiver = new InvalidationBus(Optional.of(link.transport()), properties,
+                event -> events.add((CustomersInvalidatedEvent) event));
+        sender.start();
+        receiver.start();
+        try {
+            sender.onCustomersPurged(new CustomersPurgedEvent(List.of(1L, 2L)));
+            Map<Long, Long> versions = new ConcurrentHashMap<>();
+            await(() -> {
+                events.forEach(event -> versions.putAll(event.getVersions()));
+                return versions.size() == 2;
+            });
+            assertThat(versions).isEqualTo(Map.of(1L, InvalidationMessage.GONE, 2L, InvalidationMessage.GONE));
+            assertThat(events).noneMatch(CustomersInvalidatedEvent::isAll);
+
+            link.dropNext = true;
+            sender.onCustomersPurged(new CustomersPurgedEvent(List.of(3L)));
+            await(() -> !link.dropNext);
+            sender.onCustomersPurged(new CustomersPurgedEvent(List.of(4L)));
+
+            await(() -> events.stream().anyMatch(CustomersInvalidatedEvent::isAll));
+            assertThat(events).noneMatch(event -> event.getVersions().containsKey(4L));
+            assertThat(receiver.getStatus()).containsEntry("gaps", 1L).containsEntry("flushes", 1L);
+        } finally {
+            sender.stop();
+            receiver.stop();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static CustomerRequestDTO newCustomer() {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Ines");
+        request.setLastName("Invalid");
+        request.setEmail("ines." + UUID.randomUUID() + "@example.com");
+        return request;
+    }
+
+    /**
+     * In-memory transports delivering each message to all others, unless told to lose one.
+     */
+    private static final class LinkedTransports {
+
+        private final List<Consumer<byte[]>> receivers = new CopyOnWriteArrayList<>();
+        private volatile boolean dropNext;
+
+        InvalidationTransport transport() {
+            return new InvalidationTransport() {
+                @Override
+                public void start(long nodeId, Consumer<byte[]> receiver) {
+                    receivers.add(receiver);
+                }
+
+                @Override
+                public void send(byte[] message) {
+                    if (dropNext && !InvalidationMessage.decode(message).isHeartbeat()) {
+                        dropNext = false;
+                        return;
+                    }
+                    receivers.forEach(receiver -> receiver.accept(message));
+                }
+
+                @Override
+                public void stop() {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerUpdateDTO;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.exception.CustomerNotFoundException;
+import com.sanjeev.learnspring.jpa.exception.DuplicateEmailException;
+import com.sanjeev.learnspring.jpa.repository.CustomerArchiveRepository;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Archiving: only cold customers move, each into exactly one table, and reads by id and
+ * email still find them.
+ */
+@SpringBootTest(properties = {
+        "app.customers.archive.enabled=false",
+        "app.customers.archive.batch-size=2",
+        "app.customers.archive.pause=0",
+        "app.customers.archive.inactive-days=30"
+})
+class CustomerArchiverTest {
+
+    @Autowired
+    private CustomerArchiver archiver;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerArchiveRepository archiveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> created = new ArrayList<>();
+
+    @Test
+    void archive_movesDeletedAndLongInactiveCustomers() throws Exception {
+        Long deleted = createCustomer(Customer.CustomerStatus.DELETED);
+        Long deletedToo = createCustomer(Customer.CustomerStatus.DELETED);
+        Long deletedAsWell = createCustomer(Customer.CustomerStatus.DELETED);
+        Long recentlyInactive = createCustomer(Customer.CustomerStatus.INACTIVE);
+        Long longInactive = createCustomer(Customer.CustomerStatus.INACTIVE);
+        Long active = createCustomer(Customer.CustomerStatus.ACTIVE);
+        jdbcTemplate.update("UPDATE customers SET updated_at = ? WHERE id = ?",
+                LocalDateTime.now().minusDays(31), longInactive);
+
+        assertThat(archiver.archive()).isGreaterThanOrEqualTo(4);
+
+        assertThat(customerRepository.findAllById(List.of(deleted, deletedToo, deletedAsWell, longInactive)))
+                .isEmpty();
+        assertThat(customerRepository.findById(recentlyInactive)).isPresent();
+        assertThat(customerRepository.findById(active)).isPresent();
+        assertThat(archiveRepository.findById(deleted)).isPresent();
+        assertThat(archiveRepository.findById(longInactive)).isPresent();
+        assertThat(archiveRepository.findById(recentlyInactive)).isEmpty();
+        assertThat(archiveRepository.findById(active)).isEmpty();
+    }
+
+    @Test
+    void reads_fallBackToTheArchive() throws Exception {
+        Long id = createCustomer(Customer.CustomerStatus.DELETED);
+        CustomerResponseDTO before = customerService.getCustomerById(id);
+
+        archiver.archive();
+
+        assertThat(customerRepository.findById(id)).isEmpty();
+        CustomerResponseDTO archived = customerService.getCustomerById(id);
+        assertThat(archived.getEmail()).isEqualTo(before.getEmail());
+        assertThat(archived.getStatus()).isEqualTo("DELETED");
+        assertThat(archived.getVersion()).isEqualTo(before.getVersion());
+        assertThat(customerService.getCustomerByEmail(before.getEmail()).getId()).isEqualTo(id);
+        assertThatThrownBy(() -> customerService.getCustomerById(-1L))
+                .isInstanceOf(CustomerNotFoundException.class);
+    }
+
+    @Test
+    void writes_moveArchivedCustomersBack() throws Exception {
+        Long dormant = createCustomer(Customer.CustomerStatus.INACTIVE);
+        Long edited = createCustomer(Customer.CustomerStatus.INACTIVE);
+        jdbcTemplate.update("UPDATE customers SET updated_at = ? WHERE id IN (?, ?)",
+                LocalDateTime.now().minusDays(31), dormant, edited);
+        archiver.archive();
+        assertThat(customerRepository.findAllById(List.of(dormant, edited))).isEmpty();
+        long version = customerService.getCustomerById(dormant).getVersion();
+
+        CustomerResponseDTO activated = customerService.activateCustomer(dormant);
+        assertThat(activated.getStatus()).isEqualTo("ACTIVE");
+        assertThat(activated.getVersion()).isEqualTo(version + 1);
+        assertThat(customerRepository.findById(dormant)).isPresent();
+        assertThat(archiveRepository.findById(dormant)).isEmpty();
+
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setCity("Revived");
+        assertThat(customerService.updateCustomer(edited, update).getCity()).isEqualTo("Revived");
+        assertThat(customerRepository.findById(edited)).isPresent();
+        assertThat(archiveRepository.findById(edited)).isEmpty();
+    }
+
+    @Test
+    void restoringACustomerWhoseEmailWasTaken_failsAsADuplicateEmail() throws Exception {
+        Long dormant = createCustomer(Customer.CustomerStatus.INACTIVE);
+        String email = customerService.getCustomerById(dormant).getEmail();
+        jdbcTemplate.update("UPDATE customers SET updated_at = ? WHERE id = ?",
+                LocalDateTime.now().minusDays(31), dormant);
+        archiver.archive();
+        CustomerRequestDTO newcomer = new CustomerRequestDTO();
+        newcomer.setFirstName("Nils");
+        newcomer.setLastName("Newcomer");
+        newcomer.setEmail(email);
+        customerService.createCustomer(newcomer);
+
+        assertThatThrownBy(() -> customerService.activateCustomer(dormant))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertThat(archiveRepository.findById(dormant)).isPresent();
+    }
+
+    @AfterEach
+    void removeArchivedCustomers() {
+        // Other contexts sharing the database may hand out the same ids again
+        for (Long id : created) {
+            jdbcTemplate.update("DELETE FROM customers_archive WHERE id = ?", id);
+        }
+    }
+
+    private Long createCustomer(Customer.CustomerStatus status) {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Arne");
+        request.setLastName("Archive");
+        request.setEmail("arne." + UUID.randomUUID() + "@example.com");
+        Long id = customerService.createCustomer(request).getId();
+        created.add(id);
+        if (status != Customer.CustomerStatus.ACTIVE) {
+            customerService.updateCustomerStatus(id, status, null);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,180 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.repository.CustomerArchiveRepository;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chunked purge: only the requested statuses go, each with a DELETED outbox entry, from
+ * customers and the archive alike, and an interrupted run continues from its recorded progress.
+ */
+@SpringBootTest(properties = {
+        "app.customers.purge.batch-size=2",
+        "app.customers.purge.pause=0",
+        "app.customers.purge.duty-cycle=1.0",
+        "app.customers.purge.resume-on-startup=false",
+        "app.customers.archive.enabled=false",
+        "app.customers.archive.pause=0"
+})
+class CustomerPurgeTest {
+
+    @Autowired
+    private CustomerPurge purge;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerArchiver archiver;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerArchiveRepository archiveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void purge_deletesRequestedStatusesInChunksWithOutboxEntries() throws Exception {
+        List<Long> deleted = createCustomers(3, Customer.CustomerStatus.DELETED);
+        List<Long> inactive = createCustomers(2, Customer.CustomerStatus.INACTIVE);
+        List<Long> active = createCustomers(1, Customer.CustomerStatus.ACTIVE);
+
+        long runId = purge.purge(List.of(Customer.CustomerStatus.DELETED));
+
+        assertThat(customerRepository.findAllById(deleted)).isEmpty();
+        assertThat(customerRepository.findAllById(inactive)).hasSize(2);
+        assertThat(customerRepository.findAllById(active)).hasSize(1);
+        Map<String, Object> run = purge.getRun(runId);
+        assertThat(run.get("state")).isEqualTo("COMPLETED");
+        assertThat((Long) run.get("deleted")).isGreaterThanOrEqualTo(3);
+        assertThat((Long) run.get("chunks")).isGreaterThanOrEqualTo(2);
+        for (Long id : deleted) {
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer_outbox "
+                    + "WHERE customer_id = ? AND change_type = 'DELETED'", Long.class, id)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void purge_afterAnArchivePass_deletesArchivedCustomersToo() throws Exception {
+        List<Long> deleted = createCustomers(2, Customer.CustomerStatus.DELETED);
+        List<Long> dormant = createCustomers(1, Customer.CustomerStatus.INACTIVE);
+        jdbcTemplate.update("UPDATE customers SET updated_at = ? WHERE id = ?",
+                LocalDateTime.now().minusDays(31), dormant.get(0));
+        archiver.archive();
+        assertThat(customerRepository.findAllById(deleted)).isEmpty();
+        assertThat(archiveRepository.findById(deleted.get(0))).isPresent();
+
+        try {
+            purge.purge(List.of(Customer.CustomerStatus.DELETED));
+
+            for (Long id : deleted) {
+                assertThat(archiveRepository.findById(id)).isEmpty();
+                assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer_outbox "
+                        + "WHERE customer_id = ? AND change_type = 'DELETED'", Long.class, id)).isEqualTo(1);
+            }
+            assertThat(archiveRepository.findById(dormant.get(0))).isPresent();
+        } finally {
+            // Other contexts sharing the database may hand out the same id again
+            jdbcTemplate.update("DELETE FROM customers_archive WHERE id = ?", dormant.get(0));
+        }
+    }
+
+    @Test
+    void resume_continuesFromRecordedProgress() throws Exception {
+        List<Long> ids = createCustomers(4, Customer.CustomerStatus.INACTIVE);
+        // A run that had processed everything below the third customer when the process stopped
+        jdbcTemplate.update("INSERT INTO customer_purge_runs (statuses, state, next_id, max_id, deleted, chunks, "
+                + "started_at, updated_at) VALUES ('INACTIVE', 'RUNNING', ?, ?, 0, 0, LOCALTIMESTAMP, LOCALTIMESTAMP)",
+                ids.get(2), ids.get(3));
+
+        assertThat(purge.resume()).isGreaterThanOrEqualTo(2);
+
+        assertThat(customerRepository.findAllById(ids.subList(0, 2))).hasSize(2);
+        assertThat(customerRepository.findAllById(ids.subList(2, 4))).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM customer_purge_runs WHERE state = 'RUNNING'", Long.class)).isZero();
+    }
+
+    @Test
+    void startPurge_rejectsActiveCustomersAndConcurrentRuns() {
+        assertThatThrownBy(() -> purge.startPurge(List.of(Customer.CustomerStatus.ACTIVE)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        jdbcTemplate.update("INSERT INTO customer_purge_runs (statuses, state, next_id, max_id, deleted, chunks, "
+                + "started_at, updated_at) VALUES ('DELETED', 'RUNNING', 1, 0, 0, 0, LOCALTIMESTAMP, LOCALTIMESTAMP)");
+        try {
+            assertThatThrownBy(() -> purge.startPurge(null)).isInstanceOf(IllegalStateException.class);
+        } finally {
+            assertThat(purge.cancel()).isTrue();
+        }
+    }
+
+    @Test
+    void startPurge_waitsForARunBeingStartedElsewhere() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        // Another instance between locking and committing its new run
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+                    jdbcTemplate.queryForObject("SELECT id FROM customer_purge_lock WHERE id = 1 FOR UPDATE",
+                            Integer.class);
+                    jdbcTemplate.update("INSERT INTO customer_purge_runs (statuses, state, next_id, max_id, deleted, "
+                            + "chunks, started_at, updated_at) VALUES ('DELETED', 'RUNNING', 1, 0, 0, 0, "
+                            + "LOCALTIMESTAMP, LOCALTIMESTAMP)");
+                    locked.countDown();
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        try {
+            assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThatThrownBy(() -> purge.startPurge(null)).isInstanceOf(IllegalStateException.class);
+        } finally {
+            other.get(5, TimeUnit.SECONDS);
+            assertThat(purge.cancel()).isTrue();
+        }
+    }
+
+    private List<Long> createCustomers(int count, Customer.CustomerStatus status) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CustomerRequestDTO request = new CustomerRequestDTO();
+            request.setFirstName("Petra");
+            request.setLastName("Purge");
+            request.setEmail("petra." + UUID.randomUUID() + "@example.com");
+            Long id = customerService.createCustomer(request).getId();
+            if (status != Customer.CustomerStatus.ACTIVE) {
+                customerService.updateCustomerStatus(id, status, null);
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+}
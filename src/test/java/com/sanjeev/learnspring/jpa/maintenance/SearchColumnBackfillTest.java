@@ -0,0 +1,126 @@
+package com.sanjeev.learnspring.jpa.maintenance;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerUpdateDTO;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Folded search columns: kept by the entity callbacks, and filled by the backfill for
+ * rows written without them.
+ */
+@SpringBootTest(properties = {
+        "app.customers.backfill.enabled=false",
+        "app.customers.backfill.batch-size=2",
+        "app.customers.backfill.pause=0"
+})
+class SearchColumnBackfillTest {
+
+    @Autowired
+    private SearchColumnBackfill backfill;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void backfill_fillsLegacyRows() throws Exception {
+        String city = "Reykjavik-" + UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < 5; i++) {
+            insertWithoutSearchColumns("Bjork", "Backfill", city);
+        }
+
+        long batchesBefore = backfill.getBatches();
+        assertThat(backfill.backfill()).isGreaterThanOrEqualTo(5);
+        assertThat(backfill.getBatches()).isGreaterThanOrEqualTo(batchesBefore + 3);
+
+        assertThat(customerRepository.findByCityIgnoreCase(city.toUpperCase())).hasSize(5);
+        assertThat(customerRepository.findByFullName("Bjork Backfill")).hasSizeGreaterThanOrEqualTo(5);
+        assertThat(customerRepository.findByFullName("bjork backfill")).isEmpty();
+        assertThat(customerRepository.searchCustomers("BACKF"))
+                .anyMatch(customer -> city.equals(customer.getCity()));
+
+        // Nothing left for a second run
+        assertThat(backfill.backfill()).isZero();
+    }
+
+    @Test
+    void queries_findRowsTheBackfillHasNotReachedYet() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String city = "Akureyri-" + suffix;
+        String lastName = "Partial" + suffix;
+        insertWithoutSearchColumns("Hekla", lastName, city);
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Hekla");
+        request.setLastName(lastName);
+        request.setEmail("hekla." + suffix + "@example.com");
+        request.setCity(city);
+        customerService.createCustomer(request);
+
+        // One row folded by the entity callbacks, one still NULL
+        assertThat(customerRepository.findByCityIgnoreCase(city.toUpperCase())).hasSize(2);
+        assertThat(customerRepository.findByFullName("Hekla " + lastName)).hasSize(2);
+        assertThat(customerRepository.findByFullName("hekla " + lastName.toLowerCase())).isEmpty();
+        // Contains, not just starts with
+        assertThat(customerRepository.searchCustomers(suffix.toUpperCase())).hasSize(2);
+        assertThat(customerRepository.searchCustomers("artial" + suffix)).hasSize(2);
+    }
+
+    @Test
+    void entityWrites_keepSearchColumnsInStep() {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Folke");
+        request.setLastName("Folded");
+        request.setEmail("Folke." + UUID.randomUUID() + "@Example.com");
+        request.setCity("Uppsala");
+        CustomerResponseDTO created = customerService.createCustomer(request);
+
+        assertThat(customerRepository.findByCityIgnoreCase("UPPSALA"))
+                .extracting(Customer::getId).contains(created.getId());
+        assertThat(customerRepository.searchCustomers("folke."))
+                .extracting(Customer::getId).contains(created.getId());
+
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setCity("Malmo");
+        customerService.updateCustomer(created.getId(), update);
+
+        assertThat(customerRepository.findByCityIgnoreCase("uppsala"))
+                .extracting(Customer::getId).doesNotContain(created.getId());
+        assertThat(customerRepository.findByCityIgnoreCase("MALMO"))
+                .extracting(Customer::getId).contains(created.getId());
+    }
+
+    private void insertWithoutSearchColumns(String firstName, String lastName, String city) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO customers "
+                     + "(first_name, last_name, email, city, status, created_at, updated_at, version) "
+                     + "VALUES (?, ?, ?, ?, 'ACTIVE', ?, ?, 0)")) {
+            LocalDateTime now = LocalDateTime.now();
+            statement.setString(1, firstName);
+            statement.setString(2, lastName);
+            statement.setString(3, "legacy." + UUID.randomUUID() + "@example.com");
+            statement.setString(4, city);
+            statement.setObject(5, now);
+            statement.setObject(6, now);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.sanjeev.learnspring.jpa.outbox;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.entity.CustomerOutboxEntry;
+import com.sanjeev.learnspring.jpa.event.CustomerChangedEvent.ChangeType;
+import com.sanjeev.learnspring.jpa.repository.CustomerOutboxRepository;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = {"ADMIN"})
+class CustomerOutboxTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void everyMutation_isRelayedWithConsecutiveSequenceNumbers() throws Exception {
+        long start = outboxRepository.findMaxSeq();
+
+        CustomerResponseDTO created = customerService.createCustomer(newCustomer());
+        customerService.suspendCustomer(created.getId());
+        customerService.deleteCustomer(created.getId());
+        awaitTrue(() -> changesFor(created.getId(), start).size() == 3);
+
+        List<CustomerOutboxEntry> entries = changesFor(created.getId(), start);
+        assertThat(entries).extracting(CustomerOutboxEntry::getChangeType)
+                .containsExactly(ChangeType.CREATED, ChangeType.STATUS_CHANGED, ChangeType.DELETED);
+        assertThat(entries.get(0).getPayload()).contains(created.getEmail());
+        assertThat(entries.get(2).getPayload()).isNull();
+
+        List<Long> seqs = outboxRepository.findBySeqGreaterThanOrderBySeqAsc(start, PageRequest.of(0, 10_000))
+                .stream().map(CustomerOutboxEntry::getSeq).toList();
+        for (int i = 0; i < seqs.size(); i++) {
+            assertThat(seqs.get(i)).isEqualTo(start + i + 1);
+        }
+    }
+
+    @Test
+    void rolledBackChange_leavesNoOutboxEntryAndNoGap() throws Exception {
+        long start = outboxRepository.findMaxSeq();
+        String email = "rollback-" + UUID.randomUUID() + "@example.com";
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            CustomerRequestDTO rolledBack = newCustomer();
+            rolledBack.setEmail(email);
+            customerService.createCustomer(rolledBack);
+            status.setRollbackOnly();
+        });
+        CustomerResponseDTO committed = customerService.createCustomer(newCustomer());
+        awaitCreated(committed);
+
+        assertThat(outboxRepository.findAll()).noneMatch(entry ->
+                entry.getPayload() != null && entry.getPayload().contains(email));
+        assertThat(outboxRepository.countBySeqIsNull()).isZero();
+        assertThat(outboxRepository.findMaxSeq()).isEqualTo(outboxRepository.count());
+    }
+
+    @Test
+    void changesEndpoint_streamsFromSinceAsServerSentEvents() throws Exception {
+        CustomerResponseDTO before = customerService.createCustomer(newCustomer());
+        awaitCreated(before);
+        long since = outboxRepository.findMaxSeq();
+
+        MvcResult stream = mockMvc.perform(get("/api/customers/changes").param("since", String.valueOf(since)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        CustomerResponseDTO after = customerService.createCustomer(newCustomer());
+
+        awaitTrue(() -> content(stream).contains("\"customerId\":" + after.getId()));
+        String body = content(stream);
+        assertThat(body).contains("id:" + (since + 1)).contains("event:CREATED");
+        assertThat(body).doesNotContain("\"customerId\":" + before.getId() + ",");
+    }
+
+    /**
+     * Waits until the customer's CREATED entry is sequenced. Matched on the email too:
+     * ids restart when other tests truncate customers, the outbox keeps older entries.
+     */
+    private void awaitCreated(CustomerResponseDTO customer) throws InterruptedException {
+        awaitTrue(() -> changesFor(customer.getId(), 0).stream().anyMatch(entry ->
+                entry.getPayload() != null && entry.getPayload().contains(customer.getEmail())));
+    }
+
+    private List<CustomerOutboxEntry> changesFor(Long customerId, long afterSeq) {
+        return outboxRepository.findBySeqGreaterThanOrderBySeqAsc(afterSeq, PageRequest.of(0, 10_000)).stream()
+                .filter(entry -> entry.getCustomerId().equals(customerId))
+                .toList();
+    }
+
+    private static String content(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static CustomerRequestDTO newCustomer() {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Otto");
+        request.setLastName("Outbox");
+        request.setEmail("otto." + UUID.randomUUID() + "@example.com");
+        return request;
+    }
+}
@@ -0,0 +1,227 @@
+package com.sanjeev.learnspring.jpa.repository;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression tests: runs EXPLAIN on the SQL of every CustomerRepository query
+ * against a seeded database of its own, and fails when a query no longer uses its index.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plans;DB_CLOSE_DELAY=-1",
+        "app.seed.enabled=true",
+        "app.seed.count=20000",
+        "app.seed.threads=2",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.sanjeev.learnspring.jpa.repository.CustomerQueryPlanTest$CapturingInspector"
+})
+class CustomerQueryPlanTest {
+
+    // Queries that cannot use a B-tree index: a leading wildcard
+    private static final Set<String> KNOWN_SCANS = Set.of("findByEmailContaining", "searchCustomers");
+
+    private static final Set<String> PLANNED = Set.of(
+            "findByEmail", "existsByEmail", "findByFirstName", "findByFirstNameStartingWith",
+            "findByLastName", "findByFirstNameAndLastName", "findByCity", "findByCityAndStatus",
+            "findByStatus", "countByStatus", "countGroupedByStatus",
+            "findByStatusOrderByLastNameAsc", "findRecentCustomersByStatus",
+            "findByDateOfBirthAfter", "findCustomersCreatedAfter",
+            "findByCityIgnoreCase", "findByFullName",
+            "updateStatusReturning", "deleteCustomerById");
+
+    private static final Pattern DELTA_TABLE = Pattern.compile("(?is)\\s*SELECT .* FROM FINAL TABLE \\((.*)\\)\\s*");
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void startCapturing() {
+        CapturingInspector.CAPTURED.set(new ArrayList<>());
+    }
+
+    @AfterEach
+    void stopCapturing() {
+        CapturingInspector.CAPTURED.remove();
+    }
+
+    @Test
+    void everyRepositoryQuery_hasAPlanCheck() {
+        Set<String> declared = Arrays.stream(CustomerRepository.class.getDeclaredMethods())
+                .map(Method::getName)
+                .filter(name -> !name.equals("truncate"))
+                .collect(Collectors.toSet());
+
+        assertThat(declared).containsExactlyInAnyOrderElementsOf(
+                union(PLANNED, KNOWN_SCANS));
+    }
+
+    @Test
+    void emailLookups_useTheUniqueConstraintIndex() throws Exception {
+        assertThat(plan(() -> customerRepository.findByEmail("mary.smith.7@seed.example.com"),
+                "mary.smith.7@seed.example.com")).contains("UK_CUSTOMERS_EMAIL").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.existsByEmail("mary.smith.7@seed.example.com"),
+                "mary.smith.7@seed.example.com")).contains("UK_CUSTOMERS_EMAIL").doesNotContain("tableScan");
+    }
+
+    @Test
+    void nameLookups_useNameIndexes() throws Exception {
+        assertThat(plan(() -> customerRepository.findByFirstName("Mary"), "Mary"))
+                .contains("IDX_CUSTOMERS_FIRST_NAME").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.findByFirstNameStartingWith("Ma"), "Ma%"))
+                .contains("IDX_CUSTOMERS_FIRST_NAME").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.findByLastName("Smith"), "Smith"))
+                .contains("IDX_CUSTOMERS_LAST_NAME_FIRST_NAME").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.findByFirstNameAndLastName("Mary", "Smith"), "Mary", "Smith"))
+                .contains("IDX_CUSTOMERS_LAST_NAME_FIRST_NAME").doesNotContain("tableScan");
+    }
+
+    @Test
+    void cityLookups_useCityStatusIndex() throws Exception {
+        assertThat(plan(() -> customerRepository.findByCity("Denver"), "Denver"))
+                .contains("IDX_CUSTOMERS_CITY_STATUS").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.findByCityAndStatus("Denver", Customer.CustomerStatus.ACTIVE),
+                "Denver", "ACTIVE"))
+                .contains("IDX_CUSTOMERS_CITY_STATUS").doesNotContain("tableScan");
+    }
+
+    @Test
+    void statusQueries_useStatusIndexes() throws Exception {
+        Customer.CustomerStatus status = Customer.CustomerStatus.DELETED;
+        assertThat(plan(() -> customerRepository.findByStatus(status), "DELETED"))
+                .contains("IDX_CUSTOMERS_STATUS_").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.countByStatus(status), "DELETED"))
+                .contains("IDX_CUSTOMERS_STATUS_").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.findByStatusOrderByLastNameAsc(status), "DELETED"))
+                .contains("IDX_CUSTOMERS_STATUS_LAST_NAME").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.findRecentCustomersByStatus("DELETED", 10), "DELETED", 10))
+                .contains("IDX_CUSTOMERS_STATUS_CREATED_AT").contains("index sorted")
+                .doesNotContain("tableScan");
+        // No filter: every row is counted, but status is read from a covering index, not the table
+        assertThat(plan(() -> customerRepository.countGroupedByStatus()))
+                .contains("IDX_CUSTOMERS_").doesNotContain("tableScan");
+    }
+
+    @Test
+    void dateRanges_useDateIndexes() throws Exception {
+        LocalDate bornAfter = LocalDate.of(1999, 6, 1);
+        assertThat(plan(() -> customerRepository.findByDateOfBirthAfter(bornAfter), bornAfter))
+                .contains("IDX_CUSTOMERS_DATE_OF_BIRTH").doesNotContain("tableScan");
+        LocalDateTime createdAfter = LocalDateTime.of(2024, 12, 1, 0, 0);
+        assertThat(plan(() -> customerRepository.findCustomersCreatedAfter(createdAfter), createdAfter))
+                .contains("IDX_CUSTOMERS_CREATED_AT").doesNotContain("tableScan");
+    }
+
+    @Test
+    void caseInsensitiveQueries_useFoldedColumnIndexes() throws Exception {
+        // Both branches, folded and not yet backfilled, are driven by the folded column's index
+        assertThat(plan(() -> customerRepository.findByCityIgnoreCase("DENVER"), "DENVER", "DENVER"))
+                .contains("IDX_CUSTOMERS_CITY_FOLDED").doesNotContain("tableScan");
+        assertThat(plan(() -> customerRepository.findByFullName("Mary Smith"),
+                "Mary Smith", "Mary Smith", "Mary Smith"))
+                .contains("IDX_CUSTOMERS_FULL_NAME_FOLDED").doesNotContain("tableScan");
+    }
+
+    @Test
+    void writesById_usePrimaryKey() throws Exception {
+        Long id = customerRepository.findRecentCustomersByStatus("ACTIVE", 1).get(0).getId();
+        TransactionTemplate rollback = new TransactionTemplate(transactionManager);
+        assertThat(plan(() -> rollback.executeWithoutResult(tx -> {
+            customerRepository.updateStatusReturning(id, "SUSPENDED", null);
+            tx.setRollbackOnly();
+        }), "SUSPENDED", id, null, null)).contains("PRIMARY_KEY").doesNotContain("tableScan");
+        assertThat(plan(() -> rollback.executeWithoutResult(tx -> {
+            customerRepository.deleteCustomerById(id);
+            tx.setRollbackOnly();
+        }), id)).contains("PRIMARY_KEY").doesNotContain("tableScan");
+    }
+
+    @Test
+    void knownScans_stillScan() throws Exception {
+        // If one of these starts using an index, move it to PLANNED with a real check
+        assertThat(plan(() -> customerRepository.findByEmailContaining("smith"), "%smith%"))
+                .contains("tableScan");
+        assertThat(plan(() -> customerRepository.searchCustomers("mit"), "mit", "mit", "mit"))
+                .contains("tableScan");
+    }
+
+    /**
+     * Runs the repository call, then EXPLAINs the first statement it issued with the given
+     * parameter values bound in order.
+     */
+    private String plan(Runnable repositoryCall, Object... parameters) throws Exception {
+        CapturingInspector.CAPTURED.get().clear();
+        repositoryCall.run();
+        String sql = CapturingInspector.CAPTURED.get().stream()
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statement captured"));
+        // EXPLAIN of a data change delta table only shows the scan of the delta; plan the change itself
+        Matcher deltaTable = DELTA_TABLE.matcher(sql);
+        if (deltaTable.matches()) {
+            sql = deltaTable.group(1);
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                explain.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet result = explain.executeQuery()) {
+                assertThat(result.next()).isTrue();
+                return result.getString(1);
+            }
+        }
+    }
+
+    private static Set<String> union(Set<String> first, Set<String> second) {
+        Set<String> union = new HashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    /**
+     * Records the SQL Hibernate prepares on the test thread.
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> captured = CAPTURED.get();
+            if (captured != null) {
+                captured.add(sql);
+            }
+            return sql;
+        }
+    }
+}
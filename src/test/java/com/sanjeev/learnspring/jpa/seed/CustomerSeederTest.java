@@ -0,0 +1,61 @@
+package com.sanjeev.learnspring.jpa.seed;
+
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.seed.enabled=true",
+        "app.seed.count=5000",
+        "app.seed.batch-size=250",
+        "app.seed.threads=3"
+})
+class CustomerSeederTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SeedProperties seedProperties;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void seeder_replacesDataInitializerAndWritesAllRows() {
+        assertThat(context.containsBean("dataInitializer")).isFalse();
+        assertThat(customerRepository.count()).isEqualTo(5000);
+        assertThat(context.getBean(CustomerSeeder.class).getLastRowsPerSecond()).isPositive();
+    }
+
+    @Test
+    void generator_isDeterministicForSameSeed() {
+        SyntheticCustomerGenerator first = new SyntheticCustomerGenerator(seedProperties);
+        SyntheticCustomerGenerator second = new SyntheticCustomerGenerator(seedProperties);
+
+        for (long index = 0; index < 100; index++) {
+            Customer a = first.generate(index);
+            Customer b = second.generate(index);
+            assertThat(a.getEmail()).isEqualTo(b.getEmail());
+            assertThat(a.getCity()).isEqualTo(b.getCity());
+            assertThat(a.getStatus()).isEqualTo(b.getStatus());
+            assertThat(a.getCreatedAt()).isEqualTo(b.getCreatedAt());
+        }
+    }
+
+    @Test
+    void seededData_followsConfiguredSkew() {
+        String topCity = seedProperties.getCities().get(0);
+        String lastCity = seedProperties.getCities().get(seedProperties.getCities().size() - 1);
+
+        assertThat(customerRepository.findByCity(topCity).size())
+                .isGreaterThan(customerRepository.findByCity(lastCity).size());
+        assertThat(customerRepository.countByStatus(Customer.CustomerStatus.ACTIVE))
+                .isGreaterThan(customerRepository.countByStatus(Customer.CustomerStatus.DELETED));
+    }
+}
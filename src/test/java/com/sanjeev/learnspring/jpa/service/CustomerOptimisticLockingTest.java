@@ -0,0 +1,142 @@
+package com.sanjeev.learnspring.jpa.service;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerUpdateDTO;
+import com.sanjeev.learnspring.jpa.exception.CustomerUpdateConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Versioned updates: If-Match preconditions and retries of field-disjoint concurrent updates.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = {"ADMIN"})
+class CustomerOptimisticLockingTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void put_withCurrentIfMatch_succeedsAndStaleIfMatch_isRejected() throws Exception {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+        String path = "/api/customers/" + customer.getId();
+        String eTag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String newETag = mockMvc.perform(put(path).header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"city\":\"Lisbon\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city").value("Lisbon"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newETag).isNotEqualTo(eTag);
+
+        mockMvc.perform(put(path).header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"city\":\"Porto\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, newETag));
+        mockMvc.perform(patch(path + "/suspend").header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch(path + "/suspend").header(HttpHeaders.IF_MATCH, newETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUSPENDED"))
+                .andExpect(jsonPath("$.city").value("Lisbon"));
+    }
+
+    @Test
+    void concurrentUpdateOfOtherField_isRetriedAndBothChangesSurvive() throws Exception {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+        long retriesBefore = customerService.getUpdateRetries();
+
+        CompletableFuture<Void> concurrentWriter = updateConcurrently(customer.getId(), "phone", "15550001111");
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setFirstName("Renamed");
+        CustomerResponseDTO updated = customerService.updateCustomer(customer.getId(), update);
+        concurrentWriter.get(5, TimeUnit.SECONDS);
+
+        assertThat(updated.getFirstName()).isEqualTo("Renamed");
+        assertThat(updated.getPhone()).isEqualTo("15550001111");
+        assertThat(updated.getVersion()).isEqualTo(customer.getVersion() + 2);
+        assertThat(customerService.getUpdateRetries()).isGreaterThan(retriesBefore);
+    }
+
+    @Test
+    void concurrentUpdateOfSameField_isAConflict() throws Exception {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+
+        CompletableFuture<Void> concurrentWriter = updateConcurrently(customer.getId(), "first_name", "Winner");
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setFirstName("Loser");
+        assertThatThrownBy(() -> customerService.updateCustomer(customer.getId(), update))
+                .isInstanceOf(CustomerUpdateConflictException.class);
+        concurrentWriter.get(5, TimeUnit.SECONDS);
+
+        assertThat(customerService.getCustomerById(customer.getId()).getFirstName()).isEqualTo("Winner");
+    }
+
+    /**
+     * Updates one column in a transaction that holds the row lock for a moment, so the
+     * service reads the old version and then has to wait for this commit.
+     */
+    private CompletableFuture<Void> updateConcurrently(Long id, String column, String value) throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "UPDATE customers SET " + column + " = ?, version = version + 1 WHERE id = ?")) {
+                    statement.setString(1, value);
+                    statement.setLong(2, id);
+                    statement.executeUpdate();
+                }
+                locked.countDown();
+                Thread.sleep(300);
+                connection.commit();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+        return writer;
+    }
+
+    private static CustomerRequestDTO newCustomer() {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Olivia");
+        request.setLastName("Optimistic");
+        request.setEmail("olivia." + UUID.randomUUID() + "@example.com");
+        return request;
+    }
+}
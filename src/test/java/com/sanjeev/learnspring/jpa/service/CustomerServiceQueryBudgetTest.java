@@ -0,0 +1,139 @@
+package com.sanjeev.learnspring.jpa.service;
+
+import com.sanjeev.learnspring.jpa.cache.CustomerRecordStore;
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerUpdateDTO;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.exception.CustomerNotFoundException;
+import com.sanjeev.learnspring.jpa.exception.CustomerVersionMismatchException;
+import com.sanjeev.learnspring.jpa.exception.DuplicateEmailException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+
+import static com.sanjeev.learnspring.jpa.sql.SqlStatementAssertions.assertStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Statement budgets of the CustomerService operations. A failing budget means an
+ * operation gained or lost a round-trip; lower the number when one is removed on purpose.
+ */
+@SpringBootTest
+class CustomerServiceQueryBudgetTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRecordStore recordStore;
+
+    @Test
+    void reads_takeOneStatement() throws InterruptedException {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+
+        // Served by the record store once it has loaded
+        awaitRecordStore();
+        assertStatements(0, () -> customerService.getCustomerById(customer.getId()));
+        assertStatements(0, () -> customerService.getCustomerByEmail(customer.getEmail()));
+        assertStatements(1, () -> customerService.getAllCustomers());
+        assertStatements(1, () -> customerService.getCustomersByCity("Budgetville"));
+        assertStatements(1, () -> customerService.searchCustomers("budget"));
+        assertStatements(1, () -> customerService.getActiveCustomerCount());
+    }
+
+    @Test
+    void create_insertsCustomerAndOutboxEntry() {
+        // customer insert, outbox insert; the unique constraint checks the email
+        assertStatements(2, () -> customerService.createCustomer(newCustomer()));
+    }
+
+    @Test
+    void create_withTakenEmail_failsOnTheConstraint() {
+        CustomerRequestDTO first = newCustomer();
+        customerService.createCustomer(first);
+        CustomerRequestDTO second = newCustomer();
+        second.setEmail(first.getEmail());
+
+        assertThatThrownBy(() -> customerService.createCustomer(second))
+                .isInstanceOf(DuplicateEmailException.class)
+                .hasMessageContaining(first.getEmail());
+    }
+
+    @Test
+    void update_readsThenWritesCustomerAndOutboxEntry() {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setCity("Budget Falls");
+        update.setEmail("bea." + UUID.randomUUID() + "@example.com");
+
+        // findById, customer update, outbox insert
+        assertStatements(3, () -> customerService.updateCustomer(customer.getId(), update));
+    }
+
+    @Test
+    void update_toTakenEmail_failsOnTheConstraint() {
+        CustomerResponseDTO taken = customerService.createCustomer(newCustomer());
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setEmail(taken.getEmail());
+
+        assertThatThrownBy(() -> customerService.updateCustomer(customer.getId(), update))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertThat(customerService.getCustomerById(customer.getId()).getEmail()).isEqualTo(customer.getEmail());
+    }
+
+    @Test
+    void statusChange_updatesAndReturnsRowInOneStatement() {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+
+        // UPDATE ... returning the row, outbox insert
+        CustomerResponseDTO suspended = assertStatements(2, () -> customerService.suspendCustomer(customer.getId()));
+
+        assertThat(suspended.getStatus()).isEqualTo("SUSPENDED");
+        assertThat(suspended.getVersion()).isEqualTo(customer.getVersion() + 1);
+        assertThat(customerService.getCustomerById(customer.getId()).getVersion()).isEqualTo(suspended.getVersion());
+    }
+
+    @Test
+    void statusChange_reportsMissingCustomerAndStaleVersion() {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+
+        assertThatThrownBy(() -> customerService.suspendCustomer(Long.MAX_VALUE))
+                .isInstanceOf(CustomerNotFoundException.class);
+        assertThatThrownBy(() -> customerService.updateCustomerStatus(customer.getId(),
+                Customer.CustomerStatus.INACTIVE, customer.getVersion() + 5))
+                .isInstanceOf(CustomerVersionMismatchException.class);
+        assertThat(customerService.getCustomerById(customer.getId()).getStatus()).isEqualTo("ACTIVE");
+    }
+
+    @Test
+    void delete_deletesAndWritesOutboxEntry() {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer());
+
+        // DELETE ... WHERE id = ?, outbox insert
+        assertStatements(2, () -> customerService.deleteCustomer(customer.getId()));
+        assertThatThrownBy(() -> customerService.deleteCustomer(customer.getId()))
+                .isInstanceOf(CustomerNotFoundException.class);
+    }
+
+    private void awaitRecordStore() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!recordStore.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(recordStore.isReady()).isTrue();
+    }
+
+    private static CustomerRequestDTO newCustomer() {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Bea");
+        request.setLastName("Budget");
+        request.setEmail("bea." + UUID.randomUUID() + "@example.com");
+        request.setCity("Budgetville");
+        return request;
+    }
+}
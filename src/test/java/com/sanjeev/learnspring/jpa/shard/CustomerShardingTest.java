@@ -0,0 +1,337 @@
+package com.sanjeev.learnspring.jpa.shard;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerUpdateDTO;
+import com.sanjeev.learnspring.jpa.entity.Customer;
+import com.sanjeev.learnspring.jpa.exception.DuplicateEmailException;
+import com.sanjeev.learnspring.jpa.maintenance.CustomerArchiver;
+import com.sanjeev.learnspring.jpa.maintenance.CustomerPurge;
+import com.sanjeev.learnspring.jpa.maintenance.SearchColumnBackfill;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Customers sharded over the primary database and two embedded H2 shards, with the
+ * maintenance jobs covering all of them.
+ */
+@SpringBootTest(properties = {
+        "app.database.sharding.enabled=true",
+        "app.database.sharding.shards=3",
+        "app.database.sharding.url-template=jdbc:h2:mem:sharding-test-%d;DB_CLOSE_DELAY=-1",
+        "app.database.sharding.id-block-size=10",
+        "app.database.sharding.rebalance-batch-size=4"
+})
+class CustomerShardingTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerShards shards;
+
+    @Autowired
+    private CustomerShardRebalancer rebalancer;
+
+    @Autowired
+    private ShardRoutingDataSource routing;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerArchiver archiver;
+
+    @Autowired
+    private CustomerPurge purge;
+
+    @Autowired
+    private SearchColumnBackfill backfill;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void ring_spreadsIdsAndAddingAShardOnlyTakesIdsOver() {
+        ShardRing three = new ShardRing(List.of("shard0", "shard1", "shard2"), 64);
+        ShardRing four = new ShardRing(List.of("shard0", "shard1", "shard2", "shard3"), 64);
+        int[] counts = new int[3];
+        int moved = 0;
+        for (long id = 1; id <= 30_000; id++) {
+            counts[three.shardOf(id)]++;
+            if (three.shardOf(id) != four.shardOf(id)) {
+                assertThat(four.shardOf(id)).isEqualTo(3);
+                moved++;
+            }
+        }
+        for (int count : counts) {
+            assertThat(count).isBetween(7_000, 13_000);
+        }
+        assertThat(moved).isBetween(4_000, 11_000);
+    }
+
+    @Test
+    void mergeSorted_mergesSortedParts() {
+        List<List<Integer>> parts = List.of(List.of(1, 4, 9), List.of(), List.of(2, 3, 10), List.of(5));
+
+        assertThat(CustomerShards.mergeSorted(parts, Comparator.naturalOrder())).containsExactly(1, 2, 3, 4, 5, 9, 10);
+    }
+
+    @Test
+    void customers_areSpreadOverShardsAndGatheredInIdOrder() {
+        List<CustomerResponseDTO> created = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            created.add(customerService.createCustomer(newCustomer("spread")));
+        }
+
+        for (CustomerResponseDTO customer : created) {
+            int shard = shards.shardOf(customer.getId());
+            assertThat(countOn(shard, "SELECT COUNT(*) FROM customers WHERE id = ?", customer.getId())).isEqualTo(1);
+            assertThat(customerService.getCustomerById(customer.getId()).getEmail()).isEqualTo(customer.getEmail());
+            assertThat(customerService.getCustomerByEmail(customer.getEmail()).getId()).isEqualTo(customer.getId());
+        }
+        assertThat(created).extracting(customer -> shards.shardOf(customer.getId())).contains(0, 1, 2);
+
+        List<CustomerResponseDTO> all = customerService.getAllCustomers();
+        assertThat(all).extracting(CustomerResponseDTO::getId).isSorted()
+                .containsAll(created.stream().map(CustomerResponseDTO::getId).toList());
+        long total = IntStream.range(0, 3).mapToLong(shard -> countOn(shard, "SELECT COUNT(*) FROM customers")).sum();
+        assertThat(customerService.getCustomerCount()).isEqualTo(total).isEqualTo(all.size());
+    }
+
+    @Test
+    void emails_areUniqueAcrossShards() {
+        CustomerResponseDTO first = customerService.createCustomer(newCustomer("unique"));
+        CustomerRequestDTO again = newCustomer("unique");
+        again.setEmail(first.getEmail());
+
+        assertThatThrownBy(() -> customerService.createCustomer(again)).isInstanceOf(DuplicateEmailException.class);
+
+        CustomerResponseDTO second = customerService.createCustomer(newCustomer("unique"));
+        CustomerUpdateDTO takeFirsts = new CustomerUpdateDTO();
+        takeFirsts.setEmail(first.getEmail());
+        assertThatThrownBy(() -> customerService.updateCustomer(second.getId(), takeFirsts))
+                .isInstanceOf(DuplicateEmailException.class);
+
+        // Changing an email frees the old one
+        String renamed = "renamed." + UUID.randomUUID() + "@example.com";
+        CustomerUpdateDTO rename = new CustomerUpdateDTO();
+        rename.setEmail(renamed);
+        customerService.updateCustomer(first.getId(), rename);
+        assertThat(customerService.getCustomerByEmail(renamed).getId()).isEqualTo(first.getId());
+        assertThat(customerService.updateCustomer(second.getId(), takeFirsts).getEmail()).isEqualTo(first.getEmail());
+
+        customerService.deleteCustomer(second.getId());
+        again.setEmail(first.getEmail());
+        assertThat(customerService.createCustomer(again).getEmail()).isEqualTo(first.getEmail());
+    }
+
+    @Test
+    void misplacedCustomers_areFoundAndRebalanced() throws InterruptedException {
+        List<CustomerResponseDTO> created = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            created.add(customerService.createCustomer(newCustomer("misplaced")));
+        }
+        // As if the ring had changed: every customer moves one shard along
+        for (CustomerResponseDTO customer : created) {
+            misplace(customer.getId());
+        }
+        shards.markUnsettled();
+
+        // Writes find a customer that isn't on its shard yet
+        CustomerResponseDTO first = created.get(0);
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setCity("Elsewhere");
+        assertThat(customerService.updateCustomer(first.getId(), update).getCity()).isEqualTo("Elsewhere");
+        assertThat(countOn(shards.shardOf(first.getId()), "SELECT COUNT(*) FROM customers WHERE id = ?",
+                first.getId())).isEqualTo(1);
+
+        rebalancer.rebalance();
+
+        assertThat(shards.isSettled()).isTrue();
+        for (CustomerResponseDTO customer : created) {
+            assertThat(countOn(shards.shardOf(customer.getId()), "SELECT COUNT(*) FROM customers WHERE id = ?",
+                    customer.getId())).isEqualTo(1);
+            long copies = IntStream.range(0, 3)
+                    .mapToLong(shard -> countOn(shard, "SELECT COUNT(*) FROM customers WHERE id = ?", customer.getId()))
+                    .sum();
+            assertThat(copies).isEqualTo(1);
+        }
+        assertThat((Long) rebalancer.getStatus().get("moved")).isGreaterThanOrEqualTo(created.size() - 1);
+    }
+
+    @Test
+    void outboxEntriesOfAllShards_areSequencedOnShardZero() throws InterruptedException {
+        // Other contexts reuse customer ids in the shared primary database; emails are unique
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            emails.add(customerService.createCustomer(newCustomer("outbox")).getEmail());
+        }
+
+        await(() -> emails.stream().allMatch(email -> countOn(0,
+                "SELECT COUNT(*) FROM customer_outbox WHERE payload LIKE ? AND seq IS NOT NULL", "%" + email + "%") == 1));
+        for (int shard = 1; shard < 3; shard++) {
+            assertThat(countOn(shard, "SELECT COUNT(*) FROM customer_outbox")).isZero();
+        }
+    }
+
+    @Test
+    void maintenanceJobs_coverEveryShard() throws Exception {
+        List<Long> deleted = new ArrayList<>();
+        List<Long> dormant = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            Long id = customerService.createCustomer(newCustomer("maintained")).getId();
+            (i % 3 == 0 ? deleted : dormant).add(id);
+        }
+        deleted.forEach(id -> customerService.updateCustomerStatus(id, Customer.CustomerStatus.DELETED, null));
+        dormant.forEach(id -> customerService.updateCustomerStatus(id, Customer.CustomerStatus.INACTIVE, null));
+        for (Long id : dormant) {
+            updateOn(shards.shardOf(id), "UPDATE customers SET updated_at = ?, full_name_folded = NULL WHERE id = ?",
+                    LocalDateTime.now().minusDays(365), id);
+        }
+        assertThat(dormant).extracting(shards::shardOf).contains(1, 2);
+
+        try {
+            assertThat(backfill.backfill()).isGreaterThanOrEqualTo(dormant.size());
+            for (Long id : dormant) {
+                assertThat(countOn(shards.shardOf(id),
+                        "SELECT COUNT(*) FROM customers WHERE id = ? AND full_name_folded IS NOT NULL", id)).isEqualTo(1);
+            }
+
+            archiver.archive();
+            for (Long id : dormant) {
+                assertThat(countOn(shards.shardOf(id), "SELECT COUNT(*) FROM customers_archive WHERE id = ?", id))
+                        .isEqualTo(1);
+                assertThat(customerService.getCustomerById(id).getStatus()).isEqualTo("INACTIVE");
+            }
+            Long revived = dormant.stream().filter(id -> shards.shardOf(id) != 0).findFirst().orElseThrow();
+            assertThat(customerService.activateCustomer(revived).getStatus()).isEqualTo("ACTIVE");
+            assertThat(countOn(shards.shardOf(revived), "SELECT COUNT(*) FROM customers WHERE id = ?", revived))
+                    .isEqualTo(1);
+
+            purge.purge(List.of(Customer.CustomerStatus.DELETED));
+            for (Long id : deleted) {
+                long left = IntStream.range(0, 3).mapToLong(shard ->
+                        countOn(shard, "SELECT COUNT(*) FROM customers WHERE id = ?", id)
+                                + countOn(shard, "SELECT COUNT(*) FROM customers_archive WHERE id = ?", id)).sum();
+                assertThat(left).isZero();
+            }
+        } finally {
+            // Shard 0 is the database other contexts share, and they may hand out the same ids
+            dormant.forEach(id -> updateOn(0, "DELETE FROM customers_archive WHERE id = ?", id));
+        }
+    }
+
+    @Test
+    void misplacedArchivedCustomers_areRebalanced() throws InterruptedException {
+        CustomerResponseDTO customer = customerService.createCustomer(newCustomer("archived"));
+        long id = customer.getId();
+        int owner = shards.shardOf(id);
+        int other = (owner + 1) % 3;
+        // Archived on the shard that owned it before the ring changed
+        updateOn(other, "INSERT INTO customers_archive (id, first_name, last_name, email, status, version, "
+                + "archived_at) VALUES (?, ?, ?, ?, 'INACTIVE', ?, LOCALTIMESTAMP)",
+                id, customer.getFirstName(), customer.getLastName(), customer.getEmail(), customer.getVersion());
+        updateOn(owner, "DELETE FROM customers WHERE id = ?", id);
+        shards.markUnsettled();
+
+        try {
+            rebalancer.rebalance();
+
+            assertThat(countOn(owner, "SELECT COUNT(*) FROM customers_archive WHERE id = ?", id)).isEqualTo(1);
+            assertThat(countOn(other, "SELECT COUNT(*) FROM customers_archive WHERE id = ?", id)).isZero();
+        } finally {
+            updateOn(owner, "DELETE FROM customers_archive WHERE id = ?", id);
+        }
+    }
+
+    @Test
+    void writesInATransactionThatAlreadyRead_stayOnItsShard() {
+        CustomerResponseDTO elsewhere = null;
+        while (elsewhere == null) {
+            CustomerResponseDTO created = customerService.createCustomer(newCustomer("elsewhere"));
+            if (shards.shardOf(created.getId()) != 0) {
+                elsewhere = created;
+            }
+        }
+        long otherId = elsewhere.getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // The first statement binds the transaction to shard 0
+        CustomerResponseDTO created = transaction.execute(status -> {
+            customerRepository.count();
+            for (int i = 0; i < 5; i++) {
+                assertThat(shards.shardOf(customerService.createCustomer(newCustomer("bound")).getId())).isZero();
+            }
+            return customerService.createCustomer(newCustomer("bound"));
+        });
+        assertThat(shards.shardOf(created.getId())).isZero();
+        assertThat(customerService.getCustomerById(created.getId()).getEmail()).isEqualTo(created.getEmail());
+
+        CustomerUpdateDTO update = new CustomerUpdateDTO();
+        update.setCity("Nowhere");
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> {
+            customerRepository.count();
+            customerService.updateCustomer(otherId, update);
+        })).isInstanceOf(IllegalStateException.class).hasMessageContaining("shard 0");
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> {
+            customerRepository.count();
+            customerService.deleteCustomer(otherId);
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(customerService.getCustomerById(otherId).getCity()).isNull();
+    }
+
+    private void misplace(long id) {
+        int owner = shards.shardOf(id);
+        int other = (owner + 1) % 3;
+        JdbcTemplate from = new JdbcTemplate(routing.getShard(owner));
+        List<Object[]> rows = from.query("SELECT id, first_name, last_name, email, status, version FROM customers "
+                + "WHERE id = ?", (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3),
+                rs.getString(4), rs.getString(5), rs.getLong(6)}, id);
+        new JdbcTemplate(routing.getShard(other)).update("INSERT INTO customers "
+                + "(id, first_name, last_name, email, status, version) VALUES (?, ?, ?, ?, ?, ?)", rows.get(0));
+        from.update("DELETE FROM customers WHERE id = ?", id);
+    }
+
+    private void updateOn(int shard, String sql, Object... args) {
+        new JdbcTemplate(routing.getShard(shard)).update(sql, args);
+    }
+
+    private long countOn(int shard, String sql, Object... args) {
+        Long count = new JdbcTemplate(routing.getShard(shard)).queryForObject(sql, Long.class, args);
+        return count == null ? 0 : count;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static CustomerRequestDTO newCustomer(String lastName) {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Shara");
+        request.setLastName(lastName);
+        request.setEmail("shara." + UUID.randomUUID() + "@example.com");
+        return request;
+    }
+}
@@ -0,0 +1,83 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Without the record store, so reads by email reach the database
+@SpringBootTest(properties = {
+        "app.sql-metrics.slow-query.threshold=0",
+        "app.sql-metrics.slow-query.log-parameters=true",
+        "app.customers.record-store.enabled=false"
+})
+class SlowQueryLogTest {
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Test
+    void fingerprint_replacesLiteralsAndNormalizesLayout() {
+        assertThat(SlowQueryLog.fingerprint("SELECT *  FROM customers\n WHERE id = 42 AND email = 'a@b.c'"))
+                .isEqualTo("select * from customers where id = ? and email = ?");
+        assertThat(SlowQueryLog.fingerprint("select c1_0.id from customers c1_0 where c1_0.id in (?, ?,?)"))
+                .isEqualTo(SlowQueryLog.fingerprint("select c1_0.id from customers c1_0 where c1_0.id in (7)"));
+        assertThat(SlowQueryLog.fingerprint("select 'it''s' from dual")).isEqualTo("select ? from dual");
+    }
+
+    @Test
+    void parameters_areMaskedToTheirTypesUnlessValuesAreLogged() {
+        Object[] parameters = {"someone@example.com", 42L, null};
+
+        assertThat(SlowQueryLog.render(parameters, false)).isEqualTo("[<String>, <Long>, NULL]");
+        assertThat(SlowQueryLog.render(parameters, true)).isEqualTo("['someone@example.com', 42, NULL]");
+    }
+
+    @Test
+    void statements_areLoggedWithParametersAndCallerAndRepeatsCounted() throws InterruptedException {
+        String email = "slow." + UUID.randomUUID() + "@example.com";
+        customerService.createCustomer(newCustomer(email));
+
+        String sql;
+        try (SqlStatementCounter counter = SqlStatementCounter.startCapturing()) {
+            customerService.getCustomerByEmail(email);
+            sql = counter.getSql().get(0);
+        }
+        long suppressed = (Long) slowQueryLog.getStatus().get("suppressed");
+        customerService.getCustomerByEmail(email);
+
+        awaitTrue(() -> (Long) slowQueryLog.getStatus().get("suppressed") > suppressed);
+        Map<String, Object> stats = slowQueryLog.getStats(sql);
+        assertThat(stats).isNotNull();
+        assertThat((Long) stats.get("count")).isGreaterThanOrEqualTo(2);
+        assertThat(stats.get("lastCaller")).isEqualTo("CustomerRepository.findByEmail");
+        assertThat((String) stats.get("lastParameters")).contains("'" + email + "'");
+        assertThat(slowQueryLog.getStatus().get("dropped")).isEqualTo(0L);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static CustomerRequestDTO newCustomer(String email) {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Sloane");
+        request.setLastName("Slow");
+        request.setEmail(email);
+        return request;
+    }
+}
@@ -0,0 +1,40 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import java.util.function.Supplier;
+
+/**
+ * Query budgets for tests: runs an action and fails unless it executed exactly the
+ * expected number of JDBC statements on the calling thread.
+ *
+ * <pre>
+ * CustomerResponseDTO customer = assertStatements(1, () -> customerService.getCustomerById(id));
+ * </pre>
+ *
+ * Needs a context with {@link StatementMetricsDataSource} (app.sql-metrics.enabled). The
+ * failure message lists the SQL that ran.
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static <T> T assertStatements(int expected, Supplier<T> action) {
+        try (SqlStatementCounter counter = SqlStatementCounter.startCapturing()) {
+            T result = action.get();
+            if (counter.getStatements() != expected) {
+                throw new AssertionError("Expected " + expected + " SQL statement(s) but " + counter.getStatements()
+                        + " ran:\n  " + String.join("\n  ", counter.getSql().stream()
+                        .map(sql -> sql == null ? "(unknown)" : sql.replaceAll("\\s+", " ").trim())
+                        .toList()));
+            }
+            return result;
+        }
+    }
+
+    public static void assertStatements(int expected, Runnable action) {
+        assertStatements(expected, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
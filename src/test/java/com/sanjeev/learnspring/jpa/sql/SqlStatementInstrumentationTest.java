@@ -0,0 +1,93 @@
+package com.sanjeev.learnspring.jpa.sql;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.repository.CustomerRepository;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.sql-metrics.response-headers=true")
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = {"ADMIN"})
+class SqlStatementInstrumentationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SqlStatementMetrics metrics;
+
+    @Test
+    void requestTotals_areSentAsHeadersAndRecordedPerMapping() throws Exception {
+        String surname = "Header" + UUID.randomUUID().toString().substring(0, 8);
+        customerService.createCustomer(newCustomer(surname));
+        customerService.createCustomer(newCustomer(surname));
+
+        mockMvc.perform(get("/api/customers/search").param("term", surname))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementFilter.STATEMENTS_HEADER, "1"))
+                .andExpect(header().string(SqlStatementFilter.ROWS_HEADER, "2"))
+                .andExpect(header().exists(SqlStatementFilter.TIME_HEADER));
+
+        assertThat(stats("requests", "GET /api/customers/search")).containsKey("calls");
+    }
+
+    @Test
+    void repositoryCalls_areRecordedPerMethod() {
+        long before = count("repositoryMethods", "save", "calls");
+        customerService.createCustomer(newCustomer("Repo"));
+
+        assertThat(count("repositoryMethods", "save", "calls")).isEqualTo(before + 1);
+        assertThat(count("repositoryMethods", "save", "statements")).isPositive();
+    }
+
+    @Test
+    void counters_nestAndCountRowsRead() {
+        long customers = customerRepository.count();
+        try (SqlStatementCounter outer = SqlStatementCounter.start()) {
+            try (SqlStatementCounter inner = SqlStatementCounter.start()) {
+                customerService.getAllCustomers();
+                assertThat(inner.getStatements()).isEqualTo(1);
+                assertThat(inner.getRows()).isGreaterThanOrEqualTo(customers);
+            }
+            customerService.getCustomerCount();
+            assertThat(outer.getStatements()).isEqualTo(2);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(String group, String key) {
+        Map<String, Object> entries = (Map<String, Object>) metrics.getMetrics().get(group);
+        return (Map<String, Object>) entries.getOrDefault(key, Map.of());
+    }
+
+    private long count(String group, String key, String field) {
+        return (Long) stats(group, key).getOrDefault(field, 0L);
+    }
+
+    private static CustomerRequestDTO newCustomer(String lastName) {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Ivo");
+        request.setLastName(lastName);
+        request.setEmail("ivo." + UUID.randomUUID() + "@example.com");
+        return request;
+    }
+}
@@ -0,0 +1,158 @@
+package com.sanjeev.learnspring.lifecycle.scope;
+
+import com.sanjeev.learnspring.lifecycle.service.PrototypeService;
+import com.sanjeev.learnspring.lifecycle.service.PrototypeTrackerService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class PooledScopeTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private PrototypeTrackerService trackerService;
+
+    @Test
+    void pooledBean_isReusedAfterRelease() {
+        PrototypeService first = trackerService.borrowPooledInstance();
+        trackerService.releasePooledInstance(first);
+
+        PrototypeService second = trackerService.borrowPooledInstance();
+        trackerService.releasePooledInstance(second);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void pooledBean_concurrentBorrowsGetDistinctInstances() {
+        PrototypeService first = trackerService.borrowPooledInstance();
+        PrototypeService second = trackerService.borrowPooledInstance();
+        try {
+            assertThat(first).isNotSameAs(second);
+        } finally {
+            trackerService.releasePooledInstance(first);
+            trackerService.releasePooledInstance(second);
+        }
+    }
+
+    @Test
+    void byTypeLookup_stillReturnsPlainPrototype() {
+        PrototypeService proto1 = context.getBean(PrototypeService.class);
+        PrototypeService proto2 = context.getBean(PrototypeService.class);
+
+        assertThat(proto1).isNotSameAs(proto2);
+    }
+
+    @Test
+    void metrics_reportBorrowsAndReturns() {
+        PrototypeService pooled = trackerService.borrowPooledInstance();
+        trackerService.releasePooledInstance(pooled);
+
+        var metrics = trackerService.getPoolMetrics().get(PrototypeTrackerService.POOLED_BEAN_NAME);
+        assertThat(metrics).containsKeys("active", "idle", "created", "borrowed", "returned");
+        assertThat((long) metrics.get("borrowed")).isPositive();
+        assertThat(metrics.get("active")).isEqualTo(0);
+    }
+
+    @Test
+    void beanPool_throwsWhenExhaustedAndDestroysInvalidInstances() {
+        AtomicInteger destroyed = new AtomicInteger();
+        BeanPool pool = new BeanPool("test", 1, 0, 0, 10);
+        AtomicInteger valid = new AtomicInteger(1);
+        Poolable bean = new Poolable() {
+            @Override
+            public boolean validate() {
+                return valid.get() == 1;
+            }
+        };
+
+        Object borrowed = pool.borrow(() -> new BeanPool.Entry(bean, destroyed::incrementAndGet));
+        assertThatThrownBy(() -> pool.borrow(() -> new BeanPool.Entry(new Object(), null)))
+                .isInstanceOf(PoolExhaustedException.class);
+
+        pool.release(borrowed);
+        valid.set(0);
+        Object replacement = pool.borrow(() -> new BeanPool.Entry(new Object(), null));
+
+        assertThat(replacement).isNotSameAs(bean);
+        assertThat(destroyed.get()).isEqualTo(1);
+    }
+
+    @Test
+    void beanPool_evictsIdleInstances() {
+        AtomicInteger destroyed = new AtomicInteger();
+        BeanPool pool = new BeanPool("test", 4, 0, 0, 10);
+
+        Object bean = pool.borrow(() -> new BeanPool.Entry(new Object(), destroyed::incrementAndGet));
+        pool.release(bean);
+
+        assertThat(pool.evictIdle()).isEqualTo(1);
+        assertThat(destroyed.get()).isEqualTo(1);
+    }
+
+    /**
+     * Compares ApplicationContext.getBean for the prototype against a pool borrow/release.
+     * Run with: mvn test -Dtest=PooledScopeTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_getBeanVersusPoolBorrow() throws Exception {
+        int threads = 16;
+        int iterations = 20_000;
+
+        long prototypeNanos = runConcurrently(threads, iterations, () -> {
+            context.getBean(PrototypeService.class).getMessage();
+        });
+        long pooledNanos = runConcurrently(threads, iterations, () -> {
+            PrototypeService pooled = trackerService.borrowPooledInstance();
+            try {
+                pooled.getMessage();
+            } finally {
+                trackerService.releasePooledInstance(pooled);
+            }
+        });
+
+        long operations = (long) threads * iterations;
+        System.out.printf("getBean (prototype): %,d ops/s%n", operations * 1_000_000_000L / prototypeNanos);
+        System.out.printf("pool borrow/release: %,d ops/s%n", operations * 1_000_000_000L / pooledNanos);
+        System.out.println("pool metrics: " + trackerService.getPoolMetrics());
+    }
+
+    private long runConcurrently(int threads, int iterations, Runnable operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        operation.run();
+                    }
+                    return null;
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -7,6 +7,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -78,6 +84,42 @@ class LifecycleTest {
                 .contains(proto1.getInstanceId(), proto2.getInstanceId());
     }
 
+    @Test
+    void prototypeTrackerService_countsConcurrentCreationsWithBoundedHistory() throws Exception {
+        int initialCount = trackerService.getTotalInstancesCreated();
+        int threads = 8;
+        int perThread = 500;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    trackerService.createPrototypeInstance();
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // No lost updates, and history never grows past the ring capacity
+        assertThat(trackerService.getTotalInstancesCreated()).isEqualTo(initialCount + threads * perThread);
+        assertThat(trackerService.getTrackedInstances())
+                .hasSizeLessThanOrEqualTo(trackerService.getRecentCapacity());
+    }
+
+    @Test
+    void prototypeTrackerService_keepsOnlyTheLatestLapAfterTheRingWraps() {
+        PrototypeTrackerService tracker = new PrototypeTrackerService(context, null, 4, false);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            PrototypeService prototype = new PrototypeService();
+            tracker.track(prototype);
+            ids.add(prototype.getInstanceId());
+        }
+
+        assertThat(tracker.getTrackedInstances()).containsExactlyElementsOf(ids.subList(6, 10));
+    }
+
     @Test
     void lifecycleController_singletonReturnsConsistentData() {
         LifecycleController controller = context.getBean(LifecycleController.class);
@@ -0,0 +1,67 @@
+package com.sanjeev.learnspring.lifecycle.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test with lazy profile layered on the dev profile: only allowlisted beans are created during startup.
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "lazy"})
+class LazyStartupProfileTest {
+
+    @Autowired
+    private StartupTimelineRecorder recorder;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void lazyProfile_createsAllowlistedBeansEagerly() {
+        assertThat(recordedBeans()).contains("customerService", "customerController", "greetingController");
+    }
+
+    @Test
+    void lazyProfile_defersOtherBeansUntilFirstUse() {
+        assertThat(recordedBeans()).doesNotContain("configurationController");
+
+        context.getBean("configurationController");
+
+        assertThat(recordedBeans()).contains("configurationController");
+    }
+
+    @Test
+    void timeline_recordsCommandLineRunners() {
+        Map<String, Object> timeline = recorder.getTimeline();
+
+        assertThat(timeline.get("ready")).isEqualTo(true);
+        Map<?, ?> runners = (Map<?, ?>) timeline.get("commandLineRunners");
+        assertThat(runners.containsKey("DataInitializer")).isTrue();
+    }
+
+    @Test
+    void timeline_timesTheRefreshFromItsStartNotFromTheRecorder() {
+        Map<String, Object> timeline = recorder.getTimeline();
+
+        // The recorder is created during refresh, so every bean created at startup starts within it
+        double latestBeanStart = ((List<?>) timeline.get("beans")).stream()
+                .filter(bean -> Boolean.FALSE.equals(((Map<?, ?>) bean).get("lazy")))
+                .mapToDouble(bean -> ((Number) ((Map<?, ?>) bean).get("startOffsetMs")).doubleValue())
+                .max().orElse(0);
+        assertThat((Double) timeline.get("contextRefreshMs")).isGreaterThan(latestBeanStart);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> recordedBeans() {
+        List<Map<String, Object>> beans = (List<Map<String, Object>>) recorder.getTimeline().get("beans");
+        return beans.stream().map(bean -> (String) bean.get("bean")).toList();
+    }
+}
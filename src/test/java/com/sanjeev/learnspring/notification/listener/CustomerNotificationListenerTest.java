@@ -0,0 +1,55 @@
+package com.sanjeev.learnspring.notification.listener;
+
+import com.sanjeev.learnspring.jpa.dto.CustomerRequestDTO;
+import com.sanjeev.learnspring.jpa.dto.CustomerResponseDTO;
+import com.sanjeev.learnspring.jpa.service.CustomerService;
+import com.sanjeev.learnspring.notification.dto.Notification;
+import com.sanjeev.learnspring.notification.sender.NotificationSender;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "app.notification.linger-time=50")
+class CustomerNotificationListenerTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @SpyBean
+    private NotificationSender notificationSender;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void lifecycleChanges_areDeliveredAsNotifications() throws Exception {
+        CustomerRequestDTO request = new CustomerRequestDTO();
+        request.setFirstName("Nora");
+        request.setLastName("Notify");
+        request.setEmail("nora.notify@example.com");
+        CustomerResponseDTO created = customerService.createCustomer(request);
+        customerService.suspendCustomer(created.getId());
+        customerService.deactivateCustomer(created.getId());
+
+        ArgumentCaptor<List<Notification>> batches = ArgumentCaptor.forClass(List.class);
+        verify(notificationSender, timeout(5_000).atLeastOnce()).send(batches.capture());
+        // Give a batch split by the linger time a chance to arrive too
+        Thread.sleep(200);
+        verify(notificationSender, atLeastOnce()).send(batches.capture());
+
+        assertThat(batches.getAllValues().stream().flatMap(List::stream)
+                .filter(notification -> created.getId().equals(notification.getCustomerId()))
+                .map(Notification::getType)
+                .distinct())
+                .containsExactly(Notification.Type.CUSTOMER_CREATED,
+                        Notification.Type.CUSTOMER_SUSPENDED,
+                        Notification.Type.CUSTOMER_DEACTIVATED);
+    }
+}
@@ -0,0 +1,111 @@
+package com.sanjeev.learnspring.notification.service;
+
+import com.sanjeev.learnspring.notification.dto.Notification;
+import com.sanjeev.learnspring.notification.properties.NotificationProperties;
+import com.sanjeev.learnspring.notification.sender.NotificationSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationDispatcherTest {
+
+    private final List<List<Notification>> sentBatches = new CopyOnWriteArrayList<>();
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void stopDispatcher() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void fullBatches_areSentWithoutWaitingForLinger() throws Exception {
+        dispatcher = dispatcher(3, 100, 60_000, sentBatches::add);
+        for (long id = 1; id <= 6; id++) {
+            dispatcher.offer(notification(id));
+        }
+        dispatcher.start();
+
+        awaitDelivered(6);
+        assertThat(sentBatches).hasSize(2).allSatisfy(batch -> assertThat(batch).hasSize(3));
+    }
+
+    @Test
+    void partialBatch_isSentAfterLingerTime() throws Exception {
+        dispatcher = dispatcher(100, 100, 100, sentBatches::add);
+        dispatcher.start();
+
+        long start = System.nanoTime();
+        dispatcher.offer(notification(1));
+        dispatcher.offer(notification(2));
+        awaitDelivered(2);
+
+        assertThat(sentBatches).hasSize(1);
+        assertThat(sentBatches.get(0)).extracting(Notification::getCustomerId).containsExactly(1L, 2L);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void offer_dropsInsteadOfBlockingWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher = dispatcher(1, 2, 0, batch -> release.await());
+        dispatcher.start();
+        dispatcher.offer(notification(1));
+        // Wait until the dispatcher is stuck in the sender
+        while (dispatcher.getQueueDepth() > 0) {
+            Thread.sleep(5);
+        }
+
+        long start = System.nanoTime();
+        assertThat(dispatcher.offer(notification(2))).isTrue();
+        assertThat(dispatcher.offer(notification(3))).isTrue();
+        assertThat(dispatcher.offer(notification(4))).isFalse();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(100);
+        assertThat(dispatcher.getDropped()).isEqualTo(1);
+        assertThat(dispatcher.getMetrics()).containsEntry("queueHighWatermark", 2L);
+
+        release.countDown();
+        awaitDelivered(3);
+    }
+
+    @Test
+    void stop_flushesQueuedNotifications() {
+        dispatcher = dispatcher(2, 100, 60_000, sentBatches::add);
+        for (long id = 1; id <= 5; id++) {
+            dispatcher.offer(notification(id));
+        }
+
+        dispatcher.stop();
+
+        assertThat(dispatcher.getDelivered()).isEqualTo(5);
+        assertThat(sentBatches).hasSize(3);
+    }
+
+    private void awaitDelivered(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (dispatcher.getDelivered() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(dispatcher.getDelivered()).isEqualTo(expected);
+    }
+
+    private static NotificationDispatcher dispatcher(int batchSize, int capacity, long lingerMillis,
+                                                     NotificationSender sender) {
+        NotificationProperties properties = new NotificationProperties();
+        properties.setBatchSize(batchSize);
+        properties.setQueueCapacity(capacity);
+        properties.setLingerTime(lingerMillis);
+        return new NotificationDispatcher(sender, properties);
+    }
+
+    private static Notification notification(long customerId) {
+        return new Notification(customerId, Notification.Type.CUSTOMER_CREATED, "admin@example.com");
+    }
+}